@@ -291,6 +291,8 @@ public class CatalogUtil {
       return StoreType.JSON;
     } else if (typeStr.equalsIgnoreCase(StoreType.HBASE.name())) {
       return StoreType.HBASE;
+    } else if (typeStr.equalsIgnoreCase(StoreType.CFILE.name())) {
+      return StoreType.CFILE;
     } else {
       return null;
     }
@@ -854,6 +856,8 @@ public class CatalogUtil {
       options.set(COMPRESSION, StorageConstants.PARQUET_DEFAULT_COMPRESSION_CODEC_NAME);
       options.set(ENABLE_DICTIONARY, StorageConstants.PARQUET_DEFAULT_IS_DICTIONARY_ENABLED);
       options.set(VALIDATION, StorageConstants.PARQUET_DEFAULT_IS_VALIDATION_ENABLED);
+    } else if (type == StoreType.CFILE) {
+      options.set(StorageConstants.CFILE_STRIPE_SIZE, StorageConstants.CFILE_DEFAULT_STRIPE_SIZE);
     }
 
     return options;
@@ -42,6 +42,11 @@ public class TableStats implements ProtoObject<TableStatsProto>, Cloneable, Gson
   @Expose private Integer numShuffleOutputs = null; // optional
   @Expose private Long avgRows = null; // optional
   @Expose private Long readBytes = null; //optional
+  @Expose private Long memoryBytes = null; //optional
+  @Expose private Integer numSpills = null; //optional
+  @Expose private Long spilledBytes = null; //optional
+  @Expose private Integer numSkippedBlocks = null; //optional
+  @Expose private Long skippedBytes = null; //optional
   @Expose private List<ColumnStats> columnStatses = null; // repeated
 
   public TableStats() {
@@ -55,6 +60,11 @@ public class TableStats implements ProtoObject<TableStatsProto>, Cloneable, Gson
     numShuffleOutputs = 0;
     avgRows = 0l;
     readBytes = 0l;
+    memoryBytes = 0l;
+    numSpills = 0;
+    spilledBytes = 0l;
+    numSkippedBlocks = 0;
+    skippedBytes = 0l;
     columnStatses = TUtil.newList();
   }
 
@@ -82,6 +92,31 @@ public class TableStats implements ProtoObject<TableStatsProto>, Cloneable, Gson
     } else {
       this.readBytes = 0l;
     }
+    if (proto.hasMemoryBytes()) {
+      this.memoryBytes = proto.getMemoryBytes();
+    } else {
+      this.memoryBytes = 0l;
+    }
+    if (proto.hasNumSpills()) {
+      this.numSpills = proto.getNumSpills();
+    } else {
+      this.numSpills = 0;
+    }
+    if (proto.hasSpilledBytes()) {
+      this.spilledBytes = proto.getSpilledBytes();
+    } else {
+      this.spilledBytes = 0l;
+    }
+    if (proto.hasNumSkippedBlocks()) {
+      this.numSkippedBlocks = proto.getNumSkippedBlocks();
+    } else {
+      this.numSkippedBlocks = 0;
+    }
+    if (proto.hasSkippedBytes()) {
+      this.skippedBytes = proto.getSkippedBytes();
+    } else {
+      this.skippedBytes = 0l;
+    }
 
     this.columnStatses = TUtil.newList();
     for (CatalogProtos.ColumnStatsProto colProto : proto.getColStatList()) {
@@ -140,6 +175,56 @@ public class TableStats implements ProtoObject<TableStatsProto>, Cloneable, Gson
     this.readBytes = readBytes;
   }
 
+  public Long getMemoryBytes() {
+    return memoryBytes;
+  }
+
+  /**
+   * Sets the bytes of memory which an operator holds for its in-memory data structures (e.g., hash tables).
+   */
+  public void setMemoryBytes(long memoryBytes) {
+    this.memoryBytes = memoryBytes;
+  }
+
+  public Integer getNumSpills() {
+    return numSpills;
+  }
+
+  /**
+   * Sets the number of spill files which an operator writes to local disks when its input exceeds memory.
+   */
+  public void setNumSpills(int numSpills) {
+    this.numSpills = numSpills;
+  }
+
+  public Long getSpilledBytes() {
+    return spilledBytes;
+  }
+
+  public void setSpilledBytes(long spilledBytes) {
+    this.spilledBytes = spilledBytes;
+  }
+
+  public Integer getNumSkippedBlocks() {
+    return numSkippedBlocks;
+  }
+
+  /**
+   * Sets the number of blocks (e.g., Parquet row groups) which a scanner skips without reading
+   * because no row in them can satisfy the search condition.
+   */
+  public void setNumSkippedBlocks(int numSkippedBlocks) {
+    this.numSkippedBlocks = numSkippedBlocks;
+  }
+
+  public Long getSkippedBytes() {
+    return skippedBytes;
+  }
+
+  public void setSkippedBytes(long skippedBytes) {
+    this.skippedBytes = skippedBytes;
+  }
+
   public List<ColumnStats> getColumnStats() {
     return this.columnStatses;
   }
@@ -162,6 +247,11 @@ public class TableStats implements ProtoObject<TableStatsProto>, Cloneable, Gson
       eq = eq && TUtil.checkEquals(this.numShuffleOutputs, other.numShuffleOutputs);
       eq = eq && TUtil.checkEquals(this.avgRows, other.avgRows);
       eq = eq && TUtil.checkEquals(this.readBytes, other.readBytes);
+      eq = eq && TUtil.checkEquals(this.memoryBytes, other.memoryBytes);
+      eq = eq && TUtil.checkEquals(this.numSpills, other.numSpills);
+      eq = eq && TUtil.checkEquals(this.spilledBytes, other.spilledBytes);
+      eq = eq && TUtil.checkEquals(this.numSkippedBlocks, other.numSkippedBlocks);
+      eq = eq && TUtil.checkEquals(this.skippedBytes, other.skippedBytes);
       eq = eq && TUtil.checkEquals(this.columnStatses, other.columnStatses);
       return eq;
     } else {
@@ -182,6 +272,11 @@ public class TableStats implements ProtoObject<TableStatsProto>, Cloneable, Gson
     stat.numShuffleOutputs = numShuffleOutputs != null ? numShuffleOutputs : null;
     stat.avgRows = avgRows != null ? avgRows : null;
     stat.readBytes = readBytes != null ? readBytes : null;
+    stat.memoryBytes = memoryBytes != null ? memoryBytes : null;
+    stat.numSpills = numSpills != null ? numSpills : null;
+    stat.spilledBytes = spilledBytes != null ? spilledBytes : null;
+    stat.numSkippedBlocks = numSkippedBlocks != null ? numSkippedBlocks : null;
+    stat.skippedBytes = skippedBytes != null ? skippedBytes : null;
 
     stat.columnStatses = new ArrayList<ColumnStats>(this.columnStatses);
 
@@ -211,6 +306,21 @@ public class TableStats implements ProtoObject<TableStatsProto>, Cloneable, Gson
     if (stat.readBytes != null) {
       readBytes += stat.readBytes;
     }
+    if (stat.memoryBytes != null) {
+      memoryBytes += stat.memoryBytes;
+    }
+    if (stat.numSpills != null) {
+      numSpills += stat.numSpills;
+    }
+    if (stat.spilledBytes != null) {
+      spilledBytes += stat.spilledBytes;
+    }
+    if (stat.numSkippedBlocks != null) {
+      numSkippedBlocks += stat.numSkippedBlocks;
+    }
+    if (stat.skippedBytes != null) {
+      skippedBytes += stat.skippedBytes;
+    }
   }
 
   public void setValues(TableStats stat) {
@@ -224,6 +334,11 @@ public class TableStats implements ProtoObject<TableStatsProto>, Cloneable, Gson
     numShuffleOutputs = stat.numShuffleOutputs != null ? stat.numShuffleOutputs : 0;
     avgRows = stat.avgRows != null ? stat.avgRows : 0;
     readBytes = stat.readBytes != null ? stat.readBytes : 0;
+    memoryBytes = stat.memoryBytes != null ? stat.memoryBytes : 0;
+    numSpills = stat.numSpills != null ? stat.numSpills : 0;
+    spilledBytes = stat.spilledBytes != null ? stat.spilledBytes : 0;
+    numSkippedBlocks = stat.numSkippedBlocks != null ? stat.numSkippedBlocks : 0;
+    skippedBytes = stat.skippedBytes != null ? stat.skippedBytes : 0;
   }
 
   public String toString() {
@@ -255,6 +370,21 @@ public class TableStats implements ProtoObject<TableStatsProto>, Cloneable, Gson
     if (this.readBytes != null) {
       builder.setReadBytes(this.readBytes);
     }
+    if (this.memoryBytes != null) {
+      builder.setMemoryBytes(this.memoryBytes);
+    }
+    if (this.numSpills != null) {
+      builder.setNumSpills(this.numSpills);
+    }
+    if (this.spilledBytes != null) {
+      builder.setSpilledBytes(this.spilledBytes);
+    }
+    if (this.numSkippedBlocks != null) {
+      builder.setNumSkippedBlocks(this.numSkippedBlocks);
+    }
+    if (this.skippedBytes != null) {
+      builder.setSkippedBytes(this.skippedBytes);
+    }
     if (this.columnStatses != null) {
       for (ColumnStats colStat : columnStatses) {
         builder.addColStat(colStat.getProto());
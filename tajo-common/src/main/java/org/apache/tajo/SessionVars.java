@@ -86,6 +86,12 @@ public enum SessionVars implements ConfigKey {
   LC_TIME(ConfVars.$EMPTY, "Formatting of dates and times", FROM_SHELL_ENV),
 
 
+  // Query Scheduling ---------------------------------------------------------
+  QUERY_QUEUE(ConfVars.$QUERY_SCHEDULER_QUEUE, "the scheduler queue to which queries are submitted", DEFAULT),
+  QUERY_PRIORITY(ConfVars.$QUERY_SCHEDULER_PRIORITY,
+      "the priority of queries in a scheduler queue (a smaller value is scheduled first)", DEFAULT,
+      Integer.class, Validators.min("0")),
+
   // Query and Optimization ---------------------------------------------------
 
   // for distributed query strategies
@@ -103,9 +109,21 @@ public enum SessionVars implements ConfigKey {
       Integer.class, Validators.min("1")),
   TABLE_PARTITION_PER_SHUFFLE_SIZE(ConfVars.$DIST_QUERY_TABLE_PARTITION_VOLUME,
       "shuffle output size for partition table write (mb)", DEFAULT, Long.class, Validators.min("1")),
+  JOIN_SKEW_SPLIT_ENABLED(ConfVars.$DIST_QUERY_JOIN_SKEW_SPLIT_ENABLED,
+      "splitting skewed partitions of repartition join into several tasks enabled", DEFAULT, Boolean.class,
+      Validators.bool()),
+  JOIN_SKEW_FACTOR(ConfVars.$DIST_QUERY_JOIN_SKEW_FACTOR,
+      "a join partition larger than this factor times the median partition is regarded as skewed", DEFAULT,
+      Integer.class, Validators.min("1")),
 
   GROUPBY_MULTI_LEVEL_ENABLED(ConfVars.$GROUPBY_MULTI_LEVEL_ENABLED, "Multiple level groupby enabled", DEFAULT,
       Boolean.class, Validators.bool()),
+  GROUPBY_ADAPTIVE_PARTITION_ENABLED(ConfVars.$DIST_QUERY_GROUPBY_ADAPTIVE_PARTITION_ENABLED,
+      "coalescing small shuffle partitions of group by into tasks of group by task input size enabled", DEFAULT,
+      Boolean.class, Validators.bool()),
+  GROUPBY_OVER_PARTITION_FACTOR(ConfVars.$DIST_QUERY_GROUPBY_OVER_PARTITION_FACTOR,
+      "the factor by which the shuffle of group by is over-partitioned for coalescing", DEFAULT, Integer.class,
+      Validators.min("1")),
 
   // for physical Executors
   EXTSORT_BUFFER_SIZE(ConfVars.$EXECUTOR_EXTERNAL_SORT_BUFFER_SIZE, "sort buffer size for external sort (mb)", DEFAULT,
@@ -118,10 +136,24 @@ public enum SessionVars implements ConfigKey {
       DEFAULT, Long.class, Validators.min("0")),
   HASH_GROUPBY_SIZE_LIMIT(ConfVars.$EXECUTOR_GROUPBY_INMEMORY_HASH_THRESHOLD, "limited size for hash groupby (mb)",
       DEFAULT, Long.class, Validators.min("0")),
+  HYBRID_HASH_JOIN_BUFFER_SIZE(ConfVars.$EXECUTOR_HYBRID_HASH_JOIN_BUFFER_SIZE,
+      "memory budget for hybrid hash join (mb)", DEFAULT, Long.class, Validators.min("1")),
+  HASH_GROUPBY_BUFFER_SIZE(ConfVars.$EXECUTOR_HASH_GROUPBY_BUFFER_SIZE,
+      "memory budget for hash groupby before spilling partial aggregates (mb)", DEFAULT, Long.class,
+      Validators.min("1")),
+  HASH_GROUPBY_ACCUMULATOR_ENABLED(ConfVars.$EXECUTOR_HASH_GROUPBY_ACCUMULATOR_ENABLED,
+      "accumulating builtin aggregates of hash groupby into primitive arrays enabled", DEFAULT),
   MAX_OUTPUT_FILE_SIZE(ConfVars.$MAX_OUTPUT_FILE_SIZE, "Maximum per-output file size (mb). 0 means infinite.", DEFAULT,
       Long.class, Validators.min("0")),
   NULL_CHAR(ConfVars.$TEXT_NULL, "null char of text file output", DEFAULT),
   CODEGEN(ConfVars.$CODEGEN, "Runtime code generation enabled (experiment)", DEFAULT),
+  VECTORIZED_EXECUTION(ConfVars.$EXECUTOR_VECTORIZED_ENABLED,
+      "Vectorized execution of scans, filters and projections enabled (experiment)", DEFAULT),
+  SORT_SHUFFLE_WRITER_ENABLED(ConfVars.$SHUFFLE_SORT_WRITER_ENABLED,
+      "Sort-based hash shuffle writer, which writes a single indexed file per task, enabled", DEFAULT),
+  SORT_SHUFFLE_WRITER_BUFFER_SIZE(ConfVars.$SHUFFLE_SORT_WRITER_BUFFER_SIZE,
+      "memory budget for sort-based hash shuffle writer before spilling (mb)", DEFAULT, Long.class,
+      Validators.min("1")),
 
   // Behavior Control ---------------------------------------------------------
   ARITHABORT(ConfVars.$BEHAVIOR_ARITHMETIC_ABORT,
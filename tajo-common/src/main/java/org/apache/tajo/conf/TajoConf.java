@@ -168,6 +168,10 @@ public class TajoConf extends Configuration {
     WORKER_RESOURCE_AVAILABLE_MEMORY_MB("tajo.worker.resource.memory-mb", 1024, Validators.min("64")),
     WORKER_RESOURCE_AVAILABLE_DISKS("tajo.worker.resource.disks", 1.0f),
     WORKER_EXECUTION_MAX_SLOTS("tajo.worker.parallel-execution.max-num", 2),
+    // the number of task executor threads prestarted and kept alive across execution blocks per cpu core of a worker.
+    // It does not bound the number of running TaskRunners; more threads are created on demand.
+    WORKER_TASK_EXECUTOR_CORE_THREADS_PER_SLOT("tajo.worker.task-executor.core-threads-per-slot", 2,
+        Validators.min("1")),
     WORKER_RESOURCE_DFS_DIR_AWARE("tajo.worker.resource.dfs-dir-aware", false, Validators.bool()),
 
     // Tajo Worker Dedicated Resources
@@ -181,10 +185,24 @@ public class TajoConf extends Configuration {
 
     WORKER_HEARTBEAT_TIMEOUT("tajo.worker.heartbeat.timeout", 120 * 1000),  // 120 sec
 
+    // the max number of compiled expressions cached across queries in a worker (0 disables the cache)
+    WORKER_CODEGEN_CACHE_SIZE("tajo.worker.codegen.cache.max-entries", 1024, Validators.min("0")),
+
+    // the max memory of broadcast relations cached and shared by the tasks of a worker
+    WORKER_BROADCAST_CACHE_SIZE("tajo.worker.broadcast-cache.size-mb", 1024L, Validators.min("0")),
+
     // Resource Manager
     RESOURCE_MANAGER_CLASS("tajo.resource.manager", "org.apache.tajo.master.rm.TajoWorkerResourceManager",
         Validators.groups(Validators.notNull(), Validators.clazz())),
 
+    // Query Scheduler (FIFO or FAIR)
+    QUERY_SCHEDULER_MODE("tajo.master.scheduler.mode", "FIFO", Validators.patternMatch("^(?i)(FIFO|FAIR)$")),
+    // comma-separated queue names of the fair scheduler. Each queue can be configured by
+    // tajo.master.scheduler.fair.queue.<name>.{weight, max-running-queries, memory-share}
+    QUERY_SCHEDULER_FAIR_QUEUES("tajo.master.scheduler.fair.queues", "default"),
+    QUERY_SCHEDULER_FAIR_MAX_RUNNING_QUERIES("tajo.master.scheduler.fair.max-running-queries", 1,
+        Validators.min("1")),
+
     // Catalog
     CATALOG_ADDRESS("tajo.catalog.client-rpc.address", "localhost:26005", Validators.networkAddr()),
 
@@ -209,6 +227,12 @@ public class TajoConf extends Configuration {
     SHUFFLE_FETCHER_CHUNK_MAX_SIZE("tajo.shuffle.fetcher.chunk.max-size",  8192),
     SHUFFLE_FETCHER_READ_TIMEOUT("tajo.shuffle.fetcher.read.timeout-sec", 120),
     SHUFFLE_FETCHER_READ_RETRY_MAX_NUM("tajo.shuffle.fetcher.read.retry.max-num", 20),
+    SHUFFLE_FETCHER_BATCH_ENABLED("tajo.shuffle.fetcher.batch.enabled", true, Validators.bool()),
+    SHUFFLE_FETCHER_BATCH_MAX_REQUESTS("tajo.shuffle.fetcher.batch.max-requests", 128, Validators.min("1")),
+    SHUFFLE_FETCHER_PARALLEL_HOSTS("tajo.shuffle.fetcher.parallel-hosts", 2, Validators.min("1")),
+    // the memory budget of a task to keep fetched partitions in memory. 0 means that all of them are written to disk.
+    SHUFFLE_FETCHER_MEMORY_BUDGET("tajo.shuffle.fetcher.memory-budget-mb", 64, Validators.min("0")),
+    SHUFFLE_FETCHER_WORKER_MEMORY_LIMIT("tajo.shuffle.fetcher.worker.memory-limit-mb", 1024, Validators.min("0")),
     SHUFFLE_HASH_APPENDER_BUFFER_SIZE("tajo.shuffle.hash.appender.buffer.size", 10000),
     SHUFFLE_HASH_APPENDER_PAGE_VOLUME("tajo.shuffle.hash.appender.page.volumn-mb", 30),
     HASH_SHUFFLE_PARENT_DIRS("tajo.hash.shuffle.parent.dirs.count", 10),
@@ -254,6 +278,21 @@ public class TajoConf extends Configuration {
     TASK_DEFAULT_MEMORY("tajo.task.memory-slot-mb.default", 512),
     TASK_DEFAULT_DISK("tajo.task.disk-slot.default", 0.5f),
     TASK_DEFAULT_SIZE("tajo.task.size-mb", 128),
+    // the maximum number of tasks assigned to a task runner at a time
+    TASK_ASSIGNMENT_BATCH_SIZE("tajo.task.assignment.batch-size", 4, Validators.min("1")),
+    // how long a task runner waits for a host-local task before it takes a rack-local task (0 means no wait)
+    TASK_LOCALITY_WAIT_NODE("tajo.task.locality-wait.node-ms", 0L, Validators.min("0")),
+    // how long a task runner waits for a rack-local task before it takes a remote task (0 means no wait)
+    TASK_LOCALITY_WAIT_RACK("tajo.task.locality-wait.rack-ms", 0L, Validators.min("0")),
+    // speculative execution of straggler tasks
+    TASK_SPECULATIVE_ENABLED("tajo.task.speculative.enabled", false, Validators.bool()),
+    // a running task is a straggler if its progress rate is lower than this ratio of the median rate of its stage
+    TASK_SPECULATIVE_SLOW_TASK_RATIO("tajo.task.speculative.slow-task-ratio", 0.5f,
+        Validators.range("0.0f", "1.0f")),
+    // the maximum fraction of the tasks of a stage which are speculatively executed
+    TASK_SPECULATIVE_MAX_FRACTION("tajo.task.speculative.max-fraction", 0.1f, Validators.range("0.0f", "1.0f")),
+    // a running task is not speculated until it has run for this time
+    TASK_SPECULATIVE_MIN_RUNTIME("tajo.task.speculative.min-runtime-ms", 5000L, Validators.min("0")),
 
     // Query and Optimization -------------------------------------------------
     // This class provides a ordered list of logical plan rewrite rule classes.
@@ -266,6 +305,7 @@ public class TajoConf extends Configuration {
     EXECUTOR_EXTERNAL_SORT_FANOUT("tajo.executor.external-sort.fanout-num", 8),
 
     EXECUTOR_INNER_JOIN_INMEMORY_HASH_TABLE_SIZE("tajo.executor.join.inner.in-memory-table-num", (long)1000000),
+    EXECUTOR_HYBRID_HASH_JOIN_PARTITION_NUM("tajo.executor.join.hybrid-hash.partition-num", 32, Validators.min("2")),
 
     // Metrics ----------------------------------------------------------------
     METRICS_PROPERTY_FILENAME("tajo.metrics.property.file", "tajo-metrics.properties"),
@@ -312,9 +352,20 @@ public class TajoConf extends Configuration {
     $DIST_QUERY_JOIN_PARTITION_VOLUME("tajo.dist-query.join.partition-volume-mb", 128, Validators.min("1")),
     $DIST_QUERY_GROUPBY_PARTITION_VOLUME("tajo.dist-query.groupby.partition-volume-mb", 256, Validators.min("1")),
     $DIST_QUERY_TABLE_PARTITION_VOLUME("tajo.dist-query.table-partition.task-volume-mb", 256, Validators.min("1")),
+    // splits a join partition into several tasks if it is far larger than the median partition
+    $DIST_QUERY_JOIN_SKEW_SPLIT_ENABLED("tajo.dist-query.join.skew-split.enabled", false, Validators.bool()),
+    $DIST_QUERY_JOIN_SKEW_FACTOR("tajo.dist-query.join.skew-split.factor", 4, Validators.min("1")),
+    // over-partitions the hash shuffle of group-by, and coalesces small partitions by actual output volumes
+    $DIST_QUERY_GROUPBY_ADAPTIVE_PARTITION_ENABLED("tajo.dist-query.groupby.adaptive-partition.enabled", false,
+        Validators.bool()),
+    $DIST_QUERY_GROUPBY_OVER_PARTITION_FACTOR("tajo.dist-query.groupby.over-partition-factor", 4, Validators.min("1")),
 
     $GROUPBY_MULTI_LEVEL_ENABLED("tajo.dist-query.groupby.multi-level-aggr", true),
 
+    // for query scheduling
+    $QUERY_SCHEDULER_QUEUE("tajo.query.scheduler.queue", "default"),
+    $QUERY_SCHEDULER_PRIORITY("tajo.query.scheduler.priority", 1),
+
     // for physical Executors
     $EXECUTOR_EXTERNAL_SORT_BUFFER_SIZE("tajo.executor.external-sort.buffer-mb", 200L),
     $EXECUTOR_HASH_JOIN_SIZE_THRESHOLD("tajo.executor.join.common.in-memory-hash-threshold-bytes",
@@ -325,8 +376,14 @@ public class TajoConf extends Configuration {
         (long)256 * 1048576),
     $EXECUTOR_GROUPBY_INMEMORY_HASH_THRESHOLD("tajo.executor.groupby.in-memory-hash-threshold-bytes",
         (long)256 * 1048576),
+    $EXECUTOR_HYBRID_HASH_JOIN_BUFFER_SIZE("tajo.executor.join.hybrid-hash.buffer-mb", 256L),
+    $EXECUTOR_HASH_GROUPBY_BUFFER_SIZE("tajo.executor.groupby.hash.buffer-mb", 256L),
+    $EXECUTOR_HASH_GROUPBY_ACCUMULATOR_ENABLED("tajo.executor.groupby.hash.accumulator.enabled", true),
     $MAX_OUTPUT_FILE_SIZE("tajo.query.max-outfile-size-mb", 0), // zero means infinite
     $CODEGEN("tajo.executor.codegen.enabled", false), // Runtime code generation
+    $EXECUTOR_VECTORIZED_ENABLED("tajo.executor.vectorized.enabled", false), // row batch execution
+    $SHUFFLE_SORT_WRITER_ENABLED("tajo.shuffle.hash.sort-writer.enabled", false), // one indexed file per task
+    $SHUFFLE_SORT_WRITER_BUFFER_SIZE("tajo.shuffle.hash.sort-writer.buffer-mb", 64L),
 
     // Client -----------------------------------------------------------------
     $CLIENT_SESSION_EXPIRY_TIME("tajo.client.session.expiry-time-sec", 3600), // default time is one hour.
@@ -84,6 +84,21 @@ public class StorageConstants {
   public static final int DEFAULT_PAGE_SIZE = 1 * 1024 * 1024;
 
 
+  // CFile properties -------------------------------------------------
+  public static final String CFILE_STRIPE_SIZE = "cfile.stripe.size";
+  public static final String CFILE_DEFAULT_STRIPE_SIZE = Integer.toString(16 * 1024 * 1024);
+
+  // Raw file properties -------------------------------------------------
+  public static final String RAWFILE_ROW_FORMAT = "rawfile.row.format";
+  /** variable-length encoded fields with null flags */
+  public static final String RAWFILE_ROW_FORMAT_COMPACT = "compact";
+  /**
+   * the row layout of off-heap tuples in the native byte order, which is read without decoding.
+   * It is only for local files.
+   */
+  public static final String RAWFILE_ROW_FORMAT_UNSAFE = "unsafe";
+  public static final String DEFAULT_RAWFILE_ROW_FORMAT = RAWFILE_ROW_FORMAT_COMPACT;
+
   // Avro file properties -------------------------------------------------
   public static final String AVRO_SCHEMA_LITERAL = "avro.schema.literal";
   public static final String AVRO_SCHEMA_URL = "avro.schema.url";
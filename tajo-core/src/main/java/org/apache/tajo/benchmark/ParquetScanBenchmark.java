@@ -0,0 +1,219 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.benchmark;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.LocalFileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
+import org.apache.tajo.storage.parquet.ParquetColumnarReader;
+import org.apache.tajo.storage.parquet.TajoParquetReader;
+import org.apache.tajo.storage.parquet.TajoParquetWriter;
+import org.apache.tajo.storage.vector.RowBatch;
+import parquet.hadoop.metadata.CompressionCodecName;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * It compares the record-assembling Parquet reader ({@link TajoParquetReader}) with the columnar batch reader
+ * ({@link ParquetColumnarReader}) on the TPC-H lineitem table.
+ *
+ * Usage: ParquetScanBenchmark [lineitem.tbl] [row num] [iterations]
+ *
+ * If a lineitem.tbl generated by dbgen is not given, random rows of the lineitem schema are generated.
+ * Both all columns and the columns of TPC-H Q1 are read.
+ */
+public class ParquetScanBenchmark {
+  private static final String [] Q1_COLUMNS = new String[] {
+      "l_quantity", "l_extendedprice", "l_discount", "l_tax", "l_returnflag", "l_linestatus", "l_shipdate"};
+
+  private final Schema schema;
+  private final Path file;
+
+  public ParquetScanBenchmark(Path file) {
+    TPCH tpch = new TPCH();
+    tpch.loadSchemas();
+    this.schema = tpch.getSchema(TPCH.LINEITEM);
+    this.file = file;
+  }
+
+  private static Tuple parseRow(Schema schema, String line) {
+    String [] fields = line.split("\\|");
+    Tuple tuple = new VTuple(schema.size());
+    for (int i = 0; i < schema.size(); i++) {
+      switch (schema.getColumn(i).getDataType().getType()) {
+      case INT4:
+        tuple.put(i, DatumFactory.createInt4(Integer.parseInt(fields[i])));
+        break;
+      case FLOAT8:
+        tuple.put(i, DatumFactory.createFloat8(Double.parseDouble(fields[i])));
+        break;
+      default:
+        tuple.put(i, DatumFactory.createText(fields[i]));
+      }
+    }
+    return tuple;
+  }
+
+  private static Tuple randomRow(Schema schema, Random random, int rowId) {
+    String [] flags = new String[] {"A", "N", "R"};
+    String [] modes = new String[] {"AIR", "FOB", "MAIL", "RAIL", "REG AIR", "SHIP", "TRUCK"};
+    Tuple tuple = new VTuple(schema.size());
+    tuple.put(0, DatumFactory.createInt4(rowId / 4 + 1));
+    tuple.put(1, DatumFactory.createInt4(random.nextInt(200000) + 1));
+    tuple.put(2, DatumFactory.createInt4(random.nextInt(10000) + 1));
+    tuple.put(3, DatumFactory.createInt4(rowId % 4 + 1));
+    tuple.put(4, DatumFactory.createFloat8(random.nextInt(50) + 1));
+    tuple.put(5, DatumFactory.createFloat8(random.nextInt(10000000) / 100.0d));
+    tuple.put(6, DatumFactory.createFloat8(random.nextInt(11) / 100.0d));
+    tuple.put(7, DatumFactory.createFloat8(random.nextInt(9) / 100.0d));
+    tuple.put(8, DatumFactory.createText(flags[random.nextInt(flags.length)]));
+    tuple.put(9, DatumFactory.createText(random.nextBoolean() ? "O" : "F"));
+    for (int i = 10; i < 13; i++) {
+      tuple.put(i, DatumFactory.createText(String.format("199%d-%02d-%02d",
+          random.nextInt(8) + 2, random.nextInt(12) + 1, random.nextInt(28) + 1)));
+    }
+    tuple.put(13, DatumFactory.createText("DELIVER IN PERSON"));
+    tuple.put(14, DatumFactory.createText(modes[random.nextInt(modes.length)]));
+    tuple.put(15, DatumFactory.createText("comment of lineitem " + random.nextInt()));
+    return tuple;
+  }
+
+  public long write(File lineitem, int rowNum) throws IOException {
+    TajoParquetWriter writer = new TajoParquetWriter(file, schema, CompressionCodecName.UNCOMPRESSED,
+        TajoParquetWriter.DEFAULT_BLOCK_SIZE, TajoParquetWriter.DEFAULT_PAGE_SIZE);
+    long written = 0;
+    try {
+      if (lineitem != null) {
+        BufferedReader reader = new BufferedReader(new FileReader(lineitem));
+        try {
+          String line;
+          while (written < rowNum && (line = reader.readLine()) != null) {
+            writer.write(parseRow(schema, line));
+            written++;
+          }
+        } finally {
+          reader.close();
+        }
+      } else {
+        Random random = new Random(0);
+        for (; written < rowNum; written++) {
+          writer.write(randomRow(schema, random, (int) written));
+        }
+      }
+    } finally {
+      writer.close();
+    }
+    return written;
+  }
+
+  public long scanTuples(Column [] targets) throws IOException {
+    TajoParquetReader reader = new TajoParquetReader(file, schema, new Schema(targets));
+    long rows = 0;
+    try {
+      while (reader.read() != null) {
+        rows++;
+      }
+    } finally {
+      reader.close();
+    }
+    return rows;
+  }
+
+  public long scanBatches(Column [] targets) throws IOException {
+    int [] targetIds = new int[targets.length];
+    for (int i = 0; i < targets.length; i++) {
+      targetIds[i] = schema.getColumnId(targets[i].getQualifiedName());
+    }
+
+    ParquetColumnarReader reader = new ParquetColumnarReader(new Configuration(), file, schema, targets, null);
+    RowBatch batch = new RowBatch(schema, RowBatch.DEFAULT_SIZE, targetIds);
+    long rows = 0;
+    try {
+      while (true) {
+        batch.reset();
+        if (!reader.nextBatch(batch)) {
+          break;
+        }
+        rows += batch.size();
+      }
+    } finally {
+      reader.close();
+    }
+    return rows;
+  }
+
+  private void run(String name, Column [] targets, int iterations) throws IOException {
+    // warm up
+    scanTuples(targets);
+    scanBatches(targets);
+
+    long tupleNanos = 0;
+    long batchNanos = 0;
+    long rows = 0;
+    for (int i = 0; i < iterations; i++) {
+      long start = System.nanoTime();
+      rows = scanTuples(targets);
+      tupleNanos += System.nanoTime() - start;
+
+      start = System.nanoTime();
+      if (scanBatches(targets) != rows) {
+        throw new IllegalStateException("The numbers of rows are different");
+      }
+      batchNanos += System.nanoTime() - start;
+    }
+
+    System.out.println("====================================");
+    System.out.println("Columns: " + name + " (" + targets.length + " columns, " + rows + " rows)");
+    System.out.println("Record assembly: " + (tupleNanos / iterations / 1000000) + " ms");
+    System.out.println("Columnar batch: " + (batchNanos / iterations / 1000000) + " ms");
+    System.out.println("Speedup: " + String.format("%.2f", (double) tupleNanos / batchNanos));
+  }
+
+  public static void main(String [] args) throws Exception {
+    File lineitem = args.length > 0 && !args[0].equals("-") ? new File(args[0]) : null;
+    int rowNum = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+    int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+    File tmp = File.createTempFile("lineitem", ".parquet");
+    tmp.delete();
+    tmp.deleteOnExit();
+    Path file = LocalFileSystem.getLocal(new Configuration()).makeQualified(new Path(tmp.getPath()));
+
+    ParquetScanBenchmark benchmark = new ParquetScanBenchmark(file);
+    long written = benchmark.write(lineitem, rowNum);
+    System.out.println(written + " rows are written to " + file + " (" + tmp.length() + " bytes)");
+
+    Column [] q1Columns = new Column[Q1_COLUMNS.length];
+    for (int i = 0; i < Q1_COLUMNS.length; i++) {
+      q1Columns[i] = benchmark.schema.getColumn(Q1_COLUMNS[i]);
+    }
+    benchmark.run("all", benchmark.schema.toArray(), iterations);
+    benchmark.run("q1", q1Columns, iterations);
+    System.exit(0);
+  }
+}
@@ -0,0 +1,161 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.codegen;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.plan.expr.EvalNode;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A worker-level cache of the classes generated by {@link EvalCodeGenerator}.
+ *
+ * The same expressions are compiled again and again if the same query shapes are repeatedly submitted.
+ * This cache keeps the generated classes across queries, keyed by the canonical (JSON) forms of a schema and
+ * an expression. Each class is defined by its own {@link TajoClassLoader}, so an evicted class can be unloaded
+ * once all of its instances are released. Each lookup returns a new instance of the cached class.
+ */
+public class CompiledEvalCache {
+  private static final Log LOG = LogFactory.getLog(CompiledEvalCache.class);
+
+  private final Cache<String, CompiledClass> cache;
+
+  // statistics
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  private final AtomicLong compileTimeNanos = new AtomicLong();
+
+  public CompiledEvalCache(int maxEntries) {
+    cache = CacheBuilder.newBuilder()
+        .maximumSize(maxEntries)
+        .removalListener(new RemovalListener<String, CompiledClass>() {
+          @Override
+          public void onRemoval(RemovalNotification<String, CompiledClass> notification) {
+            if (notification.wasEvicted()) {
+              evictions.incrementAndGet();
+            }
+            notification.getValue().release();
+          }
+        })
+        .build();
+  }
+
+  /**
+   * It returns a compiled expression of the given expression. It generates a new class only if
+   * the same expression with the same schema has not been compiled yet.
+   *
+   * @throws CompilationError if the expression cannot be compiled
+   */
+  public EvalNode compile(final Schema schema, final EvalNode eval) throws CompilationError {
+    String key = getCanonicalKey(schema, eval);
+
+    CompiledClass compiled = cache.getIfPresent(key);
+    if (compiled != null) {
+      hits.incrementAndGet();
+    } else {
+      try {
+        compiled = cache.get(key, new Callable<CompiledClass>() {
+          @Override
+          public CompiledClass call() throws Exception {
+            misses.incrementAndGet();
+            return generate(schema, eval);
+          }
+        });
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof CompilationError) {
+          throw (CompilationError) e.getCause();
+        }
+        throw new CompilationError("Compilation Error: " + eval + " (" + e.getCause().getMessage() + ")");
+      }
+    }
+
+    return EvalCodeGenerator.newInstance(eval, compiled.constructor);
+  }
+
+  private CompiledClass generate(Schema schema, EvalNode eval) {
+    long start = System.nanoTime();
+    TajoClassLoader classLoader = new TajoClassLoader();
+    Constructor<? extends EvalNode> constructor = new EvalCodeGenerator(classLoader).compileClass(schema, eval);
+    compileTimeNanos.addAndGet(System.nanoTime() - start);
+    return new CompiledClass(classLoader, constructor);
+  }
+
+  static String getCanonicalKey(Schema schema, EvalNode eval) {
+    return (schema == null ? "" : schema.toJson()) + "\n" + eval.toJson();
+  }
+
+  public void clear() {
+    cache.invalidateAll();
+  }
+
+  public long size() {
+    return cache.size();
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  public long getCompileTimeMillis() {
+    return compileTimeNanos.get() / 1000000;
+  }
+
+  private static class CompiledClass {
+    private TajoClassLoader classLoader;
+    private final Constructor<? extends EvalNode> constructor;
+
+    CompiledClass(TajoClassLoader classLoader, Constructor<? extends EvalNode> constructor) {
+      this.classLoader = classLoader;
+      this.constructor = constructor;
+    }
+
+    /**
+     * It drops the reference to the class loader so that the class can be unloaded.
+     * Instances in use keep working until they are released.
+     */
+    void release() {
+      if (classLoader != null) {
+        try {
+          classLoader.clean();
+        } catch (Throwable t) {
+          LOG.warn(t);
+        }
+        classLoader = null;
+      }
+    }
+  }
+}
@@ -78,6 +78,26 @@ public class EvalCodeGenerator extends SimpleEvalNodeVisitor<EvalCodeGenContext>
   }
 
   public EvalNode compile(Schema schema, EvalNode expr) throws CompilationError {
+    Constructor<? extends EvalNode> constructor = compileClass(schema, expr);
+    return newInstance(expr, constructor);
+  }
+
+  public static EvalNode newInstance(EvalNode expr, Constructor<? extends EvalNode> constructor)
+      throws CompilationError {
+    try {
+      return constructor.newInstance();
+    } catch (Throwable t) {
+      throw new CompilationError("Compilation Error: cannot instantiate " + constructor.getDeclaringClass().getName()
+          + " for " + expr + " (" + t.getMessage() + ")");
+    }
+  }
+
+  /**
+   * It generates a class for the given expression, and returns the constructor of the class.
+   * Each instance created by the constructor is an independent compiled expression.
+   */
+  @SuppressWarnings("unchecked")
+  public Constructor<? extends EvalNode> compileClass(Schema schema, EvalNode expr) throws CompilationError {
 
     ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
 
@@ -89,16 +109,13 @@ public class EvalCodeGenerator extends SimpleEvalNodeVisitor<EvalCodeGenContext>
 
     Class aClass = classLoader.defineClass(className, classWriter.toByteArray());
 
-    Constructor constructor;
-    EvalNode compiledEval;
-
+    Constructor<? extends EvalNode> constructor;
     try {
       constructor = aClass.getConstructor();
-      compiledEval = (EvalNode) constructor.newInstance();
     } catch (Throwable t) {
       throw new CompilationError(expr, t, classWriter.toByteArray());
     }
-    return compiledEval;
+    return constructor;
   }
 
   private void printOut(EvalCodeGenContext context, String message) {
@@ -58,10 +58,21 @@ public class ExecutorPreCompiler extends BasicLogicalPlanVisitor<ExecutorPreComp
 
   public static class CompilationContext {
     private final EvalCodeGenerator compiler;
+    private final CompiledEvalCache cache;
     private Map<Pair<Schema,EvalNode>, EvalNode> compiledEval;
 
     public CompilationContext(TajoClassLoader classLoader) {
       this.compiler = new EvalCodeGenerator(classLoader);
+      this.cache = null;
+      this.compiledEval = Maps.newHashMap();
+    }
+
+    /**
+     * A compilation context reusing the classes generated by other queries.
+     */
+    public CompilationContext(CompiledEvalCache cache) {
+      this.compiler = null;
+      this.cache = cache;
       this.compiledEval = Maps.newHashMap();
     }
 
@@ -69,6 +80,14 @@ public class ExecutorPreCompiler extends BasicLogicalPlanVisitor<ExecutorPreComp
       return compiler;
     }
 
+    public EvalNode compile(Schema schema, EvalNode eval) throws CompilationError {
+      if (cache != null) {
+        return cache.compile(schema, eval);
+      } else {
+        return compiler.compile(schema, eval);
+      }
+    }
+
     public Map<Pair<Schema, EvalNode>, EvalNode> getPrecompiedEvals() {
       return compiledEval;
     }
@@ -78,7 +97,7 @@ public class ExecutorPreCompiler extends BasicLogicalPlanVisitor<ExecutorPreComp
     Pair<Schema, EvalNode> key = new Pair<Schema, EvalNode>(schema, eval);
     if (!context.compiledEval.containsKey(key)) {
       try {
-        EvalNode compiled = context.compiler.compile(schema, eval);
+        EvalNode compiled = context.compile(schema, eval);
         context.compiledEval.put(key, compiled);
 
       } catch (Throwable t) {
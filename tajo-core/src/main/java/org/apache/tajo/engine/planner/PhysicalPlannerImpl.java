@@ -91,6 +91,7 @@ public class PhysicalPlannerImpl implements PhysicalPlanner {
       if (execPlan instanceof StoreTableExec
           || execPlan instanceof RangeShuffleFileWriteExec
           || execPlan instanceof HashShuffleFileWriteExec
+          || execPlan instanceof SortShuffleFileWriteExec
           || execPlan instanceof ColPartitionStoreExec) {
         return execPlan;
       } else if (context.getDataChannel() != null) {
@@ -366,7 +367,8 @@ public class PhysicalPlannerImpl implements PhysicalPlanner {
           LOG.info("Join (" + plan.getPID() +") chooses [Sort Merge Join]");
           return createMergeInnerJoin(context, plan, leftExec, rightExec);
         case HYBRID_HASH_JOIN:
-
+          LOG.info("Join (" + plan.getPID() +") chooses [Hybrid Hash Join]");
+          return createHybridHashInnerJoin(context, plan, leftExec, rightExec);
         default:
           LOG.error("Invalid Inner Join Algorithm Enforcer: " + algorithm.name());
           LOG.error("Choose a fallback inner join algorithm: " + JoinAlgorithm.MERGE_JOIN.name());
@@ -429,10 +431,21 @@ public class PhysicalPlannerImpl implements PhysicalPlanner {
       PhysicalExec [] orderedChilds = switchJoinSidesIfNecessary(context, plan, leftExec, rightExec);
       return new HashJoinExec(context, plan, orderedChilds[1], orderedChilds[0]);
     } else {
-      return createMergeInnerJoin(context, plan, leftExec, rightExec);
+      // Hybrid hash join spills only the partitions exceeding its memory budget,
+      // so it is cheaper than sorting both relations for a merge join.
+      LOG.info("Join (" + plan.getPID() +") chooses [Hybrid Hash Join]");
+      return createHybridHashInnerJoin(context, plan, leftExec, rightExec);
     }
   }
 
+  private HybridHashJoinExec createHybridHashInnerJoin(TaskAttemptContext context, JoinNode plan,
+                                                       PhysicalExec leftExec, PhysicalExec rightExec)
+      throws IOException {
+    // returns two PhysicalExec. smaller one is 0, and larger one is 1.
+    PhysicalExec [] orderedChilds = switchJoinSidesIfNecessary(context, plan, leftExec, rightExec);
+    return new HybridHashJoinExec(context, plan, orderedChilds[1], orderedChilds[0]);
+  }
+
   private MergeJoinExec createMergeInnerJoin(TaskAttemptContext context, JoinNode plan,
                                              PhysicalExec leftExec, PhysicalExec rightExec) throws IOException {
     SortSpec[][] sortSpecs = PlannerUtil.getSortKeysFromJoinQual(
@@ -764,6 +777,10 @@ public class PhysicalPlannerImpl implements PhysicalPlanner {
     switch (plan.getShuffleType()) {
     case HASH_SHUFFLE:
     case SCATTERED_HASH_SHUFFLE:
+      if (ctx.getQueryContext().getBool(SessionVars.SORT_SHUFFLE_WRITER_ENABLED)
+          && SortShuffleFileWriteExec.isSupportedStoreType(plan)) {
+        return new SortShuffleFileWriteExec(ctx, plan, subOp);
+      }
       return new HashShuffleFileWriteExec(ctx, plan, subOp);
 
     case RANGE_SHUFFLE:
@@ -954,6 +971,11 @@ public class PhysicalPlannerImpl implements PhysicalPlanner {
 
   private PhysicalExec createInMemoryHashAggregation(TaskAttemptContext ctx,GroupbyNode groupbyNode, PhysicalExec subOp)
       throws IOException {
+    if (ctx.getQueryContext().getBool(SessionVars.HASH_GROUPBY_ACCUMULATOR_ENABLED)
+        && groupbyNode.hasAggFunctions() && GroupAccumulator.isSupported(groupbyNode.getAggFunctions())) {
+      LOG.info("The planner chooses [Hash Aggregation with Accumulators]");
+      return new AccumulatorHashAggregateExec(ctx, groupbyNode, subOp);
+    }
     LOG.info("The planner chooses [Hash Aggregation]");
     return new HashAggregateExec(ctx, groupbyNode, subOp);
   }
@@ -0,0 +1,208 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.tajo.engine.planner.PhysicalPlanningException;
+import org.apache.tajo.plan.function.FunctionContext;
+import org.apache.tajo.plan.logical.GroupbyNode;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
+import org.apache.tajo.util.FileUtil;
+import org.apache.tajo.util.SizeOf;
+import org.apache.tajo.util.TUtil;
+import org.apache.tajo.worker.TaskAttemptContext;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * A hash-based GroupBy Operator which keeps aggregation states in {@link GroupAccumulator}s.
+ *
+ * Each distinct grouping key is mapped to a group ordinal, and each aggregation function accumulates values into
+ * primitive arrays indexed by the ordinal. So, it does not create any {@link FunctionContext} per group.
+ * It is used only if all aggregation functions are supported by {@link GroupAccumulator}.
+ *
+ * If the memory budget is exceeded, the groups are converted to {@link FunctionContext}s and spilled
+ * like {@link HashAggregateExec}.
+ */
+public class AccumulatorHashAggregateExec extends HashAggregateExec {
+  private static final Log LOG = LogFactory.getLog(AccumulatorHashAggregateExec.class);
+
+  /** grouping key -> group ordinal */
+  private Map<Tuple, Integer> groupIds;
+  /** group ordinal -> grouping key */
+  private List<Tuple> groupKeys;
+  private final GroupAccumulator [] accumulators;
+  /** the estimated bytes of memory consumed by a group in accumulators */
+  private final long accumulatorBytesPerGroup;
+
+  private final Tuple keyTuple;
+  private final Tuple outTuple;
+  private boolean computed = false;
+  /** the ordinal of the next group to be returned */
+  private int cursor = 0;
+
+  public AccumulatorHashAggregateExec(TaskAttemptContext ctx, GroupbyNode plan, PhysicalExec subOp)
+      throws IOException {
+    super(ctx, plan, subOp, false);
+
+    groupIds = new HashMap<Tuple, Integer>(100000);
+    groupKeys = TUtil.newList();
+    accumulators = new GroupAccumulator[aggFunctionsNum];
+    for (int i = 0; i < aggFunctionsNum; i++) {
+      accumulators[i] = GroupAccumulator.create(aggFunctions[i]);
+      if (accumulators[i] == null) {
+        throw new PhysicalPlanningException("Unsupported aggregation function for accumulators: "
+            + aggFunctions[i].getName());
+      }
+    }
+    accumulatorBytesPerGroup = aggFunctionsNum * SizeOf.SIZE_OF_LONG * 2L;
+
+    keyTuple = new VTuple(groupingKeyNum);
+    outTuple = new VTuple(plan.getOutSchema().size());
+  }
+
+  private void compute() throws IOException {
+    Tuple tuple;
+    while(!context.isStopped() && (tuple = child.next()) != null) {
+      for (int i = 0; i < groupingKeyNum; i++) {
+        keyTuple.put(i, tuple.get(groupingKeyIds[i]));
+      }
+
+      Integer groupId = groupIds.get(keyTuple);
+      if (groupId == null) { // if the key occurs firstly
+        Tuple newKey = new VTuple(keyTuple);
+        groupId = groupKeys.size();
+        groupKeys.add(newKey);
+        groupIds.put(newKey, groupId);
+        memoryConsumption += AggregationSpiller.estimateGroupSize(newKey, 0) + accumulatorBytesPerGroup;
+      }
+
+      for (int i = 0; i < aggFunctionsNum; i++) {
+        accumulators[i].accumulate(groupId, inSchema, tuple);
+      }
+
+      if (groupingKeyNum > 0 && memoryConsumption > memoryBudget) {
+        info(LOG, "Memory consumption of hash groupby exceeds "
+            + FileUtil.humanReadableByteCount(memoryBudget, false));
+        spill();
+      }
+    }
+
+    // If it received no tuple and it does not have any grouping keys,
+    // it should return primitive values for NullDatum.
+    if (groupingKeyNum == 0 && aggFunctionsNum > 0 && groupKeys.isEmpty()) {
+      groupKeys.add(null);
+    }
+
+    // the remain groups are spilled too, so that all groups are merged in the order of grouping keys.
+    if (spiller != null && !groupKeys.isEmpty()) {
+      spill();
+    }
+  }
+
+  /**
+   * It converts the states of all groups into {@link FunctionContext}s, and spills them.
+   */
+  private void spill() throws IOException {
+    List<Entry<Tuple, FunctionContext []>> groups = TUtil.newList();
+    Tuple partialResult = new VTuple(1);
+    for (int groupId = 0; groupId < groupKeys.size(); groupId++) {
+      FunctionContext [] contexts = new FunctionContext[aggFunctionsNum];
+      for (int i = 0; i < aggFunctionsNum; i++) {
+        contexts[i] = aggFunctions[i].newContext();
+        partialResult.put(0, accumulators[i].getPartialResult(groupId));
+        aggFunctions[i].mergePartialResult(contexts[i], partialResult);
+      }
+      groups.add(new AbstractMap.SimpleEntry<Tuple, FunctionContext[]>(groupKeys.get(groupId), contexts));
+    }
+
+    getSpiller().spill(groups);
+
+    groupIds.clear();
+    groupKeys.clear();
+    for (GroupAccumulator accumulator : accumulators) {
+      accumulator.reset();
+    }
+    memoryConsumption = 0;
+  }
+
+  @Override
+  public Tuple next() throws IOException {
+    if (!computed) {
+      compute();
+      computed = true;
+    }
+
+    if (spiller != null) {
+      Entry<Tuple, FunctionContext []> entry = spiller.next();
+      if (entry == null) {
+        return null;
+      }
+
+      int tupleIdx = 0;
+      for (; tupleIdx < groupingKeyNum; tupleIdx++) {
+        outTuple.put(tupleIdx, entry.getKey().get(tupleIdx));
+      }
+      for (int funcIdx = 0; funcIdx < aggFunctionsNum; funcIdx++, tupleIdx++) {
+        outTuple.put(tupleIdx, aggFunctions[funcIdx].terminate(entry.getValue()[funcIdx]));
+      }
+      return outTuple;
+    }
+
+    if (cursor < groupKeys.size()) {
+      int groupId = cursor++;
+      Tuple groupKey = groupKeys.get(groupId);
+
+      int tupleIdx = 0;
+      for (; tupleIdx < groupingKeyNum; tupleIdx++) {
+        outTuple.put(tupleIdx, groupKey.get(tupleIdx));
+      }
+      for (int funcIdx = 0; funcIdx < aggFunctionsNum; funcIdx++, tupleIdx++) {
+        outTuple.put(tupleIdx, accumulators[funcIdx].getResult(groupId));
+      }
+      return outTuple;
+    } else {
+      return null;
+    }
+  }
+
+  @Override
+  public void rescan() throws IOException {
+    cursor = 0;
+    if (spiller != null) {
+      spiller.rescan();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    super.close();
+    groupIds.clear();
+    groupIds = null;
+    groupKeys.clear();
+    groupKeys = null;
+  }
+}
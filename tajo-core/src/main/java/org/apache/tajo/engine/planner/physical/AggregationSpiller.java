@@ -0,0 +1,294 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.fs.LocalDirAllocator;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RawLocalFileSystem;
+import org.apache.tajo.catalog.CatalogUtil;
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.SortSpec;
+import org.apache.tajo.catalog.TableMeta;
+import org.apache.tajo.catalog.proto.CatalogProtos.FragmentProto;
+import org.apache.tajo.catalog.proto.CatalogProtos.StoreType;
+import org.apache.tajo.catalog.statistics.TableStats;
+import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.apache.tajo.plan.LogicalPlan;
+import org.apache.tajo.plan.expr.AggregationFunctionCallEval;
+import org.apache.tajo.plan.function.FunctionContext;
+import org.apache.tajo.plan.logical.SortNode;
+import org.apache.tajo.storage.BaseTupleComparator;
+import org.apache.tajo.storage.MemoryUtil;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.TupleComparator;
+import org.apache.tajo.storage.VTuple;
+import org.apache.tajo.storage.fragment.FileFragment;
+import org.apache.tajo.util.FileUtil;
+import org.apache.tajo.util.TUtil;
+import org.apache.tajo.worker.TaskAttemptContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.Map.Entry;
+
+import static org.apache.tajo.storage.RawFile.RawFileAppender;
+
+/**
+ * It spills the groups of a hash aggregation into local disk, and merges them afterwards.
+ *
+ * Each spill sorts the given groups by their grouping keys, and then writes a sorted run consisting of the grouping
+ * keys and the partial results of the aggregation functions. After all input tuples are consumed, the sorted runs are
+ * merged by {@link ExternalSortExec}, and the partial results of the same grouping key are merged into new
+ * {@link FunctionContext}s. So, {@link #next()} returns the groups in an ascending order of grouping keys.
+ */
+public class AggregationSpiller {
+  private static final Log LOG = LogFactory.getLog(AggregationSpiller.class);
+
+  /** A rough estimation of the heap size of a FunctionContext */
+  private static final long FUNCTION_CONTEXT_SIZE = 64;
+  /** A rough estimation of the heap size of a hash table entry */
+  private static final long HASH_ENTRY_SIZE = 64;
+
+  private final TaskAttemptContext context;
+  private final AggregationFunctionCallEval [] aggFunctions;
+  private final int keyNum;
+  private final Schema spillSchema;
+  private final SortSpec [] sortSpecs;
+  private final TupleComparator keyComparator;
+  private final Comparator<Entry<Tuple, FunctionContext []>> entryComparator;
+  private final TableMeta meta;
+
+  /** temporal dir */
+  private final Path spillDir;
+  /** It enables round-robin disks allocation */
+  private final LocalDirAllocator localDirAllocator;
+  /** local file system */
+  private final RawLocalFileSystem localFS;
+  /** sorted runs */
+  private final List<FileFragment> runs = TUtil.newList();
+
+  /** It merges all sorted runs */
+  private ExternalSortExec merger;
+  /** the first tuple of the next group */
+  private Tuple pending;
+  private final Tuple partialResult = new VTuple(1);
+
+  // statistics
+  private int numSpills = 0;
+  private long spilledBytes = 0;
+
+  public AggregationSpiller(TaskAttemptContext context, Path spillDir, Schema inSchema, int [] keyIds,
+                            AggregationFunctionCallEval [] aggFunctions) {
+    this.context = context;
+    this.aggFunctions = aggFunctions;
+    this.keyNum = keyIds.length;
+
+    // | grouping key 1 | ... | grouping key N | partial result 1 | ... | partial result M |
+    spillSchema = new Schema();
+    sortSpecs = new SortSpec[keyNum];
+    for (int i = 0; i < keyNum; i++) {
+      Column column = new Column("?key_" + i, inSchema.getColumn(keyIds[i]).getDataType());
+      spillSchema.addColumn(column);
+      sortSpecs[i] = new SortSpec(column, true, false);
+    }
+    for (int i = 0; i < aggFunctions.length; i++) {
+      spillSchema.addColumn("?partial_" + i, aggFunctions[i].getPartialResultType());
+    }
+
+    // A grouping key tuple has the same layout of the prefix of the spill schema.
+    keyComparator = new BaseTupleComparator(spillSchema, sortSpecs);
+    entryComparator = new Comparator<Entry<Tuple, FunctionContext[]>>() {
+      @Override
+      public int compare(Entry<Tuple, FunctionContext[]> o1, Entry<Tuple, FunctionContext[]> o2) {
+        return keyComparator.compare(o1.getKey(), o2.getKey());
+      }
+    };
+    meta = CatalogUtil.newTableMeta(StoreType.RAW);
+
+    this.spillDir = spillDir;
+    this.localDirAllocator = new LocalDirAllocator(ConfVars.WORKER_TEMPORAL_DIR.varname);
+    this.localFS = new RawLocalFileSystem();
+  }
+
+  /**
+   * It estimates the heap memory consumed by a group in a hash table.
+   */
+  public static long estimateGroupSize(Tuple keyTuple, int aggFunctionsNum) {
+    return MemoryUtil.calculateMemorySize(keyTuple) + aggFunctionsNum * FUNCTION_CONTEXT_SIZE + HASH_ENTRY_SIZE;
+  }
+
+  /**
+   * It sorts the given groups by their grouping keys, and writes them into a sorted run.
+   * The caller should clear the groups after this call.
+   */
+  public void spill(Collection<Entry<Tuple, FunctionContext []>> groups) throws IOException {
+    if (merger != null) {
+      throw new IllegalStateException("Groups cannot be spilled after merge is started");
+    }
+
+    List<Entry<Tuple, FunctionContext []>> sorted = new ArrayList<Entry<Tuple, FunctionContext[]>>(groups);
+    long sortStart = System.currentTimeMillis();
+    Collections.sort(sorted, entryComparator);
+    long sortEnd = System.currentTimeMillis();
+
+    Path outputPath = localDirAllocator.getLocalPathForWrite(spillDir + "/groupby_" + runs.size(),
+        context.getConf());
+    RawFileAppender appender = new RawFileAppender(context.getConf(), null, spillSchema, meta, outputPath);
+    appender.init();
+
+    Tuple outTuple = new VTuple(spillSchema.size());
+    for (Entry<Tuple, FunctionContext []> entry : sorted) {
+      Tuple keyTuple = entry.getKey();
+      FunctionContext [] contexts = entry.getValue();
+      for (int i = 0; i < keyNum; i++) {
+        outTuple.put(i, keyTuple.get(i));
+      }
+      for (int i = 0; i < aggFunctions.length; i++) {
+        outTuple.put(keyNum + i, aggFunctions[i].getPartialResult(contexts[i]));
+      }
+      appender.addTuple(outTuple);
+    }
+    appender.close();
+    long writeEnd = System.currentTimeMillis();
+
+    File file = new File(localFS.makeQualified(outputPath).toUri());
+    runs.add(new FileFragment("groupby_" + runs.size(), outputPath, 0, file.length()));
+    numSpills++;
+    spilledBytes += appender.getOffset();
+
+    LOG.info("[" + context.getTaskId() + "] Groupby run #" + (runs.size() - 1) + " is spilled ("
+        + FileUtil.humanReadableByteCount(appender.getOffset(), false) + ", " + sorted.size() + " groups, "
+        + "sort time: " + (sortEnd - sortStart) + " msec, write time: " + (writeEnd - sortEnd) + " msec)");
+  }
+
+  public boolean hasSpilled() {
+    return numSpills > 0;
+  }
+
+  /**
+   * It returns the next group merged from all spilled runs.
+   *
+   * @return A pair of a grouping key and aggregation contexts. Null if there is no more group.
+   */
+  public Entry<Tuple, FunctionContext []> next() throws IOException {
+    if (merger == null) {
+      startMerge();
+    }
+
+    if (pending == null) {
+      Tuple tuple = merger.next();
+      if (tuple == null) {
+        return null;
+      }
+      pending = new VTuple(tuple);
+    }
+
+    Tuple keyTuple = new VTuple(keyNum);
+    for (int i = 0; i < keyNum; i++) {
+      keyTuple.put(i, pending.get(i));
+    }
+    FunctionContext [] contexts = new FunctionContext[aggFunctions.length];
+    for (int i = 0; i < aggFunctions.length; i++) {
+      contexts[i] = aggFunctions[i].newContext();
+    }
+
+    // merge all partial results of the same grouping key
+    Tuple tuple = pending;
+    do {
+      for (int i = 0; i < aggFunctions.length; i++) {
+        partialResult.put(0, tuple.get(keyNum + i));
+        aggFunctions[i].mergePartialResult(contexts[i], partialResult);
+      }
+
+      tuple = merger.next();
+    } while (tuple != null && keyComparator.compare(keyTuple, tuple) == 0);
+
+    pending = tuple == null ? null : new VTuple(tuple);
+    return new AbstractMap.SimpleEntry<Tuple, FunctionContext[]>(keyTuple, contexts);
+  }
+
+  private void startMerge() throws IOException {
+    SortNode sortNode = LogicalPlan.createNodeWithoutPID(SortNode.class);
+    sortNode.setSortSpecs(sortSpecs);
+    sortNode.setInSchema(spillSchema);
+    sortNode.setOutSchema(spillSchema);
+
+    FragmentProto [] fragments = new FragmentProto[runs.size()];
+    for (int i = 0; i < runs.size(); i++) {
+      fragments[i] = runs.get(i).getProto();
+    }
+
+    merger = new ExternalSortExec(context, sortNode, fragments);
+    merger.init();
+  }
+
+  /**
+   * It makes {@link #next()} start from the first group again.
+   */
+  public void rescan() throws IOException {
+    if (merger != null) {
+      merger.rescan();
+    }
+    pending = null;
+  }
+
+  public void close() throws IOException {
+    if (merger != null) {
+      merger.close();
+      merger = null;
+    }
+    pending = null;
+
+    for (FileFragment run : runs) {
+      localFS.delete(run.getPath(), true);
+    }
+    runs.clear();
+  }
+
+  public int getNumSpills() {
+    return numSpills;
+  }
+
+  public long getSpilledBytes() {
+    return spilledBytes;
+  }
+
+  /**
+   * It returns a copy of the given stats which includes the spill statistics.
+   */
+  public TableStats addSpillStats(TableStats stats) {
+    if (stats == null || !hasSpilled()) {
+      return stats;
+    }
+
+    try {
+      TableStats copy = (TableStats) stats.clone();
+      copy.setNumSpills(copy.getNumSpills() + numSpills);
+      copy.setSpilledBytes(copy.getSpilledBytes() + spilledBytes);
+      return copy;
+    } catch (CloneNotSupportedException e) {
+      LOG.warn(e.getMessage());
+      return stats;
+    }
+  }
+}
@@ -53,6 +53,8 @@ public class BasicPhysicalExecutorVisitor<CONTEXT, RESULT> implements PhysicalEx
       return visitLeftHashSemiJoin(context, (HashLeftSemiJoinExec) exec, stack);
     } else if (exec instanceof HashShuffleFileWriteExec) {
       return visitHashShuffleFileWrite(context, (HashShuffleFileWriteExec) exec, stack);
+    } else if (exec instanceof SortShuffleFileWriteExec) {
+      return visitSortShuffleFileWrite(context, (SortShuffleFileWriteExec) exec, stack);
     } else if (exec instanceof HavingExec) {
       return visitHaving(context, (HavingExec) exec, stack);
     } else if (exec instanceof LimitExec) {
@@ -177,6 +179,12 @@ public class BasicPhysicalExecutorVisitor<CONTEXT, RESULT> implements PhysicalEx
     return visitUnaryExecutor(context, exec, stack);
   }
 
+  @Override
+  public RESULT visitSortShuffleFileWrite(CONTEXT context, SortShuffleFileWriteExec exec, Stack<PhysicalExec> stack)
+      throws PhysicalPlanningException {
+    return visitUnaryExecutor(context, exec, stack);
+  }
+
   @Override
   public RESULT visitHaving(CONTEXT context, HavingExec exec, Stack<PhysicalExec> stack)
       throws PhysicalPlanningException {
@@ -92,11 +92,21 @@ public abstract class BinaryPhysicalExec extends PhysicalExec {
     inputStats.setNumBytes(0);
     inputStats.setReadBytes(0);
     inputStats.setNumRows(0);
+    inputStats.setMemoryBytes(0);
+    inputStats.setNumSpills(0);
+    inputStats.setSpilledBytes(0);
+    inputStats.setNumSkippedBlocks(0);
+    inputStats.setSkippedBytes(0);
 
     if (leftInputStats != null) {
       inputStats.setNumBytes(leftInputStats.getNumBytes());
       inputStats.setReadBytes(leftInputStats.getReadBytes());
       inputStats.setNumRows(leftInputStats.getNumRows());
+      inputStats.setMemoryBytes(leftInputStats.getMemoryBytes());
+      inputStats.setNumSpills(leftInputStats.getNumSpills());
+      inputStats.setSpilledBytes(leftInputStats.getSpilledBytes());
+      inputStats.setNumSkippedBlocks(leftInputStats.getNumSkippedBlocks());
+      inputStats.setSkippedBytes(leftInputStats.getSkippedBytes());
     }
 
     TableStats rightInputStats = rightChild.getInputStats();
@@ -104,6 +114,11 @@ public abstract class BinaryPhysicalExec extends PhysicalExec {
       inputStats.setNumBytes(inputStats.getNumBytes() + rightInputStats.getNumBytes());
       inputStats.setReadBytes(inputStats.getReadBytes() + rightInputStats.getReadBytes());
       inputStats.setNumRows(inputStats.getNumRows() + rightInputStats.getNumRows());
+      inputStats.setMemoryBytes(inputStats.getMemoryBytes() + rightInputStats.getMemoryBytes());
+      inputStats.setNumSpills(inputStats.getNumSpills() + rightInputStats.getNumSpills());
+      inputStats.setSpilledBytes(inputStats.getSpilledBytes() + rightInputStats.getSpilledBytes());
+      inputStats.setNumSkippedBlocks(inputStats.getNumSkippedBlocks() + rightInputStats.getNumSkippedBlocks());
+      inputStats.setSkippedBytes(inputStats.getSkippedBytes() + rightInputStats.getSkippedBytes());
     }
 
     return inputStats;
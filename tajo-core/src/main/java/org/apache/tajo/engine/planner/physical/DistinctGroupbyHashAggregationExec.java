@@ -18,6 +18,9 @@
 
 package org.apache.tajo.engine.planner.physical;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.tajo.SessionVars;
 import org.apache.tajo.catalog.Column;
 import org.apache.tajo.catalog.Schema;
 import org.apache.tajo.catalog.statistics.TableStats;
@@ -29,13 +32,24 @@ import org.apache.tajo.plan.logical.DistinctGroupbyNode;
 import org.apache.tajo.plan.logical.GroupbyNode;
 import org.apache.tajo.storage.Tuple;
 import org.apache.tajo.storage.VTuple;
+import org.apache.tajo.unit.StorageUnit;
+import org.apache.tajo.util.FileUtil;
 import org.apache.tajo.worker.TaskAttemptContext;
 
 import java.io.IOException;
 import java.util.*;
 import java.util.Map.Entry;
 
+/**
+ * The hash-based DistinctGroupBy Operator.
+ *
+ * If the estimated memory consumption of all hash aggregators exceeds the memory budget, every hash aggregator spills
+ * its groups into a sorted run, and all groups are merged in the order of grouping keys at the end. The groups of
+ * all hash aggregators are still fetched in the same order because they are sorted by the same distinct grouping keys.
+ */
 public class DistinctGroupbyHashAggregationExec extends PhysicalExec {
+  private static final Log LOG = LogFactory.getLog(DistinctGroupbyHashAggregationExec.class);
+
   private boolean finished = false;
 
   private HashAggregator[] hashAggregators;
@@ -50,6 +64,12 @@ public class DistinctGroupbyHashAggregationExec extends PhysicalExec {
 
   private int[] resultColumnIdIndexes;
 
+  /** the memory budget of all hash aggregators */
+  private final long memoryBudget;
+  /** the estimated memory consumption of all hash aggregators */
+  private long memoryConsumption = 0;
+  private boolean spilled = false;
+
   public DistinctGroupbyHashAggregationExec(TaskAttemptContext context, DistinctGroupbyNode plan, PhysicalExec subOp)
       throws IOException {
     super(context, plan.getInSchema(), plan.getOutSchema());
@@ -85,6 +105,7 @@ public class DistinctGroupbyHashAggregationExec extends PhysicalExec {
     }
 
     outputColumnNum = plan.getOutSchema().size();
+    memoryBudget = context.getQueryContext().getLong(SessionVars.HASH_GROUPBY_BUFFER_SIZE) * StorageUnit.MB;
 
     int allGroupbyOutColNum = 0;
     for (GroupbyNode eachGroupby: plan.getSubPlans()) {
@@ -144,12 +165,12 @@ public class DistinctGroupbyHashAggregationExec extends PhysicalExec {
 
     // aggregation with single grouping key
     for (int i = 0; i < hashAggregators.length; i++) {
-      if (!hashAggregators[i].iterator.hasNext()) {
+      Entry<Tuple, Map<Tuple, FunctionContext[]>> entry = hashAggregators[i].nextGroup();
+      if (entry == null) {
         nullCount++;
         tupleSlots.add(new ArrayList<Tuple>());
         continue;
       }
-      Entry<Tuple, Map<Tuple, FunctionContext[]>> entry = hashAggregators[i].iterator.next();
       if (distinctGroupingKey == null) {
         distinctGroupingKey = entry.getKey();
       }
@@ -273,14 +294,37 @@ public class DistinctGroupbyHashAggregationExec extends PhysicalExec {
     Tuple tuple = null;
     while(!context.isStopped() && (tuple = child.next()) != null) {
       for (int i = 0; i < hashAggregators.length; i++) {
-        hashAggregators[i].compute(tuple);
+        memoryConsumption += hashAggregators[i].compute(tuple);
       }
+
+      if (memoryConsumption > memoryBudget) {
+        LOG.info("[" + context.getTaskId() + "] Memory consumption of distinct hash groupby exceeds "
+            + FileUtil.humanReadableByteCount(memoryBudget, false));
+        spillAll();
+      }
+    }
+
+    totalNumRows = hashAggregators[0].hashTable.size();
+
+    // If any groups are spilled, the remain groups are spilled too, so that all groups are merged
+    // in the order of grouping keys.
+    if (spilled) {
+      spillAll();
     }
     for (int i = 0; i < hashAggregators.length; i++) {
       hashAggregators[i].initFetch();
     }
+  }
 
-    totalNumRows = hashAggregators[0].hashTable.size();
+  /**
+   * All hash aggregators spill their groups together, so that their groups are fetched in the same order.
+   */
+  private void spillAll() throws IOException {
+    for (int i = 0; i < hashAggregators.length; i++) {
+      hashAggregators[i].spill();
+    }
+    memoryConsumption = 0;
+    spilled = true;
   }
 
   @Override
@@ -320,7 +364,15 @@ public class DistinctGroupbyHashAggregationExec extends PhysicalExec {
 
   public TableStats getInputStats() {
     if (child != null) {
-      return child.getInputStats();
+      TableStats stats = child.getInputStats();
+      if (hashAggregators != null) {
+        for (HashAggregator aggregator : hashAggregators) {
+          if (aggregator.spiller != null) {
+            stats = aggregator.spiller.addSpillStats(stats);
+          }
+        }
+      }
+      return stats;
     } else {
       return null;
     }
@@ -337,6 +389,11 @@ public class DistinctGroupbyHashAggregationExec extends PhysicalExec {
 
     int tupleSize;
 
+    /** It spills groups ordered by grouping keys, which begin with the distinct grouping keys. */
+    private AggregationSpiller spiller;
+    /** the first group of the next distinct grouping key */
+    private Entry<Tuple, FunctionContext[]> pendingGroup;
+
     public HashAggregator(GroupbyNode groupbyNode) throws IOException {
 
       hashTable = new HashMap<Tuple, Map<Tuple, FunctionContext[]>>(10000);
@@ -382,7 +439,12 @@ public class DistinctGroupbyHashAggregationExec extends PhysicalExec {
       return tupleSize;
     }
 
-    public void compute(Tuple tuple) throws IOException {
+    /**
+     * @return The estimated bytes of memory newly consumed by this tuple
+     */
+    public long compute(Tuple tuple) throws IOException {
+      long consumed = 0;
+
       Tuple outerKeyTuple = new VTuple(distinctGroupingKeyIds.length);
       for (int i = 0; i < distinctGroupingKeyIds.length; i++) {
         outerKeyTuple.put(i, tuple.get(distinctGroupingKeyIds[i]));
@@ -397,6 +459,7 @@ public class DistinctGroupbyHashAggregationExec extends PhysicalExec {
       if (distinctEntry == null) {
         distinctEntry = new HashMap<Tuple, FunctionContext[]>();
         hashTable.put(outerKeyTuple, distinctEntry);
+        consumed += AggregationSpiller.estimateGroupSize(outerKeyTuple, 0);
       }
       FunctionContext[] contexts = distinctEntry.get(keyTuple);
       if (contexts != null) {
@@ -410,11 +473,64 @@ public class DistinctGroupbyHashAggregationExec extends PhysicalExec {
           aggFunctions[i].merge(contexts[i], inSchema, tuple);
         }
         distinctEntry.put(keyTuple, contexts);
+        consumed += AggregationSpiller.estimateGroupSize(keyTuple, aggFunctionsNum);
+      }
+      return consumed;
+    }
+
+    public void spill() throws IOException {
+      if (hashTable.isEmpty()) {
+        return;
+      }
+      if (spiller == null) {
+        // Each grouping key begins with the distinct grouping keys.
+        spiller = new AggregationSpiller(context, getExecutorTmpDir(), inSchema, groupingKeyIds, aggFunctions);
       }
+
+      List<Entry<Tuple, FunctionContext[]>> groups = new ArrayList<Entry<Tuple, FunctionContext[]>>();
+      for (Map<Tuple, FunctionContext[]> distinctEntry : hashTable.values()) {
+        groups.addAll(distinctEntry.entrySet());
+      }
+      spiller.spill(groups);
+      hashTable.clear();
     }
 
-    public void initFetch() {
+    public void initFetch() throws IOException {
       iterator = hashTable.entrySet().iterator();
+      if (spiller != null) {
+        spiller.rescan();
+        pendingGroup = null;
+      }
+    }
+
+    /**
+     * @return The next distinct grouping key and its groups. Null if there is no more group.
+     */
+    public Entry<Tuple, Map<Tuple, FunctionContext[]>> nextGroup() throws IOException {
+      if (spiller == null) {
+        return iterator.hasNext() ? iterator.next() : null;
+      }
+
+      if (pendingGroup == null && (pendingGroup = spiller.next()) == null) {
+        return null;
+      }
+
+      Tuple outerKeyTuple = getOuterKey(pendingGroup.getKey());
+      Map<Tuple, FunctionContext[]> groups = new LinkedHashMap<Tuple, FunctionContext[]>();
+      do {
+        groups.put(pendingGroup.getKey(), pendingGroup.getValue());
+        pendingGroup = spiller.next();
+      } while (pendingGroup != null && outerKeyTuple.equals(getOuterKey(pendingGroup.getKey())));
+
+      return new AbstractMap.SimpleEntry<Tuple, Map<Tuple, FunctionContext[]>>(outerKeyTuple, groups);
+    }
+
+    private Tuple getOuterKey(Tuple keyTuple) {
+      Tuple outerKeyTuple = new VTuple(distinctGroupingKeyIds.length);
+      for (int i = 0; i < distinctGroupingKeyIds.length; i++) {
+        outerKeyTuple.put(i, keyTuple.get(i));
+      }
+      return outerKeyTuple;
     }
 
     public List<Tuple> aggregate(Map<Tuple, FunctionContext[]> groupTuples) {
@@ -441,6 +557,9 @@ public class DistinctGroupbyHashAggregationExec extends PhysicalExec {
       hashTable.clear();
       hashTable = null;
       iterator = null;
+      if (spiller != null) {
+        spiller.close();
+      }
     }
   }
 }
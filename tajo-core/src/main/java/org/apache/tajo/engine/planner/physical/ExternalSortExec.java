@@ -41,6 +41,7 @@ import org.apache.tajo.storage.*;
 import org.apache.tajo.storage.Scanner;
 import org.apache.tajo.storage.fragment.FileFragment;
 import org.apache.tajo.storage.fragment.FragmentConvertor;
+import org.apache.tajo.tuple.offheap.UnSafeTuple;
 import org.apache.tajo.unit.StorageUnit;
 import org.apache.tajo.util.FileUtil;
 import org.apache.tajo.util.TUtil;
@@ -59,6 +60,8 @@ import static org.apache.tajo.storage.RawFile.RawFileScanner;
  *
  * <ul>
  *   <li>in-memory sort if input data size fits a sort buffer</li>
+ *   <li>parallel in-memory sort of each chunk</li>
+ *   <li>overlapping the spill of a chunk with the loading of the next chunk</li>
  *   <li>k-way merge sort if input data size exceeds the size of sort buffer</li>
  *   <li>parallel merge</li>
  *   <li>final merge avoidance</li>
@@ -72,15 +75,20 @@ public class ExternalSortExec extends SortExec {
   private static final String INTERMEDIATE_FILE_PREFIX = "@interFile_";
 
   private SortNode plan;
+  /** the meta of given input files */
   private final TableMeta meta;
+  /** the meta of sorted runs written by this operator, whose rows are read without decoding */
+  private final TableMeta runMeta;
   /** the defaultFanout of external sort */
   private final int defaultFanout;
   /** It's the size of in-memory table. If memory consumption exceeds it, store the memory table into a disk. */
   private long sortBufferBytesNum;
   /** the number of available cores */
   private final int allocatedCoreNum;
-  /** If there are available multiple cores, it tries parallel merge. */
+  /** If there are available multiple cores, it tries parallel sort and merge. */
   private ExecutorService executorService;
+  /** It sorts and stores a chunk while the next chunk is being loaded. */
+  private ExecutorService spillExecutor;
   /** used for in-memory sort of each chunk. */
   private List<Tuple> inMemoryTable;
   /** temporal dir */
@@ -89,6 +97,10 @@ public class ExternalSortExec extends SortExec {
   private final LocalDirAllocator localDirAllocator;
   /** local file system */
   private final RawLocalFileSystem localFS;
+  /** it sorts each chunk with multiple threads */
+  private final ParallelTupleSorter sorter;
+  /** it encodes normalized key prefixes of tuples for sort and merge */
+  private final NormalizedKeyEncoder keyEncoder;
   /** final output files which are used for cleaning */
   private List<FileFragment> finalOutputFiles = null;
   /** for directly merging sorted inputs */
@@ -112,6 +124,8 @@ public class ExternalSortExec extends SortExec {
 
     this.plan = plan;
     this.meta = CatalogUtil.newTableMeta(StoreType.ROWFILE);
+    this.runMeta = CatalogUtil.newTableMeta(StoreType.RAW);
+    this.runMeta.putOption(StorageConstants.RAWFILE_ROW_FORMAT, StorageConstants.RAWFILE_ROW_FORMAT_UNSAFE);
 
     this.defaultFanout = context.getConf().getIntVar(ConfVars.EXECUTOR_EXTERNAL_SORT_FANOUT);
     if (defaultFanout < 2) {
@@ -126,6 +140,9 @@ public class ExternalSortExec extends SortExec {
     this.sortTmpDir = getExecutorTmpDir();
     localDirAllocator = new LocalDirAllocator(ConfVars.WORKER_TEMPORAL_DIR.varname);
     localFS = new RawLocalFileSystem();
+
+    this.sorter = new ParallelTupleSorter(executorService, allocatedCoreNum, inSchema, plan.getSortKeys());
+    this.keyEncoder = sorter.getKeyEncoder();
   }
 
   public ExternalSortExec(final TaskAttemptContext context,final SortNode plan,
@@ -164,16 +181,15 @@ public class ExternalSortExec extends SortExec {
    */
   private Path sortAndStoreChunk(int chunkId, List<Tuple> tupleBlock)
       throws IOException {
-    TableMeta meta = CatalogUtil.newTableMeta(StoreType.RAW);
     int rowNum = tupleBlock.size();
 
     long sortStart = System.currentTimeMillis();
-    Collections.sort(tupleBlock, getComparator());
+    sorter.sort(tupleBlock);
     long sortEnd = System.currentTimeMillis();
 
     long chunkWriteStart = System.currentTimeMillis();
     Path outputPath = getChunkPathForWrite(0, chunkId);
-    final RawFileAppender appender = new RawFileAppender(context.getConf(), null, inSchema, meta, outputPath);
+    final RawFileAppender appender = new RawFileAppender(context.getConf(), null, inSchema, runMeta, outputPath);
     appender.init();
     for (Tuple t : tupleBlock) {
       appender.addTuple(t);
@@ -190,9 +206,41 @@ public class ExternalSortExec extends SortExec {
     return outputPath;
   }
 
+  /**
+   * It sorts and stores a chunk in background. The caller can load the next chunk in the meantime.
+   */
+  private Future<Path> sortAndStoreChunkAsync(final int chunkId, final List<Tuple> tupleBlock) {
+    if (spillExecutor == null) {
+      spillExecutor = Executors.newSingleThreadExecutor();
+    }
+    return spillExecutor.submit(new Callable<Path>() {
+      @Override
+      public Path call() throws Exception {
+        return sortAndStoreChunk(chunkId, tupleBlock);
+      }
+    });
+  }
+
+  private static Path waitForChunk(Future<Path> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      throw new IOException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
   /**
    * It divides all tuples into a number of chunks, then sort for each chunk.
    *
+   * The first chunk fills the whole sort buffer, and it is sorted and stored before the next chunk is loaded.
+   * After that, each chunk fills a half of the sort buffer, and it is sorted and stored while the next chunk is
+   * being loaded. So, the chunks residing in memory never exceed the sort buffer.
+   *
    * @return All paths of chunks
    * @throws java.io.IOException
    */
@@ -202,21 +250,33 @@ public class ExternalSortExec extends SortExec {
     List<Path> chunkPaths = TUtil.newList();
 
     int chunkId = 0;
+    // the chunk being sorted and stored in background
+    Future<Path> pendingChunk = null;
     long runStartTime = System.currentTimeMillis();
     while (!context.isStopped() && (tuple = child.next()) != null) { // partition sort start
       Tuple vtuple = new VTuple(tuple);
       inMemoryTable.add(vtuple);
-      memoryConsumption += MemoryUtil.calculateMemorySize(vtuple);
+      memoryConsumption += MemoryUtil.calculateMemorySize(vtuple) + ParallelTupleSorter.SORT_OVERHEAD_PER_TUPLE;
 
-      if (memoryConsumption > sortBufferBytesNum) {
+      // a half of the sort buffer is left for the chunk being sorted and stored in background
+      long chunkBytesLimit = memoryResident ? sortBufferBytesNum : sortBufferBytesNum / 2;
+      if (memoryConsumption > chunkBytesLimit) {
         long runEndTime = System.currentTimeMillis();
         info(LOG, chunkId + " run loading time: " + (runEndTime - runStartTime) + " msec");
         runStartTime = runEndTime;
 
-        info(LOG, "Memory consumption exceeds " + sortBufferBytesNum + " bytes");
-        memoryResident = false;
+        info(LOG, "Memory consumption exceeds " + chunkBytesLimit + " bytes");
 
-        chunkPaths.add(sortAndStoreChunk(chunkId, inMemoryTable));
+        if (memoryResident) {
+          memoryResident = false;
+          chunkPaths.add(sortAndStoreChunk(chunkId, inMemoryTable));
+        } else {
+          if (pendingChunk != null) {
+            chunkPaths.add(waitForChunk(pendingChunk));
+          }
+          pendingChunk = sortAndStoreChunkAsync(chunkId, inMemoryTable);
+          inMemoryTable = new ArrayList<Tuple>(100000);
+        }
 
         memoryConsumption = 0;
         chunkId++;
@@ -236,6 +296,10 @@ public class ExternalSortExec extends SortExec {
       }
     }
 
+    if (pendingChunk != null) {
+      chunkPaths.add(waitForChunk(pendingChunk));
+    }
+
     if (inMemoryTable.size() > 0) { // if there are at least one or more input tuples
       if (!memoryResident) { // check if data exceeds a sort buffer. If so, it store the remain data into a chunk.
         if (inMemoryTable.size() > 0) {
@@ -246,7 +310,7 @@ public class ExternalSortExec extends SortExec {
           info(LOG, "Last Chunk #" + chunkId + " " + rowNum + " rows written (" + (end - start) + " msec)");
         }
       } else { // this case means that all data does not exceed a sort buffer
-        Collections.sort(inMemoryTable, getComparator());
+        sorter.sort(inMemoryTable);
       }
     }
 
@@ -311,7 +375,12 @@ public class ExternalSortExec extends SortExec {
       progress = 0.5f;
     }
 
-    return result.next();
+    Tuple tuple = result.next();
+    // a row of a sorted run is valid only until the next call, so it is copied for the parent operator.
+    if (tuple instanceof UnSafeTuple) {
+      return new VTuple(tuple);
+    }
+    return tuple;
   }
 
   private int calculateFanout(int remainInputChunks, int intputNum, int outputNum, int startIdx) {
@@ -471,7 +540,7 @@ public class ExternalSortExec extends SortExec {
       final Path outputPath = getChunkPathForWrite(level + 1, nextRunId);
       info(LOG, mergeFanout + " files are being merged to an output file " + outputPath.getName());
       long mergeStartTime = System.currentTimeMillis();
-      final RawFileAppender output = new RawFileAppender(context.getConf(), null, inSchema, meta, outputPath);
+      final RawFileAppender output = new RawFileAppender(context.getConf(), null, inSchema, runMeta, outputPath);
       output.init();
       final Scanner merger = createKWayMerger(inputFiles, startIdx, mergeFanout);
       merger.init();
@@ -511,7 +580,11 @@ public class ExternalSortExec extends SortExec {
   }
 
   private Scanner getFileScanner(FileFragment frag) throws IOException {
-    return new RawFileScanner(context.getConf(), plan.getInSchema(), meta, frag);
+    if (mergedInputFragments != null && mergedInputFragments.contains(frag)) {
+      return new RawFileScanner(context.getConf(), plan.getInSchema(), meta, frag);
+    } else {
+      return new RawFileScanner(context.getConf(), plan.getInSchema(), runMeta, frag);
+    }
   }
 
   private Scanner createKWayMerger(List<FileFragment> inputs, final int startChunkId, final int num) throws IOException {
@@ -527,9 +600,11 @@ public class ExternalSortExec extends SortExec {
       throws IOException {
     if (num > 1) {
       final int mid = (int) Math.ceil((float)num / 2);
+      // each merger has its own comparator because mergers run in parallel and comparators are not thread-safe.
       return new PairWiseMerger(inSchema,
           createKWayMergerInternal(sources, startIdx, mid),
-          createKWayMergerInternal(sources, startIdx + mid, num - mid), getComparator());
+          createKWayMergerInternal(sources, startIdx + mid, num - mid),
+          new BaseTupleComparator(inSchema, getSortSpecs()), keyEncoder);
     } else {
       return sources[startIdx];
     }
@@ -632,29 +707,39 @@ public class ExternalSortExec extends SortExec {
 
   /**
    * Two-way merger scanner that reads two input sources and outputs one output tuples sorted in some order.
+   *
+   * The head tuples of input sources are returned without being copied. The source of a returned tuple is advanced
+   * at the next call of {@link #next()}, so a returned tuple is valid until then.
    */
   private static class PairWiseMerger implements Scanner {
     private Scanner leftScan;
     private Scanner rightScan;
 
-    private VTuple outTuple;
-    private VTuple leftTuple;
-    private VTuple rightTuple;
+    private Tuple leftTuple;
+    private Tuple rightTuple;
+    /** whether the head of each side was returned and should be advanced */
+    private boolean advanceLeft;
+    private boolean advanceRight;
 
     private final Schema schema;
     private final Comparator<Tuple> comparator;
+    /** If it is not null, the prefixes of the head tuples are compared first. */
+    private final NormalizedKeyEncoder keyEncoder;
+    private long leftPrefix;
+    private long rightPrefix;
 
     private float mergerProgress;
     private TableStats mergerInputStats;
 
     private State state = State.NEW;
 
-    public PairWiseMerger(Schema schema, Scanner leftScanner, Scanner rightScanner, Comparator<Tuple> comparator)
-        throws IOException {
+    public PairWiseMerger(Schema schema, Scanner leftScanner, Scanner rightScanner, Comparator<Tuple> comparator,
+                          NormalizedKeyEncoder keyEncoder) throws IOException {
       this.schema = schema;
       this.leftScan = leftScanner;
       this.rightScan = rightScanner;
       this.comparator = comparator;
+      this.keyEncoder = keyEncoder;
     }
 
     private void setState(State state) {
@@ -679,74 +764,63 @@ public class ExternalSortExec extends SortExec {
     }
 
     private void prepareTuplesForFirstComparison() throws IOException {
-      Tuple lt = leftScan.next();
-      if (lt != null) {
-        leftTuple = new VTuple(lt);
-      } else {
-        leftTuple = null; // TODO - missed free
+      nextLeft();
+      nextRight();
+    }
+
+    private void nextLeft() throws IOException {
+      leftTuple = leftScan.next();
+      if (leftTuple != null && keyEncoder != null) {
+        leftPrefix = keyEncoder.encode(leftTuple);
       }
+    }
 
-      Tuple rt = rightScan.next();
-      if (rt != null) {
-        rightTuple = new VTuple(rt);
-      } else {
-        rightTuple = null; // TODO - missed free
+    private void nextRight() throws IOException {
+      rightTuple = rightScan.next();
+      if (rightTuple != null && keyEncoder != null) {
+        rightPrefix = keyEncoder.encode(rightTuple);
+      }
+    }
+
+    private int compareHeads() {
+      if (keyEncoder != null) {
+        int cmp = NormalizedKeyEncoder.compare(leftPrefix, rightPrefix);
+        if (cmp != 0) {
+          return cmp;
+        }
       }
+      return comparator.compare(leftTuple, rightTuple);
     }
 
     public Tuple next() throws IOException {
+      if (advanceLeft) {
+        advanceLeft = false;
+        nextLeft();
+      }
+      if (advanceRight) {
+        advanceRight = false;
+        nextRight();
+      }
 
       if (leftTuple != null && rightTuple != null) {
-        if (comparator.compare(leftTuple, rightTuple) < 0) {
-          outTuple = new VTuple(leftTuple);
-
-          Tuple lt = leftScan.next();
-          if (lt != null) {
-            leftTuple = new VTuple(lt);
-          } else {
-            leftTuple = null; // TODO - missed free
-          }
+        if (compareHeads() < 0) {
+          advanceLeft = true;
+          return leftTuple;
         } else {
-          outTuple = new VTuple(rightTuple);
-
-          Tuple rt = rightScan.next();
-          if (rt != null) {
-            rightTuple = new VTuple(rt);
-          } else {
-            rightTuple = null; // TODO - missed free
-          }
+          advanceRight = true;
+          return rightTuple;
         }
-        return outTuple;
       }
 
-      if (leftTuple == null) {
-        if (rightTuple != null) {
-          outTuple = new VTuple(rightTuple);
-        } else {
-          outTuple = null;
-        }
-
-        Tuple rt = rightScan.next();
-        if (rt != null) {
-          rightTuple = new VTuple(rt);
-        } else {
-          rightTuple = null; // TODO - missed free
-        }
+      if (leftTuple != null) {
+        advanceLeft = true;
+        return leftTuple;
+      } else if (rightTuple != null) {
+        advanceRight = true;
+        return rightTuple;
       } else {
-        if (leftTuple != null) {
-          outTuple = new VTuple(leftTuple);
-        } else {
-          outTuple = null;
-        }
-
-        Tuple lt = leftScan.next();
-        if (lt != null) {
-          leftTuple = new VTuple(lt);
-        } else {
-          leftTuple = null; // TODO - missed free
-        }
+        return null;
       }
-      return outTuple;
     }
 
     @Override
@@ -755,9 +829,10 @@ public class ExternalSortExec extends SortExec {
         leftScan.reset();
         rightScan.reset();
 
-        outTuple = null;
         leftTuple = null;
         rightTuple = null;
+        advanceLeft = false;
+        advanceRight = false;
 
         prepareTuplesForFirstComparison();
       } else {
@@ -872,6 +947,11 @@ public class ExternalSortExec extends SortExec {
       executorService = null;
     }
 
+    if (spillExecutor != null) {
+      spillExecutor.shutdown();
+      spillExecutor = null;
+    }
+
     plan = null;
     super.close();
   }
@@ -0,0 +1,563 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.datum.ProtobufDatum;
+import org.apache.tajo.engine.function.builtin.*;
+import org.apache.tajo.function.Function;
+import org.apache.tajo.plan.expr.AggregationFunctionCallEval;
+import org.apache.tajo.plan.expr.EvalNode;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.util.SizeOf;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import static org.apache.tajo.InternalTypes.AvgDoubleProto;
+import static org.apache.tajo.InternalTypes.AvgLongProto;
+
+/**
+ * A columnar accumulator of an aggregation function. It keeps the aggregation states of all groups in primitive
+ * arrays indexed by group ordinals, instead of a {@link org.apache.tajo.plan.function.FunctionContext} per group.
+ *
+ * It supports sum, count, avg, max and min of numeric types among builtin functions. It follows the aggregation
+ * phase of the given {@link AggregationFunctionCallEval}. That is, it consumes partial results in the intermediate
+ * and final phases, and it returns partial results in the first and intermediate phases.
+ */
+public abstract class GroupAccumulator {
+  private static final int INITIAL_CAPACITY = 1024;
+
+  /** If true, the input values are partial results */
+  protected final boolean mergePhase;
+  /** If true, it returns final results. Otherwise, it returns partial results. */
+  protected final boolean finalPhase;
+  private final EvalNode arg;
+  protected int capacity = 0;
+
+  GroupAccumulator(AggregationFunctionCallEval eval) {
+    this.mergePhase = eval.isIntermediatePhase() || eval.isFinalPhase();
+    this.finalPhase = eval.isFinalPhase();
+    this.arg = eval.getArgs() != null && eval.getArgs().length > 0 ? eval.getArgs()[0] : null;
+    grow(INITIAL_CAPACITY);
+  }
+
+  /**
+   * It creates an accumulator for an aggregation function.
+   *
+   * @return An accumulator. Null if the function is not supported.
+   */
+  public static GroupAccumulator create(AggregationFunctionCallEval eval) {
+    if (eval.getArgs() != null && eval.getArgs().length > 1) {
+      return null;
+    }
+
+    Class<? extends Function> clazz = eval.getFuncDesc().getFuncClass();
+    if (clazz == SumLong.class || clazz == SumInt.class) {
+      return new LongSum(eval);
+    } else if (clazz == SumDouble.class || clazz == SumFloat.class) {
+      return new DoubleSum(eval);
+    } else if (clazz == CountRows.class) {
+      return new Count(eval, false);
+    } else if (clazz == CountValue.class) {
+      return new Count(eval, true);
+    } else if (clazz == AvgLong.class || clazz == AvgInt.class) {
+      return new LongAvg(eval);
+    } else if (clazz == AvgDouble.class || clazz == AvgFloat.class) {
+      return new DoubleAvg(eval);
+    } else if (clazz == MaxLong.class || clazz == MaxInt.class) {
+      return new LongMinMax(eval, true, clazz == MaxInt.class ? Type.INT4 : Type.INT8);
+    } else if (clazz == MinLong.class || clazz == MinInt.class) {
+      return new LongMinMax(eval, false, clazz == MinInt.class ? Type.INT4 : Type.INT8);
+    } else if (clazz == MaxDouble.class || clazz == MaxFloat.class) {
+      return new DoubleMinMax(eval, true, clazz == MaxFloat.class ? Type.FLOAT4 : Type.FLOAT8);
+    } else if (clazz == MinDouble.class || clazz == MinFloat.class) {
+      return new DoubleMinMax(eval, false, clazz == MinFloat.class ? Type.FLOAT4 : Type.FLOAT8);
+    }
+    return null;
+  }
+
+  /**
+   * @return True if all aggregation functions can be accumulated by {@link GroupAccumulator}s.
+   */
+  public static boolean isSupported(AggregationFunctionCallEval [] evals) {
+    for (AggregationFunctionCallEval eval : evals) {
+      if (create(eval) == null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * It accumulates a tuple into a group.
+   */
+  public void accumulate(int groupId, Schema schema, Tuple tuple) {
+    if (groupId >= capacity) {
+      grow(Math.max(capacity * 2, groupId + 1));
+    }
+
+    Datum value = arg == null ? NullDatum.get() : arg.eval(schema, tuple);
+    if (mergePhase) {
+      merge(groupId, value);
+    } else {
+      update(groupId, value);
+    }
+  }
+
+  /**
+   * It returns the result of a group according to the aggregation phase.
+   */
+  public Datum getResult(int groupId) {
+    if (groupId >= capacity) {
+      grow(groupId + 1);
+    }
+    return finalPhase ? terminate(groupId) : getPartialResult(groupId);
+  }
+
+  /**
+   * @return The bytes of memory consumed by this accumulator
+   */
+  public abstract long usedMemory();
+
+  /**
+   * It resets the states of all groups.
+   */
+  public void reset() {
+    int oldCapacity = capacity;
+    capacity = 0;
+    grow(oldCapacity);
+  }
+
+  /**
+   * It extends arrays so that they can keep the given number of groups.
+   */
+  protected abstract void grow(int newCapacity);
+
+  /** It accumulates a raw input value. */
+  protected abstract void update(int groupId, Datum value);
+
+  /** It merges a partial result. */
+  protected abstract void merge(int groupId, Datum partial);
+
+  protected abstract Datum getPartialResult(int groupId);
+
+  protected abstract Datum terminate(int groupId);
+
+  private static BitSet extend(BitSet bitSet, int newCapacity, int oldCapacity) {
+    return oldCapacity == 0 || bitSet == null ? new BitSet(newCapacity) : bitSet;
+  }
+
+  private static long [] extend(long [] array, int newCapacity, int oldCapacity, long initValue) {
+    long [] newArray = oldCapacity == 0 || array == null ? new long[newCapacity] : Arrays.copyOf(array, newCapacity);
+    Arrays.fill(newArray, oldCapacity, newCapacity, initValue);
+    return newArray;
+  }
+
+  private static double [] extend(double [] array, int newCapacity, int oldCapacity, double initValue) {
+    double [] newArray = oldCapacity == 0 || array == null ?
+        new double[newCapacity] : Arrays.copyOf(array, newCapacity);
+    Arrays.fill(newArray, oldCapacity, newCapacity, initValue);
+    return newArray;
+  }
+
+  /**
+   * sum of integer values
+   */
+  static class LongSum extends GroupAccumulator {
+    private long [] sums;
+    private BitSet hasNonNull;
+
+    LongSum(AggregationFunctionCallEval eval) {
+      super(eval);
+    }
+
+    @Override
+    protected void grow(int newCapacity) {
+      sums = extend(sums, newCapacity, capacity, 0);
+      hasNonNull = extend(hasNonNull, newCapacity, capacity);
+      capacity = newCapacity;
+    }
+
+    @Override
+    protected void update(int groupId, Datum value) {
+      if (value.isNotNull()) {
+        sums[groupId] += value.asInt8();
+        hasNonNull.set(groupId);
+      }
+    }
+
+    @Override
+    protected void merge(int groupId, Datum partial) {
+      update(groupId, partial);
+    }
+
+    @Override
+    protected Datum getPartialResult(int groupId) {
+      return terminate(groupId);
+    }
+
+    @Override
+    protected Datum terminate(int groupId) {
+      return hasNonNull.get(groupId) ? DatumFactory.createInt8(sums[groupId]) : NullDatum.get();
+    }
+
+    @Override
+    public long usedMemory() {
+      return (long) capacity * SizeOf.SIZE_OF_LONG + capacity / 8;
+    }
+  }
+
+  /**
+   * sum of floating point values
+   */
+  static class DoubleSum extends GroupAccumulator {
+    private double [] sums;
+    private BitSet hasNonNull;
+
+    DoubleSum(AggregationFunctionCallEval eval) {
+      super(eval);
+    }
+
+    @Override
+    protected void grow(int newCapacity) {
+      sums = extend(sums, newCapacity, capacity, 0.0d);
+      hasNonNull = extend(hasNonNull, newCapacity, capacity);
+      capacity = newCapacity;
+    }
+
+    @Override
+    protected void update(int groupId, Datum value) {
+      if (value.isNotNull()) {
+        sums[groupId] += value.asFloat8();
+        hasNonNull.set(groupId);
+      }
+    }
+
+    @Override
+    protected void merge(int groupId, Datum partial) {
+      update(groupId, partial);
+    }
+
+    @Override
+    protected Datum getPartialResult(int groupId) {
+      return terminate(groupId);
+    }
+
+    @Override
+    protected Datum terminate(int groupId) {
+      return hasNonNull.get(groupId) ? DatumFactory.createFloat8(sums[groupId]) : NullDatum.get();
+    }
+
+    @Override
+    public long usedMemory() {
+      return (long) capacity * SizeOf.SIZE_OF_DOUBLE + capacity / 8;
+    }
+  }
+
+  /**
+   * count(*) and count(value)
+   */
+  static class Count extends GroupAccumulator {
+    private final boolean countNonNull;
+    private long [] counts;
+
+    Count(AggregationFunctionCallEval eval, boolean countNonNull) {
+      super(eval);
+      this.countNonNull = countNonNull;
+    }
+
+    @Override
+    protected void grow(int newCapacity) {
+      counts = extend(counts, newCapacity, capacity, 0);
+      capacity = newCapacity;
+    }
+
+    @Override
+    protected void update(int groupId, Datum value) {
+      if (!countNonNull || value.isNotNull()) {
+        counts[groupId]++;
+      }
+    }
+
+    @Override
+    protected void merge(int groupId, Datum partial) {
+      counts[groupId] += partial.asInt8();
+    }
+
+    @Override
+    protected Datum getPartialResult(int groupId) {
+      return terminate(groupId);
+    }
+
+    @Override
+    protected Datum terminate(int groupId) {
+      return DatumFactory.createInt8(counts[groupId]);
+    }
+
+    @Override
+    public long usedMemory() {
+      return (long) capacity * SizeOf.SIZE_OF_LONG;
+    }
+  }
+
+  /**
+   * avg of integer values
+   */
+  static class LongAvg extends GroupAccumulator {
+    private long [] sums;
+    private long [] counts;
+
+    LongAvg(AggregationFunctionCallEval eval) {
+      super(eval);
+    }
+
+    @Override
+    protected void grow(int newCapacity) {
+      sums = extend(sums, newCapacity, capacity, 0);
+      counts = extend(counts, newCapacity, capacity, 0);
+      capacity = newCapacity;
+    }
+
+    @Override
+    protected void update(int groupId, Datum value) {
+      if (value.isNotNull()) {
+        sums[groupId] += value.asInt8();
+        counts[groupId]++;
+      }
+    }
+
+    @Override
+    protected void merge(int groupId, Datum partial) {
+      if (partial.isNotNull()) {
+        AvgLongProto proto = (AvgLongProto) ((ProtobufDatum) partial).get();
+        sums[groupId] += proto.getSum();
+        counts[groupId] += proto.getCount();
+      }
+    }
+
+    @Override
+    protected Datum getPartialResult(int groupId) {
+      if (counts[groupId] == 0) {
+        return NullDatum.get();
+      }
+      AvgLongProto.Builder builder = AvgLongProto.newBuilder();
+      builder.setSum(sums[groupId]);
+      builder.setCount(counts[groupId]);
+      return new ProtobufDatum(builder.build());
+    }
+
+    @Override
+    protected Datum terminate(int groupId) {
+      if (counts[groupId] == 0) {
+        return NullDatum.get();
+      }
+      return DatumFactory.createFloat8((double) sums[groupId] / counts[groupId]);
+    }
+
+    @Override
+    public long usedMemory() {
+      return (long) capacity * SizeOf.SIZE_OF_LONG * 2;
+    }
+  }
+
+  /**
+   * avg of floating point values
+   */
+  static class DoubleAvg extends GroupAccumulator {
+    private double [] sums;
+    private long [] counts;
+
+    DoubleAvg(AggregationFunctionCallEval eval) {
+      super(eval);
+    }
+
+    @Override
+    protected void grow(int newCapacity) {
+      sums = extend(sums, newCapacity, capacity, 0.0d);
+      counts = extend(counts, newCapacity, capacity, 0);
+      capacity = newCapacity;
+    }
+
+    @Override
+    protected void update(int groupId, Datum value) {
+      if (value.isNotNull()) {
+        sums[groupId] += value.asFloat8();
+        counts[groupId]++;
+      }
+    }
+
+    @Override
+    protected void merge(int groupId, Datum partial) {
+      if (partial.isNotNull()) {
+        AvgDoubleProto proto = (AvgDoubleProto) ((ProtobufDatum) partial).get();
+        sums[groupId] += proto.getSum();
+        counts[groupId] += proto.getCount();
+      }
+    }
+
+    @Override
+    protected Datum getPartialResult(int groupId) {
+      if (counts[groupId] == 0) {
+        return NullDatum.get();
+      }
+      AvgDoubleProto.Builder builder = AvgDoubleProto.newBuilder();
+      builder.setSum(sums[groupId]);
+      builder.setCount(counts[groupId]);
+      return new ProtobufDatum(builder.build());
+    }
+
+    @Override
+    protected Datum terminate(int groupId) {
+      if (counts[groupId] == 0) {
+        return NullDatum.get();
+      }
+      return DatumFactory.createFloat8(sums[groupId] / counts[groupId]);
+    }
+
+    @Override
+    public long usedMemory() {
+      return (long) capacity * (SizeOf.SIZE_OF_DOUBLE + SizeOf.SIZE_OF_LONG);
+    }
+  }
+
+  /**
+   * max and min of integer values
+   */
+  static class LongMinMax extends GroupAccumulator {
+    private final boolean max;
+    private final Type type;
+    private long [] values;
+    private BitSet hasNonNull;
+
+    LongMinMax(AggregationFunctionCallEval eval, boolean max, Type type) {
+      super(eval);
+      this.max = max;
+      this.type = type;
+    }
+
+    @Override
+    protected void grow(int newCapacity) {
+      values = extend(values, newCapacity, capacity, 0);
+      hasNonNull = extend(hasNonNull, newCapacity, capacity);
+      capacity = newCapacity;
+    }
+
+    @Override
+    protected void update(int groupId, Datum value) {
+      if (value.isNotNull()) {
+        long val = value.asInt8();
+        if (!hasNonNull.get(groupId)) {
+          values[groupId] = val;
+          hasNonNull.set(groupId);
+        } else if (max ? val > values[groupId] : val < values[groupId]) {
+          values[groupId] = val;
+        }
+      }
+    }
+
+    @Override
+    protected void merge(int groupId, Datum partial) {
+      update(groupId, partial);
+    }
+
+    @Override
+    protected Datum getPartialResult(int groupId) {
+      return terminate(groupId);
+    }
+
+    @Override
+    protected Datum terminate(int groupId) {
+      if (!hasNonNull.get(groupId)) {
+        return NullDatum.get();
+      }
+      return type == Type.INT4 ? DatumFactory.createInt4((int) values[groupId]) :
+          DatumFactory.createInt8(values[groupId]);
+    }
+
+    @Override
+    public long usedMemory() {
+      return (long) capacity * SizeOf.SIZE_OF_LONG + capacity / 8;
+    }
+  }
+
+  /**
+   * max and min of floating point values
+   */
+  static class DoubleMinMax extends GroupAccumulator {
+    private final boolean max;
+    private final Type type;
+    private double [] values;
+    private BitSet hasNonNull;
+
+    DoubleMinMax(AggregationFunctionCallEval eval, boolean max, Type type) {
+      super(eval);
+      this.max = max;
+      this.type = type;
+    }
+
+    @Override
+    protected void grow(int newCapacity) {
+      values = extend(values, newCapacity, capacity, 0.0d);
+      hasNonNull = extend(hasNonNull, newCapacity, capacity);
+      capacity = newCapacity;
+    }
+
+    @Override
+    protected void update(int groupId, Datum value) {
+      if (value.isNotNull()) {
+        double val = value.asFloat8();
+        if (!hasNonNull.get(groupId)) {
+          values[groupId] = val;
+          hasNonNull.set(groupId);
+        } else if (max ? Double.compare(val, values[groupId]) > 0 : Double.compare(val, values[groupId]) < 0) {
+          values[groupId] = val;
+        }
+      }
+    }
+
+    @Override
+    protected void merge(int groupId, Datum partial) {
+      update(groupId, partial);
+    }
+
+    @Override
+    protected Datum getPartialResult(int groupId) {
+      return terminate(groupId);
+    }
+
+    @Override
+    protected Datum terminate(int groupId) {
+      if (!hasNonNull.get(groupId)) {
+        return NullDatum.get();
+      }
+      return type == Type.FLOAT4 ? DatumFactory.createFloat4((float) values[groupId]) :
+          DatumFactory.createFloat8(values[groupId]);
+    }
+
+    @Override
+    public long usedMemory() {
+      return (long) capacity * SizeOf.SIZE_OF_DOUBLE + capacity / 8;
+    }
+  }
+}
@@ -18,10 +18,17 @@
 
 package org.apache.tajo.engine.planner.physical;
 
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.tajo.SessionVars;
+import org.apache.tajo.catalog.statistics.TableStats;
 import org.apache.tajo.plan.function.FunctionContext;
 import org.apache.tajo.plan.logical.GroupbyNode;
 import org.apache.tajo.storage.Tuple;
 import org.apache.tajo.storage.VTuple;
+import org.apache.tajo.unit.StorageUnit;
+import org.apache.tajo.util.FileUtil;
 import org.apache.tajo.worker.TaskAttemptContext;
 
 import java.io.IOException;
@@ -32,17 +39,45 @@ import java.util.Map.Entry;
 
 /**
  * This is the hash-based GroupBy Operator.
+ *
+ * If the estimated memory consumption of the hash table exceeds the memory budget, all groups in the hash table are
+ * spilled into a sorted run of partial aggregates, and the hash table is cleared. At the end, the spilled runs are
+ * merged by {@link AggregationSpiller}.
  */
 public class HashAggregateExec extends AggregationExec {
+  private static final Log LOG = LogFactory.getLog(HashAggregateExec.class);
+
   private Tuple tuple = null;
   private Map<Tuple, FunctionContext[]> hashTable;
   private boolean computed = false;
   private Iterator<Entry<Tuple, FunctionContext []>> iterator = null;
 
+  /** the memory budget of the hash table */
+  protected long memoryBudget;
+  /** the estimated memory consumption of the hash table */
+  protected long memoryConsumption = 0;
+  protected AggregationSpiller spiller;
+
   public HashAggregateExec(TaskAttemptContext ctx, GroupbyNode plan, PhysicalExec subOp) throws IOException {
+    this(ctx, plan, subOp, true);
+  }
+
+  /**
+   * @param useHashTable If false, a subclass keeps groups in its own data structures instead of the hash table.
+   */
+  protected HashAggregateExec(TaskAttemptContext ctx, GroupbyNode plan, PhysicalExec subOp, boolean useHashTable)
+      throws IOException {
     super(ctx, plan, subOp);
-    hashTable = new HashMap<Tuple, FunctionContext []>(100000);
+    if (useHashTable) {
+      hashTable = new HashMap<Tuple, FunctionContext []>(100000);
+    }
     this.tuple = new VTuple(plan.getOutSchema().size());
+    this.memoryBudget = ctx.getQueryContext().getLong(SessionVars.HASH_GROUPBY_BUFFER_SIZE) * StorageUnit.MB;
+  }
+
+  @VisibleForTesting
+  public void setMemoryBudget(long memoryBudget) {
+    this.memoryBudget = memoryBudget;
   }
 
   private void compute() throws IOException {
@@ -67,6 +102,13 @@ public class HashAggregateExec extends AggregationExec {
           aggFunctions[i].merge(contexts[i], inSchema, tuple);
         }
         hashTable.put(keyTuple, contexts);
+
+        memoryConsumption += AggregationSpiller.estimateGroupSize(keyTuple, aggFunctionsNum);
+        if (groupingKeyNum > 0 && memoryConsumption > memoryBudget) {
+          info(LOG, "Memory consumption of hash groupby exceeds "
+              + FileUtil.humanReadableByteCount(memoryBudget, false));
+          spill();
+        }
       }
     }
 
@@ -79,6 +121,31 @@ public class HashAggregateExec extends AggregationExec {
       }
       hashTable.put(null, contexts);
     }
+
+    // the remain groups are spilled too, so that all groups are merged in the order of grouping keys.
+    if (spiller != null && !hashTable.isEmpty()) {
+      spill();
+    }
+  }
+
+  protected AggregationSpiller getSpiller() {
+    if (spiller == null) {
+      spiller = new AggregationSpiller(context, getExecutorTmpDir(), inSchema, groupingKeyIds, aggFunctions);
+    }
+    return spiller;
+  }
+
+  private void spill() throws IOException {
+    getSpiller().spill(hashTable.entrySet());
+    hashTable.clear();
+    memoryConsumption = 0;
+  }
+
+  private Entry<Tuple, FunctionContext []> nextGroup() throws IOException {
+    if (spiller != null) {
+      return spiller.next();
+    }
+    return iterator.hasNext() ? iterator.next() : null;
   }
 
   @Override
@@ -91,8 +158,8 @@ public class HashAggregateExec extends AggregationExec {
 
     FunctionContext [] contexts;
 
-    if (iterator.hasNext()) {
-      Entry<Tuple, FunctionContext []> entry = iterator.next();
+    Entry<Tuple, FunctionContext []> entry = nextGroup();
+    if (entry != null) {
       Tuple keyTuple = entry.getKey();
       contexts =  entry.getValue();
 
@@ -113,13 +180,27 @@ public class HashAggregateExec extends AggregationExec {
   @Override
   public void rescan() throws IOException {
     iterator = hashTable.entrySet().iterator();
+    if (spiller != null) {
+      spiller.rescan();
+    }
   }
 
   @Override
   public void close() throws IOException {
     super.close();
-    hashTable.clear();
-    hashTable = null;
+    if (hashTable != null) {
+      hashTable.clear();
+      hashTable = null;
+    }
     iterator = null;
+    if (spiller != null) {
+      spiller.close();
+    }
+  }
+
+  @Override
+  public TableStats getInputStats() {
+    TableStats stats = super.getInputStats();
+    return spiller != null ? spiller.addSpillStats(stats) : stats;
   }
 }
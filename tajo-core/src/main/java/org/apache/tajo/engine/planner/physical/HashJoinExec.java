@@ -18,9 +18,12 @@
 
 package org.apache.tajo.engine.planner.physical;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.apache.tajo.catalog.Column;
 import org.apache.tajo.catalog.statistics.TableStats;
 import org.apache.tajo.engine.planner.Projector;
+import org.apache.tajo.engine.utils.BroadcastTableCache.BroadcastTable;
 import org.apache.tajo.plan.util.PlannerUtil;
 import org.apache.tajo.catalog.SchemaUtil;
 import org.apache.tajo.plan.expr.EvalNode;
@@ -28,12 +31,15 @@ import org.apache.tajo.plan.logical.JoinNode;
 import org.apache.tajo.storage.FrameTuple;
 import org.apache.tajo.storage.Tuple;
 import org.apache.tajo.storage.VTuple;
+import org.apache.tajo.tuple.offheap.OffHeapJoinHashTable;
 import org.apache.tajo.worker.TaskAttemptContext;
 
 import java.io.IOException;
 import java.util.*;
 
 public class HashJoinExec extends BinaryPhysicalExec {
+  private static final Log LOG = LogFactory.getLog(HashJoinExec.class);
+
   // from logical plan
   protected JoinNode plan;
   protected EvalNode joinQual;
@@ -44,10 +50,12 @@ public class HashJoinExec extends BinaryPhysicalExec {
   protected boolean first = true;
   protected FrameTuple frameTuple;
   protected Tuple outTuple = null;
-  protected Map<Tuple, List<Tuple>> tupleSlots;
+  protected OffHeapJoinHashTable hashTable;
+  /** a broadcast relation shared with the other tasks of a worker, which is used instead of hashTable */
+  protected BroadcastTable broadcastTable;
+  protected OffHeapJoinHashTable.Probe broadcastProbe;
   protected Iterator<Tuple> iterator = null;
   protected Tuple leftTuple;
-  protected Tuple leftKeyTuple;
 
   protected int [] leftKeyList;
   protected int [] rightKeyList;
@@ -64,7 +72,6 @@ public class HashJoinExec extends BinaryPhysicalExec {
         leftExec, rightExec);
     this.plan = plan;
     this.joinQual = plan.getJoinQual();
-    this.tupleSlots = new HashMap<Tuple, List<Tuple>>(100000);
 
     // HashJoin only can manage equi join key pairs.
     this.joinKeyPairs = PlannerUtil.getJoinKeyPairs(joinQual, leftExec.getSchema(),
@@ -87,7 +94,6 @@ public class HashJoinExec extends BinaryPhysicalExec {
     // for join
     frameTuple = new FrameTuple();
     outTuple = new VTuple(outSchema.size());
-    leftKeyTuple = new VTuple(leftKeyList.length);
   }
 
   @Override
@@ -95,12 +101,6 @@ public class HashJoinExec extends BinaryPhysicalExec {
     joinQual = context.getPrecompiledEval(inSchema, joinQual);
   }
 
-  protected void getKeyLeftTuple(final Tuple outerTuple, Tuple keyTuple) {
-    for (int i = 0; i < leftKeyList.length; i++) {
-      keyTuple.put(i, outerTuple.get(leftKeyList[i]));
-    }
-  }
-
   public Tuple next() throws IOException {
     if (first) {
       loadRightToHashTable();
@@ -119,10 +119,8 @@ public class HashJoinExec extends BinaryPhysicalExec {
         }
 
         // getting corresponding right
-        getKeyLeftTuple(leftTuple, leftKeyTuple); // get a left key tuple
-        List<Tuple> rightTuples = tupleSlots.get(leftKeyTuple);
-        if (rightTuples != null) { // found right tuples on in-memory hash table.
-          iterator = rightTuples.iterator();
+        iterator = getRightTuples(leftTuple);
+        if (iterator != null) { // found right tuples on in-memory hash table.
           shouldGetLeftTuple = false;
         } else {
           shouldGetLeftTuple = true;
@@ -150,27 +148,40 @@ public class HashJoinExec extends BinaryPhysicalExec {
     return new VTuple(outTuple);
   }
 
-  protected void loadRightToHashTable() throws IOException {
-    Tuple tuple;
-    Tuple keyTuple;
+  /**
+   * It returns the right tuples whose join keys are equivalent to the join keys of the given left tuple.
+   */
+  protected Iterator<Tuple> getRightTuples(Tuple leftTuple) {
+    if (broadcastProbe != null) {
+      return broadcastProbe.get(leftTuple, leftKeyList);
+    } else {
+      return hashTable.get(leftTuple, leftKeyList);
+    }
+  }
 
-    while (!context.isStopped() && (tuple = rightChild.next()) != null) {
-      keyTuple = new VTuple(joinKeyPairs.size());
-      for (int i = 0; i < rightKeyList.length; i++) {
-        keyTuple.put(i, tuple.get(rightKeyList[i]));
+  protected void loadRightToHashTable() throws IOException {
+    // A broadcast relation is loaded and indexed once per worker, and it is shared by tasks.
+    if (rightChild instanceof SeqScanExec && ((SeqScanExec) rightChild).isBroadcastScan()) {
+      if (broadcastTable == null) {
+        broadcastTable = ((SeqScanExec) rightChild).acquireBroadcastTable(rightKeyList);
+        broadcastProbe = broadcastTable.newProbe();
       }
+      first = false;
+      return;
+    }
 
-      List<Tuple> newValue = tupleSlots.get(keyTuple);
+    if (hashTable == null) {
+      hashTable = new OffHeapJoinHashTable(rightChild.getSchema(), rightKeyList);
+    }
 
-      if (newValue != null) {
-        newValue.add(tuple);
-      } else {
-        newValue = new ArrayList<Tuple>();
-        newValue.add(tuple);
-        tupleSlots.put(keyTuple, newValue);
-      }
+    Tuple tuple;
+    while (!context.isStopped() && (tuple = rightChild.next()) != null) {
+      hashTable.put(tuple);
     }
 
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Hash table for " + context.getTaskId() + " is loaded (" + hashTable + ")");
+    }
     first = false;
   }
 
@@ -178,8 +189,11 @@ public class HashJoinExec extends BinaryPhysicalExec {
   public void rescan() throws IOException {
     super.rescan();
 
-    tupleSlots.clear();
-    first = true;
+    if (hashTable != null) {
+      hashTable.clear();
+    }
+    // a shared broadcast table is not reloaded
+    first = broadcastTable == null;
 
     finished = false;
     iterator = null;
@@ -189,9 +203,17 @@ public class HashJoinExec extends BinaryPhysicalExec {
   @Override
   public void close() throws IOException {
     super.close();
-    if (tupleSlots != null) {
-      tupleSlots.clear();
-      tupleSlots = null;
+    if (hashTable != null) {
+      hashTable.release();
+      hashTable = null;
+    }
+    if (broadcastProbe != null) {
+      broadcastProbe.release();
+      broadcastProbe = null;
+    }
+    if (broadcastTable != null) {
+      broadcastTable.release();
+      broadcastTable = null;
     }
 
     iterator = null;
@@ -208,22 +230,10 @@ public class HashJoinExec extends BinaryPhysicalExec {
     if (leftChild == null) {
       return inputStats;
     }
-    TableStats leftInputStats = leftChild.getInputStats();
-    inputStats.setNumBytes(0);
-    inputStats.setReadBytes(0);
-    inputStats.setNumRows(0);
-
-    if (leftInputStats != null) {
-      inputStats.setNumBytes(leftInputStats.getNumBytes());
-      inputStats.setReadBytes(leftInputStats.getReadBytes());
-      inputStats.setNumRows(leftInputStats.getNumRows());
-    }
 
-    TableStats rightInputStats = rightChild.getInputStats();
-    if (rightInputStats != null) {
-      inputStats.setNumBytes(inputStats.getNumBytes() + rightInputStats.getNumBytes());
-      inputStats.setReadBytes(inputStats.getReadBytes() + rightInputStats.getReadBytes());
-      inputStats.setNumRows(inputStats.getNumRows() + rightInputStats.getNumRows());
+    super.getInputStats();
+    if (hashTable != null) {
+      inputStats.setMemoryBytes(inputStats.getMemoryBytes() + hashTable.usedMemory());
     }
 
     return inputStats;
@@ -22,6 +22,7 @@ import com.google.common.collect.Lists;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.statistics.TableStats;
 import org.apache.tajo.engine.planner.Projector;
 import org.apache.tajo.engine.utils.TupleUtil;
 import org.apache.tajo.plan.util.PlannerUtil;
@@ -33,6 +34,7 @@ import org.apache.tajo.plan.logical.JoinNode;
 import org.apache.tajo.storage.FrameTuple;
 import org.apache.tajo.storage.Tuple;
 import org.apache.tajo.storage.VTuple;
+import org.apache.tajo.tuple.offheap.OffHeapJoinHashTable;
 import org.apache.tajo.worker.TaskAttemptContext;
 
 import java.io.IOException;
@@ -51,10 +53,9 @@ public class HashLeftOuterJoinExec extends BinaryPhysicalExec {
   protected boolean first = true;
   protected FrameTuple frameTuple;
   protected Tuple outTuple = null;
-  protected Map<Tuple, List<Tuple>> tupleSlots;
+  protected OffHeapJoinHashTable hashTable;
   protected Iterator<Tuple> iterator = null;
   protected Tuple leftTuple;
-  protected Tuple leftKeyTuple;
 
   protected int [] leftKeyList;
   protected int [] rightKeyList;
@@ -91,8 +92,6 @@ public class HashLeftOuterJoinExec extends BinaryPhysicalExec {
       this.joinFilter = null;
     }
 
-    this.tupleSlots = new HashMap<Tuple, List<Tuple>>(10000);
-
     // HashJoin only can manage equi join key pairs.
     this.joinKeyPairs = PlannerUtil.getJoinKeyPairs(joinQual, leftChild.getSchema(),
         rightChild.getSchema(), false);
@@ -114,7 +113,6 @@ public class HashLeftOuterJoinExec extends BinaryPhysicalExec {
     // for join
     frameTuple = new FrameTuple();
     outTuple = new VTuple(outSchema.size());
-    leftKeyTuple = new VTuple(leftKeyList.length);
 
     rightNumCols = rightChild.getSchema().size();
   }
@@ -124,12 +122,6 @@ public class HashLeftOuterJoinExec extends BinaryPhysicalExec {
     joinQual = context.getPrecompiledEval(inSchema, joinQual);
   }
 
-  protected void getKeyLeftTuple(final Tuple outerTuple, Tuple keyTuple) {
-    for (int i = 0; i < leftKeyList.length; i++) {
-      keyTuple.put(i, outerTuple.get(leftKeyList[i]));
-    }
-  }
-
   public Tuple next() throws IOException {
     if (first) {
       loadRightToHashTable();
@@ -149,10 +141,8 @@ public class HashLeftOuterJoinExec extends BinaryPhysicalExec {
         }
 
         // getting corresponding right
-        getKeyLeftTuple(leftTuple, leftKeyTuple); // get a left key tuple
-        List<Tuple> rightTuples = tupleSlots.get(leftKeyTuple);
-        if (rightTuples != null) { // found right tuples on in-memory hash table.
-          iterator = rightTuples.iterator();
+        iterator = hashTable.get(leftTuple, leftKeyList);
+        if (iterator != null) { // found right tuples on in-memory hash table.
           shouldGetLeftTuple = false;
         } else {
           // this left tuple doesn't have a match on the right, and output a tuple with the nulls padded rightTuple
@@ -201,23 +191,13 @@ public class HashLeftOuterJoinExec extends BinaryPhysicalExec {
   }
 
   protected void loadRightToHashTable() throws IOException {
-    Tuple tuple;
-    Tuple keyTuple;
+    if (hashTable == null) {
+      hashTable = new OffHeapJoinHashTable(rightChild.getSchema(), rightKeyList);
+    }
 
+    Tuple tuple;
     while (!context.isStopped() && (tuple = rightChild.next()) != null) {
-      keyTuple = new VTuple(joinKeyPairs.size());
-      for (int i = 0; i < rightKeyList.length; i++) {
-        keyTuple.put(i, tuple.get(rightKeyList[i]));
-      }
-
-      List<Tuple> newValue = tupleSlots.get(keyTuple);
-      if (newValue != null) {
-        newValue.add(tuple);
-      } else {
-        newValue = new ArrayList<Tuple>();
-        newValue.add(tuple);
-        tupleSlots.put(keyTuple, newValue);
-      }
+      hashTable.put(tuple);
     }
     first = false;
   }
@@ -226,7 +206,9 @@ public class HashLeftOuterJoinExec extends BinaryPhysicalExec {
   public void rescan() throws IOException {
     super.rescan();
 
-    tupleSlots.clear();
+    if (hashTable != null) {
+      hashTable.clear();
+    }
     first = true;
 
     finished = false;
@@ -238,8 +220,10 @@ public class HashLeftOuterJoinExec extends BinaryPhysicalExec {
   @Override
   public void close() throws IOException {
     super.close();
-    tupleSlots.clear();
-    tupleSlots = null;
+    if (hashTable != null) {
+      hashTable.release();
+      hashTable = null;
+    }
     iterator = null;
     plan = null;
     joinQual = null;
@@ -250,5 +234,19 @@ public class HashLeftOuterJoinExec extends BinaryPhysicalExec {
   public JoinNode getPlan() {
     return this.plan;
   }
+
+  @Override
+  public TableStats getInputStats() {
+    if (leftChild == null) {
+      return inputStats;
+    }
+
+    super.getInputStats();
+    if (hashTable != null) {
+      inputStats.setMemoryBytes(inputStats.getMemoryBytes() + hashTable.usedMemory());
+    }
+
+    return inputStats;
+  }
 }
 
@@ -0,0 +1,448 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.fs.LocalDirAllocator;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RawLocalFileSystem;
+import org.apache.hadoop.io.IOUtils;
+import org.apache.tajo.SessionVars;
+import org.apache.tajo.catalog.CatalogUtil;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.TableMeta;
+import org.apache.tajo.catalog.proto.CatalogProtos.StoreType;
+import org.apache.tajo.catalog.statistics.TableStats;
+import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.apache.tajo.plan.logical.JoinNode;
+import org.apache.tajo.storage.Scanner;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
+import org.apache.tajo.storage.fragment.FileFragment;
+import org.apache.tajo.tuple.offheap.JoinKeyEncoder;
+import org.apache.tajo.tuple.offheap.OffHeapJoinHashTable;
+import org.apache.tajo.unit.StorageUnit;
+import org.apache.tajo.util.FileUtil;
+import org.apache.tajo.worker.TaskAttemptContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+import static org.apache.tajo.storage.RawFile.RawFileAppender;
+import static org.apache.tajo.storage.RawFile.RawFileScanner;
+
+/**
+ * A hybrid hash join for inner equi-joins whose build relation may not fit in memory.
+ *
+ * <ul>
+ *   <li>Both relations are divided into a number of partitions by the hash of their join keys.</li>
+ *   <li>Each partition of the build relation is loaded into its own in-memory hash table. When the memory
+ *   consumption exceeds the memory budget, the largest in-memory partition is spilled into a local RawFile,
+ *   and the following tuples of the partition are appended to the file.</li>
+ *   <li>Tuples of the probe relation whose partitions reside in memory are joined immediately. The others are
+ *   written into local RawFiles of their partitions.</li>
+ *   <li>Finally, each pair of spilled partitions is joined recursively with a different hash seed.</li>
+ * </ul>
+ *
+ * If no partition is spilled, it works exactly like an in-memory hash join.
+ */
+public class HybridHashJoinExec extends HashJoinExec {
+  private static final Log LOG = LogFactory.getLog(HybridHashJoinExec.class);
+
+  /** Beyond this level, a partition is loaded into memory regardless of the memory budget. */
+  private static final int MAX_RECURSION_LEVEL = 3;
+  /** The memory consumption is checked for every this number of build tuples */
+  private static final int MEMORY_CHECK_INTERVAL = 1024;
+  private static final int PARTITION_TABLE_BLOCK_SIZE = 64 * StorageUnit.KB;
+
+  private final long memoryBudget;
+  private final int partitionNum;
+
+  private final TableMeta meta;
+  private final Schema buildSchema;
+  private final Schema probeSchema;
+  /** temporal dir */
+  private final Path spillDir;
+  /** It enables round-robin disks allocation */
+  private final LocalDirAllocator localDirAllocator;
+  /** local file system */
+  private final RawLocalFileSystem localFS;
+
+  private final JoinKeyEncoder encoder = new JoinKeyEncoder();
+  /** partition pairs to be joined in the next passes */
+  private final LinkedList<PartitionPair> pendingPairs = new LinkedList<PartitionPair>();
+
+  ///////////////////////////////////////////////////
+  // states of the current pass
+  ///////////////////////////////////////////////////
+  /** the recursion level of the current pass. 0 means the pass reading the child operators. */
+  private int level = 0;
+  /** the partition pair being joined in the current pass */
+  private PartitionPair currentPair;
+  private Scanner buildScanner;
+  private Scanner probeScanner;
+  private OffHeapJoinHashTable [] partitionTables;
+  private Path [] buildPaths;
+  private Path [] probePaths;
+  private RawFileAppender [] buildAppenders;
+  private RawFileAppender [] probeAppenders;
+
+  // statistics
+  private int spillFileSeq = 0;
+  private int numSpills = 0;
+  private long spilledBytes = 0;
+  private long peakMemory = 0;
+
+  public HybridHashJoinExec(TaskAttemptContext context, JoinNode plan, PhysicalExec leftExec,
+                            PhysicalExec rightExec) {
+    super(context, plan, leftExec, rightExec);
+
+    this.memoryBudget = context.getQueryContext().getLong(SessionVars.HYBRID_HASH_JOIN_BUFFER_SIZE) * StorageUnit.MB;
+    this.partitionNum = context.getConf().getIntVar(ConfVars.EXECUTOR_HYBRID_HASH_JOIN_PARTITION_NUM);
+
+    this.meta = CatalogUtil.newTableMeta(StoreType.RAW);
+    this.buildSchema = rightExec.getSchema();
+    this.probeSchema = leftExec.getSchema();
+    this.spillDir = getExecutorTmpDir();
+    this.localDirAllocator = new LocalDirAllocator(ConfVars.WORKER_TEMPORAL_DIR.varname);
+    this.localFS = new RawLocalFileSystem();
+  }
+
+  @Override
+  public Tuple next() throws IOException {
+    if (first) {
+      loadRightToHashTable();
+    }
+
+    Tuple rightTuple;
+
+    while (!context.isStopped() && !finished) {
+      if (shouldGetLeftTuple) {
+        leftTuple = nextProbeTuple();
+
+        if (leftTuple == null) { // the current pass is completed.
+          finishPass();
+
+          if (!startNextPass()) {
+            finished = true;
+            return null;
+          }
+          continue;
+        }
+
+        int partId = getPartitionId(encoder.encode(leftTuple, leftKeyList));
+        if (partitionTables[partId] != null) { // the partition resides in memory
+          iterator = partitionTables[partId].get(encoder);
+        } else {
+          if (probeAppenders[partId] != null) { // the partition was spilled
+            probeAppenders[partId].addTuple(leftTuple);
+          }
+          iterator = null;
+        }
+
+        if (iterator == null) {
+          continue;
+        }
+        shouldGetLeftTuple = false;
+      }
+
+      rightTuple = iterator.next();
+      if (!iterator.hasNext()) { // no more right tuples for this hash key
+        shouldGetLeftTuple = true;
+      }
+
+      frameTuple.set(leftTuple, rightTuple);
+      if (joinQual.eval(inSchema, frameTuple).isTrue()) {
+        projector.eval(frameTuple, outTuple);
+        return new VTuple(outTuple);
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * It loads the build relation of the current pass into partitioned hash tables, spilling partitions if necessary.
+   */
+  @Override
+  protected void loadRightToHashTable() throws IOException {
+    partitionTables = new OffHeapJoinHashTable[partitionNum];
+    buildPaths = new Path[partitionNum];
+    probePaths = new Path[partitionNum];
+    buildAppenders = new RawFileAppender[partitionNum];
+    probeAppenders = new RawFileAppender[partitionNum];
+
+    boolean spillable = level < MAX_RECURSION_LEVEL;
+    if (!spillable) {
+      LOG.warn("Hybrid hash join reaches the maximum recursion level (" + level + "). "
+          + "The remain partition will be loaded into memory regardless of the memory budget.");
+    }
+
+    Tuple tuple;
+    long loadedNum = 0;
+    while (!context.isStopped() && (tuple = nextBuildTuple()) != null) {
+      int partId = getPartitionId(encoder.encode(tuple, rightKeyList));
+
+      if (buildAppenders[partId] != null) {
+        buildAppenders[partId].addTuple(tuple);
+      } else {
+        if (partitionTables[partId] == null) {
+          partitionTables[partId] = new OffHeapJoinHashTable(buildSchema, rightKeyList, PARTITION_TABLE_BLOCK_SIZE);
+        }
+        partitionTables[partId].put(tuple, encoder);
+      }
+
+      if (spillable && ++loadedNum % MEMORY_CHECK_INTERVAL == 0) {
+        long memory = getMemoryConsumption();
+        peakMemory = Math.max(peakMemory, memory);
+        if (memory > memoryBudget) {
+          spillLargestPartition();
+        }
+      }
+    }
+
+    peakMemory = Math.max(peakMemory, getMemoryConsumption());
+    first = false;
+  }
+
+  private long getMemoryConsumption() {
+    long memory = 0;
+    for (OffHeapJoinHashTable table : partitionTables) {
+      if (table != null) {
+        memory += table.usedMemory();
+      }
+    }
+    return memory;
+  }
+
+  private void spillLargestPartition() throws IOException {
+    int largest = -1;
+    long largestSize = 0;
+    for (int i = 0; i < partitionNum; i++) {
+      if (partitionTables[i] != null && partitionTables[i].usedMemory() > largestSize) {
+        largest = i;
+        largestSize = partitionTables[i].usedMemory();
+      }
+    }
+
+    if (largest < 0) {
+      return;
+    }
+
+    OffHeapJoinHashTable table = partitionTables[largest];
+    int rowNum = table.size();
+
+    buildPaths[largest] = getSpillPathForWrite("build", largest);
+    buildAppenders[largest] = createAppender(buildSchema, buildPaths[largest]);
+    Iterator<Tuple> rows = table.rows();
+    while (rows.hasNext()) {
+      buildAppenders[largest].addTuple(rows.next());
+    }
+    table.release();
+    partitionTables[largest] = null;
+
+    // the probe tuples of this partition will be spilled, too.
+    probePaths[largest] = getSpillPathForWrite("probe", largest);
+    probeAppenders[largest] = createAppender(probeSchema, probePaths[largest]);
+
+    numSpills++;
+    LOG.info("Partition #" + largest + " (" + rowNum + " rows, "
+        + FileUtil.humanReadableByteCount(largestSize, false) + ") at level " + level
+        + " is spilled because memory consumption exceeds " + FileUtil.humanReadableByteCount(memoryBudget, false));
+  }
+
+  /**
+   * It releases in-memory partitions, and registers the spilled partitions as pairs for the next passes.
+   */
+  private void finishPass() throws IOException {
+    releasePartitionTables();
+
+    for (int i = 0; i < partitionNum; i++) {
+      if (buildAppenders[i] != null) {
+        buildAppenders[i].close();
+        probeAppenders[i].close();
+        spilledBytes += buildAppenders[i].getOffset() + probeAppenders[i].getOffset();
+
+        PartitionPair pair = new PartitionPair(level + 1, buildPaths[i], probePaths[i]);
+        if (probeAppenders[i].getOffset() > 0) {
+          pendingPairs.push(pair);
+        } else { // no probe tuple can match this partition
+          pair.delete();
+        }
+
+        buildAppenders[i] = null;
+        probeAppenders[i] = null;
+      }
+    }
+
+    closeScanners();
+    if (currentPair != null) {
+      currentPair.delete();
+      currentPair = null;
+    }
+  }
+
+  /**
+   * It starts to join the next pair of spilled partitions.
+   *
+   * @return False if there is no more partition pair.
+   */
+  private boolean startNextPass() throws IOException {
+    if (!pendingPairs.isEmpty()) {
+      currentPair = pendingPairs.pop();
+      level = currentPair.level;
+
+      buildScanner = createScanner(buildSchema, currentPair.buildPath);
+      probeScanner = createScanner(probeSchema, currentPair.probePath);
+
+      loadRightToHashTable();
+      shouldGetLeftTuple = true;
+      iterator = null;
+      return true;
+    }
+
+    return false;
+  }
+
+  private Tuple nextBuildTuple() throws IOException {
+    return level == 0 ? rightChild.next() : buildScanner.next();
+  }
+
+  private Tuple nextProbeTuple() throws IOException {
+    return level == 0 ? leftChild.next() : probeScanner.next();
+  }
+
+  /**
+   * It chooses a partition from a key hash. The hash is mixed with the recursion level so that a spilled partition
+   * is divided into different partitions in the next pass.
+   */
+  private int getPartitionId(int hash) {
+    int mixed = JoinKeyEncoder.mix(hash ^ (0x9e3779b9 * (level + 1)));
+    return (mixed & Integer.MAX_VALUE) % partitionNum;
+  }
+
+  private synchronized Path getSpillPathForWrite(String side, int partId) throws IOException {
+    return localDirAllocator.getLocalPathForWrite(
+        spillDir + "/" + level + "_" + (spillFileSeq++) + "_" + side + "_" + partId, context.getConf());
+  }
+
+  private RawFileAppender createAppender(Schema schema, Path path) throws IOException {
+    RawFileAppender appender = new RawFileAppender(context.getConf(), null, schema, meta, path);
+    appender.init();
+    return appender;
+  }
+
+  private Scanner createScanner(Schema schema, Path path) throws IOException {
+    FileFragment fragment = new FileFragment("", path, 0, new File(localFS.makeQualified(path).toUri()).length());
+    Scanner scanner = new RawFileScanner(context.getConf(), schema, meta, fragment);
+    scanner.init();
+    return scanner;
+  }
+
+  private void closeScanners() {
+    IOUtils.cleanup(LOG, buildScanner, probeScanner);
+    buildScanner = null;
+    probeScanner = null;
+  }
+
+  private void releasePartitionTables() {
+    if (partitionTables != null) {
+      for (int i = 0; i < partitionTables.length; i++) {
+        if (partitionTables[i] != null) {
+          partitionTables[i].release();
+          partitionTables[i] = null;
+        }
+      }
+    }
+  }
+
+  private void cleanup() throws IOException {
+    releasePartitionTables();
+    closeScanners();
+
+    if (buildAppenders != null) {
+      for (int i = 0; i < partitionNum; i++) {
+        IOUtils.cleanup(LOG, buildAppenders[i], probeAppenders[i]);
+        if (buildPaths[i] != null) {
+          localFS.delete(buildPaths[i], true);
+          localFS.delete(probePaths[i], true);
+        }
+      }
+      buildAppenders = null;
+      probeAppenders = null;
+    }
+
+    if (currentPair != null) {
+      currentPair.delete();
+      currentPair = null;
+    }
+    while (!pendingPairs.isEmpty()) {
+      pendingPairs.pop().delete();
+    }
+
+    level = 0;
+  }
+
+  @Override
+  public void rescan() throws IOException {
+    cleanup();
+    super.rescan();
+  }
+
+  @Override
+  public void close() throws IOException {
+    super.close();
+    cleanup();
+    encoder.release();
+  }
+
+  @Override
+  public TableStats getInputStats() {
+    if (leftChild == null) {
+      return inputStats;
+    }
+
+    super.getInputStats();
+    inputStats.setMemoryBytes(inputStats.getMemoryBytes() + peakMemory);
+    inputStats.setNumSpills(inputStats.getNumSpills() + numSpills);
+    inputStats.setSpilledBytes(inputStats.getSpilledBytes() + spilledBytes);
+
+    return inputStats;
+  }
+
+  private class PartitionPair {
+    final int level;
+    final Path buildPath;
+    final Path probePath;
+
+    PartitionPair(int level, Path buildPath, Path probePath) {
+      this.level = level;
+      this.buildPath = buildPath;
+      this.probePath = probePath;
+    }
+
+    void delete() throws IOException {
+      localFS.delete(buildPath, true);
+      localFS.delete(probePath, true);
+    }
+  }
+}
@@ -0,0 +1,234 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.SortSpec;
+import org.apache.tajo.storage.BaseTupleComparator;
+import org.apache.tajo.storage.NormalizedKeyEncoder;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.util.ClassSize;
+import org.apache.tajo.util.TUtil;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * It sorts a block of tuples with multiple threads.
+ *
+ * The block is divided into as many segments as the parallelism, and each segment is sorted by a thread.
+ * Then, sorted segments are merged pair-wise in parallel, until a single sorted run remains.
+ * If normalized key prefixes are available, tuples are compared by their prefixes first.
+ *
+ * {@link BaseTupleComparator} is not thread-safe, so each task uses its own comparator.
+ */
+public class ParallelTupleSorter {
+  /** the minimum number of tuples sorted by a task */
+  static final int MIN_TUPLES_PER_TASK = 8192;
+  /**
+   * The memory allocated per tuple while a block is sorted: a tuple array, two keyed tuple arrays and
+   * a keyed tuple. It is not included in the tuple sizes, so a caller should charge it to the sort buffer.
+   */
+  static final long SORT_OVERHEAD_PER_TUPLE = 3 * ClassSize.REFERENCE + ClassSize.estimateBase(KeyedTuple.class, false);
+
+  private final ExecutorService executor;
+  private final int parallelism;
+  private final Schema schema;
+  private final SortSpec [] sortSpecs;
+  /** null if the sort keys cannot be normalized */
+  private final NormalizedKeyEncoder keyEncoder;
+
+  public ParallelTupleSorter(ExecutorService executor, int parallelism, Schema schema, SortSpec [] sortSpecs) {
+    this.executor = executor;
+    this.parallelism = parallelism;
+    this.schema = schema;
+    this.sortSpecs = sortSpecs;
+
+    NormalizedKeyEncoder encoder = new NormalizedKeyEncoder(schema, sortSpecs);
+    this.keyEncoder = encoder.isEnabled() ? encoder : null;
+  }
+
+  public NormalizedKeyEncoder getKeyEncoder() {
+    return keyEncoder;
+  }
+
+  private Comparator<Tuple> newTupleComparator() {
+    return new BaseTupleComparator(schema, sortSpecs);
+  }
+
+  private Comparator<KeyedTuple> newComparator() {
+    final Comparator<Tuple> comparator = newTupleComparator();
+    return new Comparator<KeyedTuple>() {
+      @Override
+      public int compare(KeyedTuple o1, KeyedTuple o2) {
+        int cmp = NormalizedKeyEncoder.compare(o1.prefix, o2.prefix);
+        return cmp != 0 ? cmp : comparator.compare(o1.tuple, o2.tuple);
+      }
+    };
+  }
+
+  /**
+   * It sorts the given tuples in place.
+   */
+  public void sort(List<Tuple> tuples) throws IOException {
+    int taskNum = Math.min(parallelism, tuples.size() / MIN_TUPLES_PER_TASK);
+    if (taskNum <= 1) {
+      if (keyEncoder != null) {
+        keyEncoder.sort(tuples, newTupleComparator());
+      } else {
+        Collections.sort(tuples, newTupleComparator());
+      }
+      return;
+    }
+
+    final Tuple [] input = tuples.toArray(new Tuple[tuples.size()]);
+    KeyedTuple [] src = new KeyedTuple[input.length];
+    KeyedTuple [] dst = new KeyedTuple[input.length];
+
+    // sort each segment
+    int [] bounds = new int[taskNum + 1];
+    for (int i = 0; i <= taskNum; i++) {
+      bounds[i] = (int) ((long) input.length * i / taskNum);
+    }
+    List<Future<?>> futures = TUtil.newList();
+    for (int i = 0; i < taskNum; i++) {
+      futures.add(executor.submit(new SegmentSorter(input, src, bounds[i], bounds[i + 1])));
+    }
+    waitFor(futures);
+
+    // merge sorted segments pair-wise, until only one segment remains
+    int runNum = taskNum;
+    int [] runBounds = bounds;
+    while (runNum > 1) {
+      int nextRunNum = (runNum + 1) / 2;
+      int [] nextBounds = new int[nextRunNum + 1];
+      futures.clear();
+      for (int i = 0; i < nextRunNum; i++) {
+        int lo = runBounds[2 * i];
+        int mid = runBounds[Math.min(2 * i + 1, runNum)];
+        int hi = runBounds[Math.min(2 * i + 2, runNum)];
+        nextBounds[i] = lo;
+        futures.add(executor.submit(new SegmentMerger(src, dst, lo, mid, hi)));
+      }
+      nextBounds[nextRunNum] = input.length;
+      waitFor(futures);
+
+      KeyedTuple [] tmp = src;
+      src = dst;
+      dst = tmp;
+      runNum = nextRunNum;
+      runBounds = nextBounds;
+    }
+
+    for (int i = 0; i < src.length; i++) {
+      tuples.set(i, src[i].tuple);
+    }
+  }
+
+  private static void waitFor(List<Future<?>> futures) throws IOException {
+    try {
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      throw new IOException(e);
+    } catch (ExecutionException e) {
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private class SegmentSorter implements Callable<Object> {
+    private final Tuple [] input;
+    private final KeyedTuple [] output;
+    private final int from;
+    private final int to;
+
+    SegmentSorter(Tuple [] input, KeyedTuple [] output, int from, int to) {
+      this.input = input;
+      this.output = output;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    public Object call() throws Exception {
+      for (int i = from; i < to; i++) {
+        output[i] = new KeyedTuple(keyEncoder == null ? 0 : keyEncoder.encode(input[i]), input[i]);
+      }
+      Arrays.sort(output, from, to, newComparator());
+      return null;
+    }
+  }
+
+  /**
+   * It merges two sorted ranges [lo, mid) and [mid, hi) of src into the same range of dst.
+   */
+  private class SegmentMerger implements Callable<Object> {
+    private final KeyedTuple [] src;
+    private final KeyedTuple [] dst;
+    private final int lo;
+    private final int mid;
+    private final int hi;
+
+    SegmentMerger(KeyedTuple [] src, KeyedTuple [] dst, int lo, int mid, int hi) {
+      this.src = src;
+      this.dst = dst;
+      this.lo = lo;
+      this.mid = mid;
+      this.hi = hi;
+    }
+
+    @Override
+    public Object call() throws Exception {
+      Comparator<KeyedTuple> comparator = newComparator();
+      int left = lo;
+      int right = mid;
+      int out = lo;
+      while (left < mid && right < hi) {
+        // it takes the left one on ties to keep the merge stable
+        if (comparator.compare(src[left], src[right]) <= 0) {
+          dst[out++] = src[left++];
+        } else {
+          dst[out++] = src[right++];
+        }
+      }
+      System.arraycopy(src, left, dst, out, mid - left);
+      out += mid - left;
+      System.arraycopy(src, right, dst, out, hi - right);
+      return null;
+    }
+  }
+
+  private static class KeyedTuple {
+    final long prefix;
+    final Tuple tuple;
+
+    KeyedTuple(long prefix, Tuple tuple) {
+      this.prefix = prefix;
+      this.tuple = tuple;
+    }
+  }
+}
@@ -26,6 +26,7 @@ import org.apache.tajo.catalog.SchemaObject;
 import org.apache.tajo.catalog.statistics.TableStats;
 import org.apache.tajo.engine.codegen.CompilationError;
 import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.vector.RowBatch;
 import org.apache.tajo.worker.TaskAttemptContext;
 
 import java.io.IOException;
@@ -36,6 +37,8 @@ public abstract class PhysicalExec implements SchemaObject {
   protected Schema inSchema;
   protected Schema outSchema;
   protected int outColumnNum;
+  /** a batch filled by the default {@link #nextBatch()} */
+  private RowBatch rowBatch;
 
   public PhysicalExec(final TaskAttemptContext context, final Schema inSchema,
                       final Schema outSchema) {
@@ -60,6 +63,36 @@ public abstract class PhysicalExec implements SchemaObject {
 
   public abstract Tuple next() throws IOException;
 
+  /**
+   * @return true if this executor can return row batches by {@link #nextBatch()}. It is valid after init().
+   */
+  public boolean isBatchMode() {
+    return false;
+  }
+
+  /**
+   * It returns the next batch of rows, or null if there is no more row. The returned batch is valid
+   * until the next call. A caller must use either next() or nextBatch() for an executor.
+   *
+   * By default, it fills a batch with the rows returned by {@link #next()}. Batch-mode executors override it.
+   */
+  public RowBatch nextBatch() throws IOException {
+    if (rowBatch == null) {
+      rowBatch = new RowBatch(outSchema, RowBatch.DEFAULT_SIZE, RowBatch.allColumnIds(outSchema));
+    }
+    rowBatch.reset();
+
+    Tuple tuple;
+    while (!rowBatch.isFull() && !context.isStopped() && (tuple = next()) != null) {
+      rowBatch.addRow(tuple);
+    }
+    return rowBatch.size() > 0 ? rowBatch : null;
+  }
+
+  protected boolean isVectorizedEnabled() {
+    return context.getQueryContext().getBool(SessionVars.VECTORIZED_EXECUTION);
+  }
+
   public abstract void rescan() throws IOException;
 
   public abstract void close() throws IOException;
@@ -61,6 +61,9 @@ public interface PhysicalExecutorVisitor<CONTEXT, RESULT> {
   RESULT visitHashShuffleFileWrite(CONTEXT context, HashShuffleFileWriteExec exec, Stack<PhysicalExec> stack)
       throws PhysicalPlanningException;
 
+  RESULT visitSortShuffleFileWrite(CONTEXT context, SortShuffleFileWriteExec exec, Stack<PhysicalExec> stack)
+      throws PhysicalPlanningException;
+
   RESULT visitHaving(CONTEXT context, HavingExec exec, Stack<PhysicalExec> stack)
       throws PhysicalPlanningException;
 
@@ -22,9 +22,11 @@
 package org.apache.tajo.engine.planner.physical;
 
 import org.apache.tajo.engine.planner.Projector;
+import org.apache.tajo.engine.vector.VectorizedProjector;
 import org.apache.tajo.plan.logical.Projectable;
 import org.apache.tajo.storage.Tuple;
 import org.apache.tajo.storage.VTuple;
+import org.apache.tajo.storage.vector.RowBatch;
 import org.apache.tajo.worker.TaskAttemptContext;
 
 import java.io.IOException;
@@ -35,6 +37,10 @@ public class ProjectionExec extends UnaryPhysicalExec {
   // for projection
   private Tuple outTuple;
   private Projector projector;
+
+  // for batch mode
+  private VectorizedProjector vectorizedProjector;
+  private RowBatchCursor cursor;
   
   public ProjectionExec(TaskAttemptContext context, Projectable plan,
       PhysicalExec child) {
@@ -47,10 +53,19 @@ public class ProjectionExec extends UnaryPhysicalExec {
 
     this.outTuple = new VTuple(outSchema.size());
     this.projector = new Projector(context, inSchema, outSchema, this.plan.getTargets());
+
+    if (isVectorizedEnabled()) {
+      vectorizedProjector = new VectorizedProjector(inSchema, outSchema, plan.getTargets(), RowBatch.DEFAULT_SIZE);
+      cursor = new RowBatchCursor(this, true);
+    }
   }
 
   @Override
   public Tuple next() throws IOException {
+    if (vectorizedProjector != null) {
+      return cursor.next();
+    }
+
     Tuple tuple = child.next();
 
     if (tuple ==  null) {
@@ -61,6 +76,28 @@ public class ProjectionExec extends UnaryPhysicalExec {
     return outTuple;
   }
 
+  @Override
+  public boolean isBatchMode() {
+    return vectorizedProjector != null;
+  }
+
+  @Override
+  public RowBatch nextBatch() throws IOException {
+    RowBatch batch = nextChildBatch();
+    if (batch == null) {
+      return null;
+    }
+    return vectorizedProjector.project(batch);
+  }
+
+  @Override
+  public void rescan() throws IOException {
+    super.rescan();
+    if (cursor != null) {
+      cursor.reset();
+    }
+  }
+
   @Override
   public void close() throws IOException{
     super.close();
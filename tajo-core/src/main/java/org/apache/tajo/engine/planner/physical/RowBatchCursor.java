@@ -0,0 +1,66 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
+import org.apache.tajo.storage.vector.RowBatch;
+
+import java.io.IOException;
+
+/**
+ * It adapts {@link PhysicalExec#nextBatch()} of a batch-mode executor to the row interface.
+ * It returns the selected rows of each batch one by one.
+ */
+class RowBatchCursor {
+  private final PhysicalExec exec;
+  /** if false, a new tuple is returned for each row */
+  private final boolean reuseTuple;
+  private Tuple tuple;
+
+  private RowBatch current;
+  private int cursor;
+
+  RowBatchCursor(PhysicalExec exec, boolean reuseTuple) {
+    this.exec = exec;
+    this.reuseTuple = reuseTuple;
+    this.tuple = new VTuple(exec.getSchema().size());
+  }
+
+  Tuple next() throws IOException {
+    while (current == null || cursor >= current.getSelectedSize()) {
+      current = exec.nextBatch();
+      cursor = 0;
+      if (current == null) {
+        return null;
+      }
+    }
+
+    if (!reuseTuple) {
+      tuple = new VTuple(exec.getSchema().size());
+    }
+    current.getRow(current.getSelectedRow(cursor++), tuple);
+    return tuple;
+  }
+
+  void reset() {
+    current = null;
+    cursor = 0;
+  }
+}
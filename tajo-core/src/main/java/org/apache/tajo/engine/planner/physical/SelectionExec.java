@@ -19,9 +19,12 @@
 package org.apache.tajo.engine.planner.physical;
 
 import org.apache.tajo.engine.codegen.CompilationError;
+import org.apache.tajo.engine.vector.VectorExpression;
+import org.apache.tajo.engine.vector.VectorExpressionBuilder;
 import org.apache.tajo.plan.expr.EvalNode;
 import org.apache.tajo.plan.logical.SelectionNode;
 import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.vector.RowBatch;
 import org.apache.tajo.worker.TaskAttemptContext;
 
 import java.io.IOException;
@@ -29,6 +32,10 @@ import java.io.IOException;
 public class SelectionExec extends UnaryPhysicalExec  {
   private EvalNode qual;
 
+  // for batch mode
+  private VectorExpression vectorQual;
+  private RowBatchCursor cursor;
+
   public SelectionExec(TaskAttemptContext context,
                        SelectionNode plan,
                        PhysicalExec child) {
@@ -36,6 +43,17 @@ public class SelectionExec extends UnaryPhysicalExec  {
     this.qual = plan.getQual();
   }
 
+  @Override
+  public void init() throws IOException {
+    // it should be built before the qual is compiled
+    if (isVectorizedEnabled()) {
+      vectorQual = new VectorExpressionBuilder(inSchema, RowBatch.DEFAULT_SIZE).build(qual);
+      cursor = new RowBatchCursor(this, true);
+    }
+
+    super.init();
+  }
+
   @Override
   public void compile() throws CompilationError {
     qual = context.getPrecompiledEval(inSchema, qual);
@@ -43,6 +61,10 @@ public class SelectionExec extends UnaryPhysicalExec  {
 
   @Override
   public Tuple next() throws IOException {
+    if (vectorQual != null) {
+      return cursor.next();
+    }
+
     Tuple tuple;
     while (!context.isStopped() && (tuple = child.next()) != null) {
       if (qual.eval(inSchema, tuple).isTrue()) {
@@ -52,4 +74,28 @@ public class SelectionExec extends UnaryPhysicalExec  {
 
     return null;
   }
+
+  @Override
+  public boolean isBatchMode() {
+    return vectorQual != null;
+  }
+
+  @Override
+  public RowBatch nextBatch() throws IOException {
+    RowBatch batch;
+    while (!context.isStopped() && (batch = nextChildBatch()) != null) {
+      if (VectorExpression.filter(batch, vectorQual) > 0) {
+        return batch;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public void rescan() throws IOException {
+    super.rescan();
+    if (cursor != null) {
+      cursor.reset();
+    }
+  }
 }
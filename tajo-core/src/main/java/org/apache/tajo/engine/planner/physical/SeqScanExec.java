@@ -29,8 +29,12 @@ import org.apache.tajo.catalog.statistics.TableStats;
 import org.apache.tajo.datum.Datum;
 import org.apache.tajo.engine.codegen.CompilationError;
 import org.apache.tajo.engine.planner.Projector;
-import org.apache.tajo.engine.utils.TupleCache;
+import org.apache.tajo.engine.utils.BroadcastTableCache;
+import org.apache.tajo.engine.utils.BroadcastTableCache.BroadcastTable;
 import org.apache.tajo.engine.utils.TupleCacheKey;
+import org.apache.tajo.engine.vector.VectorExpression;
+import org.apache.tajo.engine.vector.VectorExpressionBuilder;
+import org.apache.tajo.engine.vector.VectorizedProjector;
 import org.apache.tajo.catalog.SchemaUtil;
 import org.apache.tajo.plan.Target;
 import org.apache.tajo.plan.expr.ConstEval;
@@ -44,11 +48,15 @@ import org.apache.tajo.storage.*;
 import org.apache.tajo.storage.fragment.FileFragment;
 import org.apache.tajo.storage.fragment.Fragment;
 import org.apache.tajo.storage.fragment.FragmentConvertor;
+import org.apache.tajo.storage.vector.RowBatch;
+import org.apache.tajo.storage.vector.VectorizedScanner;
+import org.apache.tajo.tuple.offheap.OffHeapJoinHashTable;
 import org.apache.tajo.worker.TaskAttemptContext;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
@@ -66,9 +74,20 @@ public class SeqScanExec extends PhysicalExec {
 
   private TableStats inputStats;
 
+  private Schema projected;
+
+  // for a broadcast relation shared by tasks
   private TupleCacheKey cacheKey;
+  private BroadcastTable broadcastTable;
+  private OffHeapJoinHashTable.Probe broadcastProbe;
+  private Iterator<Tuple> broadcastRows;
 
-  private boolean cacheRead = false;
+  // for batch mode
+  private RowBatch inBatch;
+  private VectorExpression vectorQual;
+  private VectorizedProjector vectorizedProjector;
+  private RowBatchCursor cursor;
+  private VectorizedScanner vectorizedScanner;
 
   public SeqScanExec(TaskAttemptContext context, ScanNode plan,
                      CatalogProtos.FragmentProto [] fragments) throws IOException {
@@ -177,36 +196,49 @@ public class SeqScanExec extends PhysicalExec {
       projected = outSchema;
     }
 
-    if (cacheKey != null) {
-      TupleCache tupleCache = TupleCache.getInstance();
-      if (tupleCache.isBroadcastCacheReady(cacheKey)) {
-        openCacheScanner();
-      } else {
-        if (TupleCache.getInstance().lockBroadcastScan(cacheKey)) {
-          scanAndAddCache(projected);
-          openCacheScanner();
-        } else {
-          Object lockMonitor = tupleCache.getLockMonitor();
-          synchronized (lockMonitor) {
-            try {
-              lockMonitor.wait(20 * 1000);
-            } catch (InterruptedException e) {
-            }
-          }
-          if (tupleCache.isBroadcastCacheReady(cacheKey)) {
-            openCacheScanner();
-          } else {
-            initScanner(projected);
-          }
-        }
-      }
-    } else {
+    this.projected = projected;
+
+    // A broadcast relation is loaded lazily, because a parent may acquire it with a join index.
+    if (!isBroadcastScan()) {
       initScanner(projected);
+      if (fragments != null && isVectorizedEnabled()) {
+        initBatchMode(projected);
+      }
     }
 
     super.init();
   }
 
+  /**
+   * It prepares the vectorized evaluation of the qual and the targets. It should be called before
+   * the qual is compiled. Only the projected columns are copied into batches.
+   */
+  private void initBatchMode(Schema projected) {
+    List<Integer> columnIds = new ArrayList<Integer>();
+    for (Column column : projected.getColumns()) {
+      int columnId = inSchema.getColumnId(column.getQualifiedName());
+      if (columnId >= 0) {
+        columnIds.add(columnId);
+      }
+    }
+    int [] targetColumnIds = new int[columnIds.size()];
+    for (int i = 0; i < targetColumnIds.length; i++) {
+      targetColumnIds[i] = columnIds.get(i);
+    }
+
+    inBatch = new RowBatch(inSchema, RowBatch.DEFAULT_SIZE, targetColumnIds);
+    if (plan.hasQual()) {
+      vectorQual = new VectorExpressionBuilder(inSchema, RowBatch.DEFAULT_SIZE).build(qual);
+    }
+    vectorizedProjector = new VectorizedProjector(inSchema, outSchema, plan.getTargets(), RowBatch.DEFAULT_SIZE);
+    cursor = new RowBatchCursor(this, false);
+
+    // a vectorized scanner fills batches directly without materializing tuples
+    if (scanner instanceof VectorizedScanner && ((VectorizedScanner) scanner).isVectorized()) {
+      vectorizedScanner = (VectorizedScanner) scanner;
+    }
+  }
+
   @Override
   protected void compile() throws CompilationError {
     if (plan.hasQual()) {
@@ -237,37 +269,60 @@ public class SeqScanExec extends PhysicalExec {
         this.scanner = storageManager.getScanner(meta,
             plan.getPhysicalSchema(), fragments[0], projected);
       }
+      // A selectable scanner may skip data which cannot satisfy the qual, but the qual is still evaluated here.
+      if (plan.hasQual() && scanner.isSelectable()) {
+        scanner.setSearchCondition(plan.getQual());
+      }
       scanner.init();
     }
   }
 
-  private void openCacheScanner() throws IOException {
-    Scanner cacheScanner = TupleCache.getInstance().openCacheScanner(cacheKey, plan.getPhysicalSchema());
-    if (cacheScanner != null) {
-      scanner = cacheScanner;
-      cacheRead = true;
-    }
+  /**
+   * @return true if this scan reads a broadcast relation shared by the tasks of a worker
+   */
+  public boolean isBroadcastScan() {
+    return cacheKey != null && fragments != null;
   }
 
-  private void scanAndAddCache(Schema projected) throws IOException {
-    initScanner(projected);
-
-    List<Tuple> broadcastTupleCacheList = new ArrayList<Tuple>();
-    while (!context.isStopped()) {
-      Tuple tuple = next();
-      if (tuple != null) {
-        broadcastTupleCacheList.add(tuple);
-      } else {
-        break;
+  /**
+   * It returns the output rows of this scan from the worker-wide {@link BroadcastTableCache}, indexed by the given
+   * join keys. If the rows are not cached yet, they are scanned by this task. The returned table must be released
+   * by the caller.
+   *
+   * @param keyIds The column ids of join keys in the output schema. It can be empty.
+   */
+  public BroadcastTable acquireBroadcastTable(int [] keyIds) throws IOException {
+    return BroadcastTableCache.getInstance().acquire(cacheKey, outSchema, keyIds, new BroadcastTableCache.Loader() {
+      @Override
+      public void load(OffHeapJoinHashTable table) throws IOException {
+        initScanner(projected);
+        try {
+          Tuple tuple;
+          while ((tuple = nextFromScanner()) != null) {
+            if (context.isStopped()) {
+              throw new IOException("Task is stopped while loading the broadcast table " + plan.getTableName());
+            }
+            table.put(tuple);
+          }
+        } finally {
+          closeScanner();
+        }
       }
-    }
+    });
+  }
 
-    if (scanner != null) {
-      scanner.close();
-      scanner = null;
+  private Tuple nextFromBroadcastTable() throws IOException {
+    if (broadcastRows == null) {
+      broadcastTable = acquireBroadcastTable(new int[0]);
+      broadcastProbe = broadcastTable.newProbe();
+      broadcastRows = broadcastProbe.rows();
     }
 
-    TupleCache.getInstance().addBroadcastCache(cacheKey, broadcastTupleCacheList);
+    if (broadcastRows.hasNext()) {
+      return new VTuple(broadcastRows.next());
+    } else {
+      return null;
+    }
   }
 
   @Override
@@ -276,14 +331,23 @@ public class SeqScanExec extends PhysicalExec {
       return null;
     }
 
+    if (cacheKey != null) {
+      return nextFromBroadcastTable();
+    }
+
+    if (inBatch != null) {
+      return cursor.next();
+    }
+
+    return nextFromScanner();
+  }
+
+  private Tuple nextFromScanner() throws IOException {
     Tuple tuple;
     Tuple outTuple = new VTuple(outColumnNum);
 
     if (!plan.hasQual()) {
       if ((tuple = scanner.next()) != null) {
-        if (cacheRead) {
-          return tuple;
-        }
         projector.eval(tuple, outTuple);
         outTuple.setOffset(tuple.getOffset());
         return outTuple;
@@ -292,9 +356,6 @@ public class SeqScanExec extends PhysicalExec {
       }
     } else {
       while ((tuple = scanner.next()) != null) {
-        if (cacheRead) {
-          return tuple;
-        }
         if (qual.eval(inSchema, tuple).isTrue()) {
           projector.eval(tuple, outTuple);
           return outTuple;
@@ -304,13 +365,71 @@ public class SeqScanExec extends PhysicalExec {
     }
   }
 
+  @Override
+  public boolean isBatchMode() {
+    return inBatch != null;
+  }
+
+  @Override
+  public RowBatch nextBatch() throws IOException {
+    while (!context.isStopped()) {
+      inBatch.reset();
+      if (vectorizedScanner != null) {
+        if (!vectorizedScanner.nextBatch(inBatch)) {
+          return null;
+        }
+      } else {
+        Tuple tuple;
+        while (!inBatch.isFull() && (tuple = scanner.next()) != null) {
+          inBatch.addRow(tuple);
+        }
+      }
+      if (inBatch.size() == 0) {
+        return null;
+      }
+
+      if (vectorQual == null || VectorExpression.filter(inBatch, vectorQual) > 0) {
+        return vectorizedProjector.project(inBatch);
+      }
+    }
+    return null;
+  }
+
   @Override
   public void rescan() throws IOException {
-    scanner.reset();
+    if (scanner != null) {
+      scanner.reset();
+    }
+    if (broadcastProbe != null) {
+      broadcastRows = broadcastProbe.rows();
+    }
+    if (cursor != null) {
+      cursor.reset();
+    }
   }
 
   @Override
   public void close() throws IOException {
+    closeScanner();
+    if (broadcastProbe != null) {
+      broadcastProbe.release();
+      broadcastProbe = null;
+      broadcastRows = null;
+    }
+    if (broadcastTable != null) {
+      broadcastTable.release();
+      broadcastTable = null;
+    }
+    plan = null;
+    qual = null;
+    projector = null;
+    inBatch = null;
+    vectorQual = null;
+    vectorizedProjector = null;
+    vectorizedScanner = null;
+  }
+
+  private void closeScanner() {
     IOUtils.cleanup(null, scanner);
     if (scanner != null) {
       try {
@@ -323,9 +442,6 @@ public class SeqScanExec extends PhysicalExec {
       }
     }
     scanner = null;
-    plan = null;
-    qual = null;
-    projector = null;
   }
 
   public String getTableName() {
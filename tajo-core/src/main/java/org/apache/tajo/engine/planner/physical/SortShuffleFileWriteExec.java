@@ -0,0 +1,464 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IOUtils;
+import org.apache.tajo.SessionVars;
+import org.apache.tajo.catalog.CatalogUtil;
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.SchemaUtil;
+import org.apache.tajo.catalog.TableMeta;
+import org.apache.tajo.catalog.proto.CatalogProtos.StoreType;
+import org.apache.tajo.catalog.statistics.TableStats;
+import org.apache.tajo.common.TajoDataTypes.DataType;
+import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.apache.tajo.plan.logical.ShuffleFileWriteNode;
+import org.apache.tajo.storage.*;
+import org.apache.tajo.tuple.offheap.OffHeapRowBlock;
+import org.apache.tajo.tuple.offheap.ResizableLimitSpec;
+import org.apache.tajo.tuple.offheap.ZeroCopyTuple;
+import org.apache.tajo.unit.StorageUnit;
+import org.apache.tajo.util.FileUtil;
+import org.apache.tajo.util.Pair;
+import org.apache.tajo.util.SizeOf;
+import org.apache.tajo.worker.TaskAttemptContext;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <code>SortShuffleFileWriteExec</code> is a physical executor to store intermediate data of a hash shuffle into
+ * a single data file per task, instead of a file per partition.
+ *
+ * Rows are buffered in off-heap memory with their partition ids. They are written in the order of partition ids,
+ * and an index file keeps the start offset of each partition (see {@link SortShuffleIndex}). So, a partition of
+ * a task is served as a byte range of the data file. If the buffer is full, the buffered rows are written into
+ * a spill file in the same layout, and the partitions of spill files are concatenated into the data file at last.
+ *
+ * The partitions are reported with their pages in the task completion report, so that a scattered hash shuffle
+ * can split a large partition at row boundaries.
+ */
+public final class SortShuffleFileWriteExec extends UnaryPhysicalExec {
+  private static final Log LOG = LogFactory.getLog(SortShuffleFileWriteExec.class);
+  private static final int INITIAL_BUFFER_SIZE = 4 * StorageUnit.MB;
+  private static final int INITIAL_ROW_NUM = 1024;
+
+  private final TableMeta meta;
+  private final DataType [] dataTypes;
+  private final int numPartitions;
+  private final Partitioner partitioner;
+  private final long bufferSize;
+  private final int pageSize;
+  private final Path outputDir;
+
+  private ResizableLimitSpec limitSpec;
+  private OffHeapRowBlock rowBlock;
+  /** the partition id of each buffered row */
+  private int [] rowPartIds;
+  /** the offset of each buffered row in the row block */
+  private int [] rowOffsets;
+  private final ZeroCopyTuple zeroCopyTuple = new ZeroCopyTuple();
+
+  private final List<Run> spills = new ArrayList<Run>();
+  private int numSpills = 0;
+  private long numRows = 0;
+
+  public SortShuffleFileWriteExec(TaskAttemptContext context,
+                                  final ShuffleFileWriteNode plan, final PhysicalExec child) throws IOException {
+    super(context, plan.getInSchema(), plan.getOutSchema(), child);
+    Preconditions.checkArgument(plan.hasShuffleKeys());
+    if (plan.hasOptions()) {
+      this.meta = CatalogUtil.newTableMeta(plan.getStorageType(), plan.getOptions());
+    } else {
+      this.meta = CatalogUtil.newTableMeta(plan.getStorageType());
+    }
+    this.dataTypes = SchemaUtil.toDataTypes(outSchema);
+
+    int i = 0;
+    int [] shuffleKeyIds = new int [plan.getShuffleKeys().length];
+    for (Column key : plan.getShuffleKeys()) {
+      shuffleKeyIds[i] = inSchema.getColumnId(key.getQualifiedName());
+      i++;
+    }
+    // HashPartitioner returns zero if there is no output
+    this.numPartitions = Math.max(1, plan.getNumOutputs());
+    this.partitioner = new HashPartitioner(shuffleKeyIds, plan.getNumOutputs());
+
+    this.bufferSize = Math.min(ResizableLimitSpec.MAX_SIZE_BYTES,
+        context.getQueryContext().getLong(SessionVars.SORT_SHUFFLE_WRITER_BUFFER_SIZE) * StorageUnit.MB);
+    this.pageSize = context.getConf().getIntVar(ConfVars.SHUFFLE_HASH_APPENDER_PAGE_VOLUME) * StorageUnit.MB;
+    this.outputDir = new Path(context.getWorkDir(), "output");
+  }
+
+  /**
+   * It returns true if the partitions of spill files can be concatenated without being decoded.
+   */
+  public static boolean isSupportedStoreType(ShuffleFileWriteNode plan) {
+    return plan.getStorageType() == StoreType.RAW;
+  }
+
+  @Override
+  public void init() throws IOException {
+    super.init();
+
+    limitSpec = new ResizableLimitSpec(Math.min(INITIAL_BUFFER_SIZE, bufferSize), bufferSize);
+    rowBlock = new OffHeapRowBlock(outSchema, limitSpec);
+    rowPartIds = new int[INITIAL_ROW_NUM];
+    rowOffsets = new int[INITIAL_ROW_NUM];
+
+    FileSystem fs = outputDir.getFileSystem(context.getConf());
+    fs.mkdirs(outputDir);
+  }
+
+  @Override
+  public Tuple next() throws IOException {
+    Tuple tuple;
+    while (!context.isStopped() && (tuple = child.next()) != null) {
+      int rowSize = getRowSize(tuple);
+      // spill the buffered rows if the incoming row does not fit in the buffer
+      if (rowBlock.rows() > 0 && rowBlock.usedMem() + rowSize > bufferSize) {
+        spill();
+      }
+      addRow(partitioner.getPartition(tuple), tuple, rowSize);
+      numRows++;
+    }
+
+    if (context.isStopped()) {
+      return null;
+    }
+
+    Run output = writeOutput();
+
+    for (int partId = 0; partId < numPartitions; partId++) {
+      long volume = output.getLength(partId);
+      if (volume > 0) {
+        context.addShuffleFileOutput(partId, context.getTaskId().toString());
+        context.addPartitionOutputVolume(partId, volume);
+        context.addShuffleFilePages(partId, output.getPages(partId));
+      }
+    }
+
+    TableStats aggregated = (TableStats) child.getInputStats().clone();
+    aggregated.setNumBytes(output.getLength());
+    aggregated.setNumRows(numRows);
+    context.setResultStats(aggregated);
+    return null;
+  }
+
+  private void addRow(int partId, Tuple tuple, int rowSize) throws IOException {
+    if (rowBlock.usedMem() + rowSize > limitSpec.limit()) {
+      throw new IOException("A row of " + FileUtil.humanReadableByteCount(rowSize, false)
+          + " exceeds the sort shuffle buffer (" + FileUtil.humanReadableByteCount(bufferSize, false) + ")");
+    }
+    // the row block increases only once per field, so it is increased for the whole row in advance.
+    while (rowBlock.size() - rowBlock.usedMem() < rowSize) {
+      rowBlock.resize(limitSpec.increasedSize((int) rowBlock.size()));
+    }
+
+    int rowId = rowBlock.rows();
+    if (rowId == rowPartIds.length) {
+      rowPartIds = Arrays.copyOf(rowPartIds, rowId * 2);
+      rowOffsets = Arrays.copyOf(rowOffsets, rowId * 2);
+    }
+    rowPartIds[rowId] = partId;
+    rowOffsets[rowId] = rowBlock.position();
+    RowStoreUtil.convert(tuple, rowBlock.getWriter());
+  }
+
+  /**
+   * It returns the number of bytes which a tuple takes in the row block. It follows the layout written by
+   * {@link RowStoreUtil#convert(Tuple, org.apache.tajo.tuple.offheap.RowWriter)}.
+   */
+  private int getRowSize(Tuple tuple) {
+    // the row length and the offsets of fields
+    int size = SizeOf.SIZE_OF_INT * (dataTypes.length + 1);
+    for (int i = 0; i < dataTypes.length; i++) {
+      if (tuple.isNull(i)) {
+        continue;
+      }
+      switch (dataTypes[i].getType()) {
+      case BOOLEAN:
+        size += SizeOf.SIZE_OF_BOOL;
+        break;
+      case BIT:
+        size += SizeOf.SIZE_OF_BYTE;
+        break;
+      case INT1:
+      case INT2:
+        size += SizeOf.SIZE_OF_SHORT;
+        break;
+      case INT4:
+      case DATE:
+      case INET4:
+        size += SizeOf.SIZE_OF_INT;
+        break;
+      case INT8:
+      case TIMESTAMP:
+      case TIME:
+        size += SizeOf.SIZE_OF_LONG;
+        break;
+      case FLOAT4:
+        size += SizeOf.SIZE_OF_FLOAT;
+        break;
+      case FLOAT8:
+        size += SizeOf.SIZE_OF_DOUBLE;
+        break;
+      case CHAR:
+      case TEXT:
+      case BLOB:
+        size += SizeOf.SIZE_OF_INT + tuple.getBytes(i).length;
+        break;
+      case INTERVAL:
+        size += SizeOf.SIZE_OF_INT + SizeOf.SIZE_OF_LONG;
+        break;
+      case PROTOBUF:
+        size += SizeOf.SIZE_OF_INT + tuple.getProtobufDatum(i).size();
+        break;
+      default:
+        break;
+      }
+    }
+    return size;
+  }
+
+  private void spill() throws IOException {
+    Path spillPath = new Path(context.getWorkDir(), "sort-shuffle-spill-" + spills.size());
+    spills.add(writeRun(spillPath));
+    numSpills++;
+    info(LOG, "Sort shuffle buffer exceeds " + FileUtil.humanReadableByteCount(bufferSize, false)
+        + ", spilled to " + spillPath);
+  }
+
+  @VisibleForTesting
+  public int getNumSpills() {
+    return numSpills;
+  }
+
+  private Run writeOutput() throws IOException {
+    Path dataPath = new Path(outputDir, SortShuffleIndex.DATA_FILE_NAME);
+    Run output;
+    if (spills.isEmpty()) {
+      output = writeRun(dataPath);
+    } else {
+      if (rowBlock.rows() > 0) {
+        spill();
+      }
+      output = mergeSpills(dataPath);
+    }
+    SortShuffleIndex.write(toFile(new Path(outputDir, SortShuffleIndex.INDEX_FILE_NAME)), output.offsets);
+    return output;
+  }
+
+  /**
+   * It writes the buffered rows in the order of partition ids by a counting sort, and it clears the buffer.
+   */
+  private Run writeRun(Path path) throws IOException {
+    int rows = rowBlock.rows();
+
+    // the start index of each partition in the sorted order
+    int [] partStarts = new int[numPartitions + 1];
+    for (int i = 0; i < rows; i++) {
+      partStarts[rowPartIds[i] + 1]++;
+    }
+    for (int partId = 0; partId < numPartitions; partId++) {
+      partStarts[partId + 1] += partStarts[partId];
+    }
+    int [] cursors = Arrays.copyOf(partStarts, numPartitions);
+    int [] sorted = new int[rows];
+    for (int i = 0; i < rows; i++) {
+      sorted[cursors[rowPartIds[i]]++] = i;
+    }
+
+    Run run = new Run(path, numPartitions);
+    FileAppender appender = (FileAppender) ((FileStorageManager) StorageManager.getFileStorageManager(
+        context.getConf())).getAppender(meta, outSchema, path);
+    appender.init();
+    try {
+      ByteBuffer buffer = rowBlock.nioBuffer();
+      int sortedIdx = 0;
+      for (int partId = 0; partId < numPartitions; partId++) {
+        run.startPartition(partId, appender.getOffset());
+        for (; sortedIdx < partStarts[partId + 1]; sortedIdx++) {
+          int rowId = sorted[sortedIdx];
+          int rowEnd = rowId + 1 < rows ? rowOffsets[rowId + 1] : rowBlock.position();
+          zeroCopyTuple.set(buffer, rowOffsets[rowId], rowEnd - rowOffsets[rowId], dataTypes);
+          appender.addTuple(zeroCopyTuple);
+          run.addRow(partId, appender.getOffset());
+        }
+        run.endPartition(partId, appender.getOffset());
+      }
+      appender.flush();
+    } finally {
+      appender.close();
+    }
+
+    rowBlock.clear();
+    return run;
+  }
+
+  /**
+   * It concatenates the partitions of all spill files in the order of partition ids without decoding rows.
+   */
+  private Run mergeSpills(Path path) throws IOException {
+    Run merged = new Run(path, numPartitions);
+    FileChannel out = new FileOutputStream(toFile(path)).getChannel();
+    FileChannel [] ins = new FileChannel[spills.size()];
+    try {
+      for (int i = 0; i < ins.length; i++) {
+        ins[i] = new FileInputStream(toFile(spills.get(i).path)).getChannel();
+      }
+
+      long pos = 0;
+      for (int partId = 0; partId < numPartitions; partId++) {
+        merged.startPartition(partId, pos);
+        for (int i = 0; i < ins.length; i++) {
+          Run spill = spills.get(i);
+          long start = spill.offsets[partId];
+          long remain = spill.getLength(partId);
+          while (remain > 0) {
+            long transferred = ins[i].transferTo(start, remain, out);
+            start += transferred;
+            remain -= transferred;
+          }
+          for (Pair<Long, Integer> page : spill.getPages(partId)) {
+            merged.addPage(partId, pos, page.getSecond());
+            pos += page.getSecond();
+          }
+        }
+      }
+      merged.offsets[numPartitions] = pos;
+    } finally {
+      IOUtils.cleanup(LOG, ins);
+      IOUtils.cleanup(LOG, out);
+    }
+
+    for (Run spill : spills) {
+      toFile(spill.path).delete();
+    }
+    spills.clear();
+    return merged;
+  }
+
+  private static File toFile(Path path) {
+    return new File(path.toUri().getPath());
+  }
+
+  @Override
+  public void rescan() throws IOException {
+    // nothing to do
+  }
+
+  @Override
+  public void close() throws IOException {
+    super.close();
+    if (rowBlock != null) {
+      rowBlock.release();
+      rowBlock = null;
+    }
+    for (Run spill : spills) {
+      toFile(spill.path).delete();
+    }
+    spills.clear();
+
+    progress = 1.0f;
+  }
+
+  /**
+   * A file whose rows are sorted by partition ids. It keeps the start offset and the pages of each partition.
+   * A page consists of whole rows, and it is bounded by the page size unless it has only one row.
+   */
+  private class Run {
+    private final Path path;
+    private final long [] offsets;
+    private final List<Pair<Long, Integer>> [] pages;
+    private long pageStart;
+
+    @SuppressWarnings("unchecked")
+    Run(Path path, int numPartitions) {
+      this.path = path;
+      this.offsets = new long[numPartitions + 1];
+      this.pages = new List[numPartitions];
+    }
+
+    void startPartition(int partId, long offset) {
+      offsets[partId] = offset;
+      pageStart = offset;
+    }
+
+    void addRow(int partId, long offset) {
+      if (offset - pageStart >= pageSize) {
+        addPage(partId, pageStart, (int) (offset - pageStart));
+        pageStart = offset;
+      }
+    }
+
+    void endPartition(int partId, long offset) {
+      if (offset > pageStart) {
+        addPage(partId, pageStart, (int) (offset - pageStart));
+      }
+      offsets[partId + 1] = offset;
+    }
+
+    /**
+     * It adds a page, or it extends the last page if the page is contiguous to it and both fit in the page size.
+     */
+    void addPage(int partId, long pos, int length) {
+      if (pages[partId] == null) {
+        pages[partId] = new ArrayList<Pair<Long, Integer>>();
+      }
+      List<Pair<Long, Integer>> partPages = pages[partId];
+      if (!partPages.isEmpty()) {
+        Pair<Long, Integer> last = partPages.get(partPages.size() - 1);
+        if (last.getFirst() + last.getSecond() == pos && (long) last.getSecond() + length <= pageSize) {
+          last.setSecond(last.getSecond() + length);
+          return;
+        }
+      }
+      partPages.add(new Pair<Long, Integer>(pos, length));
+    }
+
+    List<Pair<Long, Integer>> getPages(int partId) {
+      if (pages[partId] == null) {
+        return new ArrayList<Pair<Long, Integer>>();
+      }
+      return pages[partId];
+    }
+
+    long getLength(int partId) {
+      return offsets[partId + 1] - offsets[partId];
+    }
+
+    long getLength() {
+      return offsets[offsets.length - 1];
+    }
+  }
+}
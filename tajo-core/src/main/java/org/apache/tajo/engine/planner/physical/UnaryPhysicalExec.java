@@ -21,6 +21,7 @@ package org.apache.tajo.engine.planner.physical;
 import com.google.common.annotations.VisibleForTesting;
 import org.apache.tajo.catalog.Schema;
 import org.apache.tajo.catalog.statistics.TableStats;
+import org.apache.tajo.storage.vector.RowBatch;
 import org.apache.tajo.worker.TaskAttemptContext;
 
 import java.io.IOException;
@@ -56,6 +57,14 @@ public abstract class UnaryPhysicalExec extends PhysicalExec {
     super.init();
   }
 
+  /**
+   * It returns the next batch of the child. If the child does not support batch mode,
+   * the batch is filled with the rows of the child by {@link PhysicalExec#nextBatch()}.
+   */
+  protected RowBatch nextChildBatch() throws IOException {
+    return child.nextBatch();
+  }
+
   @Override
   public void rescan() throws IOException {
     progress = 0.0f;
@@ -0,0 +1,323 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.utils;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.tajo.ExecutionBlockId;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.apache.tajo.tuple.offheap.OffHeapJoinHashTable;
+import org.apache.tajo.unit.StorageUnit;
+import org.apache.tajo.util.FileUtil;
+import org.apache.tajo.util.TUtil;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A worker-wide cache of broadcast relations.
+ *
+ * A broadcast relation is loaded once per worker into an {@link OffHeapJoinHashTable}, which is indexed by
+ * the given join keys, and it is shared by all concurrent tasks of the same execution block.
+ * Each task acquires a table and releases it when it is done. A table is loaded by the first task acquiring it,
+ * and the other tasks wait for the table to be loaded.
+ *
+ * Unreferenced tables are kept for the tasks coming later, and they are evicted in LRU order if the total
+ * memory of cached tables exceeds the limit. Tables of an execution block are removed when the execution block
+ * is finished. Tables still referenced by tasks are freed when the last reference is released.
+ */
+public class BroadcastTableCache {
+  private static final Log LOG = LogFactory.getLog(BroadcastTableCache.class);
+
+  private static BroadcastTableCache instance;
+
+  /** in LRU order */
+  private final LinkedHashMap<String, BroadcastTable> tables = new LinkedHashMap<String, BroadcastTable>(16, 0.75f, true);
+  private long maxBytes;
+  private long usedBytes;
+
+  // statistics
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  /**
+   * It loads rows into a table.
+   */
+  public interface Loader {
+    void load(OffHeapJoinHashTable table) throws IOException;
+  }
+
+  public BroadcastTableCache(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  public static synchronized BroadcastTableCache getInstance() {
+    if (instance == null) {
+      instance = new BroadcastTableCache(
+          ConfVars.WORKER_BROADCAST_CACHE_SIZE.defaultLongVal * StorageUnit.MB);
+    }
+    return instance;
+  }
+
+  /**
+   * It sets the memory limit of the worker-wide cache.
+   */
+  public static synchronized void init(TajoConf conf) {
+    getInstance().setMaxBytes(conf.getLongVar(ConfVars.WORKER_BROADCAST_CACHE_SIZE) * StorageUnit.MB);
+  }
+
+  public synchronized void setMaxBytes(long maxBytes) {
+    this.maxBytes = maxBytes;
+    evictIfNecessary();
+  }
+
+  private static String getId(TupleCacheKey cacheKey, int [] keyIds) {
+    return cacheKey.toString() + "," + Arrays.toString(keyIds);
+  }
+
+  /**
+   * It returns a table of the broadcast relation indexed by the given join keys. If the table is not cached,
+   * it is loaded by the given loader. The returned table must be released by {@link BroadcastTable#release()}.
+   *
+   * @param cacheKey The key of a broadcast relation
+   * @param schema The schema of rows
+   * @param keyIds The column ids of join keys. It can be empty if the table is only scanned.
+   * @param loader It loads rows if the table is not cached.
+   */
+  public BroadcastTable acquire(TupleCacheKey cacheKey, Schema schema, int [] keyIds, Loader loader)
+      throws IOException {
+    String id = getId(cacheKey, keyIds);
+
+    while (true) {
+      BroadcastTable table;
+      boolean shouldLoad = false;
+      synchronized (this) {
+        table = tables.get(id);
+        if (table == null) {
+          table = new BroadcastTable(id, cacheKey);
+          tables.put(id, table);
+          shouldLoad = true;
+          misses.incrementAndGet();
+        } else {
+          hits.incrementAndGet();
+        }
+        table.refCount++;
+      }
+
+      if (shouldLoad) {
+        load(table, schema, keyIds, loader);
+        return table;
+      }
+
+      boolean loaded;
+      try {
+        loaded = table.waitForLoaded();
+      } catch (InterruptedException e) {
+        release(table);
+        throw new IOException("Interrupted while waiting for the broadcast table " + id, e);
+      }
+      if (loaded) {
+        return table;
+      }
+      // the loading task failed, so it tries to load the table again.
+      release(table);
+    }
+  }
+
+  private void load(BroadcastTable table, Schema schema, int [] keyIds, Loader loader) throws IOException {
+    OffHeapJoinHashTable hashTable = new OffHeapJoinHashTable(schema, keyIds);
+    try {
+      loader.load(hashTable);
+    } catch (Throwable t) {
+      hashTable.release();
+      synchronized (this) {
+        if (tables.get(table.id) == table) {
+          tables.remove(table.id);
+        }
+        table.refCount--;
+      }
+      table.setLoaded(null);
+      if (t instanceof IOException) {
+        throw (IOException) t;
+      }
+      throw new IOException(t);
+    }
+
+    synchronized (this) {
+      table.memoryBytes = hashTable.usedMemory();
+      usedBytes += table.memoryBytes;
+      table.setLoaded(hashTable);
+      evictIfNecessary();
+    }
+    LOG.info("Broadcast table " + table.id + " is loaded (" + hashTable + ")");
+  }
+
+  private synchronized void release(BroadcastTable table) {
+    table.refCount--;
+    if (table.refCount == 0) {
+      if (table.removed) {
+        free(table);
+      } else {
+        evictIfNecessary();
+      }
+    }
+  }
+
+  /**
+   * It evicts unreferenced tables in LRU order until the total memory fits the limit.
+   */
+  private void evictIfNecessary() {
+    Iterator<BroadcastTable> it = tables.values().iterator();
+    while (usedBytes > maxBytes && it.hasNext()) {
+      BroadcastTable table = it.next();
+      if (table.refCount == 0 && table.hashTable != null) {
+        it.remove();
+        evictions.incrementAndGet();
+        free(table);
+      }
+    }
+  }
+
+  private void free(BroadcastTable table) {
+    if (table.hashTable != null) {
+      usedBytes -= table.memoryBytes;
+      table.hashTable.release();
+      table.hashTable = null;
+      LOG.info("Broadcast table " + table.id + " is released (" +
+          FileUtil.humanReadableByteCount(table.memoryBytes, false) + ")");
+    }
+  }
+
+  /**
+   * It removes all tables of the given execution block. Tables in use are freed when they are released.
+   */
+  public synchronized void removeBroadcastCache(ExecutionBlockId ebId) {
+    if (ebId == null) {
+      return;
+    }
+
+    List<BroadcastTable> removed = TUtil.newList();
+    for (BroadcastTable table : tables.values()) {
+      if (table.cacheKey.ebId.equals(ebId.toString())) {
+        removed.add(table);
+      }
+    }
+    for (BroadcastTable table : removed) {
+      tables.remove(table.id);
+      table.removed = true;
+      if (table.refCount == 0) {
+        free(table);
+      }
+    }
+  }
+
+  public synchronized boolean contains(TupleCacheKey cacheKey, int [] keyIds) {
+    return tables.containsKey(getId(cacheKey, keyIds));
+  }
+
+  public synchronized int size() {
+    return tables.size();
+  }
+
+  public synchronized long getUsedBytes() {
+    return usedBytes;
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  /**
+   * A cached broadcast relation, which is shared by tasks.
+   */
+  public class BroadcastTable {
+    private final String id;
+    private final TupleCacheKey cacheKey;
+    // They are guarded by the cache.
+    private int refCount = 0;
+    private boolean removed = false;
+    private long memoryBytes = 0;
+
+    // They are guarded by this table.
+    private OffHeapJoinHashTable hashTable;
+    private boolean loaded = false;
+
+    BroadcastTable(String id, TupleCacheKey cacheKey) {
+      this.id = id;
+      this.cacheKey = cacheKey;
+    }
+
+    private synchronized void setLoaded(OffHeapJoinHashTable hashTable) {
+      this.hashTable = hashTable;
+      this.loaded = true;
+      notifyAll();
+    }
+
+    /**
+     * @return true if the table is loaded, or false if loading failed.
+     */
+    private synchronized boolean waitForLoaded() throws InterruptedException {
+      while (!loaded) {
+        wait();
+      }
+      return hashTable != null;
+    }
+
+    /**
+     * It returns a new probe of this table. A probe should be used by only one task, and it should be released
+     * before this table is released.
+     */
+    public OffHeapJoinHashTable.Probe newProbe() {
+      return hashTable.newProbe();
+    }
+
+    public int size() {
+      return hashTable.size();
+    }
+
+    public long getMemoryBytes() {
+      return memoryBytes;
+    }
+
+    public void release() {
+      BroadcastTableCache.this.release(this);
+    }
+
+    @Override
+    public String toString() {
+      return id;
+    }
+  }
+}
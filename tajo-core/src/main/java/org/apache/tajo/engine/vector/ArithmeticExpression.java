@@ -0,0 +1,143 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.vector;
+
+import org.apache.tajo.common.TajoDataTypes.DataType;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.plan.expr.EvalType;
+import org.apache.tajo.storage.vector.ColumnVector;
+import org.apache.tajo.storage.vector.DoubleColumnVector;
+import org.apache.tajo.storage.vector.LongColumnVector;
+import org.apache.tajo.storage.vector.RowBatch;
+
+/**
+ * Vectorized kernels of PLUS, MINUS and MULTIPLY. Both inputs should be {@link LongColumnVector}s if the result is
+ * an integral type, and they should be {@link DoubleColumnVector}s otherwise.
+ */
+public class ArithmeticExpression extends VectorExpression {
+  private final EvalType op;
+  private final VectorExpression left;
+  private final VectorExpression right;
+  private final ColumnVector output;
+
+  public ArithmeticExpression(EvalType op, DataType resultType, VectorExpression left, VectorExpression right,
+                              int capacity) {
+    super(resultType);
+    if (op != EvalType.PLUS && op != EvalType.MINUS && op != EvalType.MULTIPLY) {
+      throw new IllegalArgumentException("Unsupported arithmetic operator: " + op);
+    }
+    this.op = op;
+    this.left = left;
+    this.right = right;
+    this.output = ColumnVector.create(resultType, capacity);
+  }
+
+  @Override
+  public ColumnVector evaluate(RowBatch batch) {
+    ColumnVector l = left.evaluate(batch);
+    ColumnVector r = right.evaluate(batch);
+    propagateNulls(batch, output, l, r);
+
+    if (output instanceof LongColumnVector) {
+      evalLong(batch, ((LongColumnVector) l).vector, ((LongColumnVector) r).vector, ((LongColumnVector) output).vector);
+    } else {
+      evalDouble(batch, ((DoubleColumnVector) l).vector, ((DoubleColumnVector) r).vector,
+          ((DoubleColumnVector) output).vector);
+    }
+    return output;
+  }
+
+  private void evalLong(RowBatch batch, long [] a, long [] b, long [] out) {
+    int n = batch.getSelectedSize();
+    int [] selected = batch.getSelected();
+    boolean selectedInUse = batch.isSelectedInUse();
+
+    switch (op) {
+    case PLUS:
+      if (selectedInUse) {
+        for (int j = 0; j < n; j++) { int i = selected[j]; out[i] = a[i] + b[i]; }
+      } else {
+        for (int i = 0; i < n; i++) { out[i] = a[i] + b[i]; }
+      }
+      break;
+    case MINUS:
+      if (selectedInUse) {
+        for (int j = 0; j < n; j++) { int i = selected[j]; out[i] = a[i] - b[i]; }
+      } else {
+        for (int i = 0; i < n; i++) { out[i] = a[i] - b[i]; }
+      }
+      break;
+    default:
+      if (selectedInUse) {
+        for (int j = 0; j < n; j++) { int i = selected[j]; out[i] = a[i] * b[i]; }
+      } else {
+        for (int i = 0; i < n; i++) { out[i] = a[i] * b[i]; }
+      }
+    }
+
+    // Narrower types overflow in the same way as their row-wise evaluation.
+    switch (resultType.getType()) {
+    case INT2:
+      for (int j = 0; j < n; j++) { int i = batch.getSelectedRow(j); out[i] = (short) out[i]; }
+      break;
+    case INT4:
+      for (int j = 0; j < n; j++) { int i = batch.getSelectedRow(j); out[i] = (int) out[i]; }
+      break;
+    default:
+    }
+  }
+
+  private void evalDouble(RowBatch batch, double [] a, double [] b, double [] out) {
+    int n = batch.getSelectedSize();
+    int [] selected = batch.getSelected();
+    boolean selectedInUse = batch.isSelectedInUse();
+
+    switch (op) {
+    case PLUS:
+      if (selectedInUse) {
+        for (int j = 0; j < n; j++) { int i = selected[j]; out[i] = a[i] + b[i]; }
+      } else {
+        for (int i = 0; i < n; i++) { out[i] = a[i] + b[i]; }
+      }
+      break;
+    case MINUS:
+      if (selectedInUse) {
+        for (int j = 0; j < n; j++) { int i = selected[j]; out[i] = a[i] - b[i]; }
+      } else {
+        for (int i = 0; i < n; i++) { out[i] = a[i] - b[i]; }
+      }
+      break;
+    default:
+      if (selectedInUse) {
+        for (int j = 0; j < n; j++) { int i = selected[j]; out[i] = a[i] * b[i]; }
+      } else {
+        for (int i = 0; i < n; i++) { out[i] = a[i] * b[i]; }
+      }
+    }
+
+    if (resultType.getType() == Type.FLOAT4) {
+      for (int j = 0; j < n; j++) { int i = batch.getSelectedRow(j); out[i] = (float) out[i]; }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "(" + left + " " + op.getOperatorName() + " " + right + ")";
+  }
+}
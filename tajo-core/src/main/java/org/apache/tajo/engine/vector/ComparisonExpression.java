@@ -0,0 +1,151 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.vector;
+
+import org.apache.tajo.catalog.CatalogUtil;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.plan.expr.EvalType;
+import org.apache.tajo.storage.vector.ColumnVector;
+import org.apache.tajo.storage.vector.DoubleColumnVector;
+import org.apache.tajo.storage.vector.LongColumnVector;
+import org.apache.tajo.storage.vector.RowBatch;
+
+/**
+ * Vectorized kernels of comparison operators. It returns a boolean vector. A result is null if any input is null.
+ *
+ * Both inputs should be {@link LongColumnVector}s or {@link DoubleColumnVector}s. Otherwise, values are compared
+ * as {@link Datum}s, which still avoids materializing rows.
+ */
+public class ComparisonExpression extends VectorExpression {
+  private final EvalType op;
+  private final VectorExpression left;
+  private final VectorExpression right;
+  private final LongColumnVector output;
+
+  public ComparisonExpression(EvalType op, VectorExpression left, VectorExpression right, int capacity) {
+    super(CatalogUtil.newSimpleDataType(Type.BOOLEAN));
+    if (!EvalType.isComparisonOperator(op)) {
+      throw new IllegalArgumentException("Unsupported comparison operator: " + op);
+    }
+    this.op = op;
+    this.left = left;
+    this.right = right;
+    this.output = new LongColumnVector(resultType, capacity);
+  }
+
+  @Override
+  public ColumnVector evaluate(RowBatch batch) {
+    ColumnVector l = left.evaluate(batch);
+    ColumnVector r = right.evaluate(batch);
+    propagateNulls(batch, output, l, r);
+
+    if (l instanceof LongColumnVector && r instanceof LongColumnVector) {
+      evalLong(batch, ((LongColumnVector) l).vector, ((LongColumnVector) r).vector);
+    } else if (l instanceof DoubleColumnVector && r instanceof DoubleColumnVector) {
+      evalDouble(batch, ((DoubleColumnVector) l).vector, ((DoubleColumnVector) r).vector);
+    } else {
+      evalDatum(batch, l, r);
+    }
+    return output;
+  }
+
+  private void evalLong(RowBatch batch, long [] a, long [] b) {
+    long [] out = output.vector;
+    int n = batch.getSelectedSize();
+    switch (op) {
+    case EQUAL:
+      for (int j = 0; j < n; j++) { int i = batch.getSelectedRow(j); out[i] = a[i] == b[i] ? 1 : 0; }
+      break;
+    case NOT_EQUAL:
+      for (int j = 0; j < n; j++) { int i = batch.getSelectedRow(j); out[i] = a[i] != b[i] ? 1 : 0; }
+      break;
+    case LTH:
+      for (int j = 0; j < n; j++) { int i = batch.getSelectedRow(j); out[i] = a[i] < b[i] ? 1 : 0; }
+      break;
+    case LEQ:
+      for (int j = 0; j < n; j++) { int i = batch.getSelectedRow(j); out[i] = a[i] <= b[i] ? 1 : 0; }
+      break;
+    case GTH:
+      for (int j = 0; j < n; j++) { int i = batch.getSelectedRow(j); out[i] = a[i] > b[i] ? 1 : 0; }
+      break;
+    default:
+      for (int j = 0; j < n; j++) { int i = batch.getSelectedRow(j); out[i] = a[i] >= b[i] ? 1 : 0; }
+    }
+  }
+
+  private void evalDouble(RowBatch batch, double [] a, double [] b) {
+    long [] out = output.vector;
+    int n = batch.getSelectedSize();
+    switch (op) {
+    // primitive comparisons are used because NaN should not be equal to anything.
+    case EQUAL:
+      for (int j = 0; j < n; j++) { int i = batch.getSelectedRow(j); out[i] = a[i] == b[i] ? 1 : 0; }
+      break;
+    case NOT_EQUAL:
+      for (int j = 0; j < n; j++) { int i = batch.getSelectedRow(j); out[i] = a[i] != b[i] ? 1 : 0; }
+      break;
+    case LTH:
+      for (int j = 0; j < n; j++) { int i = batch.getSelectedRow(j); out[i] = a[i] < b[i] ? 1 : 0; }
+      break;
+    case LEQ:
+      for (int j = 0; j < n; j++) { int i = batch.getSelectedRow(j); out[i] = a[i] <= b[i] ? 1 : 0; }
+      break;
+    case GTH:
+      for (int j = 0; j < n; j++) { int i = batch.getSelectedRow(j); out[i] = a[i] > b[i] ? 1 : 0; }
+      break;
+    default:
+      for (int j = 0; j < n; j++) { int i = batch.getSelectedRow(j); out[i] = a[i] >= b[i] ? 1 : 0; }
+    }
+  }
+
+  private void evalDatum(RowBatch batch, ColumnVector l, ColumnVector r) {
+    long [] out = output.vector;
+    int n = batch.getSelectedSize();
+    for (int j = 0; j < n; j++) {
+      int i = batch.getSelectedRow(j);
+      if (output.isNullAt(i)) {
+        continue;
+      }
+
+      Datum lhs = l.getDatum(i);
+      Datum rhs = r.getDatum(i);
+      Datum result;
+      switch (op) {
+      case EQUAL: result = lhs.equalsTo(rhs); break;
+      case NOT_EQUAL: result = lhs.notEqualsTo(rhs); break;
+      case LTH: result = lhs.lessThan(rhs); break;
+      case LEQ: result = lhs.lessThanEqual(rhs); break;
+      case GTH: result = lhs.greaterThan(rhs); break;
+      default: result = lhs.greaterThanEqual(rhs);
+      }
+
+      if (result.isNull()) {
+        output.setNull(i);
+      } else {
+        out[i] = result.isTrue() ? 1 : 0;
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "(" + left + " " + op.getOperatorName() + " " + right + ")";
+  }
+}
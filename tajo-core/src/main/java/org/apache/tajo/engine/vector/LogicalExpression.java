@@ -0,0 +1,147 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.vector;
+
+import org.apache.tajo.catalog.CatalogUtil;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.plan.expr.EvalType;
+import org.apache.tajo.storage.vector.ColumnVector;
+import org.apache.tajo.storage.vector.LongColumnVector;
+import org.apache.tajo.storage.vector.RowBatch;
+
+/**
+ * Vectorized kernels of AND, OR, NOT and IS (NOT) NULL. Inputs of AND, OR and NOT should be boolean vectors.
+ * They follow the three-valued logic of SQL.
+ */
+public class LogicalExpression extends VectorExpression {
+  private final EvalType op;
+  private final boolean not;
+  private final VectorExpression left;
+  private final VectorExpression right;
+  private final LongColumnVector output;
+
+  private LogicalExpression(EvalType op, boolean not, VectorExpression left, VectorExpression right, int capacity) {
+    super(CatalogUtil.newSimpleDataType(Type.BOOLEAN));
+    this.op = op;
+    this.not = not;
+    this.left = left;
+    this.right = right;
+    this.output = new LongColumnVector(resultType, capacity);
+  }
+
+  public static LogicalExpression and(VectorExpression left, VectorExpression right, int capacity) {
+    return new LogicalExpression(EvalType.AND, false, left, right, capacity);
+  }
+
+  public static LogicalExpression or(VectorExpression left, VectorExpression right, int capacity) {
+    return new LogicalExpression(EvalType.OR, false, left, right, capacity);
+  }
+
+  public static LogicalExpression not(VectorExpression child, int capacity) {
+    return new LogicalExpression(EvalType.NOT, false, child, null, capacity);
+  }
+
+  public static LogicalExpression isNull(VectorExpression child, boolean not, int capacity) {
+    return new LogicalExpression(EvalType.IS_NULL, not, child, null, capacity);
+  }
+
+  @Override
+  public ColumnVector evaluate(RowBatch batch) {
+    switch (op) {
+    case AND:
+    case OR:
+      evalBinary(batch, (LongColumnVector) left.evaluate(batch), (LongColumnVector) right.evaluate(batch));
+      break;
+    case NOT:
+      evalNot(batch, (LongColumnVector) left.evaluate(batch));
+      break;
+    default:
+      evalIsNull(batch, left.evaluate(batch));
+    }
+    return output;
+  }
+
+  private void evalBinary(RowBatch batch, LongColumnVector l, LongColumnVector r) {
+    long [] a = l.vector;
+    long [] b = r.vector;
+    long [] out = output.vector;
+    int n = batch.getSelectedSize();
+    long dominant = op == EvalType.AND ? 0 : 1; // false dominates AND, and true dominates OR.
+
+    if (l.noNulls && r.noNulls) {
+      output.noNulls = true;
+      if (op == EvalType.AND) {
+        for (int j = 0; j < n; j++) { int i = batch.getSelectedRow(j); out[i] = a[i] & b[i]; }
+      } else {
+        for (int j = 0; j < n; j++) { int i = batch.getSelectedRow(j); out[i] = a[i] | b[i]; }
+      }
+      return;
+    }
+
+    output.noNulls = false;
+    for (int j = 0; j < n; j++) {
+      int i = batch.getSelectedRow(j);
+      boolean lNull = l.isNullAt(i);
+      boolean rNull = r.isNullAt(i);
+      if ((!lNull && a[i] == dominant) || (!rNull && b[i] == dominant)) {
+        out[i] = dominant;
+        output.isNull[i] = false;
+      } else if (lNull || rNull) {
+        output.isNull[i] = true;
+      } else {
+        out[i] = 1 - dominant;
+        output.isNull[i] = false;
+      }
+    }
+  }
+
+  private void evalNot(RowBatch batch, LongColumnVector input) {
+    long [] in = input.vector;
+    long [] out = output.vector;
+    int n = batch.getSelectedSize();
+    propagateNulls(batch, output, input);
+    for (int j = 0; j < n; j++) {
+      int i = batch.getSelectedRow(j);
+      out[i] = 1 - in[i];
+    }
+  }
+
+  private void evalIsNull(RowBatch batch, ColumnVector input) {
+    long [] out = output.vector;
+    int n = batch.getSelectedSize();
+    output.noNulls = true;
+    for (int j = 0; j < n; j++) {
+      int i = batch.getSelectedRow(j);
+      out[i] = input.isNullAt(i) != not ? 1 : 0;
+    }
+  }
+
+  @Override
+  public String toString() {
+    switch (op) {
+    case AND:
+    case OR:
+      return "(" + left + " " + op.name() + " " + right + ")";
+    case NOT:
+      return "NOT " + left;
+    default:
+      return left + (not ? " IS NOT NULL" : " IS NULL");
+    }
+  }
+}
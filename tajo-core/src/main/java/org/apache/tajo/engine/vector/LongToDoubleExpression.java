@@ -0,0 +1,67 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.vector;
+
+import org.apache.tajo.catalog.CatalogUtil;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.storage.vector.ColumnVector;
+import org.apache.tajo.storage.vector.DoubleColumnVector;
+import org.apache.tajo.storage.vector.LongColumnVector;
+import org.apache.tajo.storage.vector.RowBatch;
+
+/**
+ * It converts integral values into floating point values, so that binary kernels can work on the same type.
+ */
+public class LongToDoubleExpression extends VectorExpression {
+  private final VectorExpression child;
+  private final DoubleColumnVector output;
+
+  public LongToDoubleExpression(VectorExpression child, int capacity) {
+    super(CatalogUtil.newSimpleDataType(Type.FLOAT8));
+    this.child = child;
+    this.output = new DoubleColumnVector(resultType, capacity);
+  }
+
+  @Override
+  public ColumnVector evaluate(RowBatch batch) {
+    LongColumnVector input = (LongColumnVector) child.evaluate(batch);
+    long [] in = input.vector;
+    double [] out = output.vector;
+    int n = batch.getSelectedSize();
+
+    propagateNulls(batch, output, input);
+    if (batch.isSelectedInUse()) {
+      int [] selected = batch.getSelected();
+      for (int j = 0; j < n; j++) {
+        int i = selected[j];
+        out[i] = in[i];
+      }
+    } else {
+      for (int i = 0; i < n; i++) {
+        out[i] = in[i];
+      }
+    }
+    return output;
+  }
+
+  @Override
+  public String toString() {
+    return "double(" + child + ")";
+  }
+}
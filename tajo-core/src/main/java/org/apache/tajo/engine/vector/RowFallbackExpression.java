@@ -0,0 +1,62 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.vector;
+
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.plan.expr.EvalNode;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
+import org.apache.tajo.storage.vector.ColumnVector;
+import org.apache.tajo.storage.vector.RowBatch;
+
+/**
+ * It evaluates an expression which does not have a vectorized kernel. Each selected row is materialized
+ * into a tuple, and the expression is evaluated row by row.
+ */
+public class RowFallbackExpression extends VectorExpression {
+  private final Schema schema;
+  private final EvalNode eval;
+  private final Tuple row;
+  private final ColumnVector output;
+
+  public RowFallbackExpression(Schema schema, EvalNode eval, int capacity) {
+    super(eval.getValueType());
+    this.schema = schema;
+    this.eval = eval;
+    this.row = new VTuple(schema.size());
+    this.output = ColumnVector.create(resultType, capacity);
+  }
+
+  @Override
+  public ColumnVector evaluate(RowBatch batch) {
+    output.reset();
+    int n = batch.getSelectedSize();
+    for (int j = 0; j < n; j++) {
+      int i = batch.getSelectedRow(j);
+      batch.getRow(i, row);
+      output.setDatum(i, eval.eval(schema, row));
+    }
+    return output;
+  }
+
+  @Override
+  public String toString() {
+    return "row(" + eval + ")";
+  }
+}
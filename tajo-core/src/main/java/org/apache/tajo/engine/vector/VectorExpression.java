@@ -0,0 +1,115 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.vector;
+
+import org.apache.tajo.common.TajoDataTypes.DataType;
+import org.apache.tajo.storage.vector.ColumnVector;
+import org.apache.tajo.storage.vector.LongColumnVector;
+import org.apache.tajo.storage.vector.RowBatch;
+
+/**
+ * A vectorized form of an {@link org.apache.tajo.plan.expr.EvalNode}. It evaluates all selected rows of
+ * a {@link RowBatch} at once, and writes the results into a column vector.
+ *
+ * The returned vector is owned by the expression or the batch, so a caller must not modify it.
+ * It is valid only until the next call of {@link #evaluate(RowBatch)}.
+ */
+public abstract class VectorExpression {
+  protected final DataType resultType;
+
+  public VectorExpression(DataType resultType) {
+    this.resultType = resultType;
+  }
+
+  public DataType getResultType() {
+    return resultType;
+  }
+
+  /**
+   * It evaluates the selected rows of the given batch.
+   *
+   * @return A vector whose selected rows hold the results
+   */
+  public abstract ColumnVector evaluate(RowBatch batch);
+
+  /**
+   * It narrows the selected rows of the given batch to the rows satisfying the given predicate.
+   * A null result is regarded as false.
+   *
+   * @return The number of remaining rows
+   */
+  public static int filter(RowBatch batch, VectorExpression predicate) {
+    LongColumnVector result = (LongColumnVector) predicate.evaluate(batch);
+    long [] values = result.vector;
+    int [] selected = batch.getSelected();
+    int n = batch.getSelectedSize();
+    int newSize = 0;
+
+    if (batch.isSelectedInUse()) {
+      for (int j = 0; j < n; j++) {
+        int i = selected[j];
+        if (values[i] != 0 && !result.isNullAt(i)) {
+          selected[newSize++] = i;
+        }
+      }
+    } else if (result.noNulls) {
+      for (int i = 0; i < n; i++) {
+        if (values[i] != 0) {
+          selected[newSize++] = i;
+        }
+      }
+    } else {
+      for (int i = 0; i < n; i++) {
+        if (values[i] != 0 && !result.isNull[i]) {
+          selected[newSize++] = i;
+        }
+      }
+    }
+
+    batch.setSelected(newSize);
+    return newSize;
+  }
+
+  /**
+   * It sets the null flags of the output for the selected rows. A result is null if any input is null.
+   *
+   * @return true if the output has no null
+   */
+  static boolean propagateNulls(RowBatch batch, ColumnVector output, ColumnVector ... inputs) {
+    boolean noNulls = true;
+    for (ColumnVector input : inputs) {
+      noNulls &= input.noNulls;
+    }
+    output.noNulls = noNulls;
+    if (noNulls) {
+      return true;
+    }
+
+    int n = batch.getSelectedSize();
+    for (int j = 0; j < n; j++) {
+      int i = batch.getSelectedRow(j);
+      boolean isNull = false;
+      for (ColumnVector input : inputs) {
+        isNull |= input.isNullAt(i);
+      }
+      output.isNull[i] = isNull;
+    }
+    return false;
+  }
+}
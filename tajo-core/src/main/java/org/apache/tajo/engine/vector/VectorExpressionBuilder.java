@@ -0,0 +1,180 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.vector;
+
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.common.TajoDataTypes.DataType;
+import org.apache.tajo.plan.expr.*;
+
+/**
+ * It builds a {@link VectorExpression} from an {@link EvalNode}.
+ *
+ * Field references, constants, PLUS/MINUS/MULTIPLY on numeric values, comparisons, AND, OR, NOT and IS NULL
+ * are translated into vectorized kernels. The other expressions are evaluated row by row by
+ * {@link RowFallbackExpression}, while their parents can still be vectorized.
+ */
+public class VectorExpressionBuilder {
+  private final Schema schema;
+  private final int capacity;
+  private int fallbackNum = 0;
+
+  public VectorExpressionBuilder(Schema schema, int capacity) {
+    this.schema = schema;
+    this.capacity = capacity;
+  }
+
+  /**
+   * @return The number of sub expressions evaluated row by row
+   */
+  public int getFallbackNum() {
+    return fallbackNum;
+  }
+
+  public VectorExpression build(EvalNode eval) {
+    switch (eval.getType()) {
+    case FIELD: {
+      FieldEval field = (FieldEval) eval;
+      int columnId = getColumnId(field.getColumnRef());
+      if (columnId >= 0) {
+        return new ColumnReference(schema.getColumn(columnId).getDataType(), columnId);
+      }
+      break;
+    }
+
+    case CONST: {
+      ConstEval constEval = (ConstEval) eval;
+      return new ConstantExpression(constEval.getValueType(), constEval.getValue(), capacity);
+    }
+
+    case PLUS:
+    case MINUS:
+    case MULTIPLY: {
+      BinaryEval binary = (BinaryEval) eval;
+      DataType resultType = binary.getValueType();
+      DataType leftType = binary.getLeftExpr().getValueType();
+      DataType rightType = binary.getRightExpr().getValueType();
+      if (isIntegral(resultType) && isIntegral(leftType) && isIntegral(rightType)) {
+        return new ArithmeticExpression(eval.getType(), resultType,
+            build(binary.getLeftExpr()), build(binary.getRightExpr()), capacity);
+      } else if (isFloatingPoint(resultType) && isNumeric(leftType) && isNumeric(rightType)) {
+        return new ArithmeticExpression(eval.getType(), resultType,
+            buildDouble(binary.getLeftExpr()), buildDouble(binary.getRightExpr()), capacity);
+      }
+      break;
+    }
+
+    case EQUAL:
+    case NOT_EQUAL:
+    case LTH:
+    case LEQ:
+    case GTH:
+    case GEQ: {
+      BinaryEval binary = (BinaryEval) eval;
+      DataType leftType = binary.getLeftExpr().getValueType();
+      DataType rightType = binary.getRightExpr().getValueType();
+      if (isNumeric(leftType) && isNumeric(rightType) &&
+          (isFloatingPoint(leftType) || isFloatingPoint(rightType))) {
+        return new ComparisonExpression(eval.getType(),
+            buildDouble(binary.getLeftExpr()), buildDouble(binary.getRightExpr()), capacity);
+      } else {
+        // integral values are compared as longs, and the other values are compared as datums.
+        return new ComparisonExpression(eval.getType(),
+            build(binary.getLeftExpr()), build(binary.getRightExpr()), capacity);
+      }
+    }
+
+    case AND:
+    case OR: {
+      BinaryEval binary = (BinaryEval) eval;
+      if (isBoolean(binary.getLeftExpr().getValueType()) && isBoolean(binary.getRightExpr().getValueType())) {
+        VectorExpression left = build(binary.getLeftExpr());
+        VectorExpression right = build(binary.getRightExpr());
+        return eval.getType() == EvalType.AND ?
+            LogicalExpression.and(left, right, capacity) : LogicalExpression.or(left, right, capacity);
+      }
+      break;
+    }
+
+    case NOT: {
+      NotEval not = (NotEval) eval;
+      if (isBoolean(not.getChild().getValueType())) {
+        return LogicalExpression.not(build(not.getChild()), capacity);
+      }
+      break;
+    }
+
+    case IS_NULL: {
+      IsNullEval isNull = (IsNullEval) eval;
+      return LogicalExpression.isNull(build(isNull.getChild()), isNull.isNot(), capacity);
+    }
+
+    default:
+    }
+
+    fallbackNum++;
+    return new RowFallbackExpression(schema, eval, capacity);
+  }
+
+  private VectorExpression buildDouble(EvalNode eval) {
+    VectorExpression expr = build(eval);
+    if (isIntegral(expr.getResultType())) {
+      return new LongToDoubleExpression(expr, capacity);
+    } else {
+      return expr;
+    }
+  }
+
+  private int getColumnId(Column column) {
+    if (column.hasQualifier()) {
+      return schema.getColumnId(column.getQualifiedName());
+    } else {
+      return schema.getColumnIdByName(column.getSimpleName());
+    }
+  }
+
+  private static boolean isBoolean(DataType type) {
+    return type.getType() == org.apache.tajo.common.TajoDataTypes.Type.BOOLEAN;
+  }
+
+  private static boolean isIntegral(DataType type) {
+    switch (type.getType()) {
+    case INT2:
+    case INT4:
+    case INT8:
+      return true;
+    default:
+      return false;
+    }
+  }
+
+  private static boolean isFloatingPoint(DataType type) {
+    switch (type.getType()) {
+    case FLOAT4:
+    case FLOAT8:
+      return true;
+    default:
+      return false;
+    }
+  }
+
+  private static boolean isNumeric(DataType type) {
+    return isIntegral(type) || isFloatingPoint(type);
+  }
+}
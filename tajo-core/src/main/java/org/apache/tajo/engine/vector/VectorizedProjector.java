@@ -0,0 +1,57 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.vector;
+
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.plan.Target;
+import org.apache.tajo.plan.util.PlannerUtil;
+import org.apache.tajo.storage.vector.RowBatch;
+
+/**
+ * A vectorized version of {@link org.apache.tajo.engine.planner.Projector}.
+ * It evaluates targets over the selected rows of a batch, and puts the results into an output batch.
+ */
+public class VectorizedProjector {
+  private final VectorExpression [] targetExprs;
+  private final RowBatch outBatch;
+
+  public VectorizedProjector(Schema inSchema, Schema outSchema, Target [] targets, int capacity) {
+    if (targets == null) {
+      targets = PlannerUtil.schemaToTargets(outSchema);
+    }
+
+    VectorExpressionBuilder builder = new VectorExpressionBuilder(inSchema, capacity);
+    targetExprs = new VectorExpression[targets.length];
+    for (int i = 0; i < targets.length; i++) {
+      targetExprs[i] = builder.build(targets[i].getEvalTree());
+    }
+    outBatch = new RowBatch(outSchema, capacity);
+  }
+
+  /**
+   * It returns a batch of the projected rows. The returned batch is valid until the given batch is reset.
+   */
+  public RowBatch project(RowBatch in) {
+    for (int i = 0; i < targetExprs.length; i++) {
+      outBatch.setColumn(i, targetExprs[i].evaluate(in));
+    }
+    outBatch.shareRows(in);
+    return outBatch;
+  }
+}
@@ -32,9 +32,12 @@ import org.apache.tajo.QueryId;
 import org.apache.tajo.QueryIdFactory;
 import org.apache.tajo.TajoProtos;
 import org.apache.tajo.catalog.TableDesc;
+import org.apache.tajo.conf.TajoConf;
 import org.apache.tajo.engine.query.QueryContext;
 import org.apache.tajo.ipc.QueryCoordinatorProtocol;
 import org.apache.tajo.master.cluster.WorkerConnectionInfo;
+import org.apache.tajo.master.scheduler.FairScheduler;
+import org.apache.tajo.master.scheduler.Scheduler;
 import org.apache.tajo.master.scheduler.SimpleFifoScheduler;
 import org.apache.tajo.plan.logical.LogicalRootNode;
 import org.apache.tajo.querymaster.QueryJobEvent;
@@ -60,7 +63,7 @@ public class QueryManager extends CompositeService {
 
   private AsyncDispatcher dispatcher;
 
-  private SimpleFifoScheduler scheduler;
+  private Scheduler scheduler;
 
   private final Map<QueryId, QueryInProgress> submittedQueries = Maps.newConcurrentMap();
 
@@ -85,7 +88,15 @@ public class QueryManager extends CompositeService {
 
       this.dispatcher.register(QueryJobEvent.Type.class, new QueryJobManagerEventHandler());
 
-      this.scheduler = new SimpleFifoScheduler(this);
+      TajoConf systemConf = masterContext.getConf();
+      Scheduler.Mode mode = Scheduler.Mode.valueOf(
+          systemConf.getVar(TajoConf.ConfVars.QUERY_SCHEDULER_MODE).toUpperCase());
+      if (mode == Scheduler.Mode.FAIR) {
+        this.scheduler = new FairScheduler(this, systemConf);
+      } else {
+        this.scheduler = new SimpleFifoScheduler(this);
+      }
+      LOG.info("Query scheduler: " + mode);
     } catch (Exception e) {
       catchException(null, e);
     }
@@ -110,6 +121,10 @@ public class QueryManager extends CompositeService {
     super.serviceStart();
   }
 
+  public Scheduler getScheduler() {
+    return scheduler;
+  }
+
   public EventHandler getEventHandler() {
     return dispatcher.getEventHandler();
   }
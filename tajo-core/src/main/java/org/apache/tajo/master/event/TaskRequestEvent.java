@@ -21,11 +21,15 @@ package org.apache.tajo.master.event;
 import com.google.protobuf.RpcCallback;
 import org.apache.hadoop.yarn.event.AbstractEvent;
 import org.apache.tajo.ExecutionBlockId;
-import org.apache.tajo.ipc.TajoWorkerProtocol;
+import org.apache.tajo.ipc.TajoWorkerProtocol.TaskRequestBatchProto;
 import org.apache.tajo.ipc.TajoWorkerProtocol.TaskRequestProto;
 import org.apache.tajo.master.event.TaskRequestEvent.TaskRequestEventType;
 import org.apache.tajo.master.container.TajoContainerId;
 
+/**
+ * A request of a task runner for tasks. Up to <code>maxTasks</code> tasks are collected into a batch,
+ * and the batch is sent back to the task runner at once.
+ */
 public class TaskRequestEvent extends AbstractEvent<TaskRequestEventType> {
 
   public enum TaskRequestEventType {
@@ -35,17 +39,21 @@ public class TaskRequestEvent extends AbstractEvent<TaskRequestEventType> {
   private final int workerId;
   private final TajoContainerId containerId;
   private final ExecutionBlockId executionBlockId;
+  private final int maxTasks;
 
-  private final RpcCallback<TaskRequestProto> callback;
+  private final RpcCallback<TaskRequestBatchProto> callback;
+  private final TaskRequestBatchProto.Builder batch = TaskRequestBatchProto.newBuilder();
 
   public TaskRequestEvent(int workerId,
                           TajoContainerId containerId,
                           ExecutionBlockId executionBlockId,
-                          RpcCallback<TaskRequestProto> callback) {
+                          int maxTasks,
+                          RpcCallback<TaskRequestBatchProto> callback) {
     super(TaskRequestEventType.TASK_REQ);
     this.workerId = workerId;
     this.containerId = containerId;
     this.executionBlockId = executionBlockId;
+    this.maxTasks = Math.max(1, maxTasks);
     this.callback = callback;
   }
 
@@ -61,7 +69,26 @@ public class TaskRequestEvent extends AbstractEvent<TaskRequestEventType> {
     return executionBlockId;
   }
 
-  public RpcCallback<TajoWorkerProtocol.TaskRequestProto> getCallback() {
+  public int getMaxTasks() {
+    return maxTasks;
+  }
+
+  public RpcCallback<TaskRequestBatchProto> getCallback() {
     return this.callback;
   }
+
+  public void addTask(TaskRequestProto task) {
+    batch.addTasks(task);
+  }
+
+  public int getAssignedTaskNum() {
+    return batch.getTasksCount();
+  }
+
+  /**
+   * It sends the assigned tasks to the task runner.
+   */
+  public void sendAssignedTasks() {
+    callback.run(batch.build());
+  }
 }
@@ -81,6 +81,12 @@ public class TajoWorkerResourceManager extends CompositeService implements Worke
   private ConcurrentMap<ContainerProtocol.TajoContainerIdProto, AllocatedWorkerResource> allocatedResourceMap = Maps
     .newConcurrentMap();
 
+  /** queue name -> the memory (MB) allocated to the task containers of the queries of the scheduler queue */
+  private final Map<String, Integer> queueMemoryMap = Maps.newHashMap();
+
+  /** queue name -> the requests which wait for the containers of the scheduler queue to be released */
+  private final Map<String, Queue<WorkerResourceRequest>> parkedRequestMap = Maps.newHashMap();
+
   /** It receives status messages from workers and their resources. */
   private TajoResourceTracker resourceTracker;
 
@@ -214,7 +220,12 @@ public class TajoWorkerResourceManager extends CompositeService implements Worke
 
     // call future for async call
     CallFuture<WorkerResourceAllocationResponse> callFuture = new CallFuture<WorkerResourceAllocationResponse>();
-    allocateWorkerResources(qmResourceRequest, callFuture);
+    try {
+      requestQueue.put(new WorkerResourceRequest(queryInProgress.getQueryId(), true, qmResourceRequest, callFuture));
+    } catch (InterruptedException e) {
+      LOG.error(e.getMessage(), e);
+      return null;
+    }
 
     // Wait for 3 seconds
     WorkerResourceAllocationResponse response = null;
@@ -269,6 +280,8 @@ public class TajoWorkerResourceManager extends CompositeService implements Worke
     Worker worker;
     int allocatedMemoryMB;
     float allocatedDiskSlots;
+    /** the scheduler queue whose memory share this resource is counted in */
+    String queueName;
   }
 
   class WorkerResourceAllocationThread extends Thread {
@@ -338,8 +351,10 @@ public class TajoWorkerResourceManager extends CompositeService implements Worke
                 }
                 LOG.debug("=========================================");
               }
-              requestQueue.put(resourceRequest);
-              Thread.sleep(100);
+              if (!parkIfExceedsQueueMemoryShare(resourceRequest)) {
+                requestQueue.put(resourceRequest);
+                Thread.sleep(100);
+              }
             }
           }
         } catch(InterruptedException ie) {
@@ -356,6 +371,10 @@ public class TajoWorkerResourceManager extends CompositeService implements Worke
 
     int allocatedResources = 0;
 
+    // the task containers of a query are limited by the memory share of its scheduler queue
+    String queueName = resourceRequest.queryMasterRequest ? null : getQueueName(resourceRequest.queryId);
+    int queueMemoryLimitMB = getQueueMemoryLimitMB(queueName);
+
     ResourceRequestPriority resourceRequestPriority
       = resourceRequest.request.getResourceRequestPriority();
 
@@ -407,6 +426,10 @@ public class TajoWorkerResourceManager extends CompositeService implements Worke
               } else {
                 workerMemory = workerResource.getAvailableMemoryMB();
               }
+              if (exceedsQueueMemoryShare(queueName, queueMemoryLimitMB, workerMemory)) {
+                stop = true;
+                break;
+              }
               AllocatedWorkerResource allocatedWorkerResource = new AllocatedWorkerResource();
               allocatedWorkerResource.worker = worker;
               allocatedWorkerResource.allocatedMemoryMB = workerMemory;
@@ -419,6 +442,7 @@ public class TajoWorkerResourceManager extends CompositeService implements Worke
               workerResource.allocateResource(allocatedWorkerResource.allocatedDiskSlots,
                 allocatedWorkerResource.allocatedMemoryMB);
 
+              allocateQueueMemory(queueName, allocatedWorkerResource);
               selectedWorkers.add(allocatedWorkerResource);
 
               allocatedResources++;
@@ -485,9 +509,14 @@ public class TajoWorkerResourceManager extends CompositeService implements Worke
               } else {
                 allocatedWorkerResource.allocatedMemoryMB = workerResource.getAvailableMemoryMB();
               }
+              if (exceedsQueueMemoryShare(queueName, queueMemoryLimitMB, allocatedWorkerResource.allocatedMemoryMB)) {
+                stop = true;
+                break;
+              }
               workerResource.allocateResource(allocatedWorkerResource.allocatedDiskSlots,
                 allocatedWorkerResource.allocatedMemoryMB);
 
+              allocateQueueMemory(queueName, allocatedWorkerResource);
               selectedWorkers.add(allocatedWorkerResource);
 
               allocatedResources++;
@@ -501,6 +530,132 @@ public class TajoWorkerResourceManager extends CompositeService implements Worke
     return selectedWorkers;
   }
 
+  /**
+   * @return The scheduler queue of the query, or null if the query is not limited by any queue
+   */
+  @VisibleForTesting
+  protected String getQueueName(QueryId queryId) {
+    if (masterContext == null || masterContext.getQueryJobManager() == null
+        || masterContext.getQueryJobManager().getScheduler() == null) {
+      return null;
+    }
+    return masterContext.getQueryJobManager().getScheduler().getQueueName(queryId);
+  }
+
+  /**
+   * @return The max memory (MB) of the cluster which the task containers of the queue can hold
+   */
+  private int getQueueMemoryLimitMB(String queueName) {
+    if (queueName == null) {
+      return Integer.MAX_VALUE;
+    }
+
+    float memoryShare = getQueueMemoryShare(queueName);
+    if (memoryShare >= 1.0f) {
+      return Integer.MAX_VALUE;
+    }
+
+    int totalMemoryMB = 0;
+    for (Worker worker : rmContext.getWorkers().values()) {
+      totalMemoryMB += worker.getResource().getMemoryMB();
+    }
+    return (int) (totalMemoryMB * memoryShare);
+  }
+
+  /**
+   * @return The fraction of the cluster memory which the task containers of the queue can hold
+   */
+  @VisibleForTesting
+  protected float getQueueMemoryShare(String queueName) {
+    return masterContext.getQueryJobManager().getScheduler().getMemoryShare(queueName);
+  }
+
+  /**
+   * If a request cannot get any container only because its scheduler queue holds its memory share,
+   * the request waits until a container of the queue is released instead of being retried.
+   *
+   * @return true if the request is parked
+   */
+  private boolean parkIfExceedsQueueMemoryShare(WorkerResourceRequest resourceRequest) {
+    if (resourceRequest.queryMasterRequest) {
+      return false;
+    }
+    String queueName = getQueueName(resourceRequest.queryId);
+    if (queueName == null) {
+      return false;
+    }
+
+    synchronized (rmContext) {
+      if (!exceedsQueueMemoryShare(queueName, getQueueMemoryLimitMB(queueName),
+          resourceRequest.request.getMinMemoryMBPerContainer())) {
+        return false;
+      }
+
+      Queue<WorkerResourceRequest> parkedRequests = parkedRequestMap.get(queueName);
+      if (parkedRequests == null) {
+        parkedRequests = new LinkedList<WorkerResourceRequest>();
+        parkedRequestMap.put(queueName, parkedRequests);
+      }
+      parkedRequests.add(resourceRequest);
+    }
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Request of " + resourceRequest.queryId + " waits for the memory share of queue " + queueName);
+    }
+    return true;
+  }
+
+  @VisibleForTesting
+  int getParkedRequestNum(String queueName) {
+    synchronized (rmContext) {
+      Queue<WorkerResourceRequest> parkedRequests = parkedRequestMap.get(queueName);
+      return parkedRequests == null ? 0 : parkedRequests.size();
+    }
+  }
+
+  /**
+   * A queue holding no container can always get a container, so that its queries are not starved.
+   * It should be called while holding the lock of rmContext.
+   */
+  private boolean exceedsQueueMemoryShare(String queueName, int queueMemoryLimitMB, int memoryMB) {
+    if (queueName == null) {
+      return false;
+    }
+    int usedMemoryMB = getQueueMemoryMB(queueName);
+    return usedMemoryMB > 0 && usedMemoryMB + memoryMB > queueMemoryLimitMB;
+  }
+
+  private int getQueueMemoryMB(String queueName) {
+    Integer usedMemoryMB = queueMemoryMap.get(queueName);
+    return usedMemoryMB == null ? 0 : usedMemoryMB;
+  }
+
+  private void allocateQueueMemory(String queueName, AllocatedWorkerResource allocated) {
+    if (queueName != null) {
+      allocated.queueName = queueName;
+      queueMemoryMap.put(queueName, getQueueMemoryMB(queueName) + allocated.allocatedMemoryMB);
+    }
+  }
+
+  private void releaseQueueMemory(AllocatedWorkerResource allocated) {
+    synchronized (rmContext) {
+      if (allocated.queueName != null) {
+        int usedMemoryMB = getQueueMemoryMB(allocated.queueName) - allocated.allocatedMemoryMB;
+        if (usedMemoryMB > 0) {
+          queueMemoryMap.put(allocated.queueName, usedMemoryMB);
+        } else {
+          queueMemoryMap.remove(allocated.queueName);
+        }
+
+        // the parked requests of the queue are retried with the released memory
+        Queue<WorkerResourceRequest> parkedRequests = parkedRequestMap.remove(allocated.queueName);
+        if (parkedRequests != null) {
+          requestQueue.addAll(parkedRequests);
+        }
+        allocated.queueName = null;
+      }
+    }
+  }
+
   /**
    * Release allocated resource.
    *
@@ -512,6 +667,7 @@ public class TajoWorkerResourceManager extends CompositeService implements Worke
     if(allocated != null) {
       LOG.info("Release Resource: " + allocated.allocatedDiskSlots + "," + allocated.allocatedMemoryMB);
       allocated.worker.getResource().releaseResource( allocated.allocatedDiskSlots, allocated.allocatedMemoryMB);
+      releaseQueueMemory(allocated);
     } else {
       LOG.warn("No AllocatedWorkerResource data for [" + containerId + "]");
       return;
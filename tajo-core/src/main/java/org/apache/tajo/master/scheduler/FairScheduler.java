@@ -0,0 +1,321 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.master.scheduler;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.tajo.QueryId;
+import org.apache.tajo.SessionVars;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.apache.tajo.engine.query.QueryContext;
+import org.apache.tajo.master.QueryInProgress;
+import org.apache.tajo.master.QueryManager;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A fair-share scheduler which runs the queries of several named queues concurrently.
+ *
+ * A query is submitted to the queue given by {@link SessionVars#QUERY_QUEUE}, or to the default queue if no such
+ * queue exists. Each queue has a weight, the max number of running queries and a memory share. Whenever a query can
+ * be started, it picks the queue which has the least running queries per weight among the queues under their max
+ * running queries. So, a heavy query of a queue does not block the queries of the other queues.
+ *
+ * Within a queue, the queued queries are ordered by {@link SessionVars#QUERY_PRIORITY} and then submission times,
+ * so that a query of a higher priority is started before the queued queries of lower priorities.
+ * The memory share is enforced by the resource manager when it allocates containers to the queries of a queue.
+ */
+public class FairScheduler implements Scheduler {
+  private static final Log LOG = LogFactory.getLog(FairScheduler.class.getName());
+
+  public static final String DEFAULT_QUEUE_NAME = "default";
+  public static final String QUEUE_CONF_PREFIX = "tajo.master.scheduler.fair.queue.";
+
+  private final Map<String, QueryQueue> queues = new LinkedHashMap<String, QueryQueue>();
+  /** query id -> queue name of the queued and running queries */
+  private final Map<QueryId, String> queryQueues = Maps.newConcurrentMap();
+  private final Thread queryProcessor;
+  private AtomicBoolean stopped = new AtomicBoolean();
+  private QueryManager manager;
+  private static final Comparator<QuerySchedulingInfo> COMPARATOR = new SchedulingAlgorithms.FifoComparator();
+
+  public FairScheduler(QueryManager manager, TajoConf conf) {
+    this.manager = manager;
+
+    int defaultMaxRunningQueries = conf.getIntVar(ConfVars.QUERY_SCHEDULER_FAIR_MAX_RUNNING_QUERIES);
+    for (String queueName : conf.getVar(ConfVars.QUERY_SCHEDULER_FAIR_QUEUES).split(",")) {
+      queueName = queueName.trim();
+      if (!queueName.isEmpty() && !queues.containsKey(queueName)) {
+        queues.put(queueName, newQueue(conf, queueName, defaultMaxRunningQueries));
+      }
+    }
+    if (!queues.containsKey(DEFAULT_QUEUE_NAME)) {
+      queues.put(DEFAULT_QUEUE_NAME, newQueue(conf, DEFAULT_QUEUE_NAME, defaultMaxRunningQueries));
+    }
+    for (QueryQueue queue : queues.values()) {
+      LOG.info("Fair scheduler queue: " + queue);
+    }
+
+    this.queryProcessor = new Thread(new QueryProcessor());
+    this.queryProcessor.setName("Query Processor");
+  }
+
+  private static QueryQueue newQueue(TajoConf conf, String queueName, int defaultMaxRunningQueries) {
+    String prefix = QUEUE_CONF_PREFIX + queueName + ".";
+    float weight = conf.getFloat(prefix + "weight", 1.0f);
+    int maxRunningQueries = conf.getInt(prefix + "max-running-queries", defaultMaxRunningQueries);
+    float memoryShare = conf.getFloat(prefix + "memory-share", 1.0f);
+
+    Preconditions.checkArgument(weight > 0, "The weight of queue " + queueName + " should be positive");
+    Preconditions.checkArgument(maxRunningQueries > 0,
+        "The max running queries of queue " + queueName + " should be positive");
+    Preconditions.checkArgument(memoryShare > 0 && memoryShare <= 1.0f,
+        "The memory share of queue " + queueName + " should be in (0, 1]");
+    return new QueryQueue(queueName, weight, maxRunningQueries, memoryShare);
+  }
+
+  @Override
+  public Mode getMode() {
+    return Mode.FAIR;
+  }
+
+  @Override
+  public String getName() {
+    return manager.getName();
+  }
+
+  @Override
+  public boolean addQuery(QueryInProgress queryInProgress) {
+    QueryContext queryContext = queryInProgress.getQueryInfo().getQueryContext();
+    QuerySchedulingInfo querySchedulingInfo = new QuerySchedulingInfo(queryInProgress.getQueryId(),
+        queryContext.getInt(SessionVars.QUERY_PRIORITY), queryInProgress.getQueryInfo().getStartTime(),
+        queryContext.get(SessionVars.QUERY_QUEUE));
+    boolean result = addQuery(querySchedulingInfo);
+    wakeupProcessor();
+    return result;
+  }
+
+  @VisibleForTesting
+  synchronized boolean addQuery(QuerySchedulingInfo querySchedulingInfo) {
+    QueryQueue queue = queues.get(querySchedulingInfo.getQueueName());
+    if (queue == null) {
+      LOG.warn("No such queue '" + querySchedulingInfo.getQueueName() + "'. "
+          + querySchedulingInfo.getQueryId() + " is submitted to the default queue.");
+      queue = queues.get(DEFAULT_QUEUE_NAME);
+    }
+
+    int qSize = queue.pending.size();
+    if (qSize != 0 && qSize % 100 == 0) {
+      LOG.info("Size of queue " + queue.name + " is " + qSize);
+    }
+
+    queryQueues.put(querySchedulingInfo.getQueryId(), queue.name);
+    return queue.pending.add(querySchedulingInfo);
+  }
+
+  @Override
+  public synchronized boolean removeQuery(QueryId queryId) {
+    String queueName = queryQueues.remove(queryId);
+    if (queueName == null) {
+      return false;
+    }
+
+    Iterator<QuerySchedulingInfo> it = queues.get(queueName).pending.iterator();
+    while (it.hasNext()) {
+      if (it.next().getQueryId().equals(queryId)) {
+        it.remove();
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public List<QueryInProgress> getRunningQueries() {
+    return new ArrayList<QueryInProgress>(manager.getRunningQueries());
+  }
+
+  @Override
+  public String getQueueName(QueryId queryId) {
+    return queryQueues.get(queryId);
+  }
+
+  @Override
+  public float getMemoryShare(String queueName) {
+    QueryQueue queue = queues.get(queueName);
+    return queue == null ? 1.0f : queue.memoryShare;
+  }
+
+  @Override
+  public void start() {
+    queryProcessor.start();
+  }
+
+  @Override
+  public void stop() {
+    if (stopped.getAndSet(true)) {
+      return;
+    }
+    synchronized (this) {
+      for (QueryQueue queue : queues.values()) {
+        queue.pending.clear();
+      }
+    }
+    synchronized (queryProcessor) {
+      queryProcessor.interrupt();
+    }
+  }
+
+  /**
+   * It removes the queries which are neither queued nor running any longer.
+   */
+  private void expireFinishedQueries() {
+    for (QueryId queryId : queryQueues.keySet()) {
+      if (manager.getQueryInProgress(queryId) == null) {
+        queryQueues.remove(queryId);
+      }
+    }
+  }
+
+  private Map<String, Integer> countRunningQueries() {
+    Map<String, Integer> runningQueries = Maps.newHashMap();
+    for (QueryInProgress queryInProgress : manager.getRunningQueries()) {
+      String queueName = queryQueues.get(queryInProgress.getQueryId());
+      if (queueName != null) {
+        runningQueries.put(queueName, getCount(runningQueries, queueName) + 1);
+      }
+    }
+    return runningQueries;
+  }
+
+  private static int getCount(Map<String, Integer> runningQueries, String queueName) {
+    Integer count = runningQueries.get(queueName);
+    return count == null ? 0 : count;
+  }
+
+  /**
+   * It polls the next query to be started, and increases the running queries of its queue.
+   *
+   * @param runningQueries queue name -> the number of running queries
+   * @return The query of the queue which has the least running queries per weight, or null if no query can be started
+   */
+  @VisibleForTesting
+  synchronized QuerySchedulingInfo pollScheduledQuery(Map<String, Integer> runningQueries) {
+    QueryQueue selected = null;
+    float selectedShare = 0;
+
+    for (QueryQueue queue : queues.values()) {
+      int running = getCount(runningQueries, queue.name);
+      if (queue.pending.isEmpty() || running >= queue.maxRunningQueries) {
+        continue;
+      }
+
+      float share = running / queue.weight;
+      if (selected == null || share < selectedShare
+          || (share == selectedShare && COMPARATOR.compare(queue.peek(), selected.peek()) < 0)) {
+        selected = queue;
+        selectedShare = share;
+      }
+    }
+
+    if (selected == null) {
+      return null;
+    }
+    runningQueries.put(selected.name, getCount(runningQueries, selected.name) + 1);
+    return selected.poll();
+  }
+
+  private void wakeupProcessor() {
+    synchronized (queryProcessor) {
+      queryProcessor.notifyAll();
+    }
+  }
+
+  private final class QueryProcessor implements Runnable {
+    @Override
+    public void run() {
+
+      QuerySchedulingInfo query;
+
+      while (!stopped.get() && !Thread.currentThread().isInterrupted()) {
+        expireFinishedQueries();
+
+        Map<String, Integer> runningQueries = countRunningQueries();
+        while (!stopped.get() && (query = pollScheduledQuery(runningQueries)) != null) {
+          try {
+            LOG.info("Starting " + query.getQueryId() + " of queue " + getQueueName(query.getQueryId()));
+            manager.startQueryJob(query.getQueryId());
+          } catch (Throwable t) {
+            LOG.fatal("Exception during query startup:", t);
+            manager.stopQuery(query.getQueryId());
+          }
+        }
+
+        synchronized (queryProcessor) {
+          try {
+            queryProcessor.wait(500);
+          } catch (InterruptedException e) {
+            if (stopped.get()) {
+              break;
+            }
+            LOG.warn("Exception during shutdown: ", e);
+          }
+        }
+      }
+    }
+  }
+
+  private static class QueryQueue {
+    private final String name;
+    private final float weight;
+    private final int maxRunningQueries;
+    private final float memoryShare;
+    private final LinkedList<QuerySchedulingInfo> pending = new LinkedList<QuerySchedulingInfo>();
+
+    QueryQueue(String name, float weight, int maxRunningQueries, float memoryShare) {
+      this.name = name;
+      this.weight = weight;
+      this.maxRunningQueries = maxRunningQueries;
+      this.memoryShare = memoryShare;
+    }
+
+    QuerySchedulingInfo peek() {
+      if (pending.size() > 1) {
+        Collections.sort(pending, COMPARATOR);
+      }
+      return pending.peek();
+    }
+
+    QuerySchedulingInfo poll() {
+      peek();
+      return pending.poll();
+    }
+
+    @Override
+    public String toString() {
+      return name + " (weight=" + weight + ", max running queries=" + maxRunningQueries
+          + ", memory share=" + memoryShare + ")";
+    }
+  }
+}
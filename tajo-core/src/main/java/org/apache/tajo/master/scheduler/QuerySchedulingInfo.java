@@ -25,11 +25,17 @@ public class QuerySchedulingInfo {
   private QueryId queryId;
   private Integer priority;
   private Long startTime;
+  private String queueName;
 
   public QuerySchedulingInfo(QueryId queryId, Integer priority, Long startTime) {
+    this(queryId, priority, startTime, null);
+  }
+
+  public QuerySchedulingInfo(QueryId queryId, Integer priority, Long startTime, String queueName) {
     this.queryId = queryId;
     this.priority = priority;
     this.startTime = startTime;
+    this.queueName = queueName;
   }
 
   public QueryId getQueryId() {
@@ -44,6 +50,10 @@ public class QuerySchedulingInfo {
     return startTime;
   }
 
+  public String getQueueName() {
+    return queueName;
+  }
+
   public String getName() {
     return queryId.getId();
   }
@@ -35,7 +35,22 @@ public interface Scheduler {
 
   public List<QueryInProgress> getRunningQueries();
 
+  /**
+   * @return The name of the queue to which the query is submitted, or null if the scheduler has no queues
+   */
+  public String getQueueName(QueryId queryId);
+
+  /**
+   * @return The max fraction of the cluster memory which the queries of the queue can hold at the same time
+   */
+  public float getMemoryShare(String queueName);
+
+  public void start();
+
+  public void stop();
+
   public enum Mode {
-    FIFO
+    FIFO,
+    FAIR
   }
 }
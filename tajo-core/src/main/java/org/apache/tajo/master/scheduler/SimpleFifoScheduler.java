@@ -21,6 +21,7 @@ package org.apache.tajo.master.scheduler;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.tajo.QueryId;
+import org.apache.tajo.SessionVars;
 import org.apache.tajo.master.QueryInProgress;
 import org.apache.tajo.master.QueryManager;
 
@@ -58,7 +59,8 @@ public class SimpleFifoScheduler implements Scheduler {
       LOG.info("Size of Fifo queue is " + qSize);
     }
 
-    QuerySchedulingInfo querySchedulingInfo = new QuerySchedulingInfo(queryInProgress.getQueryId(), 1,
+    QuerySchedulingInfo querySchedulingInfo = new QuerySchedulingInfo(queryInProgress.getQueryId(),
+        queryInProgress.getQueryInfo().getQueryContext().getInt(SessionVars.QUERY_PRIORITY),
         queryInProgress.getQueryInfo().getStartTime());
     boolean result = pool.add(querySchedulingInfo);
     if (getRunningQueries().size() == 0) wakeupProcessor();
@@ -84,10 +86,22 @@ public class SimpleFifoScheduler implements Scheduler {
     return new ArrayList<QueryInProgress>(manager.getRunningQueries());
   }
 
+  @Override
+  public String getQueueName(QueryId queryId) {
+    return null;
+  }
+
+  @Override
+  public float getMemoryShare(String queueName) {
+    return 1.0f;
+  }
+
+  @Override
   public void start() {
     queryProcessor.start();
   }
 
+  @Override
   public void stop() {
     if (stopped.getAndSet(true)) {
       return;
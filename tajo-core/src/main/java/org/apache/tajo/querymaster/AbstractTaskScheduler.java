@@ -28,6 +28,7 @@ public abstract class AbstractTaskScheduler extends AbstractService implements E
 
   protected int hostLocalAssigned;
   protected int rackLocalAssigned;
+  protected int remoteAssigned;
   protected int totalAssigned;
 
   /**
@@ -47,6 +48,10 @@ public abstract class AbstractTaskScheduler extends AbstractService implements E
     return rackLocalAssigned;
   }
 
+  public int getRemoteAssigned() {
+    return remoteAssigned;
+  }
+
   public int getTotalAssigned() {
     return totalAssigned;
   }
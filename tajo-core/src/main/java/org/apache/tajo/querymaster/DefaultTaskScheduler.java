@@ -18,6 +18,7 @@
 
 package org.apache.tajo.querymaster;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.apache.commons.logging.Log;
@@ -26,9 +27,8 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.yarn.api.records.ContainerId;
 import org.apache.hadoop.yarn.event.EventHandler;
 import org.apache.hadoop.yarn.util.RackResolver;
-import org.apache.tajo.ExecutionBlockId;
-import org.apache.tajo.QueryIdFactory;
 import org.apache.tajo.TaskAttemptId;
+import org.apache.tajo.conf.TajoConf;
 import org.apache.tajo.engine.planner.global.ExecutionBlock;
 import org.apache.tajo.engine.planner.global.MasterPlan;
 import org.apache.tajo.engine.query.TaskRequest;
@@ -41,7 +41,6 @@ import org.apache.tajo.master.event.*;
 import org.apache.tajo.master.event.TaskAttemptToSchedulerEvent.TaskAttemptScheduleContext;
 import org.apache.tajo.master.event.TaskSchedulerEvent.EventType;
 import org.apache.tajo.plan.serder.LogicalNodeSerializer;
-import org.apache.tajo.plan.serder.PlanProto;
 import org.apache.tajo.storage.DataLocation;
 import org.apache.tajo.storage.fragment.FileFragment;
 import org.apache.tajo.storage.fragment.Fragment;
@@ -54,8 +53,6 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import static org.apache.tajo.catalog.proto.CatalogProtos.FragmentProto;
-
 public class DefaultTaskScheduler extends AbstractTaskScheduler {
   private static final Log LOG = LogFactory.getLog(DefaultTaskScheduler.class);
 
@@ -71,6 +68,15 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
   private int nextTaskId = 0;
   private int scheduledObjectNum = 0;
 
+  // delay scheduling: how long a task runner waits for a host-local task, and then for a rack-local task
+  private long nodeLocalityWait;
+  private long rackLocalityWait;
+
+  /** the interval (ms) to find straggler tasks */
+  private static final long SPECULATION_INTERVAL = 1000;
+  private TaskSpeculator speculator;
+  private long lastSpeculationTime;
+
   public DefaultTaskScheduler(TaskSchedulerContext context, Stage stage) {
     super(DefaultTaskScheduler.class.getName());
     this.context = context;
@@ -83,6 +89,15 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
     scheduledRequests = new ScheduledRequests();
     taskRequests  = new TaskRequests();
 
+    TajoConf tajoConf = context.getMasterContext().getConf();
+    nodeLocalityWait = tajoConf.getLongVar(TajoConf.ConfVars.TASK_LOCALITY_WAIT_NODE);
+    rackLocalityWait = tajoConf.getLongVar(TajoConf.ConfVars.TASK_LOCALITY_WAIT_RACK);
+    if (tajoConf.getBoolVar(TajoConf.ConfVars.TASK_SPECULATIVE_ENABLED)
+        && TaskSpeculator.isSpeculatable(stage.getMasterPlan(), stage.getId(),
+        context.getMasterContext().getQueryContext())) {
+      speculator = new TaskSpeculator(tajoConf);
+    }
+
     super.init(conf);
   }
 
@@ -114,21 +129,8 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
     super.start();
   }
 
-  private static final TaskAttemptId NULL_ATTEMPT_ID;
-  public static final TajoWorkerProtocol.TaskRequestProto stopTaskRunnerReq;
-  static {
-    ExecutionBlockId nullStage = QueryIdFactory.newExecutionBlockId(QueryIdFactory.NULL_QUERY_ID, 0);
-    NULL_ATTEMPT_ID = QueryIdFactory.newTaskAttemptId(QueryIdFactory.newTaskId(nullStage, 0), 0);
-
-    TajoWorkerProtocol.TaskRequestProto.Builder builder =
-        TajoWorkerProtocol.TaskRequestProto.newBuilder();
-    builder.setId(NULL_ATTEMPT_ID.getProto());
-    builder.setShouldDie(true);
-    builder.setOutputTable("");
-    builder.setPlan(PlanProto.LogicalNodeTree.newBuilder());
-    builder.setClusteredOutput(false);
-    stopTaskRunnerReq = builder.build();
-  }
+  public static final TajoWorkerProtocol.TaskRequestBatchProto stopTaskRunnerReq =
+      TajoWorkerProtocol.TaskRequestBatchProto.newBuilder().setShouldDie(true).build();
 
   @Override
   public void stop() {
@@ -159,6 +161,15 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
   LinkedList<TaskRequestEvent> taskRequestEvents = new LinkedList<TaskRequestEvent>();
   public void schedule() {
 
+    speculate();
+
+    // speculative attempts are assigned first, because they are for the tasks delaying the stage.
+    if (taskRequests.size() > 0 && scheduledRequests.speculativeTaskNum() > 0) {
+      taskRequests.getTaskRequests(taskRequestEvents, taskRequests.size());
+      scheduledRequests.assignToSpeculativeTasks(taskRequestEvents);
+      taskRequestEvents.clear();
+    }
+
     if (taskRequests.size() > 0) {
       if (scheduledRequests.leafTaskNum() > 0) {
         LOG.debug("Try to schedule tasks with taskRequestEvents: " +
@@ -187,6 +198,25 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
     }
   }
 
+  /**
+   * It launches speculative attempts for straggler tasks, once all tasks of the stage are assigned.
+   */
+  private void speculate() {
+    if (speculator == null || remainingScheduledObjectNum() > 0) {
+      return;
+    }
+
+    long now = System.currentTimeMillis();
+    if (now - lastSpeculationTime < SPECULATION_INTERVAL) {
+      return;
+    }
+    lastSpeculationTime = now;
+
+    for (Task task : speculator.findStragglers(stage.getTasks(), now)) {
+      stage.getEventHandler().handle(new TaskEvent(task.getId(), TaskEventType.T_SPECULATE));
+    }
+  }
+
   @Override
   public void handle(TaskSchedulerEvent event) {
     if (event.getType() == EventType.T_SCHEDULE) {
@@ -234,7 +264,9 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
         stage.getEventHandler().handle(new TaskEvent(task.getId(), TaskEventType.T_SCHEDULE));
       } else if (event instanceof TaskAttemptToSchedulerEvent) {
         TaskAttemptToSchedulerEvent castEvent = (TaskAttemptToSchedulerEvent) event;
-        if (context.isLeafQuery()) {
+        if (castEvent.getTaskAttempt().isSpeculative()) {
+          scheduledRequests.addSpeculativeTask(castEvent);
+        } else if (context.isLeafQuery()) {
           scheduledRequests.addLeafTask(castEvent);
         } else {
           scheduledRequests.addNonLeafTask(castEvent);
@@ -245,6 +277,7 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
       // This event is triggered by TaskAttempt.
       TaskAttemptToSchedulerEvent castedEvent = (TaskAttemptToSchedulerEvent) event;
       scheduledRequests.leafTasks.remove(castedEvent.getTaskAttempt().getId());
+      scheduledRequests.removeSpeculativeTask(castedEvent.getTaskAttempt());
       LOG.info(castedEvent.getTaskAttempt().getId() + " is canceled from " + this.getClass().getSimpleName());
       ((TaskAttemptToSchedulerEvent) event).getTaskAttempt().handle(
           new TaskAttemptEvent(castedEvent.getTaskAttempt().getId(), TaskAttemptEventType.TA_SCHEDULE_CANCELED));
@@ -271,6 +304,59 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
     return scheduledObjectNum;
   }
 
+  /**
+   * It limits the number of tasks assigned to a task runner at a time, so that the remaining tasks are
+   * evenly distributed to the waiting task runners.
+   */
+  @VisibleForTesting
+  public static int getBatchLimit(int remainingTasks, int waitingRequests) {
+    return Math.max(1, remainingTasks / Math.max(1, waitingRequests));
+  }
+
+  /**
+   * Delay scheduling: a task runner which cannot get a task of the current locality level waits
+   * until no task has been assigned at that level for the given period.
+   *
+   * @return true if the task runner does not need to wait any more
+   */
+  @VisibleForTesting
+  public static boolean isLocalityWaitExpired(long lastAssignedTime, long localityWait) {
+    return localityWait <= 0 || System.currentTimeMillis() - lastAssignedTime >= localityWait;
+  }
+
+  /**
+   * It returns the hosts which have unassigned tasks in ascending order of the loads of their least loaded
+   * volumes. Among equally loaded hosts, a host with more remaining tasks comes first.
+   */
+  @VisibleForTesting
+  public static List<HostVolumeMapping> getHostsByVolumeLoad(Collection<HostVolumeMapping> mappings) {
+    List<HostVolumeMapping> hosts = Lists.newArrayList();
+    // the sort keys are taken at once, because the loads can be changed by other task runners while sorting.
+    final Map<HostVolumeMapping, int []> sortKeys = new HashMap<HostVolumeMapping, int[]>();
+    for (HostVolumeMapping mapping : mappings) {
+      int remainingTasks = mapping.getRemainingLocalTaskSize();
+      if (remainingTasks > 0) {
+        hosts.add(mapping);
+        sortKeys.put(mapping, new int[] {mapping.getLowestVolumeLoad(), remainingTasks});
+      }
+    }
+
+    Collections.sort(hosts, new Comparator<HostVolumeMapping>() {
+      @Override
+      public int compare(HostVolumeMapping v1, HostVolumeMapping v2) {
+        int [] key1 = sortKeys.get(v1);
+        int [] key2 = sortKeys.get(v2);
+        if (key1[0] != key2[0]) {
+          // ascending volume loads
+          return key1[0] < key2[0] ? -1 : 1;
+        }
+        // descending remaining tasks
+        return key2[1] < key1[1] ? -1 : (key2[1] == key1[1] ? 0 : 1);
+      }
+    });
+    return hosts;
+  }
+
   private class TaskRequests implements EventHandler<TaskRequestEvent> {
     private final LinkedBlockingQueue<TaskRequestEvent> taskRequestQueue =
         new LinkedBlockingQueue<TaskRequestEvent>();
@@ -354,6 +440,8 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
     private SortedMap<Integer, Integer> diskVolumeLoads = new TreeMap<Integer, Integer>();
     /** The total number of remain tasks in this host */
     private AtomicInteger remainTasksNum = new AtomicInteger(0);
+    /** A value is the volume ids which each task runner of other hosts reads remotely in its current batch */
+    private HashMap<TajoContainerId, List<Integer>> remoteReadVolumeIds = new HashMap<TajoContainerId, List<Integer>>();
     public static final int REMOTE = -2;
 
 
@@ -421,28 +509,100 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
       return taskAttemptId;
     }
 
-    public synchronized TaskAttemptId getTaskAttemptIdByRack(String rack) {
+    public synchronized TaskAttemptId getTaskAttemptIdByRack(String rack, TajoContainerId containerId) {
+      if (this.rack.equals(rack)) {
+        return getRemoteTask(containerId);
+      }
+      return null;
+    }
+
+    /**
+     * It returns a task of the least loaded volume in this host for a task runner of another host.
+     * Every remote read is counted in the volume load until {@link #releaseRemoteRead(TajoContainerId)} is called,
+     * so that both local and remote task runners are steered to other volumes.
+     */
+    public synchronized TaskAttemptId getRemoteTask(TajoContainerId containerId) {
       TaskAttemptId taskAttemptId = null;
 
-      if (unassignedTaskForEachVolume.size() > 0 && this.rack.equals(rack)) {
-        int retry = unassignedTaskForEachVolume.size();
-        do {
-          //clean and get a remaining task
-          int volumeId = getLowestVolumeId();
-          taskAttemptId = getAndRemove(volumeId);
-          if (taskAttemptId == null) {
-            if (volumeId > REMOTE) {
-              diskVolumeLoads.remove(volumeId);
-            }
-            retry--;
-          } else {
-            break;
+      int retry = unassignedTaskForEachVolume.size();
+      while (taskAttemptId == null && retry-- > 0) {
+        int volumeId = getLowestLoadedVolumeId();
+        if (volumeId == REMOTE) {
+          break;
+        }
+
+        taskAttemptId = getAndRemove(volumeId);
+        if (taskAttemptId != null) {
+          diskVolumeLoads.put(volumeId, getVolumeConcurrency(volumeId) + 1);
+          List<Integer> volumeIds = remoteReadVolumeIds.get(containerId);
+          if (volumeIds == null) {
+            volumeIds = new ArrayList<Integer>();
+            remoteReadVolumeIds.put(containerId, volumeIds);
           }
-        } while (retry > 0);
+          volumeIds.add(volumeId);
+        }
       }
       return taskAttemptId;
     }
 
+    /**
+     * Decrease the volume loads which are increased by all remote reads of a certain task runner
+     */
+    public synchronized void releaseRemoteRead(TajoContainerId containerId) {
+      List<Integer> volumeIds = remoteReadVolumeIds.remove(containerId);
+      if (volumeIds != null) {
+        for (int volumeId : volumeIds) {
+          decreaseVolumeLoad(volumeId);
+        }
+      }
+    }
+
+    /**
+     * Decrease the volume load which is increased by the last remote read of a certain task runner.
+     * It is used when the task of the remote read has been already taken through another host.
+     */
+    public synchronized void cancelRemoteRead(TajoContainerId containerId) {
+      List<Integer> volumeIds = remoteReadVolumeIds.get(containerId);
+      if (volumeIds != null && !volumeIds.isEmpty()) {
+        decreaseVolumeLoad(volumeIds.remove(volumeIds.size() - 1));
+        if (volumeIds.isEmpty()) {
+          remoteReadVolumeIds.remove(containerId);
+        }
+      }
+    }
+
+    private synchronized void decreaseVolumeLoad(int volumeId) {
+      if (getVolumeConcurrency(volumeId) > 0) {
+        diskVolumeLoads.put(volumeId, getVolumeConcurrency(volumeId) - 1);
+      }
+    }
+
+    /**
+     * @return the least loaded volume among volumes which have unassigned tasks, or REMOTE if there is no one
+     */
+    private synchronized int getLowestLoadedVolumeId() {
+      int lowestVolumeId = REMOTE;
+      int lowestLoad = Integer.MAX_VALUE;
+      synchronized (unassignedTaskForEachVolume) {
+        for (Map.Entry<Integer, LinkedHashSet<TaskAttempt>> entry : unassignedTaskForEachVolume.entrySet()) {
+          int load = getVolumeConcurrency(entry.getKey());
+          if (!entry.getValue().isEmpty() && load < lowestLoad) {
+            lowestVolumeId = entry.getKey();
+            lowestLoad = load;
+          }
+        }
+      }
+      return lowestVolumeId;
+    }
+
+    /**
+     * @return the load of the least loaded volume which has unassigned tasks
+     */
+    public synchronized int getLowestVolumeLoad() {
+      int volumeId = getLowestLoadedVolumeId();
+      return volumeId == REMOTE ? Integer.MAX_VALUE : getVolumeConcurrency(volumeId);
+    }
+
     private synchronized TaskAttemptId getAndRemove(int volumeId){
       TaskAttemptId taskAttemptId = null;
       if(!unassignedTaskForEachVolume.containsKey(volumeId)) return taskAttemptId;
@@ -600,8 +760,16 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
     // if the task is not included in leafTasks and nonLeafTasks.
     private final Set<TaskAttemptId> leafTasks = Collections.synchronizedSet(new HashSet<TaskAttemptId>());
     private final Set<TaskAttemptId> nonLeafTasks = Collections.synchronizedSet(new HashSet<TaskAttemptId>());
+    // speculative attempts of straggler tasks, which are assigned to the other hosts than the original attempts
+    private final List<TaskAttempt> speculativeTasks = new LinkedList<TaskAttempt>();
     private Map<String, HostVolumeMapping> leafTaskHostMapping = Maps.newConcurrentMap();
     private final Map<String, HashSet<TaskAttemptId>> leafTasksRackMapping = Maps.newConcurrentMap();
+    /** A value is the hosts whose volumes a task runner reads remotely in its current batch */
+    private final Map<TajoContainerId, Set<HostVolumeMapping>> remoteReadHosts = Maps.newHashMap();
+
+    // the last times when tasks are assigned to host-local and (host or rack)-local task runners
+    private long lastHostLocalTime;
+    private long lastRackLocalTime;
 
     private synchronized void addLeafTask(TaskAttemptToSchedulerEvent event) {
       TaskAttempt taskAttempt = event.getTaskAttempt();
@@ -642,6 +810,41 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
       nonLeafTasks.add(event.getTaskAttempt().getId());
     }
 
+    private void addSpeculativeTask(TaskAttemptToSchedulerEvent event) {
+      synchronized (speculativeTasks) {
+        speculativeTasks.add(event.getTaskAttempt());
+      }
+    }
+
+    private void removeSpeculativeTask(TaskAttempt taskAttempt) {
+      synchronized (speculativeTasks) {
+        speculativeTasks.remove(taskAttempt);
+      }
+    }
+
+    public int speculativeTaskNum() {
+      synchronized (speculativeTasks) {
+        return speculativeTasks.size();
+      }
+    }
+
+    /**
+     * @return a speculative attempt whose task is not running on the given host
+     */
+    private TaskAttempt pollSpeculativeTask(String host) {
+      synchronized (speculativeTasks) {
+        Iterator<TaskAttempt> iterator = speculativeTasks.iterator();
+        while (iterator.hasNext()) {
+          TaskAttempt taskAttempt = iterator.next();
+          if (!taskAttempt.getTask().hasAttemptOn(host)) {
+            iterator.remove();
+            return taskAttempt;
+          }
+        }
+      }
+      return null;
+    }
+
     public int leafTaskNum() {
       return leafTasks.size();
     }
@@ -666,6 +869,7 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
             //LOG.info(attemptId + " Assigned based on host match " + hostName);
             hostLocalAssigned++;
             totalAssigned++;
+            lastHostLocalTime = lastRackLocalTime = System.currentTimeMillis();
             return attemptId;
           }
         }
@@ -673,44 +877,53 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
       return null;
     }
 
-    private TaskAttemptId allocateRackTask(String host) {
-
-      List<HostVolumeMapping> remainingTasks = Lists.newArrayList(leafTaskHostMapping.values());
-      String rack = RackResolver.resolve(host).getNetworkLocation();
-      TaskAttemptId attemptId = null;
-
-      if (remainingTasks.size() > 0) {
-        synchronized (scheduledRequests) {
-          //find largest remaining task of other host in rack
-          Collections.sort(remainingTasks, new Comparator<HostVolumeMapping>() {
-            @Override
-            public int compare(HostVolumeMapping v1, HostVolumeMapping v2) {
-              // descending remaining tasks
-              if (v2.remainTasksNum.get() > v1.remainTasksNum.get()) {
-                return 1;
-              } else if (v2.remainTasksNum.get() == v1.remainTasksNum.get()) {
-                return 0;
-              } else {
-                return -1;
-              }
-            }
-          });
+    /**
+     * It takes a task of the given host for a task runner of another host.
+     *
+     * @param rack If it is not null, only a task of a host in the rack is taken.
+     */
+    private TaskAttemptId allocateRemoteTask(HostVolumeMapping mapping, String rack, TajoContainerId containerId) {
+      for (int i = 0; i < mapping.getRemainingLocalTaskSize(); i++) {
+        TaskAttemptId tId = rack == null ?
+            mapping.getRemoteTask(containerId) : mapping.getTaskAttemptIdByRack(rack, containerId);
+
+        if (tId == null) break;
+
+        if (leafTasks.contains(tId)) {
+          leafTasks.remove(tId);
+          Set<HostVolumeMapping> hosts = remoteReadHosts.get(containerId);
+          if (hosts == null) {
+            hosts = new HashSet<HostVolumeMapping>();
+            remoteReadHosts.put(containerId, hosts);
+          }
+          hosts.add(mapping);
+          return tId;
         }
+        mapping.cancelRemoteRead(containerId);
+      }
+      return null;
+    }
 
-        for (HostVolumeMapping tasks : remainingTasks) {
-          for (int i = 0; i < tasks.getRemainingLocalTaskSize(); i++) {
-            TaskAttemptId tId = tasks.getTaskAttemptIdByRack(rack);
+    /**
+     * It releases the volume loads of the remote reads in the previous batch of a task runner.
+     */
+    private void releaseRemoteRead(TajoContainerId containerId) {
+      Set<HostVolumeMapping> hosts = remoteReadHosts.remove(containerId);
+      if (hosts != null) {
+        for (HostVolumeMapping mapping : hosts) {
+          mapping.releaseRemoteRead(containerId);
+        }
+      }
+    }
 
-            if (tId == null) break;
+    private TaskAttemptId allocateRackTask(String host, TajoContainerId containerId) {
+      String rack = RackResolver.resolve(host).getNetworkLocation();
+      TaskAttemptId attemptId = null;
 
-            if (leafTasks.contains(tId)) {
-              leafTasks.remove(tId);
-              attemptId = tId;
-              break;
-            }
-          }
-          if(attemptId != null) break;
-        }
+      //find a task of the least loaded volume of other hosts in rack
+      for (HostVolumeMapping tasks : getHostsByVolumeLoad(leafTaskHostMapping.values())) {
+        attemptId = allocateRemoteTask(tasks, rack, containerId);
+        if(attemptId != null) break;
       }
 
       //find task in rack
@@ -735,18 +948,53 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
       if (attemptId != null) {
         rackLocalAssigned++;
         totalAssigned++;
+        lastRackLocalTime = System.currentTimeMillis();
 
-        LOG.info(String.format("Assigned Local/Rack/Total: (%d/%d/%d), Locality: %.2f%%, Rack host: %s",
-            hostLocalAssigned, rackLocalAssigned, totalAssigned,
+        LOG.info(String.format("Assigned Local/Rack/Remote/Total: (%d/%d/%d/%d), Locality: %.2f%%, Rack host: %s",
+            hostLocalAssigned, rackLocalAssigned, remoteAssigned, totalAssigned,
             ((double) hostLocalAssigned / (double) totalAssigned) * 100, host));
 
       }
       return attemptId;
     }
 
+    private TaskAttemptId allocateRemoteTask(TajoContainerId containerId) {
+      TaskAttemptId attemptId = null;
+
+      //find a task of the least loaded volume of all hosts
+      for (HostVolumeMapping tasks : getHostsByVolumeLoad(leafTaskHostMapping.values())) {
+        attemptId = allocateRemoteTask(tasks, null, containerId);
+        if(attemptId != null) break;
+      }
+
+      // a task without any data location
+      if (attemptId == null) {
+        synchronized (leafTasks){
+          attemptId = leafTasks.iterator().next();
+          leafTasks.remove(attemptId);
+        }
+      }
+
+      remoteAssigned++;
+      totalAssigned++;
+      LOG.info(String.format("Assigned Local/Rack/Remote/Total: (%d/%d/%d/%d), Locality: %.2f%%,",
+          hostLocalAssigned, rackLocalAssigned, remoteAssigned, totalAssigned,
+          ((double) hostLocalAssigned / (double) totalAssigned) * 100));
+      return attemptId;
+    }
+
     public void assignToLeafTasks(LinkedList<TaskRequestEvent> taskRequests) {
       Collections.shuffle(taskRequests);
       LinkedList<TaskRequestEvent> remoteTaskRequests = new LinkedList<TaskRequestEvent>();
+      // the task runners waiting for local tasks
+      LinkedList<TaskRequestEvent> delayedTaskRequests = new LinkedList<TaskRequestEvent>();
+      int batchLimit = getBatchLimit(leafTaskNum(),
+          taskRequests.size() + DefaultTaskScheduler.this.taskRequests.size());
+
+      if (lastHostLocalTime == 0) {
+        // the locality waits start when the first task runner requests a task
+        lastHostLocalTime = lastRackLocalTime = System.currentTimeMillis();
+      }
 
       TaskRequestEvent taskRequest;
       while (leafTasks.size() > 0 && (!taskRequests.isEmpty() || !remoteTaskRequests.isEmpty())) {
@@ -754,13 +1002,17 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
         if(taskRequest == null) { // if there are only remote task requests
           taskRequest = remoteTaskRequests.pollFirst();
         }
+        if (taskRequest.getAssignedTaskNum() == 0) {
+          // a new request means that the previous batch of this task runner is done
+          releaseRemoteRead(taskRequest.getContainerId());
+        }
 
         // checking if this container is still alive.
         // If not, ignore the task request and stop the task runner
         ContainerProxy container = context.getMasterContext().getResourceAllocator()
             .getContainer(taskRequest.getContainerId());
         if(container == null) {
-          taskRequest.getCallback().run(stopTaskRunnerReq);
+          releaseTaskRequest(taskRequest);
           continue;
         }
 
@@ -793,6 +1045,12 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
         TaskAttemptId attemptId = allocateLocalTask(host, containerId);
 
         if (attemptId == null) { // if a local task cannot be found
+          if (!isLocalityWaitExpired(lastHostLocalTime, nodeLocalityWait)) {
+            // wait for a while, so that the task runners on the hosts of data take the tasks
+            delayedTaskRequests.add(taskRequest);
+            continue;
+          }
+
           HostVolumeMapping hostVolumeMapping = leafTaskHostMapping.get(host);
 
           if(hostVolumeMapping != null) {
@@ -807,7 +1065,7 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
             if(hostVolumeMapping.getRemoteConcurrency() > tailLimit){
               //release container
               hostVolumeMapping.decreaseConcurrency(containerId);
-              taskRequest.getCallback().run(stopTaskRunnerReq);
+              releaseTaskRequest(taskRequest);
               continue;
             }
           }
@@ -815,48 +1073,130 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
           //////////////////////////////////////////////////////////////////////
           // rack-local allocation
           //////////////////////////////////////////////////////////////////////
-          attemptId = allocateRackTask(host);
+          attemptId = allocateRackTask(host, containerId);
 
           //////////////////////////////////////////////////////////////////////
-          // random node allocation
+          // remote allocation
           //////////////////////////////////////////////////////////////////////
           if (attemptId == null && leafTaskNum() > 0) {
-            synchronized (leafTasks){
-              attemptId = leafTasks.iterator().next();
-              leafTasks.remove(attemptId);
-              rackLocalAssigned++;
-              totalAssigned++;
-              LOG.info(String.format("Assigned Local/Remote/Total: (%d/%d/%d), Locality: %.2f%%,",
-                  hostLocalAssigned, rackLocalAssigned, totalAssigned,
-                  ((double) hostLocalAssigned / (double) totalAssigned) * 100));
+            if (!isLocalityWaitExpired(lastRackLocalTime, rackLocalityWait)) {
+              delayedTaskRequests.add(taskRequest);
+              continue;
             }
+            attemptId = allocateRemoteTask(containerId);
           }
         }
 
         if (attemptId != null) {
-          Task task = stage.getTask(attemptId.getTaskId());
-          TaskRequest taskAssign = new TaskRequestImpl(
-              attemptId,
-              new ArrayList<FragmentProto>(task.getAllFragments()),
-              "",
-              false,
-              LogicalNodeSerializer.serialize(task.getLogicalPlan()),
-              context.getMasterContext().getQueryContext(),
-              stage.getDataChannel(), stage.getBlock().getEnforcer());
-          if (checkIfInterQuery(stage.getMasterPlan(), stage.getBlock())) {
-            taskAssign.setInterQuery();
-          }
+          TaskRequest taskAssign = newTaskRequest(attemptId);
 
           context.getMasterContext().getEventHandler().handle(new TaskAttemptAssignedEvent(attemptId,
               taskRequest.getContainerId(), connectionInfo));
           assignedRequest.add(attemptId);
 
           scheduledObjectNum--;
-          taskRequest.getCallback().run(taskAssign.getProto());
+          taskRequest.addTask(taskAssign.getProto());
+          if (taskRequest.getAssignedTaskNum() < Math.min(batchLimit, taskRequest.getMaxTasks())) {
+            // The same task runner is given the next task, which is also matched to its host.
+            taskRequests.addFirst(taskRequest);
+          } else {
+            taskRequest.sendAssignedTasks();
+          }
         } else {
           throw new RuntimeException("Illegal State!!!!!!!!!!!!!!!!!!!!!");
         }
       }
+
+      returnTaskRequests(taskRequests);
+      returnTaskRequests(remoteTaskRequests);
+      returnTaskRequests(delayedTaskRequests);
+    }
+
+    /**
+     * It sends the assigned tasks of the given request if any, or it stops the task runner.
+     */
+    private void releaseTaskRequest(TaskRequestEvent taskRequest) {
+      if (taskRequest.getAssignedTaskNum() > 0) {
+        taskRequest.sendAssignedTasks();
+      } else {
+        taskRequest.getCallback().run(stopTaskRunnerReq);
+      }
+    }
+
+    /**
+     * It sends the assigned tasks of the remaining requests, and requests without any assigned task wait for
+     * the next scheduling.
+     */
+    private void returnTaskRequests(Collection<TaskRequestEvent> remainingRequests) {
+      for (TaskRequestEvent taskRequest : remainingRequests) {
+        if (taskRequest.getAssignedTaskNum() > 0) {
+          taskRequest.sendAssignedTasks();
+        } else {
+          DefaultTaskScheduler.this.taskRequests.handle(taskRequest);
+        }
+      }
+      remainingRequests.clear();
+    }
+
+    public void assignToSpeculativeTasks(LinkedList<TaskRequestEvent> taskRequests) {
+      LinkedList<TaskRequestEvent> remainingRequests = new LinkedList<TaskRequestEvent>();
+
+      TaskRequestEvent taskRequest;
+      while (!taskRequests.isEmpty()) {
+        taskRequest = taskRequests.pollFirst();
+        if (speculativeTaskNum() == 0) {
+          remainingRequests.add(taskRequest);
+          continue;
+        }
+
+        if (context.getMasterContext().getResourceAllocator().getContainer(taskRequest.getContainerId()) == null) {
+          releaseTaskRequest(taskRequest);
+          continue;
+        }
+
+        WorkerConnectionInfo connectionInfo =
+            context.getMasterContext().getResourceAllocator().getWorkerConnectionInfo(taskRequest.getWorkerId());
+        TaskAttempt taskAttempt = pollSpeculativeTask(connectionInfo.getHost());
+        if (taskAttempt == null) {
+          remainingRequests.add(taskRequest);
+          continue;
+        }
+
+        TaskAttemptId attemptId = taskAttempt.getId();
+        LOG.info("Assigned a speculative attempt " + attemptId + " to " + connectionInfo.getHost());
+        TaskRequest taskAssign = newTaskRequest(attemptId);
+        context.getMasterContext().getEventHandler().handle(new TaskAttemptAssignedEvent(attemptId,
+            taskRequest.getContainerId(), connectionInfo));
+        taskRequest.addTask(taskAssign.getProto());
+        taskRequest.sendAssignedTasks();
+      }
+
+      returnTaskRequests(remainingRequests);
+    }
+
+    private TaskRequest newTaskRequest(TaskAttemptId attemptId) {
+      Task task = stage.getTask(attemptId.getTaskId());
+      TaskRequest taskAssign = new TaskRequestImpl(
+          attemptId,
+          Lists.newArrayList(task.getAllFragments()),
+          "",
+          false,
+          LogicalNodeSerializer.serialize(task.getLogicalPlan()),
+          context.getMasterContext().getQueryContext(),
+          stage.getDataChannel(),
+          stage.getBlock().getEnforcer());
+      if (checkIfInterQuery(stage.getMasterPlan(), stage.getBlock())) {
+        taskAssign.setInterQuery();
+      }
+      for(Map.Entry<String, Set<FetchImpl>> entry: task.getFetchMap().entrySet()) {
+        Collection<FetchImpl> fetches = entry.getValue();
+        if (fetches != null) {
+          for (FetchImpl fetch : fetches) {
+            taskAssign.addFetch(entry.getKey(), fetch);
+          }
+        }
+      }
+      return taskAssign;
     }
 
     private boolean checkIfInterQuery(MasterPlan masterPlan, ExecutionBlock block) {
@@ -874,6 +1214,8 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
 
     public void assignToNonLeafTasks(LinkedList<TaskRequestEvent> taskRequests) {
       Collections.shuffle(taskRequests);
+      int batchLimit = getBatchLimit(nonLeafTaskNum(),
+          taskRequests.size() + DefaultTaskScheduler.this.taskRequests.size());
 
       TaskRequestEvent taskRequest;
       while (!taskRequests.isEmpty()) {
@@ -882,44 +1224,30 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
 
         TaskAttemptId attemptId;
         // random allocation
-        if (nonLeafTasks.size() > 0) {
+        while (nonLeafTasks.size() > 0
+            && taskRequest.getAssignedTaskNum() < Math.min(batchLimit, taskRequest.getMaxTasks())) {
           synchronized (nonLeafTasks){
             attemptId = nonLeafTasks.iterator().next();
             nonLeafTasks.remove(attemptId);
           }
           LOG.debug("Assigned based on * match");
 
-          Task task;
-          task = stage.getTask(attemptId.getTaskId());
-          TaskRequest taskAssign = new TaskRequestImpl(
-              attemptId,
-              Lists.newArrayList(task.getAllFragments()),
-              "",
-              false,
-              LogicalNodeSerializer.serialize(task.getLogicalPlan()),
-              context.getMasterContext().getQueryContext(),
-              stage.getDataChannel(),
-              stage.getBlock().getEnforcer());
-          if (checkIfInterQuery(stage.getMasterPlan(), stage.getBlock())) {
-            taskAssign.setInterQuery();
-          }
-          for(Map.Entry<String, Set<FetchImpl>> entry: task.getFetchMap().entrySet()) {
-            Collection<FetchImpl> fetches = entry.getValue();
-            if (fetches != null) {
-              for (FetchImpl fetch : fetches) {
-                taskAssign.addFetch(entry.getKey(), fetch);
-              }
-            }
-          }
+          TaskRequest taskAssign = newTaskRequest(attemptId);
 
           WorkerConnectionInfo connectionInfo = context.getMasterContext().getResourceAllocator().
               getWorkerConnectionInfo(taskRequest.getWorkerId());
           context.getMasterContext().getEventHandler().handle(new TaskAttemptAssignedEvent(attemptId,
               taskRequest.getContainerId(), connectionInfo));
-          taskRequest.getCallback().run(taskAssign.getProto());
+          taskRequest.addTask(taskAssign.getProto());
           totalAssigned++;
           scheduledObjectNum--;
         }
+
+        if (taskRequest.getAssignedTaskNum() > 0) {
+          taskRequest.sendAssignedTasks();
+        } else {
+          DefaultTaskScheduler.this.taskRequests.handle(taskRequest);
+        }
       }
     }
   }
@@ -120,8 +120,8 @@ public class QueryMasterManagerService extends CompositeService
   }
 
   @Override
-  public void getTask(RpcController controller, TajoWorkerProtocol.GetTaskRequestProto request,
-                      RpcCallback<TajoWorkerProtocol.TaskRequestProto> done) {
+  public void getTasks(RpcController controller, TajoWorkerProtocol.GetTaskRequestProto request,
+                       RpcCallback<TajoWorkerProtocol.TaskRequestBatchProto> done) {
     try {
       ExecutionBlockId ebId = new ExecutionBlockId(request.getExecutionBlockId());
       QueryMasterTask queryMasterTask = workerContext.getQueryMaster().getQueryMasterTask(ebId.getQueryId());
@@ -131,8 +131,9 @@ public class QueryMasterManagerService extends CompositeService
       } else {
         TajoContainerId cid =
             queryMasterTask.getQueryTaskContext().getResourceAllocator().makeContainerId(request.getContainerId());
-        LOG.debug("getTask:" + cid + ", ebId:" + ebId);
-        queryMasterTask.handleTaskRequestEvent(new TaskRequestEvent(request.getWorkerId(), cid, ebId, done));
+        LOG.debug("getTasks:" + cid + ", ebId:" + ebId);
+        queryMasterTask.handleTaskRequestEvent(new TaskRequestEvent(request.getWorkerId(), cid, ebId,
+            request.getMaxTasks(), done));
       }
     } catch (Exception e) {
       LOG.error(e.getMessage(), e);
@@ -54,6 +54,7 @@ import org.apache.tajo.storage.RowStoreUtil;
 import org.apache.tajo.storage.TupleRange;
 import org.apache.tajo.storage.fragment.FileFragment;
 import org.apache.tajo.storage.fragment.Fragment;
+import org.apache.tajo.util.FileUtil;
 import org.apache.tajo.util.Pair;
 import org.apache.tajo.unit.StorageUnit;
 import org.apache.tajo.util.TUtil;
@@ -432,16 +433,185 @@ public class Repartitioner {
     }
     Stage.scheduleFragment(stage, fragments[0], rightFragments);
 
+    // Partitions far larger than the others are split into several tasks.
+    long taskVolume = (long) StorageUnit.MB * desireJoinTaskVolumn;
+    Map<Integer, ExecutionBlockId> skewedPartitions = new HashMap<Integer, ExecutionBlockId>();
+    Set<ExecutionBlockId> splittableSides = getSkewSplittableSides(stage, scans, broadcastFragments);
+    if (!splittableSides.isEmpty()) {
+      skewedPartitions = findSkewedPartitions(hashEntries, splittableSides,
+          masterPlan.getContext().getInt(SessionVars.JOIN_SKEW_FACTOR), taskVolume);
+    }
+
     // Assign partitions to tasks in a round robin manner.
     for (Entry<Integer, Map<ExecutionBlockId, List<IntermediateEntry>>> entry
         : hashEntries.entrySet()) {
-      addJoinShuffle(stage, entry.getKey(), entry.getValue());
+      ExecutionBlockId skewedSide = skewedPartitions.get(entry.getKey());
+      if (skewedSide != null) {
+        joinTaskNum += addSkewedJoinShuffle(stage, entry.getKey(), entry.getValue(), skewedSide, taskVolume) - 1;
+      } else {
+        addJoinShuffle(stage, entry.getKey(), entry.getValue());
+      }
     }
 
     schedulerContext.setTaskSize((int) Math.ceil((double) bothFetchSize / joinTaskNum));
     schedulerContext.setEstimatedTaskNum(joinTaskNum);
   }
 
+  /**
+   * It returns the ids of the sides of a repartition join whose partitions can be split into several tasks.
+   * A task reading a slice of a split side should read the whole matching partition of the other side,
+   * so only the side whose rows are joined independently of the other rows of the same side can be split:
+   * both sides of an inner join, and the preserved side of an outer join.
+   */
+  private static Set<ExecutionBlockId> getSkewSplittableSides(Stage stage, ScanNode[] scans,
+                                                              Fragment[] broadcastFragments) {
+    Set<ExecutionBlockId> sides = new HashSet<ExecutionBlockId>();
+    if (!stage.getMasterPlan().getContext().getBool(SessionVars.JOIN_SKEW_SPLIT_ENABLED)
+        || broadcastFragments != null || scans.length != 2) {
+      return sides;
+    }
+
+    // only a single join of two intermediate data is considered
+    LogicalNode plan = stage.getBlock().getPlan();
+    JoinNode joinNode = PlannerUtil.findTopNode(plan, NodeType.JOIN);
+    if (joinNode == null || joinNode != PlannerUtil.findMostBottomNode(plan, NodeType.JOIN)) {
+      return sides;
+    }
+    ScanNode leftScan = PlannerUtil.findTopNode(joinNode.getLeftChild(), NodeType.SCAN);
+    ScanNode rightScan = PlannerUtil.findTopNode(joinNode.getRightChild(), NodeType.SCAN);
+    if (leftScan == null || rightScan == null) {
+      return sides;
+    }
+
+    JoinType joinType = joinNode.getJoinType();
+    if (joinType == JoinType.INNER || joinType == JoinType.LEFT_OUTER) {
+      sides.add(TajoIdUtils.createExecutionBlockId(leftScan.getTableName()));
+    }
+    if (joinType == JoinType.INNER || joinType == JoinType.RIGHT_OUTER) {
+      sides.add(TajoIdUtils.createExecutionBlockId(rightScan.getTableName()));
+    }
+    return sides;
+  }
+
+  /**
+   * It finds the partitions which should be split. A partition is skewed if the volume of one of its splittable
+   * sides is larger than both the given factor times the median volume of the side and the minimum volume.
+   * If both sides of a partition are skewed, the larger one is split.
+   *
+   * @return partition id -> the id of the side to be split
+   */
+  public static Map<Integer, ExecutionBlockId> findSkewedPartitions(
+      Map<Integer, Map<ExecutionBlockId, List<IntermediateEntry>>> hashEntries,
+      Set<ExecutionBlockId> splittableSides, int skewFactor, long minVolume) {
+
+    Map<Integer, ExecutionBlockId> skewed = new HashMap<Integer, ExecutionBlockId>();
+    Map<Integer, Long> skewedVolumes = new HashMap<Integer, Long>();
+    for (ExecutionBlockId side : splittableSides) {
+      Map<Integer, Long> volumes = new HashMap<Integer, Long>();
+      for (Entry<Integer, Map<ExecutionBlockId, List<IntermediateEntry>>> entry : hashEntries.entrySet()) {
+        long volume = 0;
+        if (entry.getValue().containsKey(side)) {
+          for (IntermediateEntry interm : entry.getValue().get(side)) {
+            volume += interm.getVolume();
+          }
+        }
+        volumes.put(entry.getKey(), volume);
+      }
+      if (volumes.isEmpty()) {
+        continue;
+      }
+
+      List<Long> sorted = new ArrayList<Long>(volumes.values());
+      Collections.sort(sorted);
+      long threshold = Math.max(minVolume, skewFactor * sorted.get(sorted.size() / 2));
+
+      for (Entry<Integer, Long> entry : volumes.entrySet()) {
+        long volume = entry.getValue();
+        Long previous = skewedVolumes.get(entry.getKey());
+        if (volume > threshold && (previous == null || previous < volume)) {
+          skewed.put(entry.getKey(), side);
+          skewedVolumes.put(entry.getKey(), volume);
+        }
+      }
+    }
+    return skewed;
+  }
+
+  /**
+   * It splits the intermediate data of a partition into slices of about the given volume. An intermediate data
+   * is split by its pages, and one without pages is not split.
+   *
+   * @return the fetches of each slice
+   */
+  public static List<List<FetchImpl>> splitSkewedIntermediates(ExecutionBlockId ebId, int partitionId,
+                                                               List<IntermediateEntry> entries, long sliceVolume) {
+    List<List<FetchImpl>> slices = new ArrayList<List<FetchImpl>>();
+    List<FetchImpl> slice = new ArrayList<FetchImpl>();
+    long currentVolume = 0;
+
+    for (IntermediateEntry interm : entries) {
+      List<Pair<Long, Long>> splits = interm.split(sliceVolume - currentVolume, sliceVolume);
+      if (splits.isEmpty()) {
+        // It is fetched as a whole.
+        splits = TUtil.newList(new Pair<Long, Long>(-1L, interm.getVolume()));
+      }
+
+      for (Pair<Long, Long> eachSplit : splits) {
+        if (currentVolume > 0 && currentVolume + eachSplit.getSecond() > sliceVolume) {
+          slices.add(slice);
+          slice = new ArrayList<FetchImpl>();
+          currentVolume = 0;
+        }
+        FetchImpl fetch = new FetchImpl(interm.getPullHost(), HASH_SHUFFLE, ebId, partitionId,
+            TUtil.newList(interm));
+        if (eachSplit.getFirst() >= 0) {
+          fetch.setOffset(eachSplit.getFirst());
+          fetch.setLength(eachSplit.getSecond());
+        }
+        slice.add(fetch);
+        currentVolume += eachSplit.getSecond();
+      }
+    }
+    if (!slice.isEmpty()) {
+      slices.add(slice);
+    }
+    return slices;
+  }
+
+  /**
+   * It schedules a skewed partition into several tasks. Each task fetches a slice of the skewed side and
+   * the whole partition of the other side.
+   *
+   * @return the number of scheduled tasks
+   */
+  private static int addSkewedJoinShuffle(Stage stage, int partitionId,
+                                          Map<ExecutionBlockId, List<IntermediateEntry>> grouppedPartitions,
+                                          ExecutionBlockId skewedSide, long sliceVolume) {
+    List<List<FetchImpl>> slices = splitSkewedIntermediates(skewedSide, partitionId,
+        grouppedPartitions.get(skewedSide), sliceVolume);
+    if (slices.size() <= 1) {
+      addJoinShuffle(stage, partitionId, grouppedPartitions);
+      return 1;
+    }
+    LOG.info(stage.getId() + "'s " + partitionId + " partition is skewed in " + skewedSide
+        + ", and it is split into " + slices.size() + " tasks.");
+
+    for (List<FetchImpl> slice : slices) {
+      Map<String, List<FetchImpl>> fetches = new HashMap<String, List<FetchImpl>>();
+      for (ExecutionBlock execBlock : stage.getMasterPlan().getChilds(stage.getId())) {
+        if (execBlock.getId().equals(skewedSide)) {
+          fetches.put(execBlock.getId().toString(), slice);
+        } else if (grouppedPartitions.containsKey(execBlock.getId())) {
+          Collection<FetchImpl> requests = mergeShuffleRequest(partitionId, HASH_SHUFFLE,
+              grouppedPartitions.get(execBlock.getId()));
+          fetches.put(execBlock.getId().toString(), Lists.newArrayList(requests));
+        }
+      }
+      Stage.scheduleFetches(stage, fetches);
+    }
+    return slices.size();
+  }
+
   /**
    * merge intermediate entry by ebid, pullhost
    * @param hashEntries
@@ -909,9 +1079,25 @@ public class Repartitioner {
       scheduleScatteredHashShuffleFetches(schedulerContext, stage, intermediates,
           scan.getTableName());
     } else {
+      Pair<Long [], Map<String, List<FetchImpl>>[]> fetches;
+      if (determinedTaskNum > 1
+          && masterPlan.getContext().getBool(SessionVars.GROUPBY_ADAPTIVE_PARTITION_ENABLED)) {
+        // the shuffle is over-partitioned, so adjacent small partitions are coalesced by their actual volumes
+        long targetVolume = (long) StorageUnit.MB *
+            masterPlan.getContext().getInt(SessionVars.GROUPBY_TASK_INPUT_SIZE);
+        fetches = makeCoalescedFetchImpl(finalFetches, scan.getTableName(), targetVolume);
+        determinedTaskNum = fetches.getFirst().length;
+        LOG.info(stage.getId() + ", " + finalFetches.size() + " partitions are coalesced into " + determinedTaskNum
+            + " tasks (target volume: " + FileUtil.humanReadableByteCount(targetVolume, false) + ")");
+      } else {
+        // divide fetch uris into the the proper number of tasks according to volumes
+        fetches = makeEvenDistributedFetchImpl(finalFetches, scan.getTableName(), determinedTaskNum);
+      }
       schedulerContext.setEstimatedTaskNum(determinedTaskNum);
-      // divide fetch uris into the the proper number of tasks according to volumes
-      scheduleFetchesByEvenDistributedVolumes(stage, finalFetches, scan.getTableName(), determinedTaskNum);
+      for (Map<String, List<FetchImpl>> eachFetches : fetches.getSecond()) {
+        Stage.scheduleFetches(stage, eachFetches);
+      }
+      stage.setScheduledTaskVolumes(finalFetches.size(), fetches.getFirst());
       LOG.info(stage.getId() + ", DeterminedTaskNum : " + determinedTaskNum);
     }
   }
@@ -973,6 +1159,45 @@ public class Repartitioner {
     return new Pair<Long[], Map<String, List<FetchImpl>>[]>(assignedVolumes, fetchesArray);
   }
 
+  /**
+   * It coalesces adjacent partitions in the order of partition ids into groups, each of which is not larger than
+   * the target volume unless it consists of a single partition. Each group is assigned to a task.
+   *
+   * @param partitions partition id -> fetches of the partition
+   * @param tableName the name of the fetched table
+   * @param targetVolume the maximum input volume (bytes) of a task
+   * @return the volumes and the fetches of tasks
+   */
+  public static Pair<Long [], Map<String, List<FetchImpl>>[]> makeCoalescedFetchImpl(
+      Map<Integer, FetchGroupMeta> partitions, String tableName, long targetVolume) {
+
+    List<Long> assignedVolumes = Lists.newArrayList();
+    List<Map<String, List<FetchImpl>>> fetchesList = Lists.newArrayList();
+
+    Map<String, List<FetchImpl>> current = null;
+    long currentVolume = 0;
+    for (FetchGroupMeta fetchGroupMeta : new TreeMap<Integer, FetchGroupMeta>(partitions).values()) {
+      if (current != null && currentVolume + fetchGroupMeta.getVolume() > targetVolume) {
+        fetchesList.add(current);
+        assignedVolumes.add(currentVolume);
+        current = null;
+      }
+      if (current == null) {
+        current = new HashMap<String, List<FetchImpl>>();
+        currentVolume = 0;
+      }
+      TUtil.putCollectionToNestedList(current, tableName, fetchGroupMeta.fetchUrls);
+      currentVolume += fetchGroupMeta.getVolume();
+    }
+    if (current != null) {
+      fetchesList.add(current);
+      assignedVolumes.add(currentVolume);
+    }
+
+    return new Pair<Long[], Map<String, List<FetchImpl>>[]>(
+        assignedVolumes.toArray(new Long[assignedVolumes.size()]), fetchesList.toArray(new Map[fetchesList.size()]));
+  }
+
   public static void scheduleFetchesByEvenDistributedVolumes(Stage stage, Map<Integer, FetchGroupMeta> partitions,
                                                              String tableName, int num) {
     Map<String, List<FetchImpl>>[] fetchsArray = makeEvenDistributedFetchImpl(partitions, tableName, num).getSecond();
@@ -1126,7 +1351,8 @@ public class Repartitioner {
 
     List<URI> fetchURLs = new ArrayList<URI>();
     if(includeParts) {
-      if (fetch.getType() == HASH_SHUFFLE || fetch.getType() == SCATTERED_HASH_SHUFFLE) {
+      if ((fetch.getType() == HASH_SHUFFLE || fetch.getType() == SCATTERED_HASH_SHUFFLE)
+          && !hasTaskOutputs(fetch)) {
         fetchURLs.add(URI.create(urlPrefix.toString()));
       } else {
         // If the get request is longer than 2000 characters,
@@ -1181,6 +1407,19 @@ public class Repartitioner {
     return fetchURLs;
   }
 
+  /**
+   * It returns true if a fetch has the outputs of individual tasks, which are written by sort-based hash shuffle
+   * writers. Otherwise, each partition has a single shuffle file per worker.
+   */
+  private static boolean hasTaskOutputs(FetchImpl fetch) {
+    for (int taskId : fetch.getTaskIds()) {
+      if (taskId >= 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   public static Map<Integer, List<IntermediateEntry>> hashByKey(List<IntermediateEntry> entries) {
     Map<Integer, List<IntermediateEntry>> hashed = new HashMap<Integer, List<IntermediateEntry>>();
     for (IntermediateEntry entry : entries) {
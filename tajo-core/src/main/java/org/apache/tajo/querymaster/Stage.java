@@ -310,6 +310,9 @@ public class Stage implements EventHandler<StageEvent> {
   private AtomicInteger completedShuffleTasks = new AtomicInteger(0);
   private AtomicBoolean stopShuffleReceiver = new AtomicBoolean();
   private StageHistory finalStageHistory;
+  /** the number of shuffle partitions fetched by this stage, and the input volumes of scheduled tasks */
+  private int numShufflePartitions;
+  private List<Long> scheduledTaskVolumes = Lists.newArrayList();
 
   public Stage(QueryMasterTask.QueryMasterTaskContext context, MasterPlan masterPlan, ExecutionBlock block) {
     this.context = context;
@@ -414,6 +417,19 @@ public class Stage implements EventHandler<StageEvent> {
     return totalScheduledObjectsCount;
   }
 
+  public void setScheduledTaskVolumes(int numShufflePartitions, Long [] taskVolumes) {
+    this.numShufflePartitions = numShufflePartitions;
+    this.scheduledTaskVolumes = Lists.newArrayList(taskVolumes);
+  }
+
+  public int getNumShufflePartitions() {
+    return numShufflePartitions;
+  }
+
+  public List<Long> getScheduledTaskVolumes() {
+    return scheduledTaskVolumes;
+  }
+
   public int getKilledObjectCount() {
     return killedObjectCount;
   }
@@ -470,16 +486,25 @@ public class Stage implements EventHandler<StageEvent> {
     stageHistory.setTotalScheduledObjectsCount(totalScheduledObjectsCount);
     stageHistory.setHostLocalAssigned(getTaskScheduler().getHostLocalAssigned());
     stageHistory.setRackLocalAssigned(getTaskScheduler().getRackLocalAssigned());
+    stageHistory.setRemoteAssigned(getTaskScheduler().getRemoteAssigned());
 
     long totalInputBytes = 0;
     long totalReadBytes = 0;
     long totalReadRows = 0;
     long totalWriteBytes = 0;
     long totalWriteRows = 0;
+    long totalSchedulingTime = 0;
+    long totalRunningTime = 0;
+    int numDoneAttempts = 0;
     int numShuffles = 0;
     for(Task eachTask : getTasks()) {
       numShuffles = eachTask.getShuffleOutpuNum();
       if (eachTask.getLastAttempt() != null) {
+        if (eachTask.getLastAttempt().getRunningTime() >= 0) {
+          totalSchedulingTime += eachTask.getLastAttempt().getSchedulingTime();
+          totalRunningTime += eachTask.getLastAttempt().getRunningTime();
+          numDoneAttempts++;
+        }
         TableStats inputStats = eachTask.getLastAttempt().getInputStats();
         if (inputStats != null) {
           totalInputBytes += inputStats.getNumBytes();
@@ -500,6 +525,12 @@ public class Stage implements EventHandler<StageEvent> {
     stageHistory.setTotalWriteBytes(totalWriteBytes);
     stageHistory.setTotalWriteRows(totalWriteRows);
     stageHistory.setNumShuffles(numShuffles);
+    stageHistory.setNumShufflePartitions(numShufflePartitions);
+    stageHistory.setScheduledTaskVolumes(scheduledTaskVolumes);
+    if (numDoneAttempts > 0) {
+      stageHistory.setAvgTaskSchedulingTime(totalSchedulingTime / numDoneAttempts);
+      stageHistory.setAvgTaskRunningTime(totalRunningTime / numDoneAttempts);
+    }
     stageHistory.setProgress(getProgress());
     return stageHistory;
   }
@@ -964,6 +995,12 @@ public class Stage implements EventHandler<StageEvent> {
           // determine the number of task
           int taskNum = (int) Math.ceil((double) volumeByMB /
               masterPlan.getContext().getInt(SessionVars.GROUPBY_PER_SHUFFLE_SIZE));
+
+          // The estimated volume may be far from the actual one. The shuffle is over-partitioned,
+          // and then adjacent small partitions are coalesced by their actual volumes in the next stage.
+          if (masterPlan.getContext().getBool(SessionVars.GROUPBY_ADAPTIVE_PARTITION_ENABLED)) {
+            taskNum = Math.max(1, taskNum) * masterPlan.getContext().getInt(SessionVars.GROUPBY_OVER_PARTITION_FACTOR);
+          }
           LOG.info(stage.getId() + ", The determined number of aggregation partitions is " + taskNum);
           return taskNum;
         }
@@ -1213,6 +1250,22 @@ public class Stage implements EventHandler<StageEvent> {
     }
   }
 
+  /**
+   * The outputs of sort-based hash shuffle writers are reported by each task rather than each worker.
+   * Only the outputs of the succeeded attempt of a task are added.
+   */
+  private void addSortShuffleIntermediateEntries(Task task) {
+    if (task.getIntermediateData() == null) {
+      return;
+    }
+    for (IntermediateEntry eachInterm : task.getIntermediateData()) {
+      if (eachInterm.getPages() != null && !eachInterm.getPages().isEmpty()) {
+        eachInterm.setEbId(getId());
+        hashShuffleIntermediateEntries.add(eachInterm);
+      }
+    }
+  }
+
   private static class TaskCompletedTransition implements SingleArcTransition<Stage, StageEvent> {
 
     @Override
@@ -1232,6 +1285,7 @@ public class Stage implements EventHandler<StageEvent> {
 
         if (taskEvent.getState() == TaskState.SUCCEEDED) {
           stage.succeededObjectCount++;
+          stage.addSortShuffleIntermediateEntries(task);
         } else if (task.getState() == TaskState.KILLED) {
           stage.killedObjectCount++;
         } else if (task.getState() == TaskState.FAILED) {
@@ -93,6 +93,10 @@ public class Task implements EventHandler<TaskEvent> {
   private int failedAttempts;
   private int finishedAttempts; // finish are total of success, failed and killed
 
+  // whether a speculative attempt has been launched, and the first finished attempt whose outputs are used
+  private boolean speculated;
+  private TaskAttemptId committedAttempt;
+
   private long launchTime;
   private long finishTime;
 
@@ -121,6 +125,9 @@ public class Task implements EventHandler<TaskEvent> {
           .addTransition(TaskState.SCHEDULED, TaskState.KILL_WAIT,
               TaskEventType.T_KILL,
               new KillTaskTransition())
+          // Ignore-able transitions
+          .addTransition(TaskState.SCHEDULED, TaskState.SCHEDULED,
+              TaskEventType.T_SPECULATE)
 
           // Transitions from RUNNING state
           .addTransition(TaskState.RUNNING, TaskState.RUNNING,
@@ -135,6 +142,9 @@ public class Task implements EventHandler<TaskEvent> {
               EnumSet.of(TaskState.RUNNING, TaskState.FAILED),
               TaskEventType.T_ATTEMPT_FAILED,
               new AttemptFailedOrRetryTransition())
+          .addTransition(TaskState.RUNNING, TaskState.RUNNING,
+              TaskEventType.T_SPECULATE,
+              new SpeculateTransition())
 
           // Transitions from KILL_WAIT state
           .addTransition(TaskState.KILL_WAIT, TaskState.KILLED,
@@ -153,19 +163,22 @@ public class Task implements EventHandler<TaskEvent> {
           .addTransition(TaskState.KILL_WAIT, TaskState.KILL_WAIT,
               EnumSet.of(
                   TaskEventType.T_KILL,
-                  TaskEventType.T_SCHEDULE))
+                  TaskEventType.T_SCHEDULE,
+                  TaskEventType.T_SPECULATE))
 
           // Transitions from SUCCEEDED state
           // Ignore-able transitions
           .addTransition(TaskState.SUCCEEDED, TaskState.SUCCEEDED,
               EnumSet.of(TaskEventType.T_KILL,
-                  TaskEventType.T_ATTEMPT_KILLED, TaskEventType.T_ATTEMPT_SUCCEEDED, TaskEventType.T_ATTEMPT_FAILED))
+                  TaskEventType.T_ATTEMPT_KILLED, TaskEventType.T_ATTEMPT_SUCCEEDED, TaskEventType.T_ATTEMPT_FAILED,
+                  TaskEventType.T_ATTEMPT_LAUNCHED, TaskEventType.T_SPECULATE))
 
           // Transitions from FAILED state
           // Ignore-able transitions
           .addTransition(TaskState.FAILED, TaskState.FAILED,
               EnumSet.of(TaskEventType.T_KILL,
-                  TaskEventType.T_ATTEMPT_KILLED, TaskEventType.T_ATTEMPT_SUCCEEDED, TaskEventType.T_ATTEMPT_FAILED))
+                  TaskEventType.T_ATTEMPT_KILLED, TaskEventType.T_ATTEMPT_SUCCEEDED, TaskEventType.T_ATTEMPT_FAILED,
+                  TaskEventType.T_ATTEMPT_LAUNCHED, TaskEventType.T_SPECULATE))
 
           // Transitions from KILLED state
           .addTransition(TaskState.KILLED, TaskState.KILLED, TaskEventType.T_ATTEMPT_KILLED, new KillTaskTransition())
@@ -175,7 +188,9 @@ public class Task implements EventHandler<TaskEvent> {
                   TaskEventType.T_KILL,
                   TaskEventType.T_SCHEDULE,
                   TaskEventType.T_ATTEMPT_SUCCEEDED,
-                  TaskEventType.T_ATTEMPT_FAILED))
+                  TaskEventType.T_ATTEMPT_FAILED,
+                  TaskEventType.T_ATTEMPT_LAUNCHED,
+                  TaskEventType.T_SPECULATE))
 
           .installTopology();
 
@@ -491,6 +506,71 @@ public class Task implements EventHandler<TaskEvent> {
     return this.nextAttempt;
   }
 
+  /**
+   * @return true if a speculative attempt has been launched for this task
+   */
+  public boolean isSpeculated() {
+    readLock.lock();
+    try {
+      return speculated;
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * @return true if any attempt of this task has been assigned to the given host
+   */
+  public boolean hasAttemptOn(String host) {
+    readLock.lock();
+    try {
+      for (TaskAttempt attempt : attempts.values()) {
+        if (attempt.getWorkerConnectionInfo() != null && host.equals(attempt.getWorkerConnectionInfo().getHost())) {
+          return true;
+        }
+      }
+      return false;
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * If attempts of this task are speculated, only the first finished attempt sets the outputs of this task.
+   *
+   * @return true if the given attempt is the first finished attempt
+   */
+  synchronized boolean commitAttempt(TaskAttemptId attemptId) {
+    if (committedAttempt == null) {
+      committedAttempt = attemptId;
+    }
+    return committedAttempt.equals(attemptId);
+  }
+
+  private static boolean isFinished(TaskAttemptState state) {
+    return state == TaskAttemptState.TA_SUCCEEDED || state == TaskAttemptState.TA_FAILED
+        || state == TaskAttemptState.TA_KILLED;
+  }
+
+  // This is always called in the Write Lock
+  private boolean hasUnfinishedAttempt(TaskAttemptId except) {
+    for (TaskAttempt attempt : attempts.values()) {
+      if (!attempt.getId().equals(except) && !isFinished(attempt.getState())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // This is always called in the Write Lock
+  private void killUnfinishedAttempts(TaskAttemptId except) {
+    for (TaskAttempt attempt : attempts.values()) {
+      if (!attempt.getId().equals(except) && !isFinished(attempt.getState())) {
+        eventHandler.handle(new TaskAttemptEvent(attempt.getId(), TaskAttemptEventType.TA_KILL));
+      }
+    }
+  }
+
   public int getTotalFragmentNum() {
     return totalFragmentNum;
   }
@@ -500,7 +580,19 @@ public class Task implements EventHandler<TaskEvent> {
 
     @Override
     public void transition(Task task, TaskEvent taskEvent) {
-      task.addAndScheduleAttempt();
+      task.addAndScheduleAttempt(false);
+    }
+  }
+
+  private static class SpeculateTransition implements SingleArcTransition<Task, TaskEvent> {
+
+    @Override
+    public void transition(Task task, TaskEvent taskEvent) {
+      if (!task.speculated && task.successfulAttempt == null) {
+        LOG.info("Speculative attempt is launched for a straggler task: " + task.getId());
+        task.speculated = true;
+        task.addAndScheduleAttempt(true);
+      }
     }
   }
 
@@ -531,9 +623,10 @@ public class Task implements EventHandler<TaskEvent> {
   }
 
   // This is always called in the Write Lock
-  private void addAndScheduleAttempt() {
+  private void addAndScheduleAttempt(boolean speculative) {
     // Create new task attempt
     TaskAttempt attempt = newAttempt();
+    attempt.setSpeculative(speculative);
     if (LOG.isDebugEnabled()) {
       LOG.debug("Created attempt " + attempt.getId());
     }
@@ -583,6 +676,7 @@ public class Task implements EventHandler<TaskEvent> {
     public void transition(Task task, TaskEvent taskEvent) {
       task.finishTask();
       task.eventHandler.handle(new TaskAttemptEvent(task.lastAttemptId, TaskAttemptEventType.TA_KILL));
+      task.killUnfinishedAttempts(task.lastAttemptId);
     }
   }
 
@@ -608,9 +702,12 @@ public class Task implements EventHandler<TaskEvent> {
       TaskAttempt attempt = task.attempts.get(attemptEvent.getTaskAttemptId());
 
       task.successfulAttempt = attemptEvent.getTaskAttemptId();
+      task.lastAttemptId = attemptEvent.getTaskAttemptId();
       task.succeededHost = attempt.getWorkerConnectionInfo().getHost();
       task.succeededHostPort = attempt.getWorkerConnectionInfo().getPeerRpcPort();
       task.succeededPullServerPort = attempt.getWorkerConnectionInfo().getPullServerPort();
+      // the other attempt of a speculated task is killed
+      task.killUnfinishedAttempts(task.successfulAttempt);
 
       task.finishTask();
       task.eventHandler.handle(new StageTaskEvent(event.getTaskId(), TaskState.SUCCEEDED));
@@ -661,6 +758,12 @@ public class Task implements EventHandler<TaskEvent> {
       TaskTAttemptEvent attemptEvent = (TaskTAttemptEvent) taskEvent;
       task.failedAttempts++;
       task.finishedAttempts++;
+
+      if (task.hasUnfinishedAttempt(attemptEvent.getTaskAttemptId())) {
+        // the other attempt of a speculated task is still running.
+        LOG.info(attemptEvent.getTaskAttemptId() + " is failed, but another attempt of the task is running");
+        return task.getState();
+      }
       boolean retry = task.failedAttempts < task.maxAttempts;
 
       LOG.info("====================================================================================");
@@ -670,7 +773,7 @@ public class Task implements EventHandler<TaskEvent> {
 
       if (retry) {
         if (task.successfulAttempt == null) {
-          task.addAndScheduleAttempt();
+          task.addAndScheduleAttempt(false);
         }
       } else {
         task.finishTask();
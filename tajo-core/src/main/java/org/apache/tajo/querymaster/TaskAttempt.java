@@ -27,6 +27,7 @@ import org.apache.tajo.TaskAttemptId;
 import org.apache.tajo.TajoProtos.TaskAttemptState;
 import org.apache.tajo.catalog.proto.CatalogProtos;
 import org.apache.tajo.catalog.statistics.TableStats;
+import org.apache.tajo.ipc.TajoWorkerProtocol.IntermediateEntryProto;
 import org.apache.tajo.ipc.TajoWorkerProtocol.TaskCompletionReport;
 import org.apache.tajo.master.cluster.WorkerConnectionInfo;
 import org.apache.tajo.master.event.*;
@@ -35,6 +36,7 @@ import org.apache.tajo.master.event.TaskSchedulerEvent.EventType;
 import org.apache.tajo.querymaster.Task.IntermediateEntry;
 import org.apache.tajo.querymaster.Task.PullHost;
 import org.apache.tajo.master.container.TajoContainerId;
+import org.apache.tajo.util.Pair;
 
 import java.util.ArrayList;
 import java.util.EnumSet;
@@ -70,6 +72,16 @@ public class TaskAttempt implements EventHandler<TaskAttemptEvent> {
   private CatalogProtos.TableStatsProto inputStats;
   private CatalogProtos.TableStatsProto resultStats;
 
+  // the time when it is given to the scheduler, the time when it is done, and its running time in a worker
+  private long scheduledTime;
+  private long doneTime;
+  private long runningTime;
+  // the time when the first status of this attempt is reported from a worker
+  private long startTime;
+
+  // whether this attempt is a speculative copy of a running attempt of the same task
+  private boolean speculative;
+
   protected static final StateMachineFactory
       <TaskAttempt, TaskAttemptState, TaskAttemptEventType, TaskAttemptEvent>
       stateMachineFactory = new StateMachineFactory
@@ -206,6 +218,14 @@ public class TaskAttempt implements EventHandler<TaskAttemptEvent> {
     return this.task.isLeafTask();
   }
 
+  public boolean isSpeculative() {
+    return speculative;
+  }
+
+  void setSpeculative(boolean speculative) {
+    this.speculative = speculative;
+  }
+
   public Task getTask() {
     return this.task;
   }
@@ -238,6 +258,13 @@ public class TaskAttempt implements EventHandler<TaskAttemptEvent> {
     return progress;
   }
 
+  /**
+   * @return the time when the first status of this attempt is reported from a worker, or 0 if not reported yet
+   */
+  public long getStartTime() {
+    return startTime;
+  }
+
   public TableStats getInputStats() {
     if (inputStats == null) {
       return null;
@@ -246,6 +273,24 @@ public class TaskAttempt implements EventHandler<TaskAttemptEvent> {
     return new TableStats(inputStats);
   }
 
+  /**
+   * @return the elapsed time (ms) except the running time in a worker, that is, the time spent in scheduling,
+   * in queues and in reporting. It returns -1 if this attempt is not done.
+   */
+  public long getSchedulingTime() {
+    if (doneTime == 0 || scheduledTime == 0) {
+      return -1;
+    }
+    return Math.max(0, doneTime - scheduledTime - runningTime);
+  }
+
+  /**
+   * @return the running time (ms) in a worker. It returns -1 if this attempt is not done.
+   */
+  public long getRunningTime() {
+    return doneTime == 0 ? -1 : runningTime;
+  }
+
   public TableStats getResultStats() {
     if (resultStats == null) {
       return null;
@@ -265,6 +310,13 @@ public class TaskAttempt implements EventHandler<TaskAttemptEvent> {
       for (ShuffleFileOutput p : report.getShuffleFileOutputsList()) {
         IntermediateEntry entry = new IntermediateEntry(getId().getTaskId().getId(),
             getId().getId(), p.getPartId(), host, p.getVolume());
+        if (p.getPagesCount() > 0) { // written by a sort-based hash shuffle writer
+          List<Pair<Long, Integer>> pages = new ArrayList<Pair<Long, Integer>>(p.getPagesCount());
+          for (IntermediateEntryProto.PageProto eachPage : p.getPagesList()) {
+            pages.add(new Pair<Long, Integer>(eachPage.getPos(), eachPage.getLength()));
+          }
+          entry.setPages(pages);
+        }
         partitions.add(entry);
       }
     }
@@ -273,6 +325,8 @@ public class TaskAttempt implements EventHandler<TaskAttemptEvent> {
     if (report.hasInputStats()) {
       this.inputStats = report.getInputStats();
     }
+    this.runningTime = report.getRunningTime();
+    this.doneTime = System.currentTimeMillis();
     if (report.hasResultStats()) {
       this.resultStats = report.getResultStats();
       this.getTask().setStats(new TableStats(resultStats));
@@ -284,6 +338,7 @@ public class TaskAttempt implements EventHandler<TaskAttemptEvent> {
 
     @Override
     public void transition(TaskAttempt taskAttempt, TaskAttemptEvent taskAttemptEvent) {
+      taskAttempt.scheduledTime = System.currentTimeMillis();
       taskAttempt.eventHandler.handle(new TaskAttemptToSchedulerEvent(
           EventType.T_SCHEDULE, taskAttempt.getTask().getId().getExecutionBlockId(),
           taskAttempt.scheduleContext, taskAttempt));
@@ -341,6 +396,9 @@ public class TaskAttempt implements EventHandler<TaskAttemptEvent> {
       }
       TaskAttemptStatusUpdateEvent updateEvent = (TaskAttemptStatusUpdateEvent) event;
 
+      if (taskAttempt.startTime == 0) {
+        taskAttempt.startTime = System.currentTimeMillis();
+      }
       taskAttempt.progress = updateEvent.getStatus().getProgress();
       taskAttempt.inputStats = updateEvent.getStatus().getInputStats();
       taskAttempt.resultStats = updateEvent.getStatus().getResultStats();
@@ -383,7 +441,13 @@ public class TaskAttempt implements EventHandler<TaskAttemptEvent> {
       TaskCompletionReport report = ((TaskCompletionEvent)event).getReport();
 
       try {
-        taskAttempt.fillTaskStatistics(report);
+        if (taskAttempt.getTask().commitAttempt(taskAttempt.getId())) {
+          taskAttempt.fillTaskStatistics(report);
+        } else {
+          // another attempt of a speculated task has already finished, and its outputs are used.
+          LOG.info(taskAttempt.getId() + " is done, but another attempt has already finished");
+          taskAttempt.progress = 1.0f;
+        }
         taskAttempt.eventHandler.handle(new TaskTAttemptEvent(taskAttempt.getId(), TaskEventType.T_ATTEMPT_SUCCEEDED));
       } catch (Throwable t) {
         taskAttempt.eventHandler.handle(new TaskFatalErrorEvent(taskAttempt.getId(), t.getMessage()));
@@ -0,0 +1,177 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.querymaster;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.apache.tajo.ExecutionBlockId;
+import org.apache.tajo.SessionVars;
+import org.apache.tajo.TaskId;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.apache.tajo.engine.planner.global.DataChannel;
+import org.apache.tajo.engine.planner.global.MasterPlan;
+import org.apache.tajo.engine.query.QueryContext;
+import org.apache.tajo.master.TaskState;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import static org.apache.tajo.catalog.proto.CatalogProtos.StoreType;
+import static org.apache.tajo.plan.serder.PlanProto.ShuffleType;
+
+/**
+ * It finds straggler tasks of a stage, for which speculative attempts are launched on other workers.
+ *
+ * The progress rate of a running task is its progress divided by the time elapsed since its first status report,
+ * and the progress rate of a succeeded task is 1 divided by its running time. A running task is a straggler if
+ * its progress rate is lower than the given ratio of the median rate of the stage. Stragglers are speculated in
+ * descending order of their estimated remaining times, and the number of speculated tasks of a stage is limited
+ * to the given fraction of all tasks.
+ */
+public class TaskSpeculator {
+  private final float slowTaskRatio;
+  private final float maxFraction;
+  private final long minRuntime;
+
+  private final Set<TaskId> speculatedTasks = Sets.newHashSet();
+
+  public TaskSpeculator(TajoConf conf) {
+    this(conf.getFloatVar(ConfVars.TASK_SPECULATIVE_SLOW_TASK_RATIO),
+        conf.getFloatVar(ConfVars.TASK_SPECULATIVE_MAX_FRACTION),
+        conf.getLongVar(ConfVars.TASK_SPECULATIVE_MIN_RUNTIME));
+  }
+
+  public TaskSpeculator(float slowTaskRatio, float maxFraction, long minRuntime) {
+    this.slowTaskRatio = slowTaskRatio;
+    this.maxFraction = maxFraction;
+    this.minRuntime = minRuntime;
+  }
+
+  /**
+   * The attempts of a speculated task run at the same time, so only a stage whose outputs are isolated per attempt
+   * can be speculated. The sort-based hash shuffle writer stores the outputs of each attempt in its own directory,
+   * and only the outputs of the committed attempt are fetched. On the other hand, the outputs of hash shuffle
+   * appenders and the final results of a query are shared by all attempts, so they would be duplicated.
+   *
+   * @return true if the tasks of the given execution block can be speculated
+   */
+  public static boolean isSpeculatable(MasterPlan masterPlan, ExecutionBlockId ebId, QueryContext queryContext) {
+    List<DataChannel> channels = masterPlan.getOutgoingChannels(ebId);
+    if (channels == null || channels.isEmpty()) {
+      return false;
+    }
+
+    DataChannel channel = channels.get(0);
+    if (masterPlan.isTerminal(masterPlan.getExecBlock(channel.getTargetId()))) {
+      return false;
+    }
+    return (channel.getShuffleType() == ShuffleType.HASH_SHUFFLE
+        || channel.getShuffleType() == ShuffleType.SCATTERED_HASH_SHUFFLE)
+        && channel.getStoreType() == StoreType.RAW
+        && queryContext.getBool(SessionVars.SORT_SHUFFLE_WRITER_ENABLED);
+  }
+
+  /**
+   * @return the straggler tasks to be speculated. A task is returned only once.
+   */
+  public synchronized List<Task> findStragglers(Task[] tasks, long now) {
+    int maxStragglers = (int) Math.ceil(tasks.length * maxFraction) - speculatedTasks.size();
+    if (maxStragglers <= 0) {
+      return Collections.emptyList();
+    }
+
+    List<Double> succeededRates = Lists.newArrayList();
+    List<Task> runningTasks = Lists.newArrayList();
+    List<Float> progresses = Lists.newArrayList();
+    List<Long> elapsedTimes = Lists.newArrayList();
+
+    for (Task task : tasks) {
+      TaskState state = task.getState();
+      if (state == TaskState.SUCCEEDED) {
+        TaskAttempt attempt = task.getSuccessfulAttempt();
+        if (attempt != null && attempt.getRunningTime() > 0) {
+          succeededRates.add(1.0d / attempt.getRunningTime());
+        }
+      } else if (state == TaskState.RUNNING && !task.isSpeculated()) {
+        TaskAttempt attempt = task.getLastAttempt();
+        if (attempt != null && attempt.getStartTime() > 0 && now > attempt.getStartTime()) {
+          runningTasks.add(task);
+          progresses.add(attempt.getProgress());
+          elapsedTimes.add(now - attempt.getStartTime());
+        }
+      }
+    }
+
+    List<Task> stragglers = Lists.newArrayList();
+    for (int index : selectStragglers(succeededRates, progresses, elapsedTimes, maxStragglers)) {
+      Task task = runningTasks.get(index);
+      speculatedTasks.add(task.getId());
+      stragglers.add(task);
+    }
+    return stragglers;
+  }
+
+  /**
+   * @param succeededRates The progress rates of succeeded tasks
+   * @param progresses The progresses of running tasks
+   * @param elapsedTimes The elapsed times of running tasks
+   * @param maxStragglers The maximum number of stragglers to be returned
+   * @return The indexes of straggler tasks among the running tasks,
+   * in descending order of their estimated remaining times
+   */
+  @VisibleForTesting
+  List<Integer> selectStragglers(List<Double> succeededRates, List<Float> progresses, List<Long> elapsedTimes,
+                                 int maxStragglers) {
+    // the progress rates of running tasks are not reliable until some tasks succeed.
+    if (succeededRates.isEmpty() || progresses.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    final double [] runningRates = new double[progresses.size()];
+    List<Double> rates = Lists.newArrayList(succeededRates);
+    for (int i = 0; i < runningRates.length; i++) {
+      runningRates[i] = progresses.get(i) / elapsedTimes.get(i);
+      rates.add(runningRates[i]);
+    }
+    Collections.sort(rates);
+    double medianRate = rates.get(rates.size() / 2);
+
+    List<Integer> stragglers = Lists.newArrayList();
+    final double [] remainingTimes = new double[runningRates.length];
+    for (int i = 0; i < runningRates.length; i++) {
+      if (elapsedTimes.get(i) >= minRuntime && runningRates[i] < medianRate * slowTaskRatio) {
+        remainingTimes[i] = runningRates[i] > 0 ? (1.0d - progresses.get(i)) / runningRates[i] : Double.MAX_VALUE;
+        stragglers.add(i);
+      }
+    }
+
+    Collections.sort(stragglers, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer o1, Integer o2) {
+        // descending remaining times
+        return Double.compare(remainingTimes[o2], remainingTimes[o1]);
+      }
+    });
+    return stragglers.size() > maxStragglers ? stragglers.subList(0, maxStragglers) : stragglers;
+  }
+}
@@ -350,6 +350,18 @@ public class JSPUtil {
     result += ", ReadBytes: " + FileUtil.humanReadableByteCount(tableStats.getReadBytes(), false) + " ("
         + tableStats.getReadBytes() + " B)";
     result += ", ReadRows: " + (tableStats.getNumRows() == 0 ? "-" : tableStats.getNumRows());
+    if (tableStats.getMemoryBytes() > 0) {
+      result += ", Memory: " + FileUtil.humanReadableByteCount(tableStats.getMemoryBytes(), false) + " ("
+          + tableStats.getMemoryBytes() + " B)";
+    }
+    if (tableStats.getNumSpills() > 0) {
+      result += ", Spills: " + tableStats.getNumSpills() + " ("
+          + FileUtil.humanReadableByteCount(tableStats.getSpilledBytes(), false) + ")";
+    }
+    if (tableStats.getNumSkippedBlocks() > 0) {
+      result += ", SkippedBlocks: " + tableStats.getNumSkippedBlocks() + " ("
+          + FileUtil.humanReadableByteCount(tableStats.getSkippedBytes(), false) + ")";
+    }
 
     return result;
   }
@@ -58,6 +58,14 @@ public class StageHistory implements GsonObject {
   @Expose
   private int numShuffles;
   @Expose
+  private int numShufflePartitions;
+  @Expose
+  private List<Long> scheduledTaskVolumes;
+  @Expose
+  private long avgTaskSchedulingTime;
+  @Expose
+  private long avgTaskRunningTime;
+  @Expose
   private float progress;
 
   @Expose
@@ -66,6 +74,8 @@ public class StageHistory implements GsonObject {
   private int hostLocalAssigned;
   @Expose
   private int rackLocalAssigned;
+  @Expose
+  private int remoteAssigned;
 
   private List<TaskHistory> tasks;
 
@@ -165,6 +175,44 @@ public class StageHistory implements GsonObject {
     this.numShuffles = numShuffles;
   }
 
+  public int getNumShufflePartitions() {
+    return numShufflePartitions;
+  }
+
+  public void setNumShufflePartitions(int numShufflePartitions) {
+    this.numShufflePartitions = numShufflePartitions;
+  }
+
+  public List<Long> getScheduledTaskVolumes() {
+    return scheduledTaskVolumes;
+  }
+
+  public void setScheduledTaskVolumes(List<Long> scheduledTaskVolumes) {
+    this.scheduledTaskVolumes = scheduledTaskVolumes;
+  }
+
+  /**
+   * @return the average time (ms) of tasks spent in scheduling, in queues and in reporting
+   */
+  public long getAvgTaskSchedulingTime() {
+    return avgTaskSchedulingTime;
+  }
+
+  public void setAvgTaskSchedulingTime(long avgTaskSchedulingTime) {
+    this.avgTaskSchedulingTime = avgTaskSchedulingTime;
+  }
+
+  /**
+   * @return the average running time (ms) of tasks in workers
+   */
+  public long getAvgTaskRunningTime() {
+    return avgTaskRunningTime;
+  }
+
+  public void setAvgTaskRunningTime(long avgTaskRunningTime) {
+    this.avgTaskRunningTime = avgTaskRunningTime;
+  }
+
   public float getProgress() {
     return progress;
   }
@@ -197,6 +245,14 @@ public class StageHistory implements GsonObject {
     this.rackLocalAssigned = rackLocalAssigned;
   }
 
+  public int getRemoteAssigned() {
+    return remoteAssigned;
+  }
+
+  public void setRemoteAssigned(int remoteAssigned) {
+    this.remoteAssigned = remoteAssigned;
+  }
+
   public int getFailedObjectCount() {
     return failedObjectCount;
   }
@@ -263,7 +319,15 @@ public class StageHistory implements GsonObject {
 
       .setPlan(plan)
       .setHostLocalAssigned(hostLocalAssigned)
-      .setRackLocalAssigned(rackLocalAssigned);
+      .setRackLocalAssigned(rackLocalAssigned)
+      .setRemoteAssigned(remoteAssigned)
+
+      .setNumShufflePartitions(numShufflePartitions)
+      .setAvgTaskSchedulingTime(avgTaskSchedulingTime)
+      .setAvgTaskRunningTime(avgTaskRunningTime);
+    if (scheduledTaskVolumes != null) {
+      builder.addAllScheduledTaskVolumes(scheduledTaskVolumes);
+    }
 
     return builder.build();
   }
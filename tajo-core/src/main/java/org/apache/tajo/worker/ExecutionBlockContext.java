@@ -114,7 +114,8 @@ public class ExecutionBlockContext {
     this.queryEngine = new TajoQueryEngine(systemConf);
     this.queryContext = queryContext;
     this.plan = plan;
-    this.resource = new ExecutionBlockSharedResource();
+    this.resource = new ExecutionBlockSharedResource(
+        workerContext != null ? workerContext.getCompiledEvalCache() : null);
     this.workerContext = workerContext;
   }
 
@@ -253,6 +254,10 @@ public class ExecutionBlockContext {
     return manager.getTaskRunner(taskRunnerId);
   }
 
+  public TaskRunnerManager getTaskRunnerManager() {
+    return manager;
+  }
+
   public void addTaskHistory(String taskRunnerId, TaskAttemptId quAttemptId, TaskHistory taskHistory) {
     histories.get(taskRunnerId).addTaskHistory(quAttemptId, taskHistory);
   }
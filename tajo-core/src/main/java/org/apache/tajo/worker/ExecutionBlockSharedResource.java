@@ -23,6 +23,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.tajo.SessionVars;
 import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.engine.codegen.CompiledEvalCache;
 import org.apache.tajo.engine.codegen.ExecutorPreCompiler;
 import org.apache.tajo.engine.codegen.TajoClassLoader;
 import org.apache.tajo.engine.json.CoreGsonHelper;
@@ -43,11 +44,21 @@ public class ExecutionBlockSharedResource {
   private QueryContext context;
 
   // Resources
+  /** a worker-level cache of compiled expressions. If it is null, expressions are compiled for each block. */
+  private final CompiledEvalCache compiledEvalCache;
   private TajoClassLoader classLoader;
   private ExecutorPreCompiler.CompilationContext compilationContext;
   private LogicalNode plan;
   private boolean codeGenEnabled = false;
 
+  public ExecutionBlockSharedResource() {
+    this(null);
+  }
+
+  public ExecutionBlockSharedResource(CompiledEvalCache compiledEvalCache) {
+    this.compiledEvalCache = compiledEvalCache;
+  }
+
   public void initialize(final QueryContext context, final String planJson) {
 
     if (!initializing.getAndSet(true)) {
@@ -74,8 +85,12 @@ public class ExecutionBlockSharedResource {
   private void initCodeGeneration() throws PlanningException {
     if (context.getBool(SessionVars.CODEGEN)) {
       codeGenEnabled = true;
-      classLoader = new TajoClassLoader();
-      compilationContext = new ExecutorPreCompiler.CompilationContext(classLoader);
+      if (compiledEvalCache != null) {
+        compilationContext = new ExecutorPreCompiler.CompilationContext(compiledEvalCache);
+      } else {
+        classLoader = new TajoClassLoader();
+        compilationContext = new ExecutorPreCompiler.CompilationContext(classLoader);
+      }
       ExecutorPreCompiler.compile(compilationContext, plan);
     }
   }
@@ -85,7 +100,7 @@ public class ExecutionBlockSharedResource {
   }
 
   public EvalNode compileEval(Schema schema, EvalNode eval) {
-    return compilationContext.getCompiler().compile(schema, eval);
+    return compilationContext.compile(schema, eval);
   }
 
   public EvalNode getPreCompiledEval(Schema schema, EvalNode eval) {
@@ -0,0 +1,130 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.tajo.worker;
+
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.unit.StorageUnit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The memory budget of a task to keep fetched partitions in memory. The fetchers of a task reserve memory
+ * from the budget before they buffer data, and they write data to disk if the budget is exhausted.
+ * A task budget also reserves the same memory from the worker-wide budget, which bounds the fetched partitions
+ * kept in memory by all tasks of a worker.
+ *
+ * It also keeps the worker-wide statistics of fetched bytes in memory and on disk.
+ */
+public class FetchMemoryBudget {
+  // worker-wide statistics
+  private static final AtomicLong inMemoryBytes = new AtomicLong();
+  private static final AtomicLong onDiskBytes = new AtomicLong();
+  private static final AtomicLong spills = new AtomicLong();
+
+  private static volatile FetchMemoryBudget workerBudget;
+
+  private final long limit;
+  private final AtomicLong reserved = new AtomicLong();
+  private final FetchMemoryBudget parent;
+
+  public FetchMemoryBudget(long limit) {
+    this(limit, null);
+  }
+
+  public FetchMemoryBudget(long limit, FetchMemoryBudget parent) {
+    this.limit = limit;
+    this.parent = parent;
+  }
+
+  /**
+   * @return the worker-wide budget, which is limited by {@link TajoConf.ConfVars#SHUFFLE_FETCHER_WORKER_MEMORY_LIMIT}
+   */
+  public static FetchMemoryBudget getWorkerBudget(TajoConf conf) {
+    if (workerBudget == null) {
+      synchronized (FetchMemoryBudget.class) {
+        if (workerBudget == null) {
+          workerBudget = new FetchMemoryBudget(
+              (long) conf.getIntVar(TajoConf.ConfVars.SHUFFLE_FETCHER_WORKER_MEMORY_LIMIT) * StorageUnit.MB);
+        }
+      }
+    }
+    return workerBudget;
+  }
+
+  /**
+   * @return true if the given bytes are reserved from this budget and its parent
+   */
+  public boolean tryReserve(long bytes) {
+    if (parent != null && !parent.tryReserve(bytes)) {
+      return false;
+    }
+    while (true) {
+      long current = reserved.get();
+      if (current + bytes > limit) {
+        if (parent != null) {
+          parent.release(bytes);
+        }
+        return false;
+      }
+      if (reserved.compareAndSet(current, current + bytes)) {
+        return true;
+      }
+    }
+  }
+
+  public void release(long bytes) {
+    reserved.addAndGet(-bytes);
+    if (parent != null) {
+      parent.release(bytes);
+    }
+  }
+
+  public long getReserved() {
+    return reserved.get();
+  }
+
+  public long getLimit() {
+    return limit;
+  }
+
+  static void addInMemoryBytes(long bytes) {
+    inMemoryBytes.addAndGet(bytes);
+  }
+
+  static void addOnDiskBytes(long bytes) {
+    onDiskBytes.addAndGet(bytes);
+  }
+
+  static void incrementSpills() {
+    spills.incrementAndGet();
+  }
+
+  public static long getInMemoryBytes() {
+    return inMemoryBytes.get();
+  }
+
+  public static long getOnDiskBytes() {
+    return onDiskBytes.get();
+  }
+
+  public static long getSpills() {
+    return spills.get();
+  }
+}
@@ -18,20 +18,28 @@
 
 package org.apache.tajo.worker;
 
+import com.google.common.collect.Lists;
 import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.*;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IOUtils;
 import org.apache.tajo.TajoProtos;
 import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.pullserver.BatchFetchFormat;
 import org.apache.tajo.pullserver.retriever.FileChunk;
 import org.apache.tajo.rpc.RpcChannelFactory;
+import org.apache.tajo.storage.BufferPool;
+import org.apache.tajo.storage.MemoryFileStore;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpClientCodec;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpContentDecompressor;
@@ -44,20 +52,25 @@ import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.timeout.ReadTimeoutException;
 import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.util.CharsetUtil;
 import io.netty.util.ReferenceCountUtil;
 
-import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Fetcher fetches data from a given uri via HTTP protocol and stores them into
  * a specific file. It aims at asynchronous and efficient data transmit.
+ *
+ * A fetcher can also fetch the data of many uris of the same pull server at once. In this case, the requests are
+ * sent in a few batches over a single keep-alive connection, and each response is demultiplexed into the files
+ * of the requests. See {@link BatchFetchFormat}.
  */
 public class Fetcher {
 
@@ -67,6 +80,19 @@ public class Fetcher {
   private final FileChunk fileChunk;
   private final TajoConf conf;
 
+  /** the uris and the target chunks of a batched fetch. They are null for a single fetch. */
+  private final List<URI> batchUris;
+  private final List<FileChunk> batchChunks;
+  /** the end indexes (exclusive) of batches */
+  private final List<Integer> batchEnds;
+  /** the number of batches which have been completely fetched. They are skipped on retries. */
+  private int fetchedBatches;
+
+  /** the memory budget of the task. If it is null, all fetched data are written to files. */
+  private FetchMemoryBudget memoryBudget;
+  /** the chunks kept in {@link MemoryFileStore} instead of their files */
+  private final List<FileChunk> memoryChunks = Lists.newArrayList();
+
   private final String host;
   private int port;
   private final boolean useLocalFile;
@@ -80,11 +106,26 @@ public class Fetcher {
   private Bootstrap bootstrap;
 
   public Fetcher(TajoConf conf, URI uri, FileChunk chunk) {
+    this(conf, uri, chunk, null, null);
+  }
+
+  /**
+   * It creates a fetcher which fetches all the given uris of the same pull server over a single connection.
+   */
+  public Fetcher(TajoConf conf, List<URI> uris, List<FileChunk> chunks) {
+    this(conf, uris.get(0), chunks.get(0), uris, chunks);
+  }
+
+  private Fetcher(TajoConf conf, URI uri, FileChunk chunk, List<URI> batchUris, List<FileChunk> batchChunks) {
     this.uri = uri;
     this.fileChunk = chunk;
     this.useLocalFile = !chunk.fromRemote();
     this.state = TajoProtos.FetcherState.FETCH_INIT;
     this.conf = conf;
+    this.batchUris = batchUris;
+    this.batchChunks = batchChunks;
+    this.batchEnds = batchUris == null ? null : splitBatches(batchUris,
+        conf.getIntVar(TajoConf.ConfVars.SHUFFLE_FETCHER_BATCH_MAX_REQUESTS));
 
     String scheme = uri.getScheme() == null ? "http" : uri.getScheme();
     this.host = uri.getHost() == null ? "localhost" : uri.getHost();
@@ -108,11 +149,57 @@ public class Fetcher {
         .option(ChannelOption.SO_RCVBUF, 1048576) // set 1M
         .option(ChannelOption.TCP_NODELAY, true);
 
-      ChannelInitializer<Channel> initializer = new HttpClientChannelInitializer(fileChunk.getFile());
+      ChannelInitializer<Channel> initializer = new HttpClientChannelInitializer(isBatch());
       bootstrap.handler(initializer);
     }
   }
 
+  /**
+   * It splits the requests into batches, each of which is bounded by the number of requests
+   * and the length of a request body.
+   */
+  private static List<Integer> splitBatches(List<URI> uris, int maxRequests) {
+    List<Integer> ends = Lists.newArrayList();
+    int numRequests = 0;
+    int bodyLength = 0;
+    for (int i = 0; i < uris.size(); i++) {
+      int length = BatchFetchFormat.toRequestUri(uris.get(i)).length() + 1;
+      if (numRequests > 0 && (numRequests >= maxRequests
+          || bodyLength + length > BatchFetchFormat.MAX_REQUEST_BODY_LENGTH)) {
+        ends.add(i);
+        numRequests = 0;
+        bodyLength = 0;
+      }
+      numRequests++;
+      bodyLength += length;
+    }
+    ends.add(uris.size());
+    return ends;
+  }
+
+  public boolean isBatch() {
+    return batchUris != null;
+  }
+
+  public void setMemoryBudget(FetchMemoryBudget memoryBudget) {
+    this.memoryBudget = memoryBudget;
+  }
+
+  /**
+   * @return the fetched chunks which are kept in {@link MemoryFileStore} with the paths of their files
+   */
+  public List<FileChunk> getMemoryChunks() {
+    return memoryChunks;
+  }
+
+  private void keepInMemory(FetchOutput output) {
+    ByteBuf memory = output.detachMemory();
+    if (memory != null) {
+      MemoryFileStore.put(new Path(output.chunk.getFile().getPath()), memory);
+      memoryChunks.add(output.chunk);
+    }
+  }
+
   public long getStartTime() {
     return startTime;
   }
@@ -142,6 +229,10 @@ public class Fetcher {
       return fileChunk;
     }
 
+    if (isBatch()) {
+      return getBatch();
+    }
+
     LOG.info("Get real fetch from remote host");
     this.startTime = System.currentTimeMillis();
     this.state = TajoProtos.FetcherState.FETCH_FETCHING;
@@ -157,6 +248,8 @@ public class Fetcher {
         throw new IOException(future.cause());
       }
 
+      HttpClientHandler handler = channel.pipeline().get(HttpClientHandler.class);
+
       String query = uri.getPath()
           + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
       // Prepare the HTTP request.
@@ -174,7 +267,9 @@ public class Fetcher {
 
       channelFuture.addListener(ChannelFutureListener.CLOSE);
 
-      fileChunk.setLength(fileChunk.getFile().length());
+      if (state == TajoProtos.FetcherState.FETCH_FINISHED) {
+        keepInMemory(handler.getOutput());
+      }
       return fileChunk;
     } finally {
       if(future != null){
@@ -187,20 +282,226 @@ public class Fetcher {
     }
   }
 
+  private FileChunk getBatch() throws IOException {
+    this.startTime = System.currentTimeMillis();
+    this.state = TajoProtos.FetcherState.FETCH_FETCHING;
+    ChannelFuture future = null;
+    try {
+      future = bootstrap.clone().connect(new InetSocketAddress(host, port))
+          .addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+
+      // Wait until the connection attempt succeeds or fails.
+      Channel channel = future.awaitUninterruptibly().channel();
+      if (!future.isSuccess()) {
+        state = TajoProtos.FetcherState.FETCH_FAILED;
+        throw new IOException(future.cause());
+      }
+      BatchClientHandler handler = channel.pipeline().get(BatchClientHandler.class);
+
+      while (fetchedBatches < batchEnds.size()) {
+        int start = fetchedBatches == 0 ? 0 : batchEnds.get(fetchedBatches - 1);
+        int end = batchEnds.get(fetchedBatches);
+
+        handler.prepare(batchChunks.subList(start, end));
+
+        String body = BatchFetchFormat.encodeRequest(batchUris.subList(start, end));
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST,
+            BatchFetchFormat.BATCH_PATH, Unpooled.copiedBuffer(body, CharsetUtil.UTF_8));
+        request.headers().set(HttpHeaders.Names.HOST, host);
+        request.headers().set(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.KEEP_ALIVE);
+        HttpHeaders.setContentLength(request, request.content().readableBytes());
+
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("Batch " + (fetchedBatches + 1) + "/" + batchEnds.size() + " (" + (end - start)
+              + " requests) to " + host + ":" + port);
+        }
+        channel.writeAndFlush(request);
+
+        if (!handler.await()) {
+          state = TajoProtos.FetcherState.FETCH_FAILED;
+          throw new IOException("Batched fetch failed: " + host + ":" + port + " ("
+              + (end - start) + " requests)", handler.getCause());
+        }
+        for (FetchOutput output : handler.getOutputs()) {
+          keepInMemory(output);
+        }
+        fetchedBatches++;
+      }
+
+      long totalLen = 0;
+      for (FileChunk chunk : batchChunks) {
+        totalLen += chunk.length();
+      }
+      fileLen = totalLen;
+      finishTime = System.currentTimeMillis();
+      state = TajoProtos.FetcherState.FETCH_FINISHED;
+      return fileChunk;
+    } finally {
+      if (future != null) {
+        // Close the channel to exit.
+        future.channel().close();
+      }
+
+      this.finishTime = System.currentTimeMillis();
+      LOG.info("Fetcher finished:" + (finishTime - startTime) + " ms, " + getState() + ", " + batchUris.size()
+          + " requests to " + host + ":" + port);
+    }
+  }
+
   public URI getURI() {
     return this.uri;
   }
 
+  /**
+   * It demultiplexes the frames of batched fetch responses into the files of requests.
+   */
+  class BatchClientHandler extends ChannelInboundHandlerAdapter {
+    private final ByteBuf header = Unpooled.buffer(BatchFetchFormat.FRAME_HEADER_SIZE);
+    private FetchOutput [] outputs;
+
+    /** the request index of the current frame */
+    private int current;
+    /** the remaining bytes of the current frame */
+    private long remaining;
+
+    private volatile CountDownLatch done;
+    private volatile boolean success;
+    private volatile Throwable cause;
+
+    /**
+     * It prepares the outputs of the next batch.
+     */
+    void prepare(List<FileChunk> chunks) throws IOException {
+      outputs = new FetchOutput[chunks.size()];
+      for (int i = 0; i < chunks.size(); i++) {
+        outputs[i] = new FetchOutput(chunks.get(i));
+      }
+      header.clear();
+      remaining = 0;
+      success = false;
+      cause = null;
+      done = new CountDownLatch(1);
+    }
+
+    boolean await() throws IOException {
+      try {
+        done.await();
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      }
+      return success;
+    }
+
+    Throwable getCause() {
+      return cause;
+    }
+
+    FetchOutput [] getOutputs() {
+      return outputs;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+      messageReceiveCount++;
+      try {
+        if (msg instanceof HttpResponse) {
+          HttpResponse response = (HttpResponse) msg;
+          if (response.getStatus().code() != HttpResponseStatus.OK.code()) {
+            finish(new IOException(response.getStatus().toString()));
+            return;
+          }
+        }
+
+        if (msg instanceof HttpContent && done.getCount() > 0) {
+          ByteBuf content = ((HttpContent) msg).content();
+          while (content.isReadable()) {
+            if (remaining == 0) {
+              header.writeBytes(content, Math.min(header.writableBytes(), content.readableBytes()));
+              if (!header.isWritable()) {
+                current = header.readInt();
+                remaining = header.readLong();
+                header.clear();
+                if (current < 0 || current >= outputs.length || remaining < 0) {
+                  throw new IOException("Invalid frame: request=" + current + ", length=" + remaining);
+                }
+                outputs[current].reserve(remaining);
+              }
+            } else {
+              int length = (int) Math.min(remaining, content.readableBytes());
+              outputs[current].write(content, length);
+              remaining -= length;
+            }
+          }
+
+          if (msg instanceof LastHttpContent) {
+            if (remaining > 0 || header.isReadable()) {
+              throw new IOException("Incomplete frame: request=" + current + ", remaining=" + remaining);
+            }
+            finish(null);
+          }
+        }
+      } catch (Throwable t) {
+        finish(t);
+      } finally {
+        ReferenceCountUtil.release(msg);
+      }
+    }
+
+    private void finish(Throwable t) {
+      if (done.getCount() == 0) {
+        return;
+      }
+      for (FetchOutput output : outputs) {
+        if (t == null) {
+          try {
+            output.close();
+          } catch (Throwable e) {
+            t = e;
+          }
+        }
+      }
+      if (t != null) {
+        for (FetchOutput output : outputs) {
+          output.discard();
+        }
+      }
+      cause = t;
+      success = t == null;
+      done.countDown();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+      if (cause instanceof ReadTimeoutException) {
+        LOG.warn(cause);
+      } else {
+        LOG.error("Fetch failed :", cause);
+      }
+      if (done != null) {
+        finish(cause);
+      }
+      ctx.close();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+      if (done != null) {
+        finish(new IOException("Connection is closed by " + host + ":" + port));
+      }
+      super.channelInactive(ctx);
+    }
+  }
+
   class HttpClientHandler extends ChannelInboundHandlerAdapter {
-    private final File file;
-    private RandomAccessFile raf;
-    private FileChannel fc;
+    private final FetchOutput output;
     private long length = -1;
 
-    public HttpClientHandler(File file) throws FileNotFoundException {
-      this.file = file;
-      this.raf = new RandomAccessFile(file, "rw");
-      this.fc = raf.getChannel();
+    public HttpClientHandler(FileChunk chunk) {
+      this.output = new FetchOutput(chunk);
+    }
+
+    FetchOutput getOutput() {
+      return output;
     }
 
     @Override
@@ -242,6 +543,10 @@ public class Fetcher {
             state = TajoProtos.FetcherState.FETCH_FAILED;
             return;
           }
+
+          if (length > 0) {
+            output.reserve(length);
+          }
         } catch (Exception e) {
           LOG.error(e.getMessage());
         } finally {
@@ -254,15 +559,11 @@ public class Fetcher {
           HttpContent httpContent = (HttpContent) msg;
           ByteBuf content = httpContent.content();
           if (content.isReadable()) {
-            content.readBytes(fc, content.readableBytes());
+            output.write(content, content.readableBytes());
           }
 
           if (msg instanceof LastHttpContent) {
-            if (raf != null) {
-              fileLen = file.length();
-            }
-
-            IOUtils.cleanup(LOG, fc, raf);
+            fileLen = output.close();
             if (ctx.channel().isActive()) {
               ctx.channel().close();
             }
@@ -289,7 +590,7 @@ public class Fetcher {
       }
 
       // this fetching will be retry
-      IOUtils.cleanup(LOG, fc, raf);
+      output.discard();
       finishTime = System.currentTimeMillis();
       state = TajoProtos.FetcherState.FETCH_FAILED;
       ctx.close();
@@ -301,18 +602,136 @@ public class Fetcher {
         //channel is closed, but cannot complete fetcher
         finishTime = System.currentTimeMillis();
         state = TajoProtos.FetcherState.FETCH_FAILED;
+        output.discard();
       }
-      IOUtils.cleanup(LOG, fc, raf);
-      
+
       super.channelUnregistered(ctx);
     }
   }
 
+  /**
+   * The destination of the data of a request. The data is kept in a pooled buffer while the memory budget of
+   * the task allows, and it is written to the file of the chunk otherwise.
+   */
+  class FetchOutput {
+    private final FileChunk chunk;
+    private ByteBuf memory;
+    private long reservedBytes;
+    private RandomAccessFile raf;
+    private FileChannel fc;
+
+    FetchOutput(FileChunk chunk) {
+      this.chunk = chunk;
+    }
+
+    /**
+     * It prepares to receive the given bytes. If the budget is exhausted, the buffered data are spilled to the file.
+     */
+    void reserve(long bytes) throws IOException {
+      if (fc != null || bytes <= 0) {
+        return;
+      }
+
+      long capacity = (memory == null ? 0 : memory.writerIndex()) + bytes;
+      if (memoryBudget != null && capacity <= Integer.MAX_VALUE && memoryBudget.tryReserve(bytes)) {
+        reservedBytes += bytes;
+        if (memory == null) {
+          memory = BufferPool.directBuffer((int) bytes);
+        } else {
+          memory.ensureWritable((int) bytes);
+        }
+      } else {
+        openFile();
+        if (memory != null) {
+          FetchMemoryBudget.incrementSpills();
+          while (memory.isReadable()) {
+            memory.readBytes(fc, memory.readableBytes());
+          }
+          releaseMemory();
+        }
+      }
+    }
+
+    void write(ByteBuf src, int length) throws IOException {
+      long required = (memory == null ? 0 : memory.writerIndex()) + length - reservedBytes;
+      if (fc == null && required > 0) {
+        reserve(required);
+      }
+
+      if (memory != null) {
+        memory.writeBytes(src, length);
+      } else {
+        while (length > 0) {
+          length -= src.readBytes(fc, length);
+        }
+      }
+    }
+
+    /**
+     * @return the number of received bytes
+     */
+    long close() throws IOException {
+      long length;
+      if (memory != null) {
+        length = memory.readableBytes();
+        FetchMemoryBudget.addInMemoryBytes(length);
+      } else {
+        length = fc == null ? 0 : fc.size();
+        FetchMemoryBudget.addOnDiskBytes(length);
+        IOUtils.cleanup(LOG, fc, raf);
+        fc = null;
+        raf = null;
+      }
+      chunk.setLength(length);
+      return length;
+    }
+
+    /**
+     * It discards the received data, which will be fetched again.
+     */
+    void discard() {
+      IOUtils.cleanup(LOG, fc, raf);
+      fc = null;
+      raf = null;
+      releaseMemory();
+    }
+
+    /**
+     * It hands over the buffer to the caller. The budget of the readable bytes is kept until the buffer is
+     * released with the task, and the rest is released.
+     */
+    ByteBuf detachMemory() {
+      ByteBuf detached = memory;
+      if (detached != null && reservedBytes > detached.readableBytes()) {
+        memoryBudget.release(reservedBytes - detached.readableBytes());
+      }
+      memory = null;
+      reservedBytes = 0;
+      return detached;
+    }
+
+    private void openFile() throws IOException {
+      // a file may be partially written by a failed try
+      raf = new RandomAccessFile(chunk.getFile(), "rw");
+      raf.setLength(0);
+      fc = raf.getChannel();
+    }
+
+    private void releaseMemory() {
+      if (memory != null) {
+        memory.release();
+        memory = null;
+        memoryBudget.release(reservedBytes);
+        reservedBytes = 0;
+      }
+    }
+  }
+
   class HttpClientChannelInitializer extends ChannelInitializer<Channel> {
-    private final File file;
+    private final boolean batch;
 
-    public HttpClientChannelInitializer(File file) {
-      this.file = file;
+    public HttpClientChannelInitializer(boolean batch) {
+      this.batch = batch;
     }
 
     @Override
@@ -323,9 +742,15 @@ public class Fetcher {
       int readTimeout = conf.getIntVar(TajoConf.ConfVars.SHUFFLE_FETCHER_READ_TIMEOUT);
 
       pipeline.addLast("codec", new HttpClientCodec(4096, 8192, maxChunkSize));
+      if (batch) {
+        // frames are not compressed
+        pipeline.addLast("timeout", new ReadTimeoutHandler(readTimeout, TimeUnit.SECONDS));
+        pipeline.addLast("handler", new BatchClientHandler());
+        return;
+      }
       pipeline.addLast("inflater", new HttpContentDecompressor());
       pipeline.addLast("timeout", new ReadTimeoutHandler(readTimeout, TimeUnit.SECONDS));
-      pipeline.addLast("handler", new HttpClientHandler(file));
+      pipeline.addLast("handler", new HttpClientHandler(fileChunk));
     }
   }
 }
@@ -34,6 +34,8 @@ import org.apache.tajo.TajoConstants;
 import org.apache.tajo.catalog.CatalogClient;
 import org.apache.tajo.catalog.CatalogService;
 import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.engine.codegen.CompiledEvalCache;
+import org.apache.tajo.engine.utils.BroadcastTableCache;
 import org.apache.tajo.service.ServiceTracker;
 import org.apache.tajo.service.ServiceTrackerFactory;
 import org.apache.tajo.service.TajoMasterInfo;
@@ -134,6 +136,9 @@ public class TajoWorker extends CompositeService {
 
   private HashShuffleAppenderManager hashShuffleAppenderManager;
 
+  /** compiled expressions shared by all execution blocks in this worker */
+  private CompiledEvalCache compiledEvalCache;
+
   private AsyncDispatcher dispatcher;
 
   private LocalDirAllocator lDirAllocator;
@@ -219,6 +224,12 @@ public class TajoWorker extends CompositeService {
     this.dispatcher = new AsyncDispatcher();
     addIfService(dispatcher);
 
+    int codegenCacheSize = systemConf.getIntVar(ConfVars.WORKER_CODEGEN_CACHE_SIZE);
+    if (codegenCacheSize > 0) {
+      compiledEvalCache = new CompiledEvalCache(codegenCacheSize);
+    }
+    BroadcastTableCache.init(systemConf);
+
     tajoWorkerManagerService = new TajoWorkerManagerService(workerContext, peerRpcPort);
     addIfService(tajoWorkerManagerService);
 
@@ -307,6 +318,108 @@ public class TajoWorker extends CompositeService {
         }
       }
     });
+
+    workerSystemMetrics.register("task", "executorThreads", new Gauge<Integer>() {
+      @Override
+      public Integer getValue() {
+        if(taskRunnerManager != null && taskRunnerManager.getTaskExecutor() != null) {
+          return taskRunnerManager.getTaskExecutor().getPoolSize();
+        } else {
+          return 0;
+        }
+      }
+    });
+
+    workerSystemMetrics.register("shuffle", "fetchExecutorThreads", new Gauge<Integer>() {
+      @Override
+      public Integer getValue() {
+        if(taskRunnerManager != null && taskRunnerManager.getFetchExecutor() != null) {
+          return taskRunnerManager.getFetchExecutor().getPoolSize();
+        } else {
+          return 0;
+        }
+      }
+    });
+
+    workerSystemMetrics.register("shuffle", "fetchInMemoryBytes", new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return FetchMemoryBudget.getInMemoryBytes();
+      }
+    });
+
+    workerSystemMetrics.register("shuffle", "fetchOnDiskBytes", new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return FetchMemoryBudget.getOnDiskBytes();
+      }
+    });
+
+    workerSystemMetrics.register("shuffle", "fetchSpills", new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return FetchMemoryBudget.getSpills();
+      }
+    });
+
+    if (compiledEvalCache != null) {
+      workerSystemMetrics.register("codegen", "cacheHits", new Gauge<Long>() {
+        @Override
+        public Long getValue() {
+          return compiledEvalCache.getHits();
+        }
+      });
+
+      workerSystemMetrics.register("codegen", "cacheMisses", new Gauge<Long>() {
+        @Override
+        public Long getValue() {
+          return compiledEvalCache.getMisses();
+        }
+      });
+
+      workerSystemMetrics.register("codegen", "cacheEvictions", new Gauge<Long>() {
+        @Override
+        public Long getValue() {
+          return compiledEvalCache.getEvictions();
+        }
+      });
+
+      workerSystemMetrics.register("codegen", "compileTimeMillis", new Gauge<Long>() {
+        @Override
+        public Long getValue() {
+          return compiledEvalCache.getCompileTimeMillis();
+        }
+      });
+    }
+
+    final BroadcastTableCache broadcastTableCache = BroadcastTableCache.getInstance();
+    workerSystemMetrics.register("broadcastCache", "cacheHits", new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return broadcastTableCache.getHits();
+      }
+    });
+
+    workerSystemMetrics.register("broadcastCache", "cacheMisses", new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return broadcastTableCache.getMisses();
+      }
+    });
+
+    workerSystemMetrics.register("broadcastCache", "cacheEvictions", new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return broadcastTableCache.getEvictions();
+      }
+    });
+
+    workerSystemMetrics.register("broadcastCache", "usedBytes", new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return broadcastTableCache.getUsedBytes();
+      }
+    });
   }
 
   private int initWebServer() {
@@ -476,6 +589,8 @@ public class TajoWorker extends CompositeService {
     }
 
     protected void cleanup(String strPath) {
+      // the cached index readers of the intermediate data to be deleted are not valid anymore.
+      TajoPullServerService.invalidateIndexReaders(strPath);
       if (deletionService == null) return;
 
       LocalDirAllocator lDirAllocator = new LocalDirAllocator(ConfVars.WORKER_TEMPORAL_DIR.varname);
@@ -548,6 +663,13 @@ public class TajoWorker extends CompositeService {
       return workerSystemMetrics;
     }
 
+    /**
+     * @return the cache of compiled expressions, or null if the cache is disabled
+     */
+    public CompiledEvalCache getCompiledEvalCache() {
+      return compiledEvalCache;
+    }
+
     public HashShuffleAppenderManager getHashShuffleAppenderManager() {
       return hashShuffleAppenderManager;
     }
@@ -55,7 +55,9 @@ import org.apache.tajo.pullserver.retriever.FileChunk;
 import org.apache.tajo.rpc.NullCallback;
 import org.apache.tajo.storage.*;
 import org.apache.tajo.storage.fragment.FileFragment;
+import org.apache.tajo.unit.StorageUnit;
 import org.apache.tajo.util.NetUtils;
+import org.apache.tajo.util.Pair;
 
 import io.netty.handler.codec.http.QueryStringDecoder;
 
@@ -65,6 +67,7 @@ import java.net.InetAddress;
 import java.net.URI;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 
 import static org.apache.tajo.catalog.proto.CatalogProtos.FragmentProto;
@@ -84,17 +87,25 @@ public class Task {
   private final TaskRequest request;
   private TaskAttemptContext context;
   private List<Fetcher> fetcherRunners;
+  private final Queue<FetchRunner> pendingFetches = new ConcurrentLinkedQueue<FetchRunner>();
+  private final Queue<FetchRunner> pendingBatchFetches = new ConcurrentLinkedQueue<FetchRunner>();
+  private ExecutorService fetchLauncher;
   private LogicalNode plan;
   private final Map<String, TableDesc> descs = Maps.newHashMap();
   private PhysicalExec executor;
   private boolean interQuery;
   private Path inputTableBaseDir;
 
+  private long launchTime;
   private long startTime;
   private long finishTime;
 
   private final TableStats inputStats;
   private List<FileChunk> localChunks;
+  /** the fetched chunks kept in {@link MemoryFileStore} */
+  private final List<FileChunk> memoryChunks = Collections.synchronizedList(new ArrayList<FileChunk>());
+  /** the memory budget of {@link #memoryChunks}, or null if fetched chunks are not kept in memory */
+  private FetchMemoryBudget fetchMemoryBudget;
 
   // TODO - to be refactored
   private ShuffleType shuffleType = null;
@@ -191,6 +202,7 @@ public class Task {
   }
 
   public void init() throws IOException {
+    launchTime = System.currentTimeMillis();
     initPlan();
 
     if (context.getState() == TaskAttemptState.TA_PENDING) {
@@ -249,10 +261,34 @@ public class Task {
     return new ArrayList<Fetcher>(fetcherRunners);
   }
 
+  /**
+   * It launches fetchers. At most {@link TajoConf.ConfVars#SHUFFLE_FETCHER_PARALLEL_HOSTS} batched fetchers and
+   * {@link TajoConf.ConfVars#SHUFFLE_FETCHER_PARALLEL_EXECUTION_MAX_NUM} other fetchers are running at the same
+   * time, and the next fetcher of the same kind is launched when a fetcher is finished.
+   */
   public void fetch() {
-    ExecutorService executorService = executionBlockContext.getTaskRunner(taskRunnerId).getFetchLauncher();
+    fetchLauncher = executionBlockContext.getTaskRunner(taskRunnerId).getFetchLauncher();
     for (Fetcher f : fetcherRunners) {
-      executorService.submit(new FetchRunner(context, f));
+      if (f.isBatch()) {
+        pendingBatchFetches.add(new FetchRunner(context, f));
+      } else {
+        pendingFetches.add(new FetchRunner(context, f));
+      }
+    }
+    int batchParallelism = systemConf.getIntVar(TajoConf.ConfVars.SHUFFLE_FETCHER_PARALLEL_HOSTS);
+    for (int i = 0; i < batchParallelism; i++) {
+      launchNextFetch(pendingBatchFetches);
+    }
+    int parallelism = systemConf.getIntVar(TajoConf.ConfVars.SHUFFLE_FETCHER_PARALLEL_EXECUTION_MAX_NUM);
+    for (int i = 0; i < parallelism; i++) {
+      launchNextFetch(pendingFetches);
+    }
+  }
+
+  private void launchNextFetch(Queue<FetchRunner> pending) {
+    FetchRunner runner = pending.poll();
+    if (runner != null) {
+      fetchLauncher.submit(runner);
     }
   }
 
@@ -329,6 +365,7 @@ public class Task {
     builder.setId(context.getTaskId().getProto());
 
     builder.setInputStats(reloadInputStats());
+    builder.setRunningTime(System.currentTimeMillis() - launchTime);
 
     if (context.hasResultStats()) {
       builder.setResultStats(context.getResultStats().getProto());
@@ -353,6 +390,18 @@ public class Task {
           }
         }
 
+        // Set the pages of a partition in the output file
+        List<Pair<Long, Integer>> pages = context.getShuffleFilePages(entry.getKey());
+        if (pages != null) {
+          IntermediateEntryProto.PageProto.Builder pageBuilder = IntermediateEntryProto.PageProto.newBuilder();
+          for (Pair<Long, Integer> page : pages) {
+            pageBuilder.clear();
+            pageBuilder.setPos(page.getFirst());
+            pageBuilder.setLength(page.getSecond());
+            part.addPages(pageBuilder.build());
+          }
+        }
+
         builder.addShuffleFileOutputs(part.build());
       } while (it.hasNext());
     }
@@ -482,10 +531,22 @@ public class Task {
     } catch (IOException e) {
       LOG.fatal(e.getMessage(), e);
     }
+    releaseMemoryChunks();
 
     executionBlockContext.getWorkerContext().getTaskHistoryWriter().appendHistory(taskHistory);
   }
 
+  private void releaseMemoryChunks() {
+    synchronized (memoryChunks) {
+      for (FileChunk chunk : memoryChunks) {
+        if (MemoryFileStore.remove(new Path(chunk.getFile().getPath())) && fetchMemoryBudget != null) {
+          fetchMemoryBudget.release(chunk.length());
+        }
+      }
+      memoryChunks.clear();
+    }
+  }
+
   public TaskHistory createTaskHistory() {
     TaskHistory taskHistory = null;
     try {
@@ -572,6 +633,16 @@ public class Task {
       }
     }
 
+    // the fetched chunks kept in memory, which are read by scanners without their files
+    synchronized (memoryChunks) {
+      for (FileChunk chunk : memoryChunks) {
+        if (name.equals(chunk.getEbId()) && chunk.length() > 0) {
+          tablet = new FileFragment(name, new Path(chunk.getFile().getPath()), 0l, chunk.length());
+          listTablets.add(tablet);
+        }
+      }
+    }
+
     FileFragment[] tablets = new FileFragment[listTablets.size()];
     listTablets.toArray(tablets);
 
@@ -621,6 +692,10 @@ public class Task {
           retryNum++;
         }
       } finally {
+        // a batched fetcher may keep the chunks of completed batches in memory even if it finally fails
+        memoryChunks.addAll(fetcher.getMemoryChunks());
+        fetcher.getMemoryChunks().clear();
+
         if(fetcher.getState() == TajoProtos.FetcherState.FETCH_FINISHED){
           fetcherFinished(ctx);
         } else {
@@ -630,6 +705,11 @@ public class Task {
           context.stop(); // retry task
           ctx.getFetchLatch().countDown();
         }
+        if (context.isStopped()) {
+          // the task may be already cleaned up
+          releaseMemoryChunks();
+        }
+        launchNextFetch(fetcher.isBatch() ? pendingBatchFetches : pendingFetches);
       }
     }
   }
@@ -673,6 +753,19 @@ public class Task {
       FileChunk storeChunk = null;
       List<Fetcher> runnerList = Lists.newArrayList();
 
+      // the remote fetches of each pull server, which are fetched over a single connection
+      boolean batchEnabled = systemConf.getBoolVar(TajoConf.ConfVars.SHUFFLE_FETCHER_BATCH_ENABLED);
+
+      // only raw files can be scanned from memory
+      FetchMemoryBudget memoryBudget = null;
+      long memoryLimit = (long) systemConf.getIntVar(TajoConf.ConfVars.SHUFFLE_FETCHER_MEMORY_BUDGET) * StorageUnit.MB;
+      if (memoryLimit > 0 && "RAW".equalsIgnoreCase(systemConf.getVar(TajoConf.ConfVars.SHUFFLE_FILE_FORMAT))) {
+        memoryBudget = new FetchMemoryBudget(memoryLimit, FetchMemoryBudget.getWorkerBudget(systemConf));
+      }
+      fetchMemoryBudget = memoryBudget;
+      Map<String, Pair<List<URI>, List<FileChunk>>> remoteFetches =
+          new LinkedHashMap<String, Pair<List<URI>, List<FileChunk>>>();
+
       for (FetchImpl f : fetches) {
         storeDir = new File(inputDir.toString(), f.getName());
         if (!storeDir.exists()) {
@@ -714,12 +807,38 @@ public class Task {
           // If we decide that intermediate data should be really fetched from a remote host, storeChunk
           // represents a complete file. Otherwise, storeChunk may represent a complete file or only a part of it
           storeChunk.setEbId(f.getName());
-          Fetcher fetcher = new Fetcher(systemConf, uri, storeChunk);
-          LOG.info("Create a new Fetcher with storeChunk:" + storeChunk.toString());
-          runnerList.add(fetcher);
+          if (batchEnabled && storeChunk.fromRemote()) {
+            String hostKey = uri.getHost() + ":" + uri.getPort();
+            Pair<List<URI>, List<FileChunk>> hostFetches = remoteFetches.get(hostKey);
+            if (hostFetches == null) {
+              hostFetches = new Pair<List<URI>, List<FileChunk>>(new ArrayList<URI>(), new ArrayList<FileChunk>());
+              remoteFetches.put(hostKey, hostFetches);
+            }
+            hostFetches.getFirst().add(uri);
+            hostFetches.getSecond().add(storeChunk);
+          } else {
+            Fetcher fetcher = new Fetcher(systemConf, uri, storeChunk);
+            fetcher.setMemoryBudget(storeChunk.fromRemote() ? memoryBudget : null);
+            LOG.info("Create a new Fetcher with storeChunk:" + storeChunk.toString());
+            runnerList.add(fetcher);
+          }
           i++;
         }
       }
+
+      for (Entry<String, Pair<List<URI>, List<FileChunk>>> entry : remoteFetches.entrySet()) {
+        List<URI> uris = entry.getValue().getFirst();
+        List<FileChunk> chunks = entry.getValue().getSecond();
+        Fetcher fetcher;
+        if (uris.size() == 1) {
+          fetcher = new Fetcher(systemConf, uris.get(0), chunks.get(0));
+        } else {
+          LOG.info("Create a new batched Fetcher with " + uris.size() + " requests to " + entry.getKey());
+          fetcher = new Fetcher(systemConf, uris, chunks);
+        }
+        fetcher.setMemoryBudget(memoryBudget);
+        runnerList.add(fetcher);
+      }
       ctx.addFetchPhase(runnerList.size(), new File(inputDir.toString()));
       return runnerList;
     } else {
@@ -784,13 +903,24 @@ public class Task {
       boolean last = params.get("final") != null;
 
       try {
-        chunk = TajoPullServerService.getFileCunks(path, startKey, endKey, last);
+        chunk = TajoPullServerService.getFileCunks(conf, path, startKey, endKey, last);
             } catch (Throwable t) {
         LOG.error("getFileChunks() throws exception");
         return null;
       }
 
       // If the stage requires a hash shuffle or a scattered hash shuffle
+    } else if ((shuffleType.equals("h") || shuffleType.equals("s")) && taskIds != null) {
+      // the outputs of sort-based hash shuffle writers are identified by task attempts
+      List<FileChunk> chunks = TajoPullServerService.getSortShuffleChunks(
+          executionBlockContext.getLocalDirAllocator(), executionBlockContext.getLocalFS(), conf,
+          queryId + "/output/" + sid, taskIds, Integer.parseInt(partId), offset, length);
+      if (chunks.size() > 1) {
+        // a local fetch can only return one chunk, so it is fetched from the pull server.
+        throw new IOException("Sort shuffle outputs of " + taskIds.size() + " tasks cannot be fetched locally");
+      }
+      chunk = chunks.isEmpty() ? null : chunks.get(0);
+
     } else if (shuffleType.equals("h") || shuffleType.equals("s")) {
       int partParentId = HashShuffleAppenderManager.getPartParentId(Integer.parseInt(partId), (TajoConf) conf);
       String partPath = queryBaseDir + "hash-shuffle/" + partParentId + "/" + partId;
@@ -37,6 +37,7 @@ import org.apache.tajo.storage.HashShuffleAppenderManager;
 import org.apache.tajo.storage.fragment.FileFragment;
 import org.apache.tajo.storage.fragment.Fragment;
 import org.apache.tajo.storage.fragment.FragmentConvertor;
+import org.apache.tajo.util.Pair;
 import org.apache.tajo.util.TUtil;
 import org.apache.tajo.worker.TajoWorker.WorkerContext;
 
@@ -81,6 +82,8 @@ public class TaskAttemptContext {
 
   /** a output volume for each partition */
   private Map<Integer, Long> partitionOutputVolume;
+  /** the pages of each partition in a shuffle output file, which are split at row boundaries */
+  private Map<Integer, List<Pair<Long, Integer>>> shuffleFilePages;
   private HashShuffleAppenderManager hashShuffleAppenderManager;
 
   public TaskAttemptContext(QueryContext queryContext, final ExecutionBlockContext executionBlockContext,
@@ -114,6 +117,7 @@ public class TaskAttemptContext {
     state = TaskAttemptState.TA_PENDING;
 
     this.partitionOutputVolume = Maps.newHashMap();
+    this.shuffleFilePages = Maps.newHashMap();
 
     if (workerContext != null) {
       this.hashShuffleAppenderManager = workerContext.getHashShuffleAppenderManager();
@@ -253,6 +257,14 @@ public class TaskAttemptContext {
     return partitionOutputVolume;
   }
 
+  public void addShuffleFilePages(int partId, List<Pair<Long, Integer>> pages) {
+    shuffleFilePages.put(partId, pages);
+  }
+
+  public List<Pair<Long, Integer>> getShuffleFilePages(int partId) {
+    return shuffleFilePages.get(partId);
+  }
+
   public void updateAssignedFragments(String tableId, Fragment[] fragments) {
     fragmentMap.remove(tableId);
     for(Fragment t : fragments) {
@@ -18,8 +18,7 @@
 
 package org.apache.tajo.worker;
 
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
-
+import com.google.common.annotations.VisibleForTesting;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
@@ -39,6 +38,8 @@ import org.apache.tajo.rpc.NullCallback;
 
 import io.netty.channel.ConnectTimeoutException;
 
+import java.util.LinkedList;
+import java.util.Queue;
 import java.util.concurrent.*;
 
 import static org.apache.tajo.ipc.TajoWorkerProtocol.*;
@@ -57,12 +58,6 @@ public class TaskRunner extends AbstractService {
 
   private TajoContainerId containerId;
 
-  // for Fetcher
-  private ExecutorService fetchLauncher;
-
-  // A thread to receive each assigned query unit and execute the query unit
-  private Thread taskLauncher;
-
   // Contains the object references related for TaskRunner
   private ExecutionBlockContext executionBlockContext;
 
@@ -70,14 +65,13 @@ public class TaskRunner extends AbstractService {
 
   private TaskRunnerHistory history;
 
+  // the tasks assigned by QueryMaster, which are not launched yet
+  private final Queue<TaskRequestProto> assignedTasks = new LinkedList<TaskRequestProto>();
+
   public TaskRunner(ExecutionBlockContext executionBlockContext, String containerId) {
     super(TaskRunner.class.getName());
 
-    ThreadFactoryBuilder builder = new ThreadFactoryBuilder();
-    ThreadFactory fetcherFactory = builder.setNameFormat("Fetcher executor #%d").build();
     this.systemConf = executionBlockContext.getConf();
-    this.fetchLauncher = Executors.newFixedThreadPool(
-        systemConf.getIntVar(ConfVars.SHUFFLE_FETCHER_PARALLEL_EXECUTION_MAX_NUM), fetcherFactory);
     try {
       this.containerId = TajoConverterUtils.toTajoContainerId(containerId);
       this.executionBlockContext = executionBlockContext;
@@ -109,8 +103,11 @@ public class TaskRunner extends AbstractService {
     return baseDirPath;
   }
 
+  /**
+   * @return The worker-wide executor for fetchers, which is shared by all TaskRunners
+   */
   public ExecutorService getFetchLauncher() {
-    return fetchLauncher;
+    return executionBlockContext.getTaskRunnerManager().getFetchExecutor();
   }
 
   @Override
@@ -152,10 +149,6 @@ public class TaskRunner extends AbstractService {
     LOG.info("Stop TaskRunner: " + getId());
     synchronized (this) {
       this.stopped = true;
-
-      fetchLauncher.shutdown();
-      fetchLauncher = null;
-
       notifyAll();
     }
 
@@ -187,13 +180,17 @@ public class TaskRunner extends AbstractService {
     LOG.info("TaskRunner startup");
     try {
 
-      taskLauncher = new Thread(new Runnable() {
+      // A task launcher to receive each assigned query unit and execute the query unit.
+      // It runs on the worker-wide task executor, so that the threads are reused across execution blocks.
+      // It exits when this runner is stopped.
+      getContext().getTaskRunnerManager().getTaskExecutor().execute(new Runnable() {
 
         @Override
         public void run() {
           int receivedNum = 0;
-          CallFuture<TaskRequestProto> callFuture = null;
-          TaskRequestProto taskRequest = null;
+          CallFuture<TaskRequestBatchProto> callFuture = null;
+          TaskRequestBatchProto batch = null;
+          int maxTasks = systemConf.getIntVar(ConfVars.TASK_ASSIGNMENT_BATCH_SIZE);
 
           while(!stopped) {
             QueryMasterProtocolService.Interface qmClientService;
@@ -213,20 +210,27 @@ public class TaskRunner extends AbstractService {
             }
 
             try {
+              // the assigned tasks are executed one by one before requesting next tasks.
+              if (!assignedTasks.isEmpty()) {
+                runTask(qmClientService, assignedTasks.poll(), ++receivedNum);
+                continue;
+              }
+
               if (callFuture == null) {
-                callFuture = new CallFuture<TaskRequestProto>();
-                LOG.info("Request GetTask: " + getId());
+                callFuture = new CallFuture<TaskRequestBatchProto>();
+                LOG.info("Request GetTasks: " + getId());
                 GetTaskRequestProto request = GetTaskRequestProto.newBuilder()
                     .setExecutionBlockId(getExecutionBlockId().getProto())
                     .setContainerId(((TajoContainerIdPBImpl) containerId).getProto())
                     .setWorkerId(getContext().getWorkerContext().getConnectionInfo().getId())
+                    .setMaxTasks(maxTasks)
                     .build();
 
-                qmClientService.getTask(callFuture.getController(), request, callFuture);
+                qmClientService.getTasks(callFuture.getController(), request, callFuture);
               }
               try {
-                // wait for an assigning task for 3 seconds
-                taskRequest = callFuture.get(3, TimeUnit.SECONDS);
+                // wait for assigning tasks for 3 seconds
+                batch = callFuture.get(3, TimeUnit.SECONDS);
               } catch (InterruptedException e) {
                 if(stopped) {
                   break;
@@ -248,64 +252,92 @@ public class TaskRunner extends AbstractService {
                 continue;
               }
 
-              if (taskRequest != null) {
-                // QueryMaster can send the terminal signal to TaskRunner.
-                // If TaskRunner receives the terminal signal, TaskRunner will be terminated
-                // immediately.
-                if (taskRequest.getShouldDie()) {
-                  LOG.info("Received ShouldDie flag:" + getId());
-                  stop();
-                  //notify to TaskRunnerManager
-                  getContext().stopTaskRunner(getId());
-                } else {
-                  getContext().getWorkerContext().getWorkerSystemMetrics().counter("query", "task").inc();
-                  LOG.info("Accumulated Received Task: " + (++receivedNum));
-
-                  TaskAttemptId taskAttemptId = new TaskAttemptId(taskRequest.getId());
-                  if (getContext().getTasks().containsKey(taskAttemptId)) {
-                    LOG.error("Duplicate Task Attempt: " + taskAttemptId);
-                    fatalError(qmClientService, taskAttemptId, "Duplicate Task Attempt: " + taskAttemptId);
-                    continue;
-                  }
-
-                  LOG.info("Initializing: " + taskAttemptId);
-                  Task task;
-                  try {
-                    task = new Task(getId(), getTaskBaseDir(), taskAttemptId, executionBlockContext,
-                        new TaskRequestImpl(taskRequest));
-                    getContext().getTasks().put(taskAttemptId, task);
-
-                    task.init();
-                    if (task.hasFetchPhase()) {
-                      task.fetch(); // The fetch is performed in an asynchronous way.
-                    }
-                    // task.run() is a blocking call.
-                    task.run();
-                  } catch (Throwable t) {
-                    LOG.error(t.getMessage(), t);
-                    fatalError(qmClientService, taskAttemptId, t.getMessage());
-                  } finally {
-                    callFuture = null;
-                    taskRequest = null;
-                  }
-                }
-              } else {
+              // QueryMaster can send the terminal signal to TaskRunner.
+              // If TaskRunner receives the terminal signal, TaskRunner will be terminated
+              // immediately.
+              if (batch == null || batch.getShouldDie() || batch.getTasksCount() == 0) {
+                LOG.info("Received ShouldDie flag:" + getId());
                 stop();
                 //notify to TaskRunnerManager
                 getContext().stopTaskRunner(getId());
+              } else {
+                assignedTasks.addAll(batch.getTasksList());
+                getContext().getWorkerContext().getWorkerSystemMetrics().counter("query", "taskBatch").inc();
               }
+              callFuture = null;
+              batch = null;
             } catch (Throwable t) {
               LOG.fatal(t.getMessage(), t);
             }
           }
+          abortAssignedTasks();
         }
       });
-      taskLauncher.start();
     } catch (Throwable t) {
       LOG.fatal("Unhandled exception. Starting shutdown.", t);
     }
   }
 
+  private void runTask(QueryMasterProtocolService.Interface qmClientService, TaskRequestProto taskRequest,
+                       int receivedNum) {
+    getContext().getWorkerContext().getWorkerSystemMetrics().counter("query", "task").inc();
+    LOG.info("Accumulated Received Task: " + receivedNum);
+
+    TaskAttemptId taskAttemptId = new TaskAttemptId(taskRequest.getId());
+    if (getContext().getTasks().containsKey(taskAttemptId)) {
+      LOG.error("Duplicate Task Attempt: " + taskAttemptId);
+      fatalError(qmClientService, taskAttemptId, "Duplicate Task Attempt: " + taskAttemptId);
+      return;
+    }
+
+    LOG.info("Initializing: " + taskAttemptId);
+    Task task;
+    try {
+      task = new Task(getId(), getTaskBaseDir(), taskAttemptId, executionBlockContext,
+          new TaskRequestImpl(taskRequest));
+      getContext().getTasks().put(taskAttemptId, task);
+
+      task.init();
+      if (task.hasFetchPhase()) {
+        task.fetch(); // The fetch is performed in an asynchronous way.
+      }
+      // task.run() is a blocking call.
+      task.run();
+    } catch (Throwable t) {
+      LOG.error(t.getMessage(), t);
+      fatalError(qmClientService, taskAttemptId, t.getMessage());
+    }
+  }
+
+  private void abortAssignedTasks() {
+    if (assignedTasks.isEmpty()) {
+      return;
+    }
+    try {
+      abortAssignedTasks(assignedTasks, getContext().getQueryMasterStub());
+    } catch (Throwable t) {
+      LOG.warn("Failed to abort " + assignedTasks.size() + " assigned tasks: " + t.getMessage());
+    }
+  }
+
+  /**
+   * The tasks which are assigned but not launched are reported as failed, so that they can be retried.
+   *
+   * @return the number of aborted tasks
+   */
+  @VisibleForTesting
+  public static int abortAssignedTasks(Queue<TaskRequestProto> assignedTasks,
+                                       QueryMasterProtocolService.Interface qmClientService) {
+    int aborted = 0;
+    TaskRequestProto taskRequest;
+    while ((taskRequest = assignedTasks.poll()) != null) {
+      fatalError(qmClientService, new TaskAttemptId(taskRequest.getId()),
+          "TaskRunner is stopped before launching the task");
+      aborted++;
+    }
+    return aborted;
+  }
+
   /**
    * @return true if a stop has been requested.
    */
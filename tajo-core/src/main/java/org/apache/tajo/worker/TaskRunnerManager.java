@@ -20,6 +20,7 @@ package org.apache.tajo.worker;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -30,7 +31,8 @@ import org.apache.hadoop.yarn.event.EventHandler;
 import org.apache.tajo.ExecutionBlockId;
 import org.apache.tajo.TaskAttemptId;
 import org.apache.tajo.conf.TajoConf;
-import org.apache.tajo.engine.utils.TupleCache;
+import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.apache.tajo.engine.utils.BroadcastTableCache;
 import org.apache.tajo.worker.event.TaskRunnerEvent;
 import org.apache.tajo.worker.event.TaskRunnerStartEvent;
 import org.apache.tajo.worker.event.TaskRunnerStopEvent;
@@ -38,6 +40,9 @@ import org.apache.tajo.worker.event.TaskRunnerStopEvent;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class TaskRunnerManager extends CompositeService implements EventHandler<TaskRunnerEvent> {
@@ -52,6 +57,15 @@ public class TaskRunnerManager extends CompositeService implements EventHandler<
   private FinishedTaskCleanThread finishedTaskCleanThread;
   private Dispatcher dispatcher;
 
+  /** the idle seconds of a thread before it is terminated, if more threads than the core threads are running */
+  private static final long EXECUTOR_KEEP_ALIVE_SEC = 60;
+
+  // The worker-wide executors shared by the TaskRunners of all execution blocks.
+  // Their core threads are kept alive across execution blocks, so that a new execution block does not
+  // pay for creating threads, and the same threads keep running the operator code which is already warmed up.
+  private ThreadPoolExecutor taskExecutor;
+  private ThreadPoolExecutor fetchExecutor;
+
   public TaskRunnerManager(TajoWorker.WorkerContext workerContext, Dispatcher dispatcher) {
     super(TaskRunnerManager.class.getName());
 
@@ -68,9 +82,32 @@ public class TaskRunnerManager extends CompositeService implements EventHandler<
     Preconditions.checkArgument(conf instanceof TajoConf);
     tajoConf = (TajoConf)conf;
     dispatcher.register(TaskRunnerEvent.EventType.class, this);
+
+    int slots = tajoConf.getIntVar(ConfVars.WORKER_RESOURCE_AVAILABLE_CPU_CORES);
+    taskExecutor = createExecutor(slots * tajoConf.getIntVar(ConfVars.WORKER_TASK_EXECUTOR_CORE_THREADS_PER_SLOT),
+        "Task executor #%d");
+    // a task runs batched fetchers and the other fetchers at the same time
+    int fetchersPerSlot = tajoConf.getIntVar(ConfVars.SHUFFLE_FETCHER_PARALLEL_EXECUTION_MAX_NUM)
+        + tajoConf.getIntVar(ConfVars.SHUFFLE_FETCHER_PARALLEL_HOSTS);
+    fetchExecutor = createExecutor(slots * fetchersPerSlot, "Fetcher executor #%d");
     super.init(tajoConf);
   }
 
+  /**
+   * It creates an executor which prestarts the given number of core threads and keeps them alive.
+   * The number of threads is not bounded, because a task launcher occupies a thread until its TaskRunner stops,
+   * and a queued launcher would starve. The number of TaskRunners is already bounded by the resources which
+   * QueryMaster allocates to this worker. More threads are created on demand, and they are terminated when
+   * they become idle.
+   */
+  private static ThreadPoolExecutor createExecutor(int coreThreads, String nameFormat) {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(coreThreads, Integer.MAX_VALUE,
+        EXECUTOR_KEEP_ALIVE_SEC, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+        new ThreadFactoryBuilder().setNameFormat(nameFormat).build());
+    executor.prestartAllCoreThreads();
+    return executor;
+  }
+
   @Override
   public void start() {
     finishedTaskCleanThread = new FinishedTaskCleanThread();
@@ -99,6 +136,13 @@ public class TaskRunnerManager extends CompositeService implements EventHandler<
       finishedTaskCleanThread.interrupted();
     }
 
+    if (taskExecutor != null) {
+      taskExecutor.shutdown();
+    }
+    if (fetchExecutor != null) {
+      fetchExecutor.shutdownNow();
+    }
+
     super.stop();
     if(workerContext.isYarnContainerMode()) {
       workerContext.stopWorker(true);
@@ -153,6 +197,20 @@ public class TaskRunnerManager extends CompositeService implements EventHandler<
     return taskRunnerMap.size();
   }
 
+  /**
+   * @return The worker-wide executor which runs the task launchers of TaskRunners
+   */
+  public ThreadPoolExecutor getTaskExecutor() {
+    return taskExecutor;
+  }
+
+  /**
+   * @return The worker-wide executor which runs the fetchers of tasks
+   */
+  public ThreadPoolExecutor getFetchExecutor() {
+    return fetchExecutor;
+  }
+
   @Override
   public void handle(TaskRunnerEvent event) {
     LOG.info("======================== Processing " + event.getExecutionBlockId() + " of type " + event.getType());
@@ -184,7 +242,7 @@ public class TaskRunnerManager extends CompositeService implements EventHandler<
       ExecutionBlockContext executionBlockContext =  executionBlockContextMap.remove(event.getExecutionBlockId());
       if(executionBlockContext != null){
         try {
-          TupleCache.getInstance().removeBroadcastCache(event.getExecutionBlockId());
+          BroadcastTableCache.getInstance().removeBroadcastCache(event.getExecutionBlockId());
           executionBlockContext.reportExecutionBlock(event.getExecutionBlockId());
           workerContext.getHashShuffleAppenderManager().close(event.getExecutionBlockId());
           workerContext.getTaskHistoryWriter().flushTaskHistories();
@@ -68,7 +68,7 @@ if (queryHistory == null) {
   } else {
 %>
   <table width="100%" border="1" class="border_table">
-    <tr><th>ID</th><th>State</th><th>Started</th><th>Finished</th><th>Running time</th><th>Progress</th><th>Succeeded/Total</th><th>Failed/Killed</th></tr>
+    <tr><th>ID</th><th>State</th><th>Started</th><th>Finished</th><th>Running time</th><th>Progress</th><th>Succeeded/Total</th><th>Failed/Killed</th><th>Avg Scheduling/Running (ms)</th></tr>
 <%
     for(StageHistory eachStage: stageHistories) {
         String detailLink = "querytasks.jsp?queryId=" + queryId + "&ebid=" + eachStage.getExecutionBlockId() + "&startTime=" + startTime;
@@ -82,6 +82,7 @@ if (queryHistory == null) {
     <td align='center'><%=JSPUtil.percentFormat(eachStage.getProgress())%>%</td>
     <td align='center'><%=eachStage.getSucceededObjectCount()%> / <%=eachStage.getTotalScheduledObjectsCount()%></td>
     <td align='center'><%=eachStage.getFailedObjectCount()%> / <%=eachStage.getKilledObjectCount()%></td>
+    <td align='center'><%=eachStage.getAvgTaskSchedulingTime()%> / <%=eachStage.getAvgTaskRunningTime()%></td>
   </tr>
   <%
     }  //end of for
@@ -0,0 +1,113 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.codegen;
+
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.plan.expr.BinaryEval;
+import org.apache.tajo.plan.expr.ConstEval;
+import org.apache.tajo.plan.expr.EvalNode;
+import org.apache.tajo.plan.expr.EvalType;
+import org.apache.tajo.plan.expr.FieldEval;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCompiledEvalCache {
+  private static Schema schema = newSchema();
+
+  private static Schema newSchema() {
+    Schema schema = new Schema();
+    schema.addColumn(new Column("col1", Type.INT4));
+    schema.addColumn(new Column("col2", Type.INT8));
+    return schema;
+  }
+
+  private static EvalNode plus(String column, int value) {
+    return new BinaryEval(EvalType.PLUS, new FieldEval(schema.getColumn(column)),
+        new ConstEval(DatumFactory.createInt4(value)));
+  }
+
+  @Test
+  public void testCacheHitAcrossQueries() {
+    CompiledEvalCache cache = new CompiledEvalCache(10);
+
+    Tuple tuple = new VTuple(2);
+    tuple.put(0, DatumFactory.createInt4(1));
+    tuple.put(1, DatumFactory.createInt8(2));
+
+    // the equivalent expressions of two different queries
+    EvalNode compiled1 = cache.compile(schema, plus("col1", 10));
+    EvalNode compiled2 = cache.compile(newSchema(), plus("col1", 10));
+    assertEquals(1, cache.getMisses());
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.size());
+
+    // each lookup returns a new instance of the same class
+    assertNotSame(compiled1, compiled2);
+    assertSame(compiled1.getClass(), compiled2.getClass());
+    assertEquals(11, compiled1.eval(schema, tuple).asInt4());
+    assertEquals(11, compiled2.eval(schema, tuple).asInt4());
+
+    // a different constant or a different column is compiled again
+    EvalNode compiled3 = cache.compile(schema, plus("col1", 20));
+    EvalNode compiled4 = cache.compile(schema, plus("col2", 10));
+    assertEquals(3, cache.getMisses());
+    assertNotSame(compiled1.getClass(), compiled3.getClass());
+    assertEquals(21, compiled3.eval(schema, tuple).asInt4());
+    assertEquals(12, compiled4.eval(schema, tuple).asInt8());
+  }
+
+  @Test
+  public void testEviction() {
+    CompiledEvalCache cache = new CompiledEvalCache(1);
+
+    Tuple tuple = new VTuple(2);
+    tuple.put(0, DatumFactory.createInt4(1));
+    tuple.put(1, DatumFactory.createInt8(2));
+
+    EvalNode compiled1 = cache.compile(schema, plus("col1", 1));
+    cache.compile(schema, plus("col1", 2));
+    assertEquals(1, cache.size());
+    assertEquals(1, cache.getEvictions());
+
+    // an instance of an evicted class still works
+    assertEquals(2, compiled1.eval(schema, tuple).asInt4());
+
+    // the evicted expression is compiled again
+    cache.compile(schema, plus("col1", 1));
+    assertEquals(3, cache.getMisses());
+    assertEquals(0, cache.getHits());
+
+    cache.clear();
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testCanonicalKey() {
+    assertEquals(CompiledEvalCache.getCanonicalKey(schema, plus("col1", 1)),
+        CompiledEvalCache.getCanonicalKey(newSchema(), plus("col1", 1)));
+    assertFalse(CompiledEvalCache.getCanonicalKey(schema, plus("col1", 1)).equals(
+        CompiledEvalCache.getCanonicalKey(schema, plus("col1", 2))));
+  }
+}
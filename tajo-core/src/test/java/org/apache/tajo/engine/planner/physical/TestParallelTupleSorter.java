@@ -0,0 +1,128 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.SortSpec;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.storage.BaseTupleComparator;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class TestParallelTupleSorter {
+  private static ExecutorService executor;
+  private static Schema schema;
+
+  @BeforeClass
+  public static void setUp() {
+    executor = Executors.newFixedThreadPool(4);
+    schema = new Schema();
+    schema.addColumn("id", Type.INT4);
+    schema.addColumn("name", Type.TEXT);
+    schema.addColumn("day", Type.DATE);
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    executor.shutdown();
+  }
+
+  private static List<Tuple> createTuples(int num) {
+    Random random = new Random(num);
+    List<Tuple> tuples = new ArrayList<Tuple>(num);
+    for (int i = 0; i < num; i++) {
+      Tuple tuple = new VTuple(3);
+      tuple.put(0, random.nextInt(20) == 0 ? NullDatum.get() : DatumFactory.createInt4(random.nextInt(1000)));
+      tuple.put(1, DatumFactory.createText("name_" + random.nextInt(100)));
+      tuple.put(2, DatumFactory.createDate(2015, 1 + random.nextInt(12), 1 + random.nextInt(28)));
+      tuples.add(tuple);
+    }
+    return tuples;
+  }
+
+  private static void assertSorted(SortSpec [] sortSpecs, int parallelism, int num) throws Exception {
+    List<Tuple> tuples = createTuples(num);
+    List<Tuple> expected = new ArrayList<Tuple>(tuples);
+    BaseTupleComparator comparator = new BaseTupleComparator(schema, sortSpecs);
+    Collections.sort(expected, comparator);
+
+    new ParallelTupleSorter(executor, parallelism, schema, sortSpecs).sort(tuples);
+    assertEquals(expected.size(), tuples.size());
+    for (int i = 0; i < tuples.size(); i++) {
+      assertEquals(0, comparator.compare(expected.get(i), tuples.get(i)));
+    }
+  }
+
+  @Test
+  public void testParallelSort() throws Exception {
+    int num = ParallelTupleSorter.MIN_TUPLES_PER_TASK * 5 + 7;
+    SortSpec [] sortSpecs = new SortSpec[] {
+        new SortSpec(schema.getColumn("id"), false, true),
+        new SortSpec(schema.getColumn("name"), true, false)};
+    for (int parallelism = 1; parallelism <= 5; parallelism++) {
+      assertSorted(sortSpecs, parallelism, num);
+    }
+  }
+
+  @Test
+  public void testWithoutNormalizedKeys() throws Exception {
+    SortSpec [] sortSpecs = new SortSpec[] {
+        new SortSpec(schema.getColumn("day"), true, false),
+        new SortSpec(schema.getColumn("id"), true, false)};
+    assertSorted(sortSpecs, 3, ParallelTupleSorter.MIN_TUPLES_PER_TASK * 3);
+  }
+
+  @Test
+  public void testStability() throws Exception {
+    List<Tuple> tuples = new ArrayList<Tuple>();
+    for (int i = 0; i < ParallelTupleSorter.MIN_TUPLES_PER_TASK * 4; i++) {
+      Tuple tuple = new VTuple(3);
+      tuple.put(0, DatumFactory.createInt4(i % 2));
+      tuple.put(1, DatumFactory.createText("name"));
+      tuple.put(2, DatumFactory.createDate(2015, 1, 1));
+      tuples.add(tuple);
+    }
+    List<Tuple> original = new ArrayList<Tuple>(tuples);
+
+    new ParallelTupleSorter(executor, 4, schema,
+        new SortSpec[] {new SortSpec(schema.getColumn("id"), true, false)}).sort(tuples);
+
+    // tuples with equal keys keep their input order
+    int half = tuples.size() / 2;
+    for (int i = 0; i < half; i++) {
+      assertSame(original.get(i * 2), tuples.get(i));
+      assertSame(original.get(i * 2 + 1), tuples.get(half + i));
+    }
+  }
+}
@@ -54,6 +54,7 @@ import org.apache.tajo.session.Session;
 import org.apache.tajo.storage.*;
 import org.apache.tajo.storage.fragment.FileFragment;
 import org.apache.tajo.storage.fragment.Fragment;
+import org.apache.tajo.storage.vector.RowBatch;
 import org.apache.tajo.unit.StorageUnit;
 import org.apache.tajo.util.CommonTestingUtil;
 import org.apache.tajo.util.KeyValueSet;
@@ -65,6 +66,7 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -326,6 +328,146 @@ public class TestPhysicalPlanner {
     assertEquals(10, i);
   }
 
+  private List<String> executeInRowOrBatch(TableDesc table, String query, boolean batchMode, String testName)
+      throws IOException, PlanningException {
+    FileFragment[] frags = FileStorageManager.splitNG(conf, table.getName(), table.getMeta(),
+        new Path(table.getPath()), Integer.MAX_VALUE);
+    Path workDir = CommonTestingUtil.getTestDir(TajoTestingCluster.DEFAULT_TEST_DIRECTORY + "/" + testName);
+    QueryContext queryContext = new QueryContext(conf);
+    queryContext.setBool(SessionVars.VECTORIZED_EXECUTION, batchMode);
+    TaskAttemptContext ctx = new TaskAttemptContext(queryContext,
+        LocalTajoTestingUtility.newTaskAttemptId(masterPlan),
+        new FileFragment[] { frags[0] }, workDir);
+    ctx.setEnforcer(new Enforcer());
+    Expr expr = analyzer.parse(query);
+    LogicalPlan plan = planner.createPlan(defaultContext, expr);
+    optimizer.optimize(plan);
+    LogicalNode rootNode = plan.getRootBlock().getRoot();
+
+    PhysicalPlanner phyPlanner = new PhysicalPlannerImpl(conf);
+    PhysicalExec exec = phyPlanner.createPlan(ctx, rootNode);
+    exec.init();
+
+    List<String> rows = new ArrayList<String>();
+    if (batchMode) {
+      RowBatch batch;
+      Tuple tuple = new VTuple(exec.getSchema().size());
+      while ((batch = exec.nextBatch()) != null) {
+        for (int i = 0; i < batch.getSelectedSize(); i++) {
+          batch.getRow(batch.getSelectedRow(i), tuple);
+          rows.add(tuple.toString());
+        }
+      }
+    } else {
+      Tuple tuple;
+      while ((tuple = exec.next()) != null) {
+        rows.add(tuple.toString());
+      }
+    }
+    exec.close();
+    Collections.sort(rows);
+    return rows;
+  }
+
+  @Test
+  public final void testNextBatch() throws IOException, PlanningException {
+    // a scan with a filter and a projection, which are evaluated by vector expressions
+    String scanQuery = "select empid + 1, name from employee where empid > 10 and empid < 90";
+    List<String> expected = executeInRowOrBatch(employee, scanQuery, false, "testNextBatch");
+    assertEquals(79, expected.size());
+    assertEquals(expected, executeInRowOrBatch(employee, scanQuery, true, "testNextBatch"));
+
+    // a filter and a projection over a groupby, which fills row batches with its rows
+    String groupbyQuery = "select deptname, total + 1 from "
+        + "(select deptname, sum(score) as total from score group by deptname) t where total > 5";
+    expected = executeInRowOrBatch(score, groupbyQuery, false, "testNextBatch");
+    assertEquals(5, expected.size());
+    assertEquals(expected, executeInRowOrBatch(score, groupbyQuery, true, "testNextBatch"));
+  }
+
+  /**
+   * It runs the hash aggregation of QUERIES[7] by the given executor, and it checks the groups.
+   *
+   * @param spill If true, every new group makes the hash table spilled.
+   */
+  private void testHashGroupBy(String testName, Class<? extends HashAggregateExec> execClass, boolean spill)
+      throws IOException, PlanningException {
+    FileFragment[] frags = FileStorageManager.splitNG(conf, "default.score", score.getMeta(), new Path(score.getPath()),
+        Integer.MAX_VALUE);
+    Path workDir = CommonTestingUtil.getTestDir(TajoTestingCluster.DEFAULT_TEST_DIRECTORY + "/" + testName);
+    Expr context = analyzer.parse(QUERIES[7]);
+    LogicalPlan plan = planner.createPlan(defaultContext, context);
+    optimizer.optimize(plan);
+    LogicalNode rootNode = plan.getRootBlock().getRoot();
+
+    GroupbyNode groupByNode = PlannerUtil.findTopNode(rootNode, NodeType.GROUP_BY);
+    Enforcer enforcer = new Enforcer();
+    enforcer.enforceHashAggregation(groupByNode.getPID());
+    // sum, max and min of an integer column are supported by primitive accumulators
+    QueryContext queryContext = new QueryContext(conf);
+    queryContext.setBool(SessionVars.HASH_GROUPBY_ACCUMULATOR_ENABLED,
+        execClass == AccumulatorHashAggregateExec.class);
+    TaskAttemptContext ctx = new TaskAttemptContext(queryContext,
+        LocalTajoTestingUtility.newTaskAttemptId(masterPlan),
+        new FileFragment[] { frags[0] }, workDir);
+    ctx.setEnforcer(enforcer);
+
+    PhysicalPlanner phyPlanner = new PhysicalPlannerImpl(conf);
+    PhysicalExec exec = phyPlanner.createPlan(ctx, rootNode);
+
+    HashAggregateExec hashAgg = PhysicalPlanUtil.findExecutor(exec, execClass);
+    assertNotNull(hashAgg);
+    assertEquals(execClass, hashAgg.getClass());
+    if (spill) {
+      hashAgg.setMemoryBudget(1);
+    }
+
+    exec.init();
+    assertEquals(10, verifyHashGroupBy(exec));
+    if (spill) {
+      assertTrue(hashAgg.getInputStats().getNumSpills() > 0);
+    } else {
+      exec.rescan();
+      assertEquals(10, verifyHashGroupBy(exec));
+    }
+    exec.close();
+  }
+
+  /**
+   * @return the number of groups, each of which should be returned only once
+   */
+  private static int verifyHashGroupBy(PhysicalExec exec) throws IOException {
+    int i = 0;
+    Tuple tuple;
+    Tuple prevKey = null;
+    while ((tuple = exec.next()) != null) {
+      Tuple key = new VTuple(new Datum[] {tuple.get(0), tuple.get(1)});
+      assertFalse(key.equals(prevKey));
+      prevKey = key;
+
+      assertEquals(6, tuple.get(2).asInt4()); // sum
+      assertEquals(3, tuple.get(3).asInt4()); // max
+      assertEquals(1, tuple.get(4).asInt4()); // min
+      i++;
+    }
+    return i;
+  }
+
+  @Test
+  public final void testHashGroupByPlanWithSpill() throws IOException, PlanningException {
+    testHashGroupBy("testHashGroupByPlanWithSpill", HashAggregateExec.class, true);
+  }
+
+  @Test
+  public final void testAccumulatorHashGroupByPlanWithSpill() throws IOException, PlanningException {
+    testHashGroupBy("testAccumulatorHashGroupByPlanWithSpill", AccumulatorHashAggregateExec.class, true);
+  }
+
+  @Test
+  public final void testAccumulatorHashGroupByPlan() throws IOException, PlanningException {
+    testHashGroupBy("testAccumulatorHashGroupByPlan", AccumulatorHashAggregateExec.class, false);
+  }
+
   @Test
   public final void testHashGroupByPlanWithALLField() throws IOException, PlanningException {
     // TODO - currently, this query does not use hash-based group operator.
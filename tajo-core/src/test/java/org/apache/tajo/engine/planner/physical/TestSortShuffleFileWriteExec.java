@@ -0,0 +1,323 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.tajo.LocalTajoTestingUtility;
+import org.apache.tajo.SessionVars;
+import org.apache.tajo.TajoConstants;
+import org.apache.tajo.TajoTestingCluster;
+import org.apache.tajo.algebra.Expr;
+import org.apache.tajo.catalog.*;
+import org.apache.tajo.catalog.proto.CatalogProtos.StoreType;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.engine.parser.SQLAnalyzer;
+import org.apache.tajo.engine.planner.PhysicalPlanner;
+import org.apache.tajo.engine.planner.PhysicalPlannerImpl;
+import org.apache.tajo.engine.planner.enforce.Enforcer;
+import org.apache.tajo.engine.planner.global.DataChannel;
+import org.apache.tajo.engine.planner.global.MasterPlan;
+import org.apache.tajo.engine.query.QueryContext;
+import org.apache.tajo.plan.LogicalOptimizer;
+import org.apache.tajo.plan.LogicalPlan;
+import org.apache.tajo.plan.LogicalPlanner;
+import org.apache.tajo.plan.PlanningException;
+import org.apache.tajo.plan.logical.LogicalNode;
+import org.apache.tajo.storage.*;
+import org.apache.tajo.storage.fragment.FileFragment;
+import org.apache.tajo.unit.StorageUnit;
+import org.apache.tajo.util.CommonTestingUtil;
+import org.apache.tajo.util.Pair;
+import org.apache.tajo.worker.TaskAttemptContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.apache.tajo.TajoConstants.DEFAULT_TABLESPACE_NAME;
+import static org.apache.tajo.plan.serder.PlanProto.ShuffleType.HASH_SHUFFLE;
+import static org.junit.Assert.*;
+
+public class TestSortShuffleFileWriteExec {
+  private TajoConf conf;
+  private TajoTestingCluster util;
+  private final String TEST_PATH = TajoTestingCluster.DEFAULT_TEST_DIRECTORY + "/TestSortShuffleFileWriteExec";
+  private CatalogService catalog;
+  private SQLAnalyzer analyzer;
+  private LogicalPlanner planner;
+  private LogicalOptimizer optimizer;
+  private MasterPlan masterPlan;
+  private Path testDir;
+
+  private final int numTuple = 100000;
+  private final int numLargeTuple = 20;
+  private final int largeTextLength = 300 * StorageUnit.KB;
+
+  private TableDesc employee;
+  private TableDesc largeRows;
+
+  @Before
+  public void setUp() throws Exception {
+    this.conf = new TajoConf();
+    util = new TajoTestingCluster();
+    catalog = util.startCatalogCluster().getCatalog();
+    testDir = CommonTestingUtil.getTestDir(TEST_PATH);
+    catalog.createTablespace(DEFAULT_TABLESPACE_NAME, testDir.toUri().toString());
+    catalog.createDatabase(TajoConstants.DEFAULT_DATABASE_NAME, DEFAULT_TABLESPACE_NAME);
+    conf.setVar(ConfVars.WORKER_TEMPORAL_DIR, testDir.toString());
+
+    Schema schema = new Schema();
+    schema.addColumn("managerid", Type.INT4);
+    schema.addColumn("empid", Type.INT4);
+    schema.addColumn("deptname", Type.TEXT);
+
+    TableMeta employeeMeta = CatalogUtil.newTableMeta(StoreType.CSV);
+    Path employeePath = new Path(testDir, "employee.csv");
+    Appender appender = ((FileStorageManager)StorageManager.getFileStorageManager(conf))
+        .getAppender(employeeMeta, schema, employeePath);
+    appender.init();
+    Tuple tuple = new VTuple(schema.size());
+    for (int i = 0; i < numTuple; i++) {
+      tuple.put(new Datum[] {
+          DatumFactory.createInt4(i % 50),
+          DatumFactory.createInt4(i),
+          DatumFactory.createText("department_" + i),
+      });
+      appender.addTuple(tuple);
+    }
+    appender.flush();
+    appender.close();
+    employee = new TableDesc("default.employee", schema, employeeMeta, employeePath.toUri());
+    catalog.createTable(employee);
+
+    // rows which are larger than a quarter of 1MB buffer
+    Path largeRowsPath = new Path(testDir, "large_rows.csv");
+    appender = ((FileStorageManager)StorageManager.getFileStorageManager(conf))
+        .getAppender(employeeMeta, schema, largeRowsPath);
+    appender.init();
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < largeTextLength; i++) {
+      sb.append((char) ('a' + i % 26));
+    }
+    for (int i = 0; i < numLargeTuple; i++) {
+      tuple.put(new Datum[] {
+          DatumFactory.createInt4(i % 3),
+          DatumFactory.createInt4(i),
+          DatumFactory.createText(sb.toString()),
+      });
+      appender.addTuple(tuple);
+    }
+    appender.flush();
+    appender.close();
+    largeRows = new TableDesc("default.large_rows", schema, employeeMeta, largeRowsPath.toUri());
+    catalog.createTable(largeRows);
+
+    analyzer = new SQLAnalyzer();
+    planner = new LogicalPlanner(catalog);
+    optimizer = new LogicalOptimizer(conf);
+    masterPlan = new MasterPlan(LocalTajoTestingUtility.newQueryId(), null, null);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    CommonTestingUtil.cleanupTestDir(TEST_PATH);
+    util.shutdownCatalogCluster();
+  }
+
+  private TaskAttemptContext createContext(TableDesc table, QueryContext queryContext, int numPartitions,
+                                           String testName) throws IOException {
+    FileFragment[] frags = FileStorageManager.splitNG(conf, table.getName(), table.getMeta(),
+        new Path(table.getPath()), Integer.MAX_VALUE);
+    queryContext.setBool(SessionVars.SORT_SHUFFLE_WRITER_ENABLED, true);
+    TaskAttemptContext ctx = new TaskAttemptContext(queryContext, LocalTajoTestingUtility.newTaskAttemptId(masterPlan),
+        new FileFragment[] { frags[0] }, new Path(testDir, testName));
+    ctx.setEnforcer(new Enforcer());
+
+    DataChannel dataChannel = new DataChannel(masterPlan.newExecutionBlockId(), masterPlan.newExecutionBlockId(),
+        HASH_SHUFFLE, numPartitions);
+    dataChannel.setShuffleKeys(new Column[]{new Column(table.getName() + ".managerid", Type.INT4)});
+    ctx.setDataChannel(dataChannel);
+    return ctx;
+  }
+
+  private SortShuffleFileWriteExec createWriteExec(TaskAttemptContext ctx, TableDesc table)
+      throws IOException, PlanningException {
+    Expr expr = analyzer.parse("select managerid, empid, deptname from " + table.getName());
+    LogicalPlan plan = planner.createPlan(LocalTajoTestingUtility.createDummyContext(conf), expr);
+    LogicalNode rootNode = optimizer.optimize(plan);
+
+    PhysicalPlanner phyPlanner = new PhysicalPlannerImpl(conf);
+    PhysicalExec exec = phyPlanner.createPlan(ctx, rootNode);
+    assertTrue(exec instanceof SortShuffleFileWriteExec);
+    return (SortShuffleFileWriteExec) exec;
+  }
+
+  private static File toFile(Path path) {
+    return new File(path.toUri().getPath());
+  }
+
+  private Scanner getScanner(Schema schema, Path dataPath, long start, long length) throws IOException {
+    FileFragment fragment = new FileFragment("shuffle", dataPath, start, length);
+    return ((FileStorageManager)StorageManager.getFileStorageManager(conf))
+        .getScanner(CatalogUtil.newTableMeta(StoreType.RAW), schema, fragment);
+  }
+
+  /**
+   * It verifies that each partition of the output is a byte range of the data file which contains the rows of
+   * the partition in the input order, and that its pages consist of whole rows.
+   */
+  private void verifyOutput(TaskAttemptContext ctx, Schema schema, int numPartitions, int pageSize,
+                            int expectedRows) throws IOException {
+    Path outputDir = new Path(ctx.getWorkDir(), "output");
+    Path dataPath = new Path(outputDir, SortShuffleIndex.DATA_FILE_NAME);
+    File indexFile = toFile(new Path(outputDir, SortShuffleIndex.INDEX_FILE_NAME));
+    Partitioner partitioner = new HashPartitioner(new int[]{0}, numPartitions);
+
+    long expectedStart = 0;
+    int totalRows = 0;
+    for (int partId = 0; partId < numPartitions; partId++) {
+      Pair<Long, Long> range = SortShuffleIndex.getPartitionRange(indexFile, partId);
+      assertNotNull(range);
+      assertEquals(expectedStart, range.getFirst().longValue());
+      expectedStart += range.getSecond();
+      if (range.getSecond() == 0) {
+        assertFalse(ctx.getPartitionOutputVolume().containsKey(partId));
+        continue;
+      }
+      assertEquals(range.getSecond(), ctx.getPartitionOutputVolume().get(partId));
+
+      // rows of a partition keep the input order
+      Scanner scanner = getScanner(schema, dataPath, range.getFirst(), range.getSecond());
+      scanner.init();
+      Tuple tuple;
+      int rows = 0;
+      int prevId = -1;
+      while ((tuple = scanner.next()) != null) {
+        assertEquals(partId, partitioner.getPartition(tuple));
+        assertTrue(prevId < tuple.get(1).asInt4());
+        prevId = tuple.get(1).asInt4();
+        rows++;
+      }
+      scanner.close();
+      totalRows += rows;
+
+      // pages are contiguous, and each page consists of whole rows
+      List<Pair<Long, Integer>> pages = ctx.getShuffleFilePages(partId);
+      long pagePos = range.getFirst();
+      int pageRows = 0;
+      for (Pair<Long, Integer> page : pages) {
+        assertEquals(pagePos, page.getFirst().longValue());
+        pagePos += page.getSecond();
+
+        scanner = getScanner(schema, dataPath, page.getFirst(), page.getSecond());
+        scanner.init();
+        int rowsInPage = 0;
+        while (scanner.next() != null) {
+          rowsInPage++;
+        }
+        scanner.close();
+        assertTrue(rowsInPage > 0);
+        assertTrue(rowsInPage == 1 || page.getSecond() <= pageSize);
+        pageRows += rowsInPage;
+      }
+      assertEquals(range.getFirst() + range.getSecond(), pagePos);
+      assertEquals(rows, pageRows);
+    }
+    assertEquals(toFile(dataPath).length(), expectedStart);
+    assertEquals(expectedRows, totalRows);
+    assertEquals(expectedRows, ctx.getResultStats().getNumRows().longValue());
+
+    // spill files are removed
+    for (File file : toFile(ctx.getWorkDir()).listFiles()) {
+      assertFalse(file.getName(), file.getName().startsWith("sort-shuffle-spill-"));
+    }
+  }
+
+  @Test
+  public final void testCountingSort() throws IOException, PlanningException {
+    int numPartitions = 7;
+    TaskAttemptContext ctx = createContext(employee, new QueryContext(conf), numPartitions, "testCountingSort");
+    SortShuffleFileWriteExec exec = createWriteExec(ctx, employee);
+    exec.init();
+    exec.next();
+    exec.close();
+
+    assertEquals(0, exec.getNumSpills());
+    verifyOutput(ctx, exec.getSchema(), numPartitions,
+        conf.getIntVar(ConfVars.SHUFFLE_HASH_APPENDER_PAGE_VOLUME) * StorageUnit.MB, numTuple);
+  }
+
+  @Test
+  public final void testSpillAndMerge() throws IOException, PlanningException {
+    int numPartitions = 7;
+    QueryContext queryContext = new QueryContext(conf);
+    queryContext.setLong(SessionVars.SORT_SHUFFLE_WRITER_BUFFER_SIZE, 1);
+    TaskAttemptContext ctx = createContext(employee, queryContext, numPartitions, "testSpillAndMerge");
+    SortShuffleFileWriteExec exec = createWriteExec(ctx, employee);
+    exec.init();
+    exec.next();
+    exec.close();
+
+    assertTrue(exec.getNumSpills() > 1);
+    verifyOutput(ctx, exec.getSchema(), numPartitions,
+        conf.getIntVar(ConfVars.SHUFFLE_HASH_APPENDER_PAGE_VOLUME) * StorageUnit.MB, numTuple);
+  }
+
+  @Test
+  public final void testPageBoundaries() throws IOException, PlanningException {
+    // a single partition is larger than a page
+    int numPartitions = 1;
+    TajoConf pageConf = new TajoConf(conf);
+    pageConf.setIntVar(ConfVars.SHUFFLE_HASH_APPENDER_PAGE_VOLUME, 1);
+    QueryContext queryContext = new QueryContext(pageConf);
+    queryContext.setLong(SessionVars.SORT_SHUFFLE_WRITER_BUFFER_SIZE, 1);
+    TaskAttemptContext ctx = createContext(employee, queryContext, numPartitions, "testPageBoundaries");
+    SortShuffleFileWriteExec exec = createWriteExec(ctx, employee);
+    exec.init();
+    exec.next();
+    exec.close();
+
+    assertTrue(ctx.getShuffleFilePages(0).size() > 1);
+    verifyOutput(ctx, exec.getSchema(), numPartitions, StorageUnit.MB, numTuple);
+  }
+
+  @Test
+  public final void testLargeRows() throws IOException, PlanningException {
+    // a row does not fit in the remaining buffer before the buffer is full
+    int numPartitions = 3;
+    QueryContext queryContext = new QueryContext(conf);
+    queryContext.setLong(SessionVars.SORT_SHUFFLE_WRITER_BUFFER_SIZE, 1);
+    TaskAttemptContext ctx = createContext(largeRows, queryContext, numPartitions, "testLargeRows");
+    SortShuffleFileWriteExec exec = createWriteExec(ctx, largeRows);
+    exec.init();
+    exec.next();
+    exec.close();
+
+    assertTrue(exec.getNumSpills() >= numLargeTuple / 3);
+    verifyOutput(ctx, exec.getSchema(), numPartitions,
+        conf.getIntVar(ConfVars.SHUFFLE_HASH_APPENDER_PAGE_VOLUME) * StorageUnit.MB, numLargeTuple);
+  }
+}
@@ -98,6 +98,21 @@ public class TestGroupByQuery extends QueryTestCaseBase {
     cleanupQuery(res);
   }
 
+  @Test
+  public final void testGroupByWithSortShuffleWriter() throws Exception {
+    Map<String, String> variables = new HashMap<String, String>();
+    variables.put(SessionVars.SORT_SHUFFLE_WRITER_ENABLED.keyname(), "true");
+    client.updateSessionVariables(variables);
+
+    try {
+      ResultSet res = executeString("select l_orderkey as gkey from lineitem group by gkey order by gkey");
+      assertResultSet(res, "testGroupBy3.result");
+      cleanupQuery(res);
+    } finally {
+      client.unsetSessionVariables(TUtil.newList(SessionVars.SORT_SHUFFLE_WRITER_ENABLED.keyname()));
+    }
+  }
+
   @Test
   public final void testGroupBy4() throws Exception {
     // select l_orderkey as gkey, count(1) as unique_key from lineitem group by lineitem.l_orderkey;
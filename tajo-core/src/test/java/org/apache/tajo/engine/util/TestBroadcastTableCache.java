@@ -0,0 +1,200 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.util;
+
+import org.apache.tajo.ExecutionBlockId;
+import org.apache.tajo.QueryIdFactory;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.engine.utils.BroadcastTableCache;
+import org.apache.tajo.engine.utils.BroadcastTableCache.BroadcastTable;
+import org.apache.tajo.engine.utils.TupleCacheKey;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
+import org.apache.tajo.tuple.offheap.OffHeapJoinHashTable;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TestBroadcastTableCache {
+  private static final int [] KEY_IDS = new int[] {0};
+  private static Schema schema = new Schema();
+  static {
+    schema.addColumn("id", Type.INT4);
+    schema.addColumn("name", Type.TEXT);
+  }
+
+  private static class CountingLoader implements BroadcastTableCache.Loader {
+    final AtomicInteger loadNum = new AtomicInteger();
+    final int rowNum;
+
+    CountingLoader(int rowNum) {
+      this.rowNum = rowNum;
+    }
+
+    @Override
+    public void load(OffHeapJoinHashTable table) throws IOException {
+      loadNum.incrementAndGet();
+      for (int i = 0; i < rowNum; i++) {
+        Tuple tuple = new VTuple(2);
+        tuple.put(0, DatumFactory.createInt4(i % 10));
+        tuple.put(1, DatumFactory.createText("name_" + i));
+        table.put(tuple);
+      }
+    }
+  }
+
+  private static ExecutionBlockId newEbId() {
+    return QueryIdFactory.newExecutionBlockId(QueryIdFactory.newQueryId(System.currentTimeMillis(), 0));
+  }
+
+  @Test
+  public void testSharedByConcurrentTasks() throws Exception {
+    final BroadcastTableCache cache = new BroadcastTableCache(Long.MAX_VALUE);
+    ExecutionBlockId ebId = newEbId();
+    final TupleCacheKey cacheKey = new TupleCacheKey(ebId.toString(), "TestTable", "test");
+    final CountingLoader loader = new CountingLoader(1000);
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    Future<Integer> [] futures = new Future[8];
+    for (int i = 0; i < futures.length; i++) {
+      futures[i] = executor.submit(new Callable<Integer>() {
+        @Override
+        public Integer call() throws Exception {
+          BroadcastTable table = cache.acquire(cacheKey, schema, KEY_IDS, loader);
+          OffHeapJoinHashTable.Probe probe = table.newProbe();
+          int matched = 0;
+          Tuple probeTuple = new VTuple(1);
+          for (int key = 0; key < 20; key++) {
+            probeTuple.put(0, DatumFactory.createInt4(key));
+            Iterator<Tuple> rows = probe.get(probeTuple, new int[] {0});
+            while (rows != null && rows.hasNext()) {
+              assertEquals(key, rows.next().getInt4(0));
+              matched++;
+            }
+          }
+          probe.release();
+          table.release();
+          return matched;
+        }
+      });
+    }
+    for (Future<Integer> future : futures) {
+      assertEquals(1000, (int) future.get());
+    }
+    executor.shutdown();
+
+    // the relation is loaded only once
+    assertEquals(1, loader.loadNum.get());
+    assertEquals(1, cache.getMisses());
+    assertEquals(7, cache.getHits());
+    assertTrue(cache.getUsedBytes() > 0);
+
+    // unreferenced tables are kept until the execution block is finished
+    assertTrue(cache.contains(cacheKey, KEY_IDS));
+    cache.removeBroadcastCache(ebId);
+    assertFalse(cache.contains(cacheKey, KEY_IDS));
+    assertEquals(0, cache.getUsedBytes());
+  }
+
+  @Test
+  public void testReleaseAfterRemoval() throws Exception {
+    BroadcastTableCache cache = new BroadcastTableCache(Long.MAX_VALUE);
+    ExecutionBlockId ebId = newEbId();
+    TupleCacheKey cacheKey = new TupleCacheKey(ebId.toString(), "TestTable", "test");
+
+    BroadcastTable table = cache.acquire(cacheKey, schema, KEY_IDS, new CountingLoader(100));
+    cache.removeBroadcastCache(ebId);
+    assertEquals(0, cache.size());
+
+    // the table in use is still valid
+    assertEquals(100, table.size());
+    assertTrue(cache.getUsedBytes() > 0);
+
+    table.release();
+    assertEquals(0, cache.getUsedBytes());
+  }
+
+  @Test
+  public void testLRUEviction() throws Exception {
+    CountingLoader loader = new CountingLoader(1000);
+    BroadcastTableCache cache = new BroadcastTableCache(Long.MAX_VALUE);
+    ExecutionBlockId ebId = newEbId();
+    TupleCacheKey key1 = new TupleCacheKey(ebId.toString(), "Table1", "test");
+    TupleCacheKey key2 = new TupleCacheKey(ebId.toString(), "Table2", "test");
+    TupleCacheKey key3 = new TupleCacheKey(ebId.toString(), "Table3", "test");
+
+    BroadcastTable table1 = cache.acquire(key1, schema, KEY_IDS, loader);
+    long tableBytes = table1.getMemoryBytes();
+    table1.release();
+    // the cache can hold only two tables
+    cache.setMaxBytes(tableBytes * 2 + tableBytes / 2);
+
+    cache.acquire(key2, schema, KEY_IDS, loader).release();
+    // key1 becomes the most recently used one
+    cache.acquire(key1, schema, KEY_IDS, loader).release();
+    BroadcastTable table3 = cache.acquire(key3, schema, KEY_IDS, loader);
+
+    assertEquals(1, cache.getEvictions());
+    assertTrue(cache.contains(key1, KEY_IDS));
+    assertFalse(cache.contains(key2, KEY_IDS));
+    assertTrue(cache.contains(key3, KEY_IDS));
+
+    // tables in use are never evicted
+    cache.setMaxBytes(0);
+    assertTrue(cache.contains(key3, KEY_IDS));
+    assertFalse(cache.contains(key1, KEY_IDS));
+    table3.release();
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getUsedBytes());
+  }
+
+  @Test
+  public void testLoadFailure() throws Exception {
+    BroadcastTableCache cache = new BroadcastTableCache(Long.MAX_VALUE);
+    TupleCacheKey cacheKey = new TupleCacheKey(newEbId().toString(), "TestTable", "test");
+
+    try {
+      cache.acquire(cacheKey, schema, KEY_IDS, new BroadcastTableCache.Loader() {
+        @Override
+        public void load(OffHeapJoinHashTable table) throws IOException {
+          throw new IOException("failed");
+        }
+      });
+      fail("IOException should be thrown");
+    } catch (IOException e) {
+      assertEquals("failed", e.getMessage());
+    }
+    assertEquals(0, cache.size());
+
+    // the next task loads the table again
+    BroadcastTable table = cache.acquire(cacheKey, schema, KEY_IDS, new CountingLoader(10));
+    assertEquals(10, table.size());
+    table.release();
+  }
+}
@@ -0,0 +1,162 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.vector;
+
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.plan.Target;
+import org.apache.tajo.plan.expr.*;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
+import org.apache.tajo.storage.vector.ColumnVector;
+import org.apache.tajo.storage.vector.RowBatch;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestVectorExpression {
+  private static final int CAPACITY = 16;
+  private static Schema schema;
+  private static List<Tuple> rows = new ArrayList<Tuple>();
+
+  static {
+    schema = new Schema();
+    schema.addColumn(new Column("col1", Type.INT4));
+    schema.addColumn(new Column("col2", Type.INT8));
+    schema.addColumn(new Column("col3", Type.FLOAT8));
+    schema.addColumn(new Column("col4", Type.TEXT));
+
+    for (int i = 0; i < 10; i++) {
+      Tuple tuple = new VTuple(4);
+      tuple.put(0, i % 4 == 0 ? NullDatum.get() : DatumFactory.createInt4(i));
+      tuple.put(1, DatumFactory.createInt8(i * 10));
+      tuple.put(2, i % 3 == 0 ? NullDatum.get() : DatumFactory.createFloat8(i * 0.5));
+      tuple.put(3, DatumFactory.createText("text" + (i % 3)));
+      rows.add(tuple);
+    }
+  }
+
+  private static RowBatch newBatch() {
+    RowBatch batch = new RowBatch(schema, CAPACITY, RowBatch.allColumnIds(schema));
+    for (Tuple tuple : rows) {
+      batch.addRow(tuple);
+    }
+    return batch;
+  }
+
+  private static FieldEval field(String name) {
+    return new FieldEval(schema.getColumn(name));
+  }
+
+  private static ConstEval constant(Datum datum) {
+    return new ConstEval(datum);
+  }
+
+  private static void assertSameResults(EvalNode eval) {
+    RowBatch batch = newBatch();
+    ColumnVector result = new VectorExpressionBuilder(schema, CAPACITY).build(eval).evaluate(batch);
+    for (int i = 0; i < rows.size(); i++) {
+      assertEquals(eval.toString() + " at " + i, eval.eval(schema, rows.get(i)), result.getDatum(i));
+    }
+  }
+
+  @Test
+  public void testArithmetic() {
+    BinaryEval plus = new BinaryEval(EvalType.PLUS, field("col1"), field("col2"));
+    assertSameResults(plus);
+    assertSameResults(new BinaryEval(EvalType.MULTIPLY, field("col1"), constant(DatumFactory.createInt4(3))));
+    assertSameResults(new BinaryEval(EvalType.MINUS, field("col3"), field("col1")));
+    assertSameResults(new BinaryEval(EvalType.PLUS, field("col3"), constant(DatumFactory.createFloat8(1.5))));
+  }
+
+  @Test
+  public void testComparison() {
+    assertSameResults(new BinaryEval(EvalType.LTH, field("col1"), constant(DatumFactory.createInt4(5))));
+    assertSameResults(new BinaryEval(EvalType.GEQ, field("col2"), field("col1")));
+    assertSameResults(new BinaryEval(EvalType.EQUAL, field("col3"), constant(DatumFactory.createFloat8(1.0))));
+    assertSameResults(new BinaryEval(EvalType.NOT_EQUAL, field("col3"), field("col1")));
+    assertSameResults(new BinaryEval(EvalType.EQUAL, field("col4"), constant(DatumFactory.createText("text1"))));
+  }
+
+  @Test
+  public void testLogical() {
+    EvalNode left = new BinaryEval(EvalType.GTH, field("col1"), constant(DatumFactory.createInt4(2)));
+    EvalNode right = new BinaryEval(EvalType.LTH, field("col3"), constant(DatumFactory.createFloat8(3.0)));
+    assertSameResults(new BinaryEval(EvalType.AND, left, right));
+    assertSameResults(new BinaryEval(EvalType.OR, left, right));
+    assertSameResults(new NotEval(left));
+    assertSameResults(new IsNullEval(false, field("col1")));
+    assertSameResults(new IsNullEval(true, field("col3")));
+  }
+
+  @Test
+  public void testFallback() {
+    EvalNode like = new LikePredicateEval(false, field("col4"), constant(DatumFactory.createText("%1")), false);
+    VectorExpressionBuilder builder = new VectorExpressionBuilder(schema, CAPACITY);
+    VectorExpression expr = builder.build(new BinaryEval(EvalType.AND, like,
+        new BinaryEval(EvalType.GTH, field("col2"), constant(DatumFactory.createInt8(10)))));
+    assertEquals(1, builder.getFallbackNum());
+
+    RowBatch batch = newBatch();
+    assertEquals(2, VectorExpression.filter(batch, expr));
+    assertEquals(4, batch.getSelectedRow(0));
+    assertEquals(7, batch.getSelectedRow(1));
+  }
+
+  @Test
+  public void testFilterAndProject() {
+    RowBatch batch = newBatch();
+    VectorExpressionBuilder builder = new VectorExpressionBuilder(schema, CAPACITY);
+
+    // col1 is null for 0, 4 and 8
+    VectorExpression predicate = builder.build(new BinaryEval(EvalType.GTH, field("col1"),
+        constant(DatumFactory.createInt4(1))));
+    assertEquals(6, VectorExpression.filter(batch, predicate));
+
+    // the selection is narrowed again
+    predicate = builder.build(new BinaryEval(EvalType.LEQ, field("col2"), constant(DatumFactory.createInt8(60))));
+    assertEquals(4, VectorExpression.filter(batch, predicate));
+    assertEquals(0, builder.getFallbackNum());
+
+    Schema outSchema = new Schema();
+    outSchema.addColumn(new Column("sum", Type.INT8));
+    outSchema.addColumn(new Column("col4", Type.TEXT));
+    Target [] targets = new Target[] {
+        new Target(new BinaryEval(EvalType.PLUS, field("col1"), field("col2")), "sum"),
+        new Target(field("col4"))
+    };
+    RowBatch projected = new VectorizedProjector(schema, outSchema, targets, CAPACITY).project(batch);
+    assertEquals(4, projected.getSelectedSize());
+
+    int [] expected = new int[] {2, 3, 5, 6};
+    Tuple tuple = new VTuple(2);
+    for (int i = 0; i < projected.getSelectedSize(); i++) {
+      projected.getRow(projected.getSelectedRow(i), tuple);
+      assertEquals(expected[i] * 11, tuple.getInt8(0));
+      assertEquals("text" + (expected[i] % 3), tuple.getText(1));
+    }
+  }
+}
@@ -170,6 +170,120 @@ public class TestRepartitioner {
     }
   }
 
+  @Test
+  public void testCoalesceFetchesByVolumes() {
+    Map<Integer, FetchGroupMeta> fetchGroups = Maps.newHashMap();
+    String tableName = "test1";
+
+    ExecutionBlockId ebId = new ExecutionBlockId(LocalTajoTestingUtility.newQueryId(), 0);
+    FetchImpl [] fetches = new FetchImpl[12];
+    for (int i = 0; i < 12; i++) {
+      fetches[i] = new FetchImpl(new Task.PullHost("localhost", 10000 + i), HASH_SHUFFLE, ebId, i / 2);
+    }
+
+    int [] VOLUMES = {30, 50, 10, 120, 40, 70};
+
+    for (int i = 0; i < 12; i += 2) {
+      fetchGroups.put(i / 2, new FetchGroupMeta(VOLUMES[i / 2], fetches[i]).addFetche(fetches[i + 1]));
+    }
+
+    Pair<Long [], Map<String, List<FetchImpl>>[]> results;
+
+    // adjacent partitions are coalesced, and a partition larger than the target is not split
+    results = Repartitioner.makeCoalescedFetchImpl(fetchGroups, tableName, 100);
+    long expected [] = {90, 120, 40, 70};
+    assertFetchVolumes(expected, results.getFirst());
+    assertFetchImpl(fetches, results.getSecond());
+    for (FetchImpl fetch : results.getSecond()[0].get(tableName)) {
+      assertTrue(fetch.getPartitionId() <= 2);
+    }
+
+    results = Repartitioner.makeCoalescedFetchImpl(fetchGroups, tableName, 1000);
+    long expected0 [] = {320};
+    assertFetchVolumes(expected0, results.getFirst());
+    assertFetchImpl(fetches, results.getSecond());
+
+    results = Repartitioner.makeCoalescedFetchImpl(fetchGroups, tableName, 1);
+    long expected1 [] = {30, 50, 10, 120, 40, 70};
+    assertFetchVolumes(expected1, results.getFirst());
+    assertFetchImpl(fetches, results.getSecond());
+  }
+
+  @Test
+  public void testFindSkewedPartitions() {
+    QueryId queryId = LocalTajoTestingUtility.newQueryId();
+    ExecutionBlockId left = new ExecutionBlockId(queryId, 1);
+    ExecutionBlockId right = new ExecutionBlockId(queryId, 2);
+
+    long [] leftVolumes = {10, 12, 1000, 11, 9};
+    long [] rightVolumes = {10, 10, 2000, 500, 10};
+    Map<Integer, Map<ExecutionBlockId, List<IntermediateEntry>>> hashEntries =
+        new HashMap<Integer, Map<ExecutionBlockId, List<IntermediateEntry>>>();
+    for (int i = 0; i < leftVolumes.length; i++) {
+      Map<ExecutionBlockId, List<IntermediateEntry>> entries = new HashMap<ExecutionBlockId, List<IntermediateEntry>>();
+      entries.put(left, TUtil.newList(new IntermediateEntry(-1, -1, i, new Task.PullHost("host1", 1),
+          leftVolumes[i])));
+      entries.put(right, TUtil.newList(new IntermediateEntry(-1, -1, i, new Task.PullHost("host2", 2),
+          rightVolumes[i])));
+      hashEntries.put(i, entries);
+    }
+
+    // both sides are skewed in partition 2, and the larger one is split
+    Map<Integer, ExecutionBlockId> skewed = Repartitioner.findSkewedPartitions(hashEntries,
+        Sets.newHashSet(left, right), 4, 100);
+    assertEquals(2, skewed.size());
+    assertEquals(right, skewed.get(2));
+    assertEquals(right, skewed.get(3));
+
+    // only the preserved side of a left outer join can be split
+    skewed = Repartitioner.findSkewedPartitions(hashEntries, Sets.newHashSet(left), 4, 100);
+    assertEquals(1, skewed.size());
+    assertEquals(left, skewed.get(2));
+
+    // a partition smaller than the minimum volume is not split
+    skewed = Repartitioner.findSkewedPartitions(hashEntries, Sets.newHashSet(left, right), 4, 5000);
+    assertTrue(skewed.isEmpty());
+  }
+
+  @Test
+  public void testSplitSkewedIntermediates() {
+    ExecutionBlockId ebId = new ExecutionBlockId(LocalTajoTestingUtility.newQueryId(), 1);
+
+    // two intermediate data of 40 pages of 10 bytes, and one without pages
+    List<IntermediateEntry> entries = new ArrayList<IntermediateEntry>();
+    for (int i = 0; i < 2; i++) {
+      List<Pair<Long, Integer>> pages = new ArrayList<Pair<Long, Integer>>();
+      for (int j = 0; j < 40; j++) {
+        pages.add(new Pair<Long, Integer>(j * 10L, 10));
+      }
+      IntermediateEntry interm = new IntermediateEntry(-1, -1, 3, new Task.PullHost("host" + i, i), 400);
+      interm.setPages(pages);
+      entries.add(interm);
+    }
+    entries.add(new IntermediateEntry(-1, -1, 3, new Task.PullHost("host2", 2), 50));
+
+    List<List<FetchImpl>> slices = Repartitioner.splitSkewedIntermediates(ebId, 3, entries, 100);
+    assertEquals(10, slices.size());
+
+    long totalVolume = 0;
+    for (List<FetchImpl> slice : slices) {
+      long sliceVolume = 0;
+      for (FetchImpl fetch : slice) {
+        assertEquals(3, fetch.getPartitionId());
+        assertEquals(HASH_SHUFFLE, fetch.getType());
+        sliceVolume += fetch.getLength() >= 0 ? fetch.getLength() : 50;
+      }
+      assertTrue(sliceVolume <= 100);
+      totalVolume += sliceVolume;
+    }
+    assertEquals(850, totalVolume);
+
+    // the intermediate data without pages is fetched as a whole
+    FetchImpl last = slices.get(slices.size() - 1).get(0);
+    assertEquals("host2", last.getPullHost().getHost());
+    assertEquals(-1, last.getLength());
+  }
+
   @Test
   public void testMergeIntermediates() {
     //Test Merge
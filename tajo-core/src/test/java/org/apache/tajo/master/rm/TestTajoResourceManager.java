@@ -50,12 +50,17 @@ public class TestTajoResourceManager {
   WorkerResourceAllocationResponse response;
 
   private TajoWorkerResourceManager initResourceManager(boolean queryMasterMode) throws Exception {
+    return initResourceManager(queryMasterMode, new TajoWorkerResourceManager(tajoConf));
+  }
+
+  private TajoWorkerResourceManager initResourceManager(boolean queryMasterMode,
+                                                        TajoWorkerResourceManager tajoWorkerResourceManager)
+      throws Exception {
     tajoConf = new org.apache.tajo.conf.TajoConf();
 
     tajoConf.setFloatVar(TajoConf.ConfVars.TAJO_QUERYMASTER_DISK_SLOT, 0.0f);
     tajoConf.setIntVar(TajoConf.ConfVars.TAJO_QUERYMASTER_MEMORY_MB, 512);
     tajoConf.setVar(TajoConf.ConfVars.RESOURCE_TRACKER_RPC_ADDRESS, "localhost:0");
-    TajoWorkerResourceManager tajoWorkerResourceManager = new TajoWorkerResourceManager(tajoConf);
     tajoWorkerResourceManager.init(tajoConf);
     tajoWorkerResourceManager.start();
 
@@ -453,4 +458,89 @@ public class TestTajoResourceManager {
     }
   }
 
+  @Test
+  public void testQueueMemoryShare() throws Exception {
+    TajoWorkerResourceManager tajoWorkerResourceManager = null;
+
+    try {
+      // all queries are in a queue which can hold 20% of the cluster memory
+      tajoWorkerResourceManager = initResourceManager(false, new TajoWorkerResourceManager(tajoConf) {
+        @Override
+        protected String getQueueName(QueryId queryId) {
+          return "small";
+        }
+
+        @Override
+        protected float getQueueMemoryShare(String queueName) {
+          return 0.2f;
+        }
+      });
+      int memoryMB = 512;
+      int queueMemoryMB = (int) (workerMemoryMB * numWorkers * 0.2f);
+
+      final CountDownLatch barrier1 = new CountDownLatch(1);
+      final List<WorkerAllocatedResource> resources1 = new ArrayList<WorkerAllocatedResource>();
+      tajoWorkerResourceManager.allocateWorkerResources(
+          createMemoryRequest(QueryIdFactory.newQueryId(queryIdTime, 5), 60, memoryMB),
+          new RpcCallback<WorkerResourceAllocationResponse>() {
+            @Override
+            public void run(WorkerResourceAllocationResponse response) {
+              resources1.addAll(response.getWorkerAllocatedResourceList());
+              barrier1.countDown();
+            }
+          });
+      assertTrue(barrier1.await(3, TimeUnit.SECONDS));
+
+      // the first query takes only the memory share of the queue
+      assertEquals(queueMemoryMB / memoryMB, resources1.size());
+
+      // the next query of the queue waits for the containers of the queue to be released
+      final CountDownLatch barrier2 = new CountDownLatch(1);
+      final List<WorkerAllocatedResource> resources2 = new ArrayList<WorkerAllocatedResource>();
+      tajoWorkerResourceManager.allocateWorkerResources(
+          createMemoryRequest(QueryIdFactory.newQueryId(queryIdTime, 6), 2, memoryMB),
+          new RpcCallback<WorkerResourceAllocationResponse>() {
+            @Override
+            public void run(WorkerResourceAllocationResponse response) {
+              resources2.addAll(response.getWorkerAllocatedResourceList());
+              barrier2.countDown();
+            }
+          });
+
+      for (int i = 0; i < 30 && tajoWorkerResourceManager.getParkedRequestNum("small") == 0; i++) {
+        Thread.sleep(100);
+      }
+      assertEquals(1, tajoWorkerResourceManager.getParkedRequestNum("small"));
+      assertFalse(barrier2.await(500, TimeUnit.MILLISECONDS));
+
+      // a released container is given to the parked request
+      tajoWorkerResourceManager.releaseWorkerResource(resources1.get(0).getContainerId());
+      assertTrue(barrier2.await(3, TimeUnit.SECONDS));
+      assertEquals(0, tajoWorkerResourceManager.getParkedRequestNum("small"));
+      assertEquals(1, resources2.size());
+
+      int totalUsedMemory = 0;
+      for(Worker worker: tajoWorkerResourceManager.getWorkers().values()) {
+        totalUsedMemory += worker.getResource().getUsedMemoryMB();
+      }
+      assertEquals(queueMemoryMB, totalUsedMemory);
+    } finally {
+      if (tajoWorkerResourceManager != null) {
+        tajoWorkerResourceManager.stop();
+      }
+    }
+  }
+
+  private static WorkerResourceAllocationRequest createMemoryRequest(QueryId queryId, int numContainers,
+                                                                     int memoryMB) {
+    return WorkerResourceAllocationRequest.newBuilder()
+        .setResourceRequestPriority(ResourceRequestPriority.MEMORY)
+        .setNumContainers(numContainers)
+        .setQueryId(queryId.getProto())
+        .setMaxDiskSlotPerContainer(0.0f)
+        .setMinDiskSlotPerContainer(0.0f)
+        .setMinMemoryMBPerContainer(memoryMB)
+        .setMaxMemoryMBPerContainer(memoryMB)
+        .build();
+  }
 }
@@ -0,0 +1,120 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.master.scheduler;
+
+import com.google.common.collect.Maps;
+import org.apache.tajo.QueryId;
+import org.apache.tajo.QueryIdFactory;
+import org.apache.tajo.conf.TajoConf;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TestFairScheduler {
+
+  private static FairScheduler newScheduler() {
+    TajoConf conf = new TajoConf();
+    conf.setVar(TajoConf.ConfVars.QUERY_SCHEDULER_FAIR_QUEUES, "etl, adhoc");
+    conf.setFloat(FairScheduler.QUEUE_CONF_PREFIX + "etl.memory-share", 0.5f);
+    conf.setFloat(FairScheduler.QUEUE_CONF_PREFIX + "adhoc.weight", 2.0f);
+    conf.setInt(FairScheduler.QUEUE_CONF_PREFIX + "adhoc.max-running-queries", 2);
+    return new FairScheduler(null, conf);
+  }
+
+  private static QuerySchedulingInfo newQuery(int seq, int priority, String queueName) {
+    QueryId queryId = QueryIdFactory.newQueryId(1000L, seq);
+    return new QuerySchedulingInfo(queryId, priority, (long) seq, queueName);
+  }
+
+  @Test
+  public void testFairShare() {
+    FairScheduler scheduler = newScheduler();
+    QuerySchedulingInfo etl1 = newQuery(1, 1, "etl");
+    QuerySchedulingInfo etl2 = newQuery(2, 1, "etl");
+    QuerySchedulingInfo adhoc1 = newQuery(3, 1, "adhoc");
+    QuerySchedulingInfo adhoc2 = newQuery(4, 1, "adhoc");
+    QuerySchedulingInfo adhoc3 = newQuery(5, 1, "adhoc");
+    for (QuerySchedulingInfo query : new QuerySchedulingInfo[] {etl1, etl2, adhoc1, adhoc2, adhoc3}) {
+      assertTrue(scheduler.addQuery(query));
+    }
+
+    Map<String, Integer> running = Maps.newHashMap();
+    // the earliest query is started first if no queue has a running query
+    assertEquals(etl1, scheduler.pollScheduledQuery(running));
+    // a queued heavy query does not block the queries of the other queue
+    assertEquals(adhoc1, scheduler.pollScheduledQuery(running));
+    assertEquals(adhoc2, scheduler.pollScheduledQuery(running));
+    // all queues reach their max running queries
+    assertNull(scheduler.pollScheduledQuery(running));
+    assertEquals(1, running.get("etl").intValue());
+    assertEquals(2, running.get("adhoc").intValue());
+
+    // a finished query of 'adhoc' lets the next query of 'adhoc' start
+    running.put("adhoc", 1);
+    assertEquals(adhoc3, scheduler.pollScheduledQuery(running));
+    assertNull(scheduler.pollScheduledQuery(running));
+    running.put("etl", 0);
+    assertEquals(etl2, scheduler.pollScheduledQuery(running));
+    assertNull(scheduler.pollScheduledQuery(running));
+  }
+
+  @Test
+  public void testPriority() {
+    FairScheduler scheduler = newScheduler();
+    QuerySchedulingInfo query1 = newQuery(1, 2, "etl");
+    QuerySchedulingInfo query2 = newQuery(2, 2, "etl");
+    QuerySchedulingInfo query3 = newQuery(3, 1, "etl");
+    scheduler.addQuery(query1);
+    scheduler.addQuery(query2);
+    scheduler.addQuery(query3);
+
+    // a query of a higher priority is started before the queued queries
+    Map<String, Integer> running = Maps.newHashMap();
+    assertEquals(query3, scheduler.pollScheduledQuery(running));
+    running.clear();
+    assertEquals(query1, scheduler.pollScheduledQuery(running));
+    running.clear();
+    assertEquals(query2, scheduler.pollScheduledQuery(running));
+  }
+
+  @Test
+  public void testQueues() {
+    FairScheduler scheduler = newScheduler();
+    QuerySchedulingInfo query1 = newQuery(1, 1, "etl");
+    QuerySchedulingInfo query2 = newQuery(2, 1, "unknown");
+    scheduler.addQuery(query1);
+    scheduler.addQuery(query2);
+
+    assertEquals("etl", scheduler.getQueueName(query1.getQueryId()));
+    // a query of an unknown queue is submitted to the default queue
+    assertEquals(FairScheduler.DEFAULT_QUEUE_NAME, scheduler.getQueueName(query2.getQueryId()));
+    assertEquals(0.5f, scheduler.getMemoryShare("etl"), 0.0f);
+    assertEquals(1.0f, scheduler.getMemoryShare(FairScheduler.DEFAULT_QUEUE_NAME), 0.0f);
+
+    // a removed query is never started
+    assertTrue(scheduler.removeQuery(query1.getQueryId()));
+    assertFalse(scheduler.removeQuery(query1.getQueryId()));
+    assertNull(scheduler.getQueueName(query1.getQueryId()));
+    Map<String, Integer> running = Maps.newHashMap();
+    assertEquals(query2, scheduler.pollScheduledQuery(running));
+    assertNull(scheduler.pollScheduledQuery(running));
+  }
+}
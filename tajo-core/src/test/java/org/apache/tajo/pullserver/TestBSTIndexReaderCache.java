@@ -0,0 +1,180 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.tajo.pullserver;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.SortSpec;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.storage.BaseTupleComparator;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
+import org.apache.tajo.storage.index.bst.BSTIndex;
+import org.apache.tajo.storage.index.bst.BSTIndex.BSTIndexReader;
+import org.apache.tajo.storage.index.bst.BSTIndex.BSTIndexWriter;
+import org.apache.tajo.util.CommonTestingUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+
+import static org.junit.Assert.*;
+
+public class TestBSTIndexReaderCache {
+  private static final int NUM_KEYS = 1000;
+
+  private TajoConf conf;
+  private Path testDir;
+  private Schema keySchema;
+  private BaseTupleComparator comp;
+
+  @Before
+  public void setUp() throws Exception {
+    conf = new TajoConf();
+    testDir = CommonTestingUtil.getTestDir();
+
+    keySchema = new Schema();
+    keySchema.addColumn(new Column("key", Type.INT8));
+    comp = new BaseTupleComparator(keySchema, new SortSpec[] {new SortSpec(keySchema.getColumn(0), true, false)});
+  }
+
+  private Path writeIndex(String relativePath) throws IOException {
+    Path outDir = new Path(testDir, relativePath);
+    Path indexPath = new Path(outDir, "index");
+    FileSystem fs = indexPath.getFileSystem(conf);
+    fs.delete(indexPath, false);
+    fs.delete(indexPath.suffix(".root"), false);
+
+    BSTIndexWriter writer = new BSTIndex(conf).getIndexWriter(indexPath, BSTIndex.TWO_LEVEL_INDEX, keySchema, comp);
+    writer.setLoadNum(100);
+    writer.open();
+    for (int i = 0; i < NUM_KEYS; i++) {
+      Tuple key = new VTuple(1);
+      key.put(0, DatumFactory.createInt8(i));
+      writer.write(key, i * 100L);
+    }
+    writer.flush();
+    writer.close();
+    return outDir;
+  }
+
+  private static File indexFile(Path outDir) {
+    return new File(URI.create(outDir.toUri() + "/index"));
+  }
+
+  private static long weightOf(Path outDir) {
+    File index = indexFile(outDir);
+    return index.length() + new File(index.getPath() + ".root").length();
+  }
+
+  @Test
+  public void testCacheHit() throws Exception {
+    Path outDir = writeIndex("q_1/output/eb_1/0_0/output");
+    BSTIndexReaderCache cache = new BSTIndexReaderCache(conf, Long.MAX_VALUE);
+
+    BSTIndexReader first = cache.get(outDir);
+    assertFalse(first.isClosed());
+    assertEquals(0, cache.getHits());
+    assertEquals(1, cache.getMisses());
+
+    BSTIndexReader second = cache.get(outDir);
+    assertSame(first, second);
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void testEviction() throws Exception {
+    Path dirA = writeIndex("q_1/output/eb_1/0_0/output");
+    Path dirB = writeIndex("q_1/output/eb_1/1_0/output");
+    Path dirC = writeIndex("q_1/output/eb_1/2_0/output");
+
+    // room for two indexes, but not for three
+    long weight = weightOf(dirA);
+    BSTIndexReaderCache cache = new BSTIndexReaderCache(conf, weight * 2 + weight / 2);
+
+    BSTIndexReader readerA = cache.get(dirA);
+    BSTIndexReader readerB = cache.get(dirB);
+    // B becomes the least recently used one
+    assertSame(readerA, cache.get(dirA));
+
+    BSTIndexReader readerC = cache.get(dirC);
+    assertEquals(1, cache.getEvictions());
+    assertEquals(2, cache.size());
+    assertTrue(readerB.isClosed());
+    assertFalse(readerA.isClosed());
+    assertFalse(readerC.isClosed());
+
+    BSTIndexReader reloadedB = cache.get(dirB);
+    assertNotSame(readerB, reloadedB);
+    assertFalse(reloadedB.isClosed());
+    assertEquals(4, cache.getMisses());
+  }
+
+  @Test
+  public void testReloadModifiedIndex() throws Exception {
+    Path outDir = writeIndex("q_1/output/eb_1/0_0/output");
+    BSTIndexReaderCache cache = new BSTIndexReaderCache(conf, Long.MAX_VALUE);
+
+    BSTIndexReader old = cache.get(outDir);
+    long lastModified = indexFile(outDir).lastModified();
+
+    writeIndex("q_1/output/eb_1/0_0/output");
+    assertTrue(indexFile(outDir).setLastModified(lastModified + 2000));
+
+    BSTIndexReader reloaded = cache.get(outDir);
+    assertNotSame(old, reloaded);
+    assertTrue(old.isClosed());
+    assertFalse(reloaded.isClosed());
+    assertEquals(0, cache.getHits());
+    assertEquals(2, cache.getMisses());
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void testInvalidate() throws Exception {
+    Path dir1 = writeIndex("q_1/output/eb_1/0_0/output");
+    Path dir2 = writeIndex("q_1/output/eb_1/1_0/output");
+    Path dir3 = writeIndex("q_1/output/eb_2/0_0/output");
+    BSTIndexReaderCache cache = new BSTIndexReaderCache(conf, Long.MAX_VALUE);
+
+    BSTIndexReader reader1 = cache.get(dir1);
+    BSTIndexReader reader2 = cache.get(dir2);
+    BSTIndexReader reader3 = cache.get(dir3);
+    assertEquals(3, cache.size());
+
+    cache.invalidate("q_1/output/eb_1");
+    assertEquals(1, cache.size());
+    assertTrue(reader1.isClosed());
+    assertTrue(reader2.isClosed());
+    assertFalse(reader3.isClosed());
+    assertEquals(0, cache.getEvictions());
+
+    assertSame(reader3, cache.get(dir3));
+    assertEquals(1, cache.getHits());
+  }
+}
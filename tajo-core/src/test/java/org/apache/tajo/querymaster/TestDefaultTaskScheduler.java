@@ -0,0 +1,168 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.querymaster;
+
+import com.google.common.collect.Lists;
+import com.google.protobuf.RpcCallback;
+import org.apache.tajo.ExecutionBlockId;
+import org.apache.tajo.LocalTajoTestingUtility;
+import org.apache.tajo.QueryIdFactory;
+import org.apache.tajo.TaskAttemptId;
+import org.apache.tajo.TaskId;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.ipc.TajoWorkerProtocol.TaskRequestBatchProto;
+import org.apache.tajo.ipc.TajoWorkerProtocol.TaskRequestProto;
+import org.apache.tajo.master.container.TajoContainerId;
+import org.apache.tajo.master.event.TaskRequestEvent;
+import org.apache.tajo.plan.serder.PlanProto;
+import org.apache.tajo.querymaster.DefaultTaskScheduler.HostVolumeMapping;
+import org.apache.tajo.util.ApplicationIdUtils;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestDefaultTaskScheduler {
+
+  private static TaskRequestProto newTaskRequest(ExecutionBlockId ebId, int taskId) {
+    TaskAttemptId attemptId = QueryIdFactory.newTaskAttemptId(QueryIdFactory.newTaskId(ebId, taskId), 0);
+    return TaskRequestProto.newBuilder()
+        .setId(attemptId.getProto())
+        .setOutputTable("")
+        .setClusteredOutput(false)
+        .setPlan(PlanProto.LogicalNodeTree.newBuilder())
+        .build();
+  }
+
+  @Test
+  public void testBatchLimit() {
+    // the remaining tasks are evenly distributed to the waiting task runners
+    assertEquals(5, DefaultTaskScheduler.getBatchLimit(10, 2));
+    assertEquals(3, DefaultTaskScheduler.getBatchLimit(10, 3));
+
+    // each task runner gets at least a task
+    assertEquals(1, DefaultTaskScheduler.getBatchLimit(3, 5));
+    assertEquals(1, DefaultTaskScheduler.getBatchLimit(0, 5));
+    assertEquals(10, DefaultTaskScheduler.getBatchLimit(10, 0));
+  }
+
+  @Test
+  public void testAssignTasksInBatch() {
+    ExecutionBlockId ebId = QueryIdFactory.newExecutionBlockId(LocalTajoTestingUtility.newQueryId(), 1);
+    final List<TaskRequestBatchProto> responses = Lists.newArrayList();
+    RpcCallback<TaskRequestBatchProto> callback = new RpcCallback<TaskRequestBatchProto>() {
+      @Override
+      public void run(TaskRequestBatchProto batch) {
+        responses.add(batch);
+      }
+    };
+
+    TaskRequestEvent request = new TaskRequestEvent(1, null, ebId, 3, callback);
+    assertEquals(3, request.getMaxTasks());
+    assertEquals(0, request.getAssignedTaskNum());
+
+    // the assigned tasks are sent back at once
+    request.addTask(newTaskRequest(ebId, 0));
+    request.addTask(newTaskRequest(ebId, 1));
+    assertEquals(2, request.getAssignedTaskNum());
+    assertTrue(responses.isEmpty());
+
+    request.sendAssignedTasks();
+    assertEquals(1, responses.size());
+    assertFalse(responses.get(0).getShouldDie());
+    assertEquals(2, responses.get(0).getTasksCount());
+    assertEquals(QueryIdFactory.newTaskId(ebId, 0).getProto(), responses.get(0).getTasks(0).getId().getTaskId());
+    assertEquals(QueryIdFactory.newTaskId(ebId, 1).getProto(), responses.get(0).getTasks(1).getId().getTaskId());
+
+    // a task runner of an old version asks for a task at a time
+    assertEquals(1, new TaskRequestEvent(1, null, ebId, 0, callback).getMaxTasks());
+
+    // the stop signal has no task
+    assertTrue(DefaultTaskScheduler.stopTaskRunnerReq.getShouldDie());
+    assertEquals(0, DefaultTaskScheduler.stopTaskRunnerReq.getTasksCount());
+  }
+
+  private static TaskAttempt newTaskAttempt(ExecutionBlockId ebId, int taskId) {
+    TaskId id = QueryIdFactory.newTaskId(ebId, taskId);
+    Task task = new Task(new TajoConf(), null, id, true, null);
+    return new TaskAttempt(null, QueryIdFactory.newTaskAttemptId(id, 0), task, null);
+  }
+
+  @Test
+  public void testLocalityWait() {
+    long now = System.currentTimeMillis();
+
+    // no delay scheduling
+    assertTrue(DefaultTaskScheduler.isLocalityWaitExpired(now, 0));
+
+    // a task has been assigned at this locality level recently
+    assertFalse(DefaultTaskScheduler.isLocalityWaitExpired(now, 60 * 1000));
+
+    // no task has been assigned at this locality level for a while
+    assertTrue(DefaultTaskScheduler.isLocalityWaitExpired(now - 2000, 1000));
+  }
+
+  @Test
+  public void testHostsByVolumeLoad() {
+    ExecutionBlockId ebId = QueryIdFactory.newExecutionBlockId(LocalTajoTestingUtility.newQueryId(), 1);
+    TajoContainerId containerId1 = TajoContainerId.newInstance(
+        ApplicationIdUtils.createApplicationAttemptId(ebId.getQueryId()), 1);
+    TajoContainerId containerId2 = TajoContainerId.newInstance(
+        ApplicationIdUtils.createApplicationAttemptId(ebId.getQueryId()), 2);
+
+    DefaultTaskScheduler scheduler = new DefaultTaskScheduler(null, null);
+    HostVolumeMapping host1 = scheduler.new HostVolumeMapping("host1", "/default-rack");
+    HostVolumeMapping host2 = scheduler.new HostVolumeMapping("host2", "/default-rack");
+    HostVolumeMapping host3 = scheduler.new HostVolumeMapping("host3", "/default-rack");
+    for (int i = 0; i < 3; i++) {
+      host1.addTaskAttempt(0, newTaskAttempt(ebId, i));
+    }
+    host2.addTaskAttempt(0, newTaskAttempt(ebId, 3));
+
+    // among equally loaded hosts, a host with more remaining tasks comes first.
+    // a host without any remaining task is excluded.
+    List<HostVolumeMapping> hosts = DefaultTaskScheduler.getHostsByVolumeLoad(Lists.newArrayList(host1, host2, host3));
+    assertEquals(2, hosts.size());
+    assertEquals(host1, hosts.get(0));
+    assertEquals(host2, hosts.get(1));
+
+    // a task runner of another host reads two tasks of host1 in a batch, and both reads are counted
+    assertNotNull(host1.getRemoteTask(containerId1));
+    assertNotNull(host1.getRemoteTask(containerId1));
+    assertEquals(2, host1.getVolumeConcurrency(0));
+    assertEquals(1, host1.getRemainingLocalTaskSize());
+
+    hosts = DefaultTaskScheduler.getHostsByVolumeLoad(Lists.newArrayList(host1, host2, host3));
+    assertEquals(host2, hosts.get(0));
+    assertEquals(host1, hosts.get(1));
+
+    // a remote read whose task is already taken through another host is cancelled alone
+    assertNotNull(host1.getRemoteTask(containerId2));
+    assertEquals(3, host1.getVolumeConcurrency(0));
+    host1.cancelRemoteRead(containerId2);
+    assertEquals(2, host1.getVolumeConcurrency(0));
+
+    // all remote reads of the previous batch are released at once
+    host1.releaseRemoteRead(containerId1);
+    assertEquals(0, host1.getVolumeConcurrency(0));
+    host1.releaseRemoteRead(containerId1);
+    assertEquals(0, host1.getVolumeConcurrency(0));
+  }
+}
@@ -0,0 +1,287 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.querymaster;
+
+import com.google.common.collect.Lists;
+import org.apache.hadoop.yarn.event.Event;
+import org.apache.hadoop.yarn.event.EventHandler;
+import org.apache.tajo.ExecutionBlockId;
+import org.apache.tajo.LocalTajoTestingUtility;
+import org.apache.tajo.QueryIdFactory;
+import org.apache.tajo.SessionVars;
+import org.apache.tajo.TajoProtos.TaskAttemptState;
+import org.apache.tajo.TaskAttemptId;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.engine.planner.global.DataChannel;
+import org.apache.tajo.engine.planner.global.ExecutionBlock;
+import org.apache.tajo.engine.planner.global.MasterPlan;
+import org.apache.tajo.engine.query.QueryContext;
+import org.apache.tajo.ipc.TajoWorkerProtocol.ShuffleFileOutput;
+import org.apache.tajo.ipc.TajoWorkerProtocol.TaskCompletionReport;
+import org.apache.tajo.master.TaskState;
+import org.apache.tajo.master.cluster.WorkerConnectionInfo;
+import org.apache.tajo.master.event.*;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+
+import static org.apache.tajo.catalog.proto.CatalogProtos.StoreType;
+import static org.apache.tajo.plan.serder.PlanProto.ShuffleType;
+import static org.junit.Assert.*;
+
+public class TestTaskSpeculator {
+  @Test
+  public void testSelectStragglers() {
+    TaskSpeculator speculator = new TaskSpeculator(0.5f, 0.1f, 2000);
+
+    // four tasks have succeeded in 10 seconds
+    List<Double> succeededRates = Lists.newArrayList(1.0d / 10000, 1.0d / 10000, 1.0d / 10000, 1.0d / 10000);
+    List<Float> progresses = Lists.newArrayList(0.5f, 0.1f, 0.2f, 0.0f, 0.0f);
+    List<Long> elapsedTimes = Lists.newArrayList(5000L, 10000L, 10000L, 1000L, 20000L);
+
+    // #0 is as fast as the succeeded tasks, and #3 has not run long enough yet.
+    // #4 makes no progress, and #1 has a longer remaining time than #2.
+    assertEquals(Lists.newArrayList(4, 1, 2),
+        speculator.selectStragglers(succeededRates, progresses, elapsedTimes, 10));
+    assertEquals(Lists.newArrayList(4, 1),
+        speculator.selectStragglers(succeededRates, progresses, elapsedTimes, 2));
+
+    // the progress rates are not reliable until some tasks succeed
+    assertTrue(speculator.selectStragglers(Collections.<Double>emptyList(), progresses, elapsedTimes, 10).isEmpty());
+  }
+
+  @Test
+  public void testNoStragglers() {
+    TaskSpeculator speculator = new TaskSpeculator(0.5f, 0.1f, 2000);
+
+    List<Double> succeededRates = Lists.newArrayList(1.0d / 10000);
+    List<Float> progresses = Lists.newArrayList(0.4f, 0.5f, 0.6f);
+    List<Long> elapsedTimes = Lists.newArrayList(5000L, 5000L, 5000L);
+
+    assertTrue(speculator.selectStragglers(succeededRates, progresses, elapsedTimes, 10).isEmpty());
+  }
+
+  @Test
+  public void testSpeculatableStages() {
+    QueryContext queryContext = new QueryContext(new TajoConf());
+    queryContext.setBool(SessionVars.SORT_SHUFFLE_WRITER_ENABLED, true);
+
+    MasterPlan masterPlan = new MasterPlan(LocalTajoTestingUtility.newQueryId(), queryContext, null);
+    ExecutionBlock scan = masterPlan.newExecutionBlock();
+    ExecutionBlock sort = masterPlan.newExecutionBlock();
+    ExecutionBlock groupBy = masterPlan.newExecutionBlock();
+    ExecutionBlock store = masterPlan.newExecutionBlock();
+    ExecutionBlock terminal = masterPlan.createTerminalBlock();
+    masterPlan.addConnect(scan, groupBy, ShuffleType.HASH_SHUFFLE);
+    masterPlan.addConnect(sort, groupBy, ShuffleType.RANGE_SHUFFLE);
+    masterPlan.addConnect(groupBy, store, ShuffleType.SCATTERED_HASH_SHUFFLE);
+    masterPlan.addConnect(store, terminal, ShuffleType.NONE_SHUFFLE);
+
+    // the outputs of sort-based hash shuffle writers are isolated per attempt
+    assertTrue(TaskSpeculator.isSpeculatable(masterPlan, scan.getId(), queryContext));
+    assertTrue(TaskSpeculator.isSpeculatable(masterPlan, groupBy.getId(), queryContext));
+
+    // the final results are shared by attempts
+    assertFalse(TaskSpeculator.isSpeculatable(masterPlan, store.getId(), queryContext));
+    assertFalse(TaskSpeculator.isSpeculatable(masterPlan, terminal.getId(), queryContext));
+    assertFalse(TaskSpeculator.isSpeculatable(masterPlan, sort.getId(), queryContext));
+
+    // the sort-based hash shuffle writer only writes raw files
+    DataChannel channel = masterPlan.getChannel(scan, groupBy);
+    channel.setStoreType(StoreType.CSV);
+    assertFalse(TaskSpeculator.isSpeculatable(masterPlan, scan.getId(), queryContext));
+    channel.setStoreType(StoreType.RAW);
+
+    // hash shuffle appenders write the outputs of all attempts into the same files
+    queryContext.setBool(SessionVars.SORT_SHUFFLE_WRITER_ENABLED, false);
+    assertFalse(TaskSpeculator.isSpeculatable(masterPlan, scan.getId(), queryContext));
+  }
+
+  /**
+   * It dispatches the events of a task and its attempts in order, and it keeps the other events.
+   */
+  private static class TaskEventDispatcher implements EventHandler<Event> {
+    private final Queue<Event> queue = new LinkedList<Event>();
+    private final List<Event> otherEvents = Lists.newArrayList();
+    private final Task task;
+
+    TaskEventDispatcher() {
+      ExecutionBlockId ebId = QueryIdFactory.newExecutionBlockId(LocalTajoTestingUtility.newQueryId(), 1);
+      task = new Task(new TajoConf(), null, QueryIdFactory.newTaskId(ebId, 0), true, this);
+    }
+
+    @Override
+    public void handle(Event event) {
+      queue.add(event);
+    }
+
+    void handleAndDispatch(TaskEvent event) {
+      task.handle(event);
+      dispatch();
+    }
+
+    void handleAndDispatch(TaskAttemptEvent event) {
+      task.getAttempt(event.getTaskAttemptId()).handle(event);
+      dispatch();
+    }
+
+    void dispatch() {
+      Event event;
+      while ((event = queue.poll()) != null) {
+        if (event instanceof TaskEvent) {
+          task.handle((TaskEvent) event);
+        } else if (event instanceof TaskAttemptEvent) {
+          TaskAttemptEvent attemptEvent = (TaskAttemptEvent) event;
+          task.getAttempt(attemptEvent.getTaskAttemptId()).handle(attemptEvent);
+        } else {
+          otherEvents.add(event);
+        }
+      }
+    }
+
+    <T extends Event> List<T> getEvents(Class<T> clazz) {
+      List<T> events = Lists.newArrayList();
+      for (Event event : otherEvents) {
+        if (clazz.isInstance(event)) {
+          events.add(clazz.cast(event));
+        }
+      }
+      return events;
+    }
+  }
+
+  private static TaskAttemptAssignedEvent newAssignedEvent(TaskAttemptId attemptId, String host) {
+    return new TaskAttemptAssignedEvent(attemptId, null,
+        new WorkerConnectionInfo(host, 28091, 28092, 28093, 28094, 28095));
+  }
+
+  private static TaskCompletionEvent newCompletionEvent(TaskAttemptId attemptId) {
+    return new TaskCompletionEvent(TaskCompletionReport.newBuilder()
+        .setId(attemptId.getProto())
+        .addShuffleFileOutputs(ShuffleFileOutput.newBuilder().setPartId(0).setVolume(100))
+        .build());
+  }
+
+  /**
+   * @return a running task which has the original attempt on host1 and the speculative attempt on host2
+   */
+  private static Task launchSpeculatedTask(TaskEventDispatcher dispatcher) {
+    Task task = dispatcher.task;
+    dispatcher.handleAndDispatch(new TaskEvent(task.getId(), TaskEventType.T_SCHEDULE));
+    TaskAttempt original = task.getAttempt(0);
+
+    // a task is not speculated until its attempt is launched
+    dispatcher.handleAndDispatch(new TaskEvent(task.getId(), TaskEventType.T_SPECULATE));
+    assertFalse(task.isSpeculated());
+    assertNull(task.getAttempt(1));
+
+    dispatcher.handleAndDispatch(newAssignedEvent(original.getId(), "host1"));
+    assertEquals(TaskState.RUNNING, task.getState());
+
+    // a straggler gets only one speculative attempt
+    dispatcher.handleAndDispatch(new TaskEvent(task.getId(), TaskEventType.T_SPECULATE));
+    dispatcher.handleAndDispatch(new TaskEvent(task.getId(), TaskEventType.T_SPECULATE));
+    assertTrue(task.isSpeculated());
+    assertNull(task.getAttempt(2));
+
+    TaskAttempt speculative = task.getAttempt(1);
+    assertFalse(original.isSpeculative());
+    assertTrue(speculative.isSpeculative());
+
+    List<TaskAttemptToSchedulerEvent> scheduled = dispatcher.getEvents(TaskAttemptToSchedulerEvent.class);
+    assertEquals(2, scheduled.size());
+    assertEquals(speculative, scheduled.get(1).getTaskAttempt());
+
+    dispatcher.handleAndDispatch(newAssignedEvent(speculative.getId(), "host2"));
+    assertEquals(TaskState.RUNNING, task.getState());
+    assertTrue(task.hasAttemptOn("host1"));
+    assertTrue(task.hasAttemptOn("host2"));
+    assertFalse(task.hasAttemptOn("host3"));
+    return task;
+  }
+
+  @Test
+  public void testFirstFinishedAttemptWins() {
+    TaskEventDispatcher dispatcher = new TaskEventDispatcher();
+    Task task = launchSpeculatedTask(dispatcher);
+    TaskAttempt original = task.getAttempt(0);
+    TaskAttempt speculative = task.getAttempt(1);
+
+    // both attempts finish before the task handles the completions
+    speculative.handle(newCompletionEvent(speculative.getId()));
+    original.handle(newCompletionEvent(original.getId()));
+    dispatcher.dispatch();
+
+    assertEquals(TaskState.SUCCEEDED, task.getState());
+    assertEquals(speculative.getId(), task.getSuccessfulAttempt().getId());
+    assertEquals("host2", task.getSucceededHost());
+
+    // only the outputs of the first finished attempt are used
+    assertEquals(1, task.getIntermediateData().size());
+    assertEquals(speculative.getId().getId(), task.getIntermediateData().get(0).getAttemptId());
+
+    List<StageTaskEvent> completions = dispatcher.getEvents(StageTaskEvent.class);
+    assertEquals(1, completions.size());
+    assertEquals(TaskState.SUCCEEDED, completions.get(0).getState());
+  }
+
+  @Test
+  public void testKillSlowerAttempt() {
+    TaskEventDispatcher dispatcher = new TaskEventDispatcher();
+    Task task = launchSpeculatedTask(dispatcher);
+    TaskAttempt original = task.getAttempt(0);
+    TaskAttempt speculative = task.getAttempt(1);
+
+    dispatcher.handleAndDispatch(newCompletionEvent(speculative.getId()));
+    assertEquals(TaskState.SUCCEEDED, task.getState());
+    assertEquals(speculative.getId(), task.getSuccessfulAttempt().getId());
+
+    // the original attempt is killed in its worker
+    List<LocalTaskEvent> kills = dispatcher.getEvents(LocalTaskEvent.class);
+    assertEquals(1, kills.size());
+    assertEquals(original.getId(), kills.get(0).getTaskAttemptId());
+
+    dispatcher.handleAndDispatch(new TaskAttemptEvent(original.getId(), TaskAttemptEventType.TA_LOCAL_KILLED));
+    assertEquals(TaskAttemptState.TA_KILLED, original.getState());
+    assertEquals(TaskState.SUCCEEDED, task.getState());
+    assertEquals(1, dispatcher.getEvents(StageTaskEvent.class).size());
+  }
+
+  @Test
+  public void testFailedAttemptWithRunningSibling() {
+    TaskEventDispatcher dispatcher = new TaskEventDispatcher();
+    Task task = launchSpeculatedTask(dispatcher);
+    TaskAttempt original = task.getAttempt(0);
+    TaskAttempt speculative = task.getAttempt(1);
+
+    // the task neither retries nor fails while the other attempt is running
+    dispatcher.handleAndDispatch(new TaskFatalErrorEvent(original.getId(), "disk failure"));
+    assertEquals(TaskAttemptState.TA_FAILED, original.getState());
+    assertEquals(TaskState.RUNNING, task.getState());
+    assertNull(task.getAttempt(2));
+    assertTrue(dispatcher.getEvents(StageTaskEvent.class).isEmpty());
+
+    dispatcher.handleAndDispatch(newCompletionEvent(speculative.getId()));
+    assertEquals(TaskState.SUCCEEDED, task.getState());
+    assertEquals(speculative.getId(), task.getSuccessfulAttempt().getId());
+  }
+}
@@ -18,6 +18,7 @@
 
 package org.apache.tajo.worker;
 
+import io.netty.buffer.ByteBuf;
 import org.apache.hadoop.fs.*;
 import org.apache.tajo.QueryId;
 import org.apache.tajo.QueryIdFactory;
@@ -28,12 +29,15 @@ import org.apache.tajo.conf.TajoConf.ConfVars;
 import org.apache.tajo.pullserver.TajoPullServerService;
 import org.apache.tajo.pullserver.retriever.FileChunk;
 import org.apache.tajo.storage.HashShuffleAppenderManager;
+import org.apache.tajo.storage.MemoryFileStore;
 import org.apache.tajo.util.CommonTestingUtil;
 import org.junit.*;
 
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 import static org.junit.Assert.*;
@@ -102,6 +106,136 @@ public class TestFetcher {
     assertEquals(TajoProtos.FetcherState.FETCH_FINISHED, fetcher.getState());
   }
 
+  @Test
+  public void testBatchGet() throws IOException {
+    // two requests per batch, so that the requests are sent in two batches over a connection
+    conf.setIntVar(ConfVars.SHUFFLE_FETCHER_BATCH_MAX_REQUESTS, 2);
+
+    Random rnd = new Random();
+    QueryId queryId = QueryIdFactory.NULL_QUERY_ID;
+    String sid = "1";
+    int [] partIds = new int[] {1, 2, 3};
+
+    List<URI> uris = new ArrayList<URI>();
+    List<FileChunk> storeChunks = new ArrayList<FileChunk>();
+    List<Path> inputPaths = new ArrayList<Path>();
+    for (int partId : partIds) {
+      int partParentId = HashShuffleAppenderManager.getPartParentId(partId, conf);
+      Path inputPath = new Path(conf.getVar(ConfVars.WORKER_TEMPORAL_DIR) +
+          queryId.toString() + "/output/" + sid + "/hash-shuffle/" + partParentId + "/" + partId);
+      inputPaths.add(inputPath);
+
+      // the partition 2 does not exist
+      if (partId != 2) {
+        FSDataOutputStream stream = FileSystem.getLocal(conf).create(inputPath, true);
+        for (int i = 0; i < 100 * partId; i++) {
+          stream.write(("" + rnd.nextInt()).getBytes());
+        }
+        stream.close();
+      }
+
+      String params = String.format("qid=%s&sid=%s&p=%s&type=%s", queryId, sid, partId, "h");
+      uris.add(URI.create("http://127.0.0.1:" + pullServerService.getPort() + "/?" + params));
+      FileChunk storeChunk = new FileChunk(new File(OUTPUT_DIR + "data_" + partId), 0, 0);
+      storeChunk.setFromRemote(true);
+      storeChunks.add(storeChunk);
+    }
+
+    final Fetcher fetcher = new Fetcher(conf, uris, storeChunks);
+    assertTrue(fetcher.isBatch());
+    assertNotNull(fetcher.get());
+    assertEquals(TajoProtos.FetcherState.FETCH_FINISHED, fetcher.getState());
+
+    FileSystem fs = FileSystem.getLocal(conf);
+    long totalLen = 0;
+    for (int i = 0; i < partIds.length; i++) {
+      long expected = partIds[i] == 2 ? 0 : fs.getFileStatus(inputPaths.get(i)).getLen();
+      FileStatus outStatus = fs.getFileStatus(new Path(OUTPUT_DIR, "data_" + partIds[i]));
+      assertEquals(expected, outStatus.getLen());
+      assertEquals(expected, storeChunks.get(i).length());
+      totalLen += expected;
+    }
+    assertEquals(totalLen, fetcher.getFileLen());
+  }
+
+  @Test
+  public void testInMemoryFetch() throws IOException {
+    QueryId queryId = QueryIdFactory.NULL_QUERY_ID;
+    String sid = "1";
+    String partId = "1";
+
+    int partParentId = HashShuffleAppenderManager.getPartParentId(Integer.parseInt(partId), conf);
+    Path inputPath = new Path(conf.getVar(ConfVars.WORKER_TEMPORAL_DIR) +
+        queryId.toString() + "/output/" + sid + "/hash-shuffle/" + partParentId + "/" + partId);
+    FSDataOutputStream stream = FileSystem.getLocal(conf).create(inputPath, true);
+    byte [] data = new byte[1000];
+    new Random().nextBytes(data);
+    stream.write(data);
+    stream.close();
+
+    String params = String.format("qid=%s&sid=%s&p=%s&type=%s", queryId, sid, partId, "h");
+    URI uri = URI.create("http://127.0.0.1:" + pullServerService.getPort() + "/?" + params);
+
+    // the partition fits in the budget
+    FileChunk storeChunk = new FileChunk(new File(OUTPUT_DIR + "data_mem"), 0, 0);
+    storeChunk.setFromRemote(true);
+    Fetcher fetcher = new Fetcher(conf, uri, storeChunk);
+    fetcher.setMemoryBudget(new FetchMemoryBudget(data.length));
+    fetcher.get();
+    assertEquals(TajoProtos.FetcherState.FETCH_FINISHED, fetcher.getState());
+    assertEquals(1, fetcher.getMemoryChunks().size());
+    assertFalse(storeChunk.getFile().exists());
+
+    Path memoryPath = new Path(storeChunk.getFile().getPath());
+    ByteBuf buf = MemoryFileStore.get(memoryPath);
+    assertNotNull(buf);
+    assertEquals(data.length, buf.readableBytes());
+    assertEquals(data.length, storeChunk.length());
+    byte [] fetched = new byte[data.length];
+    buf.getBytes(buf.readerIndex(), fetched);
+    assertArrayEquals(data, fetched);
+    assertTrue(MemoryFileStore.remove(memoryPath));
+
+    // the budget is exhausted, so the partition is written to disk
+    storeChunk = new FileChunk(new File(OUTPUT_DIR + "data_disk"), 0, 0);
+    storeChunk.setFromRemote(true);
+    fetcher = new Fetcher(conf, uri, storeChunk);
+    FetchMemoryBudget budget = new FetchMemoryBudget(data.length - 1);
+    fetcher.setMemoryBudget(budget);
+    fetcher.get();
+    assertEquals(TajoProtos.FetcherState.FETCH_FINISHED, fetcher.getState());
+    assertTrue(fetcher.getMemoryChunks().isEmpty());
+    assertNull(MemoryFileStore.get(new Path(storeChunk.getFile().getPath())));
+    assertEquals(data.length, storeChunk.getFile().length());
+    assertEquals(0, budget.getReserved());
+  }
+
+  @Test
+  public void testWorkerMemoryLimit() {
+    FetchMemoryBudget workerBudget = new FetchMemoryBudget(100);
+    FetchMemoryBudget taskBudget1 = new FetchMemoryBudget(80, workerBudget);
+    FetchMemoryBudget taskBudget2 = new FetchMemoryBudget(80, workerBudget);
+
+    assertTrue(taskBudget1.tryReserve(60));
+    assertEquals(60, workerBudget.getReserved());
+
+    // the task budget allows it, but the worker budget is exhausted
+    assertFalse(taskBudget2.tryReserve(50));
+    assertEquals(0, taskBudget2.getReserved());
+    assertEquals(60, workerBudget.getReserved());
+    assertTrue(taskBudget2.tryReserve(40));
+    assertEquals(100, workerBudget.getReserved());
+
+    // the worker budget allows it after a release, but the task budget is exhausted
+    taskBudget2.release(40);
+    assertFalse(taskBudget1.tryReserve(30));
+    assertEquals(60, taskBudget1.getReserved());
+    assertEquals(60, workerBudget.getReserved());
+
+    taskBudget1.release(60);
+    assertEquals(0, workerBudget.getReserved());
+  }
+
   @Test
   public void testAdjustFetchProcess() {
     assertEquals(0.0f, Task.adjustFetchProcess(0, 0), 0);
@@ -0,0 +1,86 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.worker;
+
+import com.google.common.collect.Lists;
+import org.apache.tajo.ExecutionBlockId;
+import org.apache.tajo.LocalTajoTestingUtility;
+import org.apache.tajo.QueryIdFactory;
+import org.apache.tajo.TaskAttemptId;
+import org.apache.tajo.ipc.QueryMasterProtocol.QueryMasterProtocolService;
+import org.apache.tajo.ipc.TajoWorkerProtocol.TaskFatalErrorReport;
+import org.apache.tajo.ipc.TajoWorkerProtocol.TaskRequestProto;
+import org.apache.tajo.plan.serder.PlanProto;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestTaskRunner {
+
+  @Test
+  public void testAbortAssignedTasks() {
+    // a QueryMaster which only records the fatal error reports
+    final List<TaskFatalErrorReport> reports = Lists.newArrayList();
+    QueryMasterProtocolService.Interface qmClientService = (QueryMasterProtocolService.Interface)
+        Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{QueryMasterProtocolService.Interface.class},
+            new InvocationHandler() {
+              @Override
+              public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getName().equals("fatalError")) {
+                  reports.add((TaskFatalErrorReport) args[1]);
+                }
+                return null;
+              }
+            });
+
+    // a task runner is stopped while a batch of three tasks is queued
+    ExecutionBlockId ebId = QueryIdFactory.newExecutionBlockId(LocalTajoTestingUtility.newQueryId(), 1);
+    Queue<TaskRequestProto> assignedTasks = new LinkedList<TaskRequestProto>();
+    List<TaskAttemptId> attemptIds = Lists.newArrayList();
+    for (int i = 0; i < 3; i++) {
+      TaskAttemptId attemptId = QueryIdFactory.newTaskAttemptId(QueryIdFactory.newTaskId(ebId, i), 0);
+      attemptIds.add(attemptId);
+      assignedTasks.add(TaskRequestProto.newBuilder()
+          .setId(attemptId.getProto())
+          .setOutputTable("")
+          .setClusteredOutput(false)
+          .setPlan(PlanProto.LogicalNodeTree.newBuilder())
+          .build());
+    }
+
+    // all queued tasks are reported as failed, so that QueryMaster retries them
+    assertEquals(3, TaskRunner.abortAssignedTasks(assignedTasks, qmClientService));
+    assertTrue(assignedTasks.isEmpty());
+    assertEquals(3, reports.size());
+    for (int i = 0; i < 3; i++) {
+      assertEquals(attemptIds.get(i), new TaskAttemptId(reports.get(i).getId()));
+    }
+
+    assertEquals(0, TaskRunner.abortAssignedTasks(assignedTasks, qmClientService));
+    assertEquals(3, reports.size());
+  }
+}
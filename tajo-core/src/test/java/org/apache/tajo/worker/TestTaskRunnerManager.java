@@ -0,0 +1,160 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.tajo.worker;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.yarn.event.AsyncDispatcher;
+import org.apache.tajo.ExecutionBlockId;
+import org.apache.tajo.LocalTajoTestingUtility;
+import org.apache.tajo.QueryIdFactory;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.apache.tajo.engine.query.QueryContext;
+import org.apache.tajo.ipc.QueryMasterProtocol.QueryMasterProtocolService;
+import org.apache.tajo.master.cluster.WorkerConnectionInfo;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.Assert.*;
+
+public class TestTaskRunnerManager {
+  private static final String CONTAINER_ID = "container_1430000000000_0001_01_000001";
+
+  /**
+   * An execution block context whose QueryMaster never assigns tasks.
+   * It records the thread of the task launcher, which is the thread requesting tasks.
+   */
+  private static class IdleExecutionBlockContext extends ExecutionBlockContext {
+    volatile Thread launcherThread;
+
+    IdleExecutionBlockContext(TajoConf conf, TajoWorker.WorkerContext workerContext, TaskRunnerManager manager,
+                              ExecutionBlockId ebId) throws Throwable {
+      super(conf, workerContext, manager, new QueryContext(conf), "", ebId, new WorkerConnectionInfo());
+    }
+
+    @Override
+    public QueryMasterProtocolService.Interface getQueryMasterStub() {
+      launcherThread = Thread.currentThread();
+      return (QueryMasterProtocolService.Interface) Proxy.newProxyInstance(TestTaskRunnerManager.class.getClassLoader(),
+          new Class[]{QueryMasterProtocolService.Interface.class},
+          new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+              return null;
+            }
+          });
+    }
+
+    @Override
+    public Path createBaseDir() throws IOException {
+      return null;
+    }
+
+    @Override
+    public void stopTaskRunner(String id) {
+    }
+  }
+
+  private static void waitForIdle(ThreadPoolExecutor executor) throws InterruptedException {
+    // a stopped launcher notices the stop flag within its 3 seconds of waiting for tasks
+    for (int i = 0; i < 100 && executor.getActiveCount() > 0; i++) {
+      Thread.sleep(100);
+    }
+    assertEquals(0, executor.getActiveCount());
+    // let the idle thread go back to waiting for the next runnable
+    Thread.sleep(100);
+  }
+
+  private static Thread runOnFetcher(TaskRunner runner) throws Exception {
+    return runner.getFetchLauncher().submit(new Callable<Thread>() {
+      @Override
+      public Thread call() throws Exception {
+        return Thread.currentThread();
+      }
+    }).get();
+  }
+
+  @Test
+  public void testSharedExecutors() throws Throwable {
+    TajoConf conf = new TajoConf();
+    conf.setIntVar(ConfVars.WORKER_RESOURCE_AVAILABLE_CPU_CORES, 1);
+    conf.setIntVar(ConfVars.WORKER_TASK_EXECUTOR_CORE_THREADS_PER_SLOT, 1);
+
+    TajoWorker.WorkerContext workerContext = new TajoWorker().new WorkerContext() {
+      @Override
+      public WorkerConnectionInfo getConnectionInfo() {
+        return new WorkerConnectionInfo();
+      }
+    };
+    TaskRunnerManager manager = new TaskRunnerManager(workerContext, new AsyncDispatcher());
+    manager.init(conf);
+    try {
+      ThreadPoolExecutor taskExecutor = manager.getTaskExecutor();
+      assertEquals(1, taskExecutor.getPoolSize());
+
+      // a TaskRunner of the first execution block
+      ExecutionBlockId ebId1 = QueryIdFactory.newExecutionBlockId(LocalTajoTestingUtility.newQueryId(), 1);
+      IdleExecutionBlockContext context1 = new IdleExecutionBlockContext(conf, workerContext, manager, ebId1);
+      TaskRunner runner1 = new TaskRunner(context1, CONTAINER_ID);
+      runner1.init(conf);
+      runner1.start();
+      for (int i = 0; i < 100 && context1.launcherThread == null; i++) {
+        Thread.sleep(100);
+      }
+      assertNotNull(context1.launcherThread);
+      assertEquals(1, taskExecutor.getActiveCount());
+
+      // the launcher of a stopped runner exits and returns its thread
+      runner1.stop();
+      waitForIdle(taskExecutor);
+
+      // a TaskRunner of the next execution block is launched by the same thread
+      ExecutionBlockId ebId2 = QueryIdFactory.newExecutionBlockId(ebId1.getQueryId(), 2);
+      IdleExecutionBlockContext context2 = new IdleExecutionBlockContext(conf, workerContext, manager, ebId2);
+      TaskRunner runner2 = new TaskRunner(context2, CONTAINER_ID);
+      runner2.init(conf);
+      runner2.start();
+      for (int i = 0; i < 100 && context2.launcherThread == null; i++) {
+        Thread.sleep(100);
+      }
+      assertSame(context1.launcherThread, context2.launcherThread);
+      assertEquals(1, taskExecutor.getLargestPoolSize());
+
+      // fetchers of both runners run on the worker-wide fetch executor
+      assertSame(manager.getFetchExecutor(), runner1.getFetchLauncher());
+      assertSame(manager.getFetchExecutor(), runner2.getFetchLauncher());
+      assertTrue(runOnFetcher(runner1).getName().startsWith("Fetcher executor"));
+      assertTrue(runOnFetcher(runner2).getName().startsWith("Fetcher executor"));
+
+      runner2.stop();
+      waitForIdle(taskExecutor);
+      context1.stop();
+      context2.stop();
+    } finally {
+      manager.stop();
+    }
+  }
+}
@@ -83,6 +83,25 @@ public class AggregationFunctionCallEval extends FunctionEval implements Cloneab
     }
   }
 
+  /**
+   * It returns the partial result of a context regardless of the aggregation phase.
+   * The partial result can be merged into another context by {@link #mergePartialResult(FunctionContext, Tuple)}.
+   */
+  public Datum getPartialResult(FunctionContext context) {
+    return instance.getPartialResult(context);
+  }
+
+  public DataType getPartialResultType() {
+    return instance.getPartialResultType();
+  }
+
+  /**
+   * It merges a partial result, which consists of a single datum, into a context.
+   */
+  public void mergePartialResult(FunctionContext context, Tuple partialResult) {
+    instance.merge(context, partialResult);
+  }
+
   @Override
   public DataType getValueType() {
     if (!finalPhase) {
@@ -0,0 +1,197 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.pullserver;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.fs.Path;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.storage.index.bst.BSTIndex;
+import org.apache.tajo.storage.index.bst.BSTIndex.BSTIndexReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded LRU cache of opened {@link BSTIndexReader}s of range shuffle outputs, keyed by output directories.
+ *
+ * A range shuffle output of a task is fetched by many reducers, and each fetch looks up the same index.
+ * This cache keeps the loaded index readers, so the index is read from disk only once per output.
+ * The total weight of cached readers is bounded by the on-disk size of their index files.
+ *
+ * A reader is stateful, so a caller must synchronize on the reader while it looks up the index.
+ * An evicted reader is closed, so a caller must check {@link BSTIndexReader#isClosed()} after acquiring the lock.
+ */
+public class BSTIndexReaderCache {
+  private static final Log LOG = LogFactory.getLog(BSTIndexReaderCache.class);
+
+  private static final String INDEX_FILE_NAME = "index";
+
+  private final TajoConf conf;
+  private final Cache<String, CachedReader> cache;
+
+  // statistics
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  public BSTIndexReaderCache(TajoConf conf, long maxBytes) {
+    this.conf = conf;
+    this.cache = CacheBuilder.newBuilder()
+        // a single segment applies the weight limit and LRU order to the whole cache, not per segment
+        .concurrencyLevel(1)
+        .maximumWeight(maxBytes)
+        .weigher(new Weigher<String, CachedReader>() {
+          @Override
+          public int weigh(String key, CachedReader value) {
+            return (int) Math.min(Integer.MAX_VALUE, value.weight);
+          }
+        })
+        .removalListener(new RemovalListener<String, CachedReader>() {
+          @Override
+          public void onRemoval(RemovalNotification<String, CachedReader> notification) {
+            if (notification.wasEvicted()) {
+              evictions.incrementAndGet();
+            }
+            closeQuietly(notification.getValue().reader);
+          }
+        })
+        .build();
+  }
+
+  /**
+   * It returns an opened index reader of the given output directory. It loads the index from disk
+   * if the index is not cached or the cached one is older than the index file.
+   */
+  public BSTIndexReader get(final Path outDir) throws IOException {
+    final String key = outDir.toString();
+    final File indexFile = new File(URI.create(outDir.toUri() + "/" + INDEX_FILE_NAME));
+
+    CachedReader cached = cache.getIfPresent(key);
+    if (cached != null) {
+      if (cached.lastModified == indexFile.lastModified() && !cached.reader.isClosed()) {
+        hits.incrementAndGet();
+        return cached.reader;
+      }
+      // the index was rewritten or deleted
+      cache.invalidate(key);
+    }
+
+    try {
+      return cache.get(key, new Callable<CachedReader>() {
+        @Override
+        public CachedReader call() throws Exception {
+          misses.incrementAndGet();
+          return load(outDir, indexFile);
+        }
+      }).reader;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private CachedReader load(Path outDir, File indexFile) throws IOException {
+    long lastModified = indexFile.lastModified();
+
+    BSTIndex index = new BSTIndex(conf);
+    BSTIndexReader reader = index.getIndexReader(new Path(outDir, INDEX_FILE_NAME));
+    reader.open();
+
+    // the on-disk size of the index files is used as an upper bound of the memory footprint
+    long weight = indexFile.length() + new File(indexFile.getPath() + ".root").length();
+
+    LOG.info("BSTIndex is loaded from disk (" + reader.getFirstKey() + ", " + reader.getLastKey() + ")");
+    return new CachedReader(reader, lastModified, weight);
+  }
+
+  /**
+   * It removes all cached readers whose output directories are under the given relative path.
+   * It should be called when the intermediate data of a query or an execution block is deleted.
+   *
+   * @param relativePath A path relative to the worker temporal directories (e.g., queryId/output/ebId)
+   */
+  public void invalidate(String relativePath) {
+    String pattern = "/" + relativePath + "/";
+    int removed = 0;
+    for (String key : cache.asMap().keySet()) {
+      if (key.contains(pattern)) {
+        cache.invalidate(key);
+        removed++;
+      }
+    }
+    if (removed > 0) {
+      LOG.info(removed + " cached index readers are invalidated for " + relativePath);
+    }
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  public long size() {
+    return cache.size();
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  private static void closeQuietly(BSTIndexReader reader) {
+    // Readers are closed under their own lock, so that a reader being used is not closed in the middle of a lookup.
+    synchronized (reader) {
+      try {
+        reader.close();
+      } catch (IOException e) {
+        LOG.warn("Failed to close " + reader + ": " + e.getMessage());
+      }
+    }
+  }
+
+  private static class CachedReader {
+    final BSTIndexReader reader;
+    final long lastModified;
+    final long weight;
+
+    CachedReader(BSTIndexReader reader, long lastModified, long weight) {
+      this.reader = reader;
+      this.lastModified = lastModified;
+      this.weight = weight;
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.tajo.pullserver;
+
+import com.google.common.collect.Lists;
+import org.apache.tajo.util.SizeOf;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * The wire format of batched fetch requests.
+ *
+ * A fetcher sends a POST request to {@link #BATCH_PATH}, whose body consists of the request URIs of
+ * single fetches (i.e., a path and a query string), one per line. The pull server responds with a single
+ * response which has a sequence of frames. Each frame consists of the index of a request in the batch (int),
+ * the length of the data (long), and the data. A request may have zero or more frames, and the frames of
+ * a request should be appended to its target file in order.
+ *
+ * A batch is sent over a keep-alive connection, so a fetcher can send the next batch to the same host without
+ * a new connection.
+ */
+public class BatchFetchFormat {
+  public static final String BATCH_PATH = "/batch";
+
+  /** the request index and the data length */
+  public static final int FRAME_HEADER_SIZE = SizeOf.SIZE_OF_INT + SizeOf.SIZE_OF_LONG;
+
+  /** the maximum length of a request body, which should be less than the content limit of the pull server */
+  public static final int MAX_REQUEST_BODY_LENGTH = 60 * 1024;
+
+  public static String encodeRequest(List<URI> uris) {
+    StringBuilder sb = new StringBuilder();
+    for (URI uri : uris) {
+      sb.append(toRequestUri(uri)).append('\n');
+    }
+    return sb.toString();
+  }
+
+  public static List<String> decodeRequest(String body) {
+    List<String> requests = Lists.newArrayList();
+    for (String line : body.split("\n")) {
+      if (!line.isEmpty()) {
+        requests.add(line);
+      }
+    }
+    return requests;
+  }
+
+  /**
+   * It returns the request URI of a single fetch, which is the path and the query string of a fetch URL.
+   */
+  public static String toRequestUri(URI uri) {
+    String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+    return path + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
+  }
+}
@@ -54,9 +54,11 @@ import org.apache.tajo.rpc.RpcChannelFactory;
 import org.apache.tajo.storage.HashShuffleAppenderManager;
 import org.apache.tajo.storage.RowStoreUtil;
 import org.apache.tajo.storage.RowStoreUtil.RowStoreDecoder;
+import org.apache.tajo.storage.SortShuffleIndex;
 import org.apache.tajo.storage.Tuple;
 import org.apache.tajo.storage.TupleComparator;
 import org.apache.tajo.storage.index.bst.BSTIndex;
+import org.apache.tajo.util.Pair;
 
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.PooledByteBufAllocator;
@@ -91,6 +93,9 @@ public class TajoPullServerService extends AbstractService {
   public static final String SHUFFLE_READAHEAD_BYTES = "tajo.pullserver.readahead.bytes";
   public static final int DEFAULT_SHUFFLE_READAHEAD_BYTES = 4 * 1024 * 1024;
 
+  public static final String SHUFFLE_INDEX_CACHE_SIZE = "tajo.pullserver.index-cache.size-mb";
+  public static final int DEFAULT_SHUFFLE_INDEX_CACHE_SIZE = 64;
+
   private int port;
   private ServerBootstrap selector;
   private final ChannelGroup accepted = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
@@ -122,6 +127,12 @@ public class TajoPullServerService extends AbstractService {
 
   private static boolean STANDALONE = false;
 
+  /**
+   * cached index readers of range shuffle outputs, shared by the pull server and local fetches.
+   * It is created with the configuration of the pull server, or of the first local fetch in a standalone mode.
+   */
+  private static volatile BSTIndexReaderCache indexReaderCache;
+
   static {
     String standalone = System.getenv("TAJO_PULLSERVER_STANDALONE");
     if (!StringUtils.isEmpty(standalone)) {
@@ -139,6 +150,28 @@ public class TajoPullServerService extends AbstractService {
     MutableCounterInt shuffleOutputsOK;
     @Metric({"Connections","# of current shuffle connections"})
     MutableGaugeInt shuffleConnections;
+    @Metric({"BatchRequests","# of batched fetch requests"})
+    MutableCounterInt batchRequests;
+    @Metric({"BatchFrames","# of frames sent by batched fetch responses"})
+    MutableCounterLong batchFrames;
+
+    @Metric(value={"IndexCacheHits","# of index lookups served by cached index readers"}, type=Metric.Type.COUNTER)
+    public long getIndexCacheHits() {
+      BSTIndexReaderCache cache = indexReaderCache;
+      return cache == null ? 0 : cache.getHits();
+    }
+
+    @Metric(value={"IndexCacheMisses","# of index lookups loading indexes from disk"}, type=Metric.Type.COUNTER)
+    public long getIndexCacheMisses() {
+      BSTIndexReaderCache cache = indexReaderCache;
+      return cache == null ? 0 : cache.getMisses();
+    }
+
+    @Metric(value={"IndexCacheEvictions","# of evicted index readers"}, type=Metric.Type.COUNTER)
+    public long getIndexCacheEvictions() {
+      BSTIndexReaderCache cache = indexReaderCache;
+      return cache == null ? 0 : cache.getEvictions();
+    }
 
     @Override
     public void operationComplete(ChannelFuture future) throws Exception {
@@ -230,6 +263,7 @@ public class TajoPullServerService extends AbstractService {
   // TODO change AbstractService to throw InterruptedException
   @Override
   public synchronized void serviceInit(Configuration conf) throws Exception {
+    getIndexReaderCache(conf);
     ServerBootstrap bootstrap = selector.clone();
 
     try {
@@ -333,6 +367,9 @@ public class TajoPullServerService extends AbstractService {
         channelInitializer.destroy();
       }
 
+      if (indexReaderCache != null) {
+        indexReaderCache.invalidateAll();
+      }
       localFS.close();
     } catch (Throwable t) {
       LOG.error(t);
@@ -489,6 +526,11 @@ public class TajoPullServerService extends AbstractService {
     public void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request)
             throws Exception {
 
+      if (request.getMethod() == HttpMethod.POST && request.getUri().startsWith(BatchFetchFormat.BATCH_PATH)) {
+        sendBatch(ctx, request);
+        return;
+      }
+
       if (request.getMethod() != HttpMethod.GET) {
         sendError(ctx, HttpResponseStatus.METHOD_NOT_ALLOWED);
         return;
@@ -496,8 +538,135 @@ public class TajoPullServerService extends AbstractService {
 
       ProcessingStatus processingStatus = new ProcessingStatus(request.getUri().toString());
       processingStatusMap.put(request.getUri().toString(), processingStatus);
+
+      final List<FileChunk> chunks;
+      try {
+        chunks = getFileChunks(request.getUri());
+      } catch (IllegalArgumentException e) {
+        LOG.error(e.getMessage());
+        sendError(ctx, e.getMessage(), HttpResponseStatus.BAD_REQUEST);
+        return;
+      } catch (Throwable t) {
+        LOG.error("ERROR Request: " + request.getUri(), t);
+        sendError(ctx, "Cannot get file chunks to be sent", HttpResponseStatus.BAD_REQUEST);
+        return;
+      }
+
+      processingStatus.setNumFiles(chunks.size());
+      processingStatus.makeFileListTime = System.currentTimeMillis() - processingStatus.startTime;
+      // Write the content.
+      if (chunks.size() == 0) {
+        HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.NO_CONTENT);
+
+        if (!HttpHeaders.isKeepAlive(request)) {
+          ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        } else {
+          response.headers().set(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.KEEP_ALIVE);
+          ctx.writeAndFlush(response);
+        }
+      } else {
+        FileChunk[] file = chunks.toArray(new FileChunk[chunks.size()]);
+        ChannelFuture writeFuture = null;
+        HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        long totalSize = 0;
+        for (FileChunk chunk : file) {
+          totalSize += chunk.length();
+        }
+        HttpHeaders.setContentLength(response, totalSize);
+
+        if (HttpHeaders.isKeepAlive(request)) {
+          response.headers().set(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.KEEP_ALIVE);
+        }
+        // Write the initial line and the header.
+        writeFuture = ctx.write(response);
+
+        for (FileChunk chunk : file) {
+          writeFuture = sendFile(ctx, chunk, request.getUri().toString(), false);
+          if (writeFuture == null) {
+            sendError(ctx, HttpResponseStatus.NOT_FOUND);
+            return;
+          }
+        }
+        if (ctx.pipeline().get(SslHandler.class) == null) {
+          writeFuture = ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+        } else {
+          ctx.flush();
+        }
+
+        // Decide whether to close the connection or not.
+        if (!HttpHeaders.isKeepAlive(request)) {
+          // Close the connection when the whole content is written out.
+          writeFuture.addListener(ChannelFutureListener.CLOSE);
+        }
+      }
+    }
+
+    /**
+     * It sends the data of all requests in a batch as a single response. See {@link BatchFetchFormat}.
+     */
+    private void sendBatch(ChannelHandlerContext ctx, FullHttpRequest request) throws IOException {
+      List<String> requestUris = BatchFetchFormat.decodeRequest(request.content().toString(CharsetUtil.UTF_8));
+
+      // all chunks are found before sending any data, so that an invalid request fails the whole batch.
+      List<List<FileChunk>> chunksPerRequest = Lists.newArrayList();
+      long totalSize = 0;
+      for (String requestUri : requestUris) {
+        List<FileChunk> chunks;
+        try {
+          chunks = getFileChunks(requestUri);
+        } catch (IllegalArgumentException e) {
+          LOG.error(e.getMessage());
+          sendError(ctx, e.getMessage(), HttpResponseStatus.BAD_REQUEST);
+          return;
+        } catch (Throwable t) {
+          LOG.error("ERROR Request: " + requestUri, t);
+          sendError(ctx, "Cannot get file chunks to be sent", HttpResponseStatus.BAD_REQUEST);
+          return;
+        }
+        for (FileChunk chunk : chunks) {
+          totalSize += BatchFetchFormat.FRAME_HEADER_SIZE + chunk.length();
+        }
+        chunksPerRequest.add(chunks);
+      }
+
+      HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+      HttpHeaders.setContentLength(response, totalSize);
+      if (HttpHeaders.isKeepAlive(request)) {
+        response.headers().set(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.KEEP_ALIVE);
+      }
+      ctx.write(response);
+
+      int numFrames = 0;
+      for (int i = 0; i < chunksPerRequest.size(); i++) {
+        for (FileChunk chunk : chunksPerRequest.get(i)) {
+          ctx.write(Unpooled.buffer(BatchFetchFormat.FRAME_HEADER_SIZE).writeInt(i).writeLong(chunk.length()));
+          if (sendFile(ctx, chunk, BatchFetchFormat.BATCH_PATH, true) == null) {
+            // the response header is already sent, so the fetcher is notified by closing the connection.
+            LOG.error("Cannot send " + chunk + " of " + requestUris.get(i));
+            ctx.flush();
+            ctx.close();
+            return;
+          }
+          numFrames++;
+        }
+      }
+      ChannelFuture writeFuture = ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+      if (!HttpHeaders.isKeepAlive(request)) {
+        writeFuture.addListener(ChannelFutureListener.CLOSE);
+      }
+
+      metrics.batchRequests.incr();
+      metrics.batchFrames.incr(numFrames);
+    }
+
+    /**
+     * It returns the file chunks to be sent for a single fetch request. An empty list means that there is no data.
+     *
+     * @throws IllegalArgumentException if the request is invalid
+     */
+    private List<FileChunk> getFileChunks(String requestUri) throws IOException {
       // Parsing the URL into key-values
-      final Map<String, List<String>> params = new QueryStringDecoder(request.getUri()).parameters();
+      final Map<String, List<String>> params = new QueryStringDecoder(requestUri).parameters();
       final List<String> types = params.get("type");
       final List<String> qids = params.get("qid");
       final List<String> taskIdList = params.get("ta");
@@ -507,13 +676,11 @@ public class TajoPullServerService extends AbstractService {
       final List<String> lengthList = params.get("length");
 
       if (types == null || subQueryIds == null || qids == null || partIds == null) {
-        sendError(ctx, "Required queryId, type, subquery Id, and part id", HttpResponseStatus.BAD_REQUEST);
-        return;
+        throw new IllegalArgumentException("Required queryId, type, subquery Id, and part id");
       }
 
       if (qids.size() != 1 && types.size() != 1 || subQueryIds.size() != 1) {
-        sendError(ctx, "Required qids, type, taskIds, subquery Id, and part id", HttpResponseStatus.BAD_REQUEST);
-        return;
+        throw new IllegalArgumentException("Required qids, type, taskIds, subquery Id, and part id");
       }
 
       String partId = partIds.get(0);
@@ -540,12 +707,14 @@ public class TajoPullServerService extends AbstractService {
 
       // if a stage requires a range shuffle
       if (shuffleType.equals("r")) {
+        if (taskIds == null) {
+          throw new IllegalArgumentException("For range shuffle, taskId is required");
+        }
         String ta = taskIds.get(0);
         String pathString = queryBaseDir + "/" + sid + "/" + ta + "/output/";
         if (!lDirAlloc.ifExists(pathString, conf)) {
           LOG.warn(pathString + "does not exist.");
-          sendError(ctx, HttpResponseStatus.NO_CONTENT);
-          return;
+          return chunks;
         }
         Path path = localFS.makeQualified(lDirAlloc.getLocalPathToRead(queryBaseDir + "/" + sid + "/" + ta
             + "/output/", conf));
@@ -553,26 +722,28 @@ public class TajoPullServerService extends AbstractService {
         String endKey = params.get("end").get(0);
         boolean last = params.get("final") != null;
 
-        FileChunk chunk;
-        try {
-          chunk = getFileCunks(path, startKey, endKey, last);
-        } catch (Throwable t) {
-          LOG.error("ERROR Request: " + request.getUri(), t);
-          sendError(ctx, "Cannot get file chunks to be sent", HttpResponseStatus.BAD_REQUEST);
-          return;
-        }
+        FileChunk chunk = getFileCunks(conf, path, startKey, endKey, last);
         if (chunk != null) {
           chunks.add(chunk);
         }
 
+        // if a stage requires a hash shuffle written by sort-based shuffle writers
+      } else if ((shuffleType.equals("h") || shuffleType.equals("s")) && taskIds != null) {
+        try {
+          chunks.addAll(getSortShuffleChunks(lDirAlloc, localFS, conf, queryBaseDir + "/" + sid, taskIds,
+              Integer.parseInt(partId), offset, length));
+        } catch (FileNotFoundException e) {
+          LOG.warn(e.getMessage());
+          return Lists.newArrayList();
+        }
+
         // if a stage requires a hash shuffle or a scattered hash shuffle
       } else if (shuffleType.equals("h") || shuffleType.equals("s")) {
         int partParentId = HashShuffleAppenderManager.getPartParentId(Integer.parseInt(partId), (TajoConf) conf);
         String partPath = queryBaseDir + "/" + sid + "/hash-shuffle/" + partParentId + "/" + partId;
         if (!lDirAlloc.ifExists(partPath, conf)) {
           LOG.warn("Partition shuffle file not exists: " + partPath);
-          sendError(ctx, HttpResponseStatus.NO_CONTENT);
-          return;
+          return chunks;
         }
 
         Path path = localFS.makeQualified(lDirAlloc.getLocalPathToRead(partPath, conf));
@@ -582,72 +753,26 @@ public class TajoPullServerService extends AbstractService {
         long readLen = (offset >= 0 && length >= 0) ? length : file.length();
 
         if (startPos >= file.length()) {
-          String errorMessage = "Start pos[" + startPos + "] great than file length [" + file.length() + "]";
-          LOG.error(errorMessage);
-          sendError(ctx, errorMessage, HttpResponseStatus.BAD_REQUEST);
-          return;
+          throw new IllegalArgumentException("Start pos[" + startPos + "] great than file length [" + file.length()
+              + "]");
         }
-        LOG.info("RequestURL: " + request.getUri() + ", fileLen=" + file.length());
+        LOG.info("RequestURL: " + requestUri + ", fileLen=" + file.length());
         FileChunk chunk = new FileChunk(file, startPos, readLen);
         chunks.add(chunk);
       } else {
-        LOG.error("Unknown shuffle type: " + shuffleType);
-        sendError(ctx, "Unknown shuffle type:" + shuffleType, HttpResponseStatus.BAD_REQUEST);
-        return;
-      }
-
-      processingStatus.setNumFiles(chunks.size());
-      processingStatus.makeFileListTime = System.currentTimeMillis() - processingStatus.startTime;
-      // Write the content.
-      if (chunks.size() == 0) {
-        HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.NO_CONTENT);
-
-        if (!HttpHeaders.isKeepAlive(request)) {
-          ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
-        } else {
-          response.headers().set(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.KEEP_ALIVE);
-          ctx.writeAndFlush(response);
-        }
-      } else {
-        FileChunk[] file = chunks.toArray(new FileChunk[chunks.size()]);
-        ChannelFuture writeFuture = null;
-        HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
-        long totalSize = 0;
-        for (FileChunk chunk : file) {
-          totalSize += chunk.length();
-        }
-        HttpHeaders.setContentLength(response, totalSize);
-
-        if (HttpHeaders.isKeepAlive(request)) {
-          response.headers().set(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.KEEP_ALIVE);
-        }
-        // Write the initial line and the header.
-        writeFuture = ctx.write(response);
-
-        for (FileChunk chunk : file) {
-          writeFuture = sendFile(ctx, chunk, request.getUri().toString());
-          if (writeFuture == null) {
-            sendError(ctx, HttpResponseStatus.NOT_FOUND);
-            return;
-          }
-        }
-        if (ctx.pipeline().get(SslHandler.class) == null) {
-          writeFuture = ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
-        } else {
-          ctx.flush();
-        }
-
-        // Decide whether to close the connection or not.
-        if (!HttpHeaders.isKeepAlive(request)) {
-          // Close the connection when the whole content is written out.
-          writeFuture.addListener(ChannelFutureListener.CLOSE);
-        }
+        throw new IllegalArgumentException("Unknown shuffle type: " + shuffleType);
       }
+      return chunks;
     }
 
+    /**
+     * @param framed if true, the data is sent as a part of a framed batch response
+     *               rather than the whole content of a response.
+     */
     private ChannelFuture sendFile(ChannelHandlerContext ctx,
                                    FileChunk file,
-                                   String requestUri) throws IOException {
+                                   String requestUri,
+                                   boolean framed) throws IOException {
       long startTime = System.currentTimeMillis();
       RandomAccessFile spill = null;      
       ChannelFuture writeFuture;
@@ -665,7 +790,7 @@ public class TajoPullServerService extends AbstractService {
               file.startOffset(), file.length(), sslFileBufferSize,
               manageOsCache, readaheadLength, readaheadPool,
               file.getFile().getAbsolutePath());
-          writeFuture = ctx.write(new HttpChunkedInput(chunk));
+          writeFuture = ctx.write(framed ? chunk : new HttpChunkedInput(chunk));
         }
       } catch (FileNotFoundException e) {
         LOG.info(file.getFile() + " not found");
@@ -707,20 +832,109 @@ public class TajoPullServerService extends AbstractService {
     }
   }
 
-  public static FileChunk getFileCunks(Path outDir,
+  /**
+   * It removes the cached index readers of the intermediate data under the given path.
+   * It should be called when the intermediate data of a query or an execution block is deleted.
+   *
+   * @param relativePath A path relative to the worker temporal directories
+   */
+  public static void invalidateIndexReaders(String relativePath) {
+    if (indexReaderCache != null) {
+      indexReaderCache.invalidate(relativePath);
+    }
+  }
+
+  public static BSTIndexReaderCache getIndexReaderCache(Configuration conf) {
+    if (indexReaderCache == null) {
+      synchronized (TajoPullServerService.class) {
+        if (indexReaderCache == null) {
+          TajoConf tajoConf = conf instanceof TajoConf ? (TajoConf) conf : new TajoConf(conf);
+          indexReaderCache = new BSTIndexReaderCache(tajoConf,
+              conf.getInt(SHUFFLE_INDEX_CACHE_SIZE, DEFAULT_SHUFFLE_INDEX_CACHE_SIZE) * 1024L * 1024L);
+        }
+      }
+    }
+    return indexReaderCache;
+  }
+
+  /**
+   * It returns the chunks of a partition in the outputs of sort-based hash shuffle writers. A chunk is a byte range
+   * of the data file of a task, which is found by the offset index. If an offset and a length are given, they
+   * should be a part of the partition of a single task.
+   *
+   * @param ebBaseDir the output directory of an execution block relative to the worker temporal directories
+   *                  (e.g., queryId/output/ebId)
+   * @param taskIds the task attempts, each of which is in the form of taskId_attemptId
+   */
+  public static List<FileChunk> getSortShuffleChunks(LocalDirAllocator lDirAlloc,
+                                                     FileSystem localFS,
+                                                     Configuration conf,
+                                                     String ebBaseDir,
+                                                     List<String> taskIds,
+                                                     int partId,
+                                                     long offset,
+                                                     long length) throws IOException {
+    List<FileChunk> chunks = Lists.newArrayList();
+    for (String ta : taskIds) {
+      String outputDir = ebBaseDir + "/" + ta + "/output/";
+      if (!lDirAlloc.ifExists(outputDir + SortShuffleIndex.INDEX_FILE_NAME, conf)) {
+        // the query master requests only the tasks which have written the partition
+        throw new FileNotFoundException("Sort shuffle output does not exist: " + outputDir);
+      }
+      Path path = localFS.makeQualified(lDirAlloc.getLocalPathToRead(outputDir, conf));
+
+      Pair<Long, Long> range = SortShuffleIndex.getPartitionRange(
+          new File(new Path(path, SortShuffleIndex.INDEX_FILE_NAME).toUri()), partId);
+      if (range == null || range.getSecond() == 0) {
+        continue;
+      }
+
+      long startPos = range.getFirst();
+      long readLen = range.getSecond();
+      if (offset >= 0 && length >= 0) {
+        if (offset < startPos || offset + length > startPos + readLen) {
+          throw new IOException("Requested range [" + offset + ", " + (offset + length) + ") is out of partition "
+              + partId + " [" + startPos + ", " + (startPos + readLen) + ") of " + ta);
+        }
+        startPos = offset;
+        readLen = length;
+      }
+      chunks.add(new FileChunk(new File(new Path(path, SortShuffleIndex.DATA_FILE_NAME).toUri()), startPos, readLen));
+    }
+    return chunks;
+  }
+
+  public static FileChunk getFileCunks(Configuration conf,
+                                      Path outDir,
                                       String startKey,
                                       String endKey,
                                       boolean last) throws IOException {
-    BSTIndex index = new BSTIndex(new TajoConf());
-    BSTIndex.BSTIndexReader idxReader =
-        index.getIndexReader(new Path(outDir, "index"));
-    idxReader.open();
+    BSTIndex.BSTIndexReader idxReader = getIndexReaderCache(conf).get(outDir);
+
+    // A cached reader is shared by concurrent requests, and its cursors are not thread-safe.
+    synchronized (idxReader) {
+      if (idxReader.isClosed()) { // evicted in the meantime
+        TajoConf tajoConf = conf instanceof TajoConf ? (TajoConf) conf : new TajoConf(conf);
+        BSTIndex.BSTIndexReader uncached = new BSTIndex(tajoConf).getIndexReader(new Path(outDir, "index"));
+        uncached.open();
+        try {
+          return getFileCunks(uncached, outDir, startKey, endKey, last);
+        } finally {
+          uncached.close();
+        }
+      }
+      return getFileCunks(idxReader, outDir, startKey, endKey, last);
+    }
+  }
+
+  private static FileChunk getFileCunks(BSTIndex.BSTIndexReader idxReader,
+                                        Path outDir,
+                                        String startKey,
+                                        String endKey,
+                                        boolean last) throws IOException {
     Schema keySchema = idxReader.getKeySchema();
     TupleComparator comparator = idxReader.getComparator();
 
-    LOG.info("BSTIndex is loaded from disk (" + idxReader.getFirstKey() + ", "
-        + idxReader.getLastKey());
-
     File data = new File(URI.create(outDir.toUri() + "/output"));
     byte [] startBytes = Base64.decodeBase64(startKey);
     byte [] endBytes = Base64.decodeBase64(endKey);
@@ -808,8 +1022,6 @@ public class TajoPullServerService extends AbstractService {
       endOffset = data.length();
     }
 
-    idxReader.close();
-
     FileChunk chunk = new FileChunk(data, startOffset, endOffset - startOffset);
     LOG.info("Retrieve File Chunk: " + chunk);
     return chunk;
@@ -0,0 +1,340 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage;
+
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.plan.expr.*;
+import org.apache.tajo.util.TUtil;
+
+import java.util.List;
+
+/**
+ * It decides whether a block of a file (e.g., a Parquet row group) can be skipped for a search condition,
+ * using the min/max values and the null counts of the columns in the block.
+ *
+ * A search condition is split into conjunctive predicates, and only predicates which compare a column with
+ * constants are kept (i.e., =, <, <=, >, >=, BETWEEN, IN, IS NULL and their combinations by AND and OR).
+ * A block is skipped if any of them cannot be satisfied by any row of the block. The decision is
+ * conservative, so the search condition still must be evaluated against the returned rows.
+ */
+public class BlockStatsFilter {
+  private final List<EvalNode> predicates = TUtil.newList();
+
+  public BlockStatsFilter(EvalNode searchCondition) {
+    if (searchCondition != null) {
+      for (EvalNode predicate : AlgebraicUtil.toConjunctiveNormalFormArray(searchCondition)) {
+        if (isSupported(predicate)) {
+          predicates.add(predicate);
+        }
+      }
+    }
+  }
+
+  /**
+   * The statistics of a block, provided by each file format.
+   */
+  public interface BlockStats {
+    long getNumRows();
+
+    /**
+     * @return the statistics of the given column, or null if they are unknown (e.g., partition columns).
+     */
+    ColumnRange getColumnRange(Column column);
+  }
+
+  /**
+   * @return true if there is no predicate which can be evaluated against statistics.
+   */
+  public boolean isEmpty() {
+    return predicates.isEmpty();
+  }
+
+  /**
+   * @return true if no row of the given block can satisfy the search condition.
+   */
+  public boolean canDrop(BlockStats block) {
+    if (predicates.isEmpty() || block.getNumRows() == 0) {
+      return false;
+    }
+
+    for (EvalNode predicate : predicates) {
+      if (!mightMatch(predicate, block)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isSupported(EvalNode eval) {
+    switch (eval.getType()) {
+    case AND:
+    case OR: {
+      BinaryEval binaryEval = (BinaryEval) eval;
+      return isSupported(binaryEval.getLeftExpr()) && isSupported(binaryEval.getRightExpr());
+    }
+    case EQUAL:
+    case LTH:
+    case LEQ:
+    case GTH:
+    case GEQ: {
+      BinaryEval binaryEval = (BinaryEval) eval;
+      return (isColumn(binaryEval.getLeftExpr()) && isConstant(binaryEval.getRightExpr())) ||
+          (isConstant(binaryEval.getLeftExpr()) && isColumn(binaryEval.getRightExpr()));
+    }
+    case BETWEEN: {
+      BetweenPredicateEval between = (BetweenPredicateEval) eval;
+      return !between.isNot() && isColumn(between.getPredicand()) &&
+          isConstant(between.getBegin()) && isConstant(between.getEnd());
+    }
+    case IN: {
+      InEval inEval = (InEval) eval;
+      return !inEval.isNot() && isColumn(inEval.getLeftExpr());
+    }
+    case IS_NULL:
+      return isColumn(((IsNullEval) eval).getChild());
+    default:
+      return false;
+    }
+  }
+
+  private static boolean isColumn(EvalNode eval) {
+    return eval.getType() == EvalType.FIELD;
+  }
+
+  private static boolean isConstant(EvalNode eval) {
+    return eval.getType() == EvalType.CONST && !((ConstEval) eval).getValue().isNull();
+  }
+
+  /**
+   * @return false only if no row of the block can satisfy the given predicate.
+   */
+  private static boolean mightMatch(EvalNode eval, BlockStats block) {
+    switch (eval.getType()) {
+    case AND: {
+      BinaryEval binaryEval = (BinaryEval) eval;
+      return mightMatch(binaryEval.getLeftExpr(), block) && mightMatch(binaryEval.getRightExpr(), block);
+    }
+    case OR: {
+      BinaryEval binaryEval = (BinaryEval) eval;
+      return mightMatch(binaryEval.getLeftExpr(), block) || mightMatch(binaryEval.getRightExpr(), block);
+    }
+    case EQUAL:
+    case LTH:
+    case LEQ:
+    case GTH:
+    case GEQ: {
+      BinaryEval binaryEval = (BinaryEval) eval;
+      if (isColumn(binaryEval.getLeftExpr())) {
+        return mightMatch(eval.getType(), getColumnRange(binaryEval.getLeftExpr(), block),
+            ((ConstEval) binaryEval.getRightExpr()).getValue());
+      } else {
+        return mightMatch(flip(eval.getType()), getColumnRange(binaryEval.getRightExpr(), block),
+            ((ConstEval) binaryEval.getLeftExpr()).getValue());
+      }
+    }
+    case BETWEEN: {
+      BetweenPredicateEval between = (BetweenPredicateEval) eval;
+      ColumnRange range = getColumnRange(between.getPredicand(), block);
+      Datum begin = ((ConstEval) between.getBegin()).getValue();
+      Datum end = ((ConstEval) between.getEnd()).getValue();
+      if (between.isSymmetric()) {
+        return (mightMatch(EvalType.GEQ, range, begin) && mightMatch(EvalType.LEQ, range, end)) ||
+            (mightMatch(EvalType.GEQ, range, end) && mightMatch(EvalType.LEQ, range, begin));
+      } else {
+        return mightMatch(EvalType.GEQ, range, begin) && mightMatch(EvalType.LEQ, range, end);
+      }
+    }
+    case IN: {
+      InEval inEval = (InEval) eval;
+      ColumnRange range = getColumnRange(inEval.getLeftExpr(), block);
+      for (Datum value : ((RowConstantEval) inEval.getRightExpr()).getValues()) {
+        if (mightMatch(EvalType.EQUAL, range, value)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    case IS_NULL: {
+      IsNullEval isNullEval = (IsNullEval) eval;
+      ColumnRange range = getColumnRange(isNullEval.getChild(), block);
+      if (range == null || !range.hasNullCount) {
+        return true;
+      }
+      return isNullEval.isNot() ? range.numNulls < block.getNumRows() : range.numNulls > 0;
+    }
+    default:
+      return true;
+    }
+  }
+
+  private static EvalType flip(EvalType type) {
+    switch (type) {
+    case LTH:
+      return EvalType.GTH;
+    case LEQ:
+      return EvalType.GEQ;
+    case GTH:
+      return EvalType.LTH;
+    case GEQ:
+      return EvalType.LEQ;
+    default:
+      return type;
+    }
+  }
+
+  /**
+   * @return false only if no non-null value in the given range can satisfy 'column (op) value'.
+   */
+  private static boolean mightMatch(EvalType op, ColumnRange range, Datum value) {
+    if (range == null || value.isNull()) {
+      return true;
+    }
+    if (range.allNulls) {
+      // a comparison with null is never true.
+      return false;
+    }
+    if (!range.hasMinMax) {
+      return true;
+    }
+
+    Integer minCompared = range.compareMin(value);
+    Integer maxCompared = range.compareMax(value);
+    if (minCompared == null || maxCompared == null) {
+      return true;
+    }
+
+    switch (op) {
+    case EQUAL:
+      return minCompared <= 0 && maxCompared >= 0;
+    case LTH:
+      return minCompared < 0;
+    case LEQ:
+      return minCompared <= 0;
+    case GTH:
+      return maxCompared > 0;
+    case GEQ:
+      return maxCompared >= 0;
+    default:
+      return true;
+    }
+  }
+
+  private static ColumnRange getColumnRange(EvalNode field, BlockStats block) {
+    return block.getColumnRange(((FieldEval) field).getColumnRef());
+  }
+
+  /**
+   * The min/max values and the number of nulls of a column in a block.
+   *
+   * Min/max values are Longs for integer columns, Doubles for floating point columns, and byte arrays for
+   * text columns, which are compared as unsigned bytes.
+   */
+  public static class ColumnRange {
+    final boolean hasNullCount;
+    final long numNulls;
+    final boolean allNulls;
+    final boolean hasMinMax;
+    final Object min;
+    final Object max;
+
+    /**
+     * @param hasNullCount false if the null count is unknown
+     * @param numNulls the number of nulls
+     * @param numRows the number of rows of the block
+     * @param min the min value, or null if unknown
+     * @param max the max value, or null if unknown
+     */
+    public ColumnRange(boolean hasNullCount, long numNulls, long numRows, Object min, Object max) {
+      this.hasNullCount = hasNullCount;
+      this.numNulls = numNulls;
+      this.allNulls = hasNullCount && numNulls == numRows;
+
+      if (min instanceof Double && (((Double) min).isNaN() || ((Double) max).isNaN())) {
+        min = max = null;
+      }
+      this.min = max == null ? null : min;
+      this.max = min == null ? null : max;
+      this.hasMinMax = this.min != null;
+    }
+
+    Integer compareMin(Datum value) {
+      return compare(min, value);
+    }
+
+    Integer compareMax(Datum value) {
+      return compare(max, value);
+    }
+
+    /**
+     * @return the result of comparing a statistics value with the given value, or null if they are not comparable.
+     */
+    private static Integer compare(Object statValue, Datum value) {
+      switch (value.type()) {
+      case INT2:
+      case INT4:
+      case INT8:
+        if (statValue instanceof Long) {
+          long v = value.asInt8();
+          long s = (Long) statValue;
+          return s < v ? -1 : (s == v ? 0 : 1);
+        } else if (statValue instanceof Double) {
+          return compareDouble((Double) statValue, value.asFloat8());
+        }
+        return null;
+      case FLOAT4:
+      case FLOAT8:
+        if (Double.isNaN(value.asFloat8())) {
+          return null;
+        } else if (statValue instanceof Long) {
+          return compareDouble((Long) statValue, value.asFloat8());
+        } else if (statValue instanceof Double) {
+          return compareDouble((Double) statValue, value.asFloat8());
+        }
+        return null;
+      case TEXT:
+        if (statValue instanceof byte[]) {
+          return compareUnsigned((byte[]) statValue, value.asByteArray());
+        }
+        return null;
+      default:
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Unlike {@link Double#compare(double, double)}, it regards -0.0 and 0.0 as equal values.
+   */
+  private static int compareDouble(double left, double right) {
+    return left < right ? -1 : (left > right ? 1 : 0);
+  }
+
+  public static int compareUnsigned(byte [] left, byte [] right) {
+    int len = Math.min(left.length, right.length);
+    for (int i = 0; i < len; i++) {
+      int l = left[i] & 0xff;
+      int r = right[i] & 0xff;
+      if (l != r) {
+        return l - r;
+      }
+    }
+    return left.length - right.length;
+  }
+}
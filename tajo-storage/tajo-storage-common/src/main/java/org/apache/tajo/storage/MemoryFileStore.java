@@ -0,0 +1,79 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.tajo.storage;
+
+import io.netty.buffer.ByteBuf;
+import org.apache.hadoop.fs.Path;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A worker-wide registry of local files whose contents are kept in memory instead of disk.
+ *
+ * Small shuffle partitions fetched by a task are kept in pooled buffers, and they are registered with the paths
+ * which they would have been written to. A scanner which supports it reads the buffer of a registered path
+ * instead of opening the file. The owner of a buffer should remove it when the data is not used anymore.
+ */
+public class MemoryFileStore {
+  private static final Map<String, ByteBuf> files = new ConcurrentHashMap<String, ByteBuf>();
+
+  private MemoryFileStore() {
+  }
+
+  private static String getKey(Path path) {
+    return path.toUri().getPath();
+  }
+
+  /**
+   * It registers a buffer of a path. The readable bytes of the buffer are the contents of the file.
+   */
+  public static void put(Path path, ByteBuf buf) {
+    ByteBuf old = files.put(getKey(path), buf);
+    if (old != null && old != buf) {
+      old.release();
+    }
+  }
+
+  /**
+   * @return the buffer of the path, or null if the path is not kept in memory
+   */
+  public static ByteBuf get(Path path) {
+    return files.get(getKey(path));
+  }
+
+  /**
+   * It removes the buffer of a path, and releases it.
+   *
+   * @return true if the path was kept in memory
+   */
+  public static boolean remove(Path path) {
+    ByteBuf buf = files.remove(getKey(path));
+    if (buf == null) {
+      return false;
+    }
+    buf.release();
+    return true;
+  }
+
+  public static int size() {
+    return files.size();
+  }
+}
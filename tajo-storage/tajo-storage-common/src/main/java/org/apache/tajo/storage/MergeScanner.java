@@ -18,6 +18,8 @@
 
 package org.apache.tajo.storage;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.tajo.catalog.Column;
 import org.apache.tajo.catalog.Schema;
@@ -26,13 +28,17 @@ import org.apache.tajo.catalog.statistics.ColumnStats;
 import org.apache.tajo.catalog.statistics.TableStats;
 import org.apache.tajo.conf.TajoConf;
 import org.apache.tajo.storage.fragment.Fragment;
+import org.apache.tajo.storage.vector.RowBatch;
+import org.apache.tajo.storage.vector.VectorizedScanner;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
-public class MergeScanner implements Scanner {
+public class MergeScanner implements Scanner, VectorizedScanner {
+  private static final Log LOG = LogFactory.getLog(MergeScanner.class);
+
   private Configuration conf;
   private TableMeta meta;
   private Schema schema;
@@ -43,7 +49,9 @@ public class MergeScanner implements Scanner {
   private Tuple tuple;
   private boolean projectable = false;
   private boolean selectable = false;
+  private boolean vectorized = false;
   private Schema target;
+  private Object searchCondition;
   private float progress;
   protected TableStats tableStats;
 
@@ -77,6 +85,8 @@ public class MergeScanner implements Scanner {
     if (currentScanner != null) {
       this.projectable = currentScanner.isProjectable();
       this.selectable = currentScanner.isSelectable();
+      this.vectorized = currentScanner instanceof VectorizedScanner &&
+          ((VectorizedScanner) currentScanner).isVectorized();
     }
 
     tableStats = new TableStats();
@@ -103,14 +113,7 @@ public class MergeScanner implements Scanner {
     if (tuple != null) {
       return tuple;
     } else {
-      if (currentScanner != null) {
-        currentScanner.close();
-        TableStats scannerTableStsts = currentScanner.getInputStats();
-        if (scannerTableStsts != null) {
-          tableStats.setReadBytes(tableStats.getReadBytes() + scannerTableStsts.getReadBytes());
-          tableStats.setNumRows(tableStats.getNumRows() + scannerTableStsts.getNumRows());
-        }
-      }
+      closeCurrentScanner();
       currentScanner = getNextScanner();
       if (currentScanner != null) {
         tuple = currentScanner.next();
@@ -119,6 +122,38 @@ public class MergeScanner implements Scanner {
     return tuple;
   }
 
+  private void closeCurrentScanner() throws IOException {
+    if (currentScanner != null) {
+      currentScanner.close();
+      TableStats scannerTableStsts = currentScanner.getInputStats();
+      if (scannerTableStsts != null) {
+        tableStats.setReadBytes(tableStats.getReadBytes() + scannerTableStsts.getReadBytes());
+        tableStats.setNumRows(tableStats.getNumRows() + scannerTableStsts.getNumRows());
+        tableStats.setNumSkippedBlocks(tableStats.getNumSkippedBlocks() + scannerTableStsts.getNumSkippedBlocks());
+        tableStats.setSkippedBytes(tableStats.getSkippedBytes() + scannerTableStsts.getSkippedBytes());
+      }
+    }
+  }
+
+  @Override
+  public boolean isVectorized() {
+    return vectorized;
+  }
+
+  @Override
+  public boolean nextBatch(RowBatch batch) throws IOException {
+    while (true) {
+      if (currentScanner != null && ((VectorizedScanner) currentScanner).nextBatch(batch)) {
+        return true;
+      }
+      closeCurrentScanner();
+      currentScanner = getNextScanner();
+      if (currentScanner == null) {
+        return false;
+      }
+    }
+  }
+
   @Override
   public void reset() throws IOException {
     this.iterator = fragments.iterator();
@@ -133,6 +168,9 @@ public class MergeScanner implements Scanner {
       currentFragment = iterator.next();
       currentScanner = StorageManager.getStorageManager((TajoConf)conf, meta.getStoreType()).getScanner(meta, schema,
           currentFragment, target);
+      if (searchCondition != null && currentScanner.isSelectable()) {
+        currentScanner.setSearchCondition(searchCondition);
+      }
       currentScanner.init();
       return currentScanner;
     } else {
@@ -165,8 +203,22 @@ public class MergeScanner implements Scanner {
     return selectable;
   }
 
+  /**
+   * It passes the search condition to the scanners of all fragments. The scanner of the first fragment is
+   * already initialized without the condition, so it is closed and created again by the first next().
+   */
   @Override
   public void setSearchCondition(Object expr) {
+    this.searchCondition = expr;
+    if (selectable && currentScanner != null) {
+      try {
+        currentScanner.close();
+      } catch (IOException e) {
+        LOG.warn(e.getMessage(), e);
+      }
+      currentScanner = null;
+      iterator = fragments.iterator();
+    }
   }
 
   @Override
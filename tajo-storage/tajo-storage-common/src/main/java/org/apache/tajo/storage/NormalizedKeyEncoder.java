@@ -0,0 +1,226 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage;
+
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.SortSpec;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * It encodes the leading sort keys of a tuple into a fixed-width (64 bits) normalized key prefix.
+ *
+ * Prefixes are binary-comparable. That is, if the prefix of a tuple is less than that of another tuple,
+ * the tuple precedes the other one in the order of {@link BaseTupleComparator}. Equal prefixes do not mean
+ * equal tuples, so ties should be resolved by a full comparison.
+ *
+ * Each key is encoded into a 2-bit null marker followed by an order-preserving encoding of the value,
+ * which is inverted for descending keys. Keys are packed until the prefix is full. A variable-length key
+ * (e.g., TEXT) is truncated, and the keys after it are not encoded.
+ */
+public class NormalizedKeyEncoder {
+  private static final int PREFIX_BITS = 64;
+  private static final int MARKER_BITS = 2;
+  private static final long NULL_FIRST_MARKER = 0;
+  private static final long NOT_NULL_MARKER = 1;
+  private static final long NULL_LAST_MARKER = 2;
+
+  private final int [] keyIds;
+  private final Type [] keyTypes;
+  private final boolean [] asc;
+  private final boolean [] nullFirst;
+
+  public NormalizedKeyEncoder(Schema schema, SortSpec [] sortSpecs) {
+    // only the leading keys whose types are supported are encoded
+    int num = 0;
+    while (num < sortSpecs.length && getWidth(sortSpecs[num].getSortKey().getDataType().getType()) > 0) {
+      num++;
+    }
+
+    keyIds = new int[num];
+    keyTypes = new Type[num];
+    asc = new boolean[num];
+    nullFirst = new boolean[num];
+    for (int i = 0; i < num; i++) {
+      Column column = sortSpecs[i].getSortKey();
+      if (column.hasQualifier()) {
+        keyIds[i] = schema.getColumnId(column.getQualifiedName());
+      } else {
+        keyIds[i] = schema.getColumnIdByName(column.getSimpleName());
+      }
+      keyTypes[i] = column.getDataType().getType();
+      asc[i] = sortSpecs[i].isAscending();
+      // It follows the null ordering of BaseTupleComparator.
+      nullFirst[i] = sortSpecs[i].isNullFirst() == sortSpecs[i].isAscending();
+    }
+  }
+
+  /**
+   * @return true if at least one sort key can be encoded
+   */
+  public boolean isEnabled() {
+    return keyIds.length > 0;
+  }
+
+  /**
+   * @return The number of bits of an encoded value, 0 for unsupported types,
+   * or {@link #PREFIX_BITS} for variable-length types
+   */
+  private static int getWidth(Type type) {
+    switch (type) {
+    case INT2:
+      return 16;
+    case INT4:
+    case FLOAT4:
+      return 32;
+    case INT8:
+    case FLOAT8:
+    case CHAR:
+    case TEXT:
+      return 64;
+    default:
+      return 0;
+    }
+  }
+
+  private static boolean isVariableLength(Type type) {
+    return type == Type.CHAR || type == Type.TEXT;
+  }
+
+  /**
+   * It returns an order-preserving encoding of a non-null value, aligned to the most significant bit.
+   */
+  private static long encodeValue(Type type, Datum datum) {
+    switch (type) {
+    case INT2:
+      return ((long) (datum.asInt2() ^ 0x8000) & 0xFFFFL) << 48;
+    case INT4:
+      return ((datum.asInt4() ^ 0x80000000L) & 0xFFFFFFFFL) << 32;
+    case INT8:
+      return datum.asInt8() ^ Long.MIN_VALUE;
+    case FLOAT4: {
+      float value = datum.asFloat4();
+      // -0.0 and 0.0 are equal in comparisons
+      int bits = Float.floatToIntBits(value == 0.0f ? 0.0f : value);
+      bits = bits < 0 ? ~bits : bits | 0x80000000;
+      return ((long) bits & 0xFFFFFFFFL) << 32;
+    }
+    case FLOAT8: {
+      double value = datum.asFloat8();
+      long bits = Double.doubleToLongBits(value == 0.0d ? 0.0d : value);
+      return bits < 0 ? ~bits : bits | Long.MIN_VALUE;
+    }
+    case CHAR:
+    case TEXT: {
+      byte [] bytes = datum.asByteArray();
+      long encoded = 0;
+      for (int i = 0; i < 8; i++) {
+        encoded <<= 8;
+        if (i < bytes.length) {
+          encoded |= bytes[i] & 0xFF;
+        }
+      }
+      return encoded;
+    }
+    default:
+      throw new IllegalStateException(type + " should have been filtered out by getWidth()");
+    }
+  }
+
+  /**
+   * It returns the normalized key prefix of the given tuple. Prefixes should be compared by {@link #compare}.
+   */
+  public long encode(Tuple tuple) {
+    long prefix = 0;
+    int remain = PREFIX_BITS;
+
+    for (int i = 0; i < keyIds.length && remain > MARKER_BITS; i++) {
+      Datum datum = tuple.get(keyIds[i]);
+      int width = getWidth(keyTypes[i]);
+      remain -= MARKER_BITS;
+
+      if (datum.isNull()) {
+        prefix |= (nullFirst[i] ? NULL_FIRST_MARKER : NULL_LAST_MARKER) << remain;
+      } else {
+        prefix |= NOT_NULL_MARKER << remain;
+
+        long encoded = encodeValue(keyTypes[i], datum);
+        if (!asc[i]) {
+          encoded = ~encoded;
+        }
+        int taken = Math.min(width, remain);
+        if (taken > 0) {
+          prefix |= (encoded >>> (PREFIX_BITS - taken)) << (remain - taken);
+        }
+      }
+
+      if (isVariableLength(keyTypes[i]) || width > remain) {
+        // the value is truncated, so the next keys cannot be compared by the prefix
+        break;
+      }
+      remain -= width;
+    }
+
+    // It flips the sign bit, so that prefixes can be compared as signed longs.
+    return prefix ^ Long.MIN_VALUE;
+  }
+
+  public static int compare(long prefix1, long prefix2) {
+    return prefix1 < prefix2 ? -1 : (prefix1 == prefix2 ? 0 : 1);
+  }
+
+  /**
+   * It sorts the given tuples by their normalized key prefixes, and compares tuples by the given
+   * comparator only if their prefixes are equal.
+   */
+  public void sort(List<Tuple> tuples, final Comparator<Tuple> comparator) {
+    KeyedTuple [] entries = new KeyedTuple[tuples.size()];
+    for (int i = 0; i < entries.length; i++) {
+      Tuple tuple = tuples.get(i);
+      entries[i] = new KeyedTuple(encode(tuple), tuple);
+    }
+
+    Arrays.sort(entries, new Comparator<KeyedTuple>() {
+      @Override
+      public int compare(KeyedTuple o1, KeyedTuple o2) {
+        int cmp = NormalizedKeyEncoder.compare(o1.prefix, o2.prefix);
+        return cmp != 0 ? cmp : comparator.compare(o1.tuple, o2.tuple);
+      }
+    });
+
+    for (int i = 0; i < entries.length; i++) {
+      tuples.set(i, entries[i].tuple);
+    }
+  }
+
+  private static class KeyedTuple {
+    final long prefix;
+    final Tuple tuple;
+
+    KeyedTuple(long prefix, Tuple tuple) {
+      this.prefix = prefix;
+      this.tuple = tuple;
+    }
+  }
+}
@@ -336,6 +336,12 @@ public class RowStoreUtil {
       case BOOLEAN:
         writer.putBool(tuple.getBool(i));
         break;
+      case BIT:
+        writer.putByte(tuple.getByte(i));
+        break;
+      case CHAR:
+        writer.putText(tuple.getBytes(i));
+        break;
       case INT1:
       case INT2:
         writer.putInt2(tuple.getInt2(i));
@@ -359,6 +365,9 @@ public class RowStoreUtil {
       case TEXT:
         writer.putText(tuple.getBytes(i));
         break;
+      case BLOB:
+        writer.putBlob(tuple.getBytes(i));
+        break;
       case INTERVAL:
         writer.putInterval((IntervalDatum) tuple.getInterval(i));
         break;
@@ -0,0 +1,114 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage.vector;
+
+import org.apache.tajo.common.TajoDataTypes.DataType;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.NullDatum;
+
+import java.util.Arrays;
+
+/**
+ * A column of values of a {@link RowBatch}. Values are kept in a primitive array if possible,
+ * and null values are marked in {@link #isNull}.
+ */
+public abstract class ColumnVector {
+  protected final DataType dataType;
+  /** isNull[i] is true if the i-th value is null. It is valid only if {@link #noNulls} is false. */
+  public final boolean [] isNull;
+  /** true if there is no null value in this vector */
+  public boolean noNulls = true;
+
+  public ColumnVector(DataType dataType, int capacity) {
+    this.dataType = dataType;
+    this.isNull = new boolean[capacity];
+  }
+
+  /**
+   * It creates a column vector suitable for the given type.
+   */
+  public static ColumnVector create(DataType dataType, int capacity) {
+    switch (dataType.getType()) {
+    case BOOLEAN:
+    case INT2:
+    case INT4:
+    case INT8:
+      return new LongColumnVector(dataType, capacity);
+    case FLOAT4:
+    case FLOAT8:
+      return new DoubleColumnVector(dataType, capacity);
+    default:
+      return new DatumColumnVector(dataType, capacity);
+    }
+  }
+
+  public DataType getDataType() {
+    return dataType;
+  }
+
+  public int capacity() {
+    return isNull.length;
+  }
+
+  public final boolean isNullAt(int row) {
+    return !noNulls && isNull[row];
+  }
+
+  public final void setNull(int row) {
+    if (noNulls) {
+      // isNull of previous rows can be stale
+      Arrays.fill(isNull, 0, row, false);
+      noNulls = false;
+    }
+    isNull[row] = true;
+  }
+
+  /**
+   * It puts a value without checking null. It is used only for non-null values.
+   */
+  protected abstract void putValue(int row, Datum datum);
+
+  /**
+   * It returns a value without checking null. It is used only for non-null values.
+   */
+  protected abstract Datum getValue(int row);
+
+  public final void setDatum(int row, Datum datum) {
+    if (datum == null || datum.isNull()) {
+      setNull(row);
+    } else {
+      if (!noNulls) {
+        isNull[row] = false;
+      }
+      putValue(row, datum);
+    }
+  }
+
+  public final Datum getDatum(int row) {
+    if (isNullAt(row)) {
+      return NullDatum.get();
+    } else {
+      return getValue(row);
+    }
+  }
+
+  public void reset() {
+    noNulls = true;
+  }
+}
@@ -0,0 +1,50 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage.vector;
+
+import org.apache.tajo.common.TajoDataTypes.DataType;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
+
+/**
+ * A column vector of floating point values.
+ */
+public class DoubleColumnVector extends ColumnVector {
+  public final double [] vector;
+
+  public DoubleColumnVector(DataType dataType, int capacity) {
+    super(dataType, capacity);
+    this.vector = new double[capacity];
+  }
+
+  @Override
+  protected void putValue(int row, Datum datum) {
+    vector[row] = datum.asFloat8();
+  }
+
+  @Override
+  protected Datum getValue(int row) {
+    if (dataType.getType() == Type.FLOAT4) {
+      return DatumFactory.createFloat4((float) vector[row]);
+    } else {
+      return DatumFactory.createFloat8(vector[row]);
+    }
+  }
+}
@@ -0,0 +1,195 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage.vector;
+
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.storage.Tuple;
+
+/**
+ * A batch of rows kept in a column-wise layout. It is filled by scanners, and exchanged between physical
+ * executors in the batch mode.
+ *
+ * A row batch has {@link #size()} physical rows. If {@link #isSelectedInUse()} is true, only the rows
+ * whose indexes are in {@link #getSelected()} are valid. A filter just narrows the selected rows,
+ * so it never moves any value.
+ */
+public class RowBatch {
+  public static final int DEFAULT_SIZE = 1024;
+
+  private final Schema schema;
+  private final ColumnVector [] columns;
+  /** columns which have vectors. The others are treated as nulls. */
+  private final boolean [] filled;
+  /** columns whose vectors are allocated by this batch, and filled by {@link #addRow(Tuple)} */
+  private final boolean [] owned;
+  private final int capacity;
+
+  private int size;
+  private final int [] selected;
+  private int selectedSize;
+  private boolean selectedInUse;
+
+  /**
+   * It creates a row batch whose columns are allocated lazily by {@link #setColumn(int, ColumnVector)}.
+   */
+  public RowBatch(Schema schema, int capacity) {
+    this.schema = schema;
+    this.capacity = capacity;
+    this.columns = new ColumnVector[schema.size()];
+    this.filled = new boolean[schema.size()];
+    this.owned = new boolean[schema.size()];
+    this.selected = new int[capacity];
+  }
+
+  /**
+   * It creates a row batch which allocates the vectors of the given columns, and fills them with tuples.
+   *
+   * @param schema The schema of tuples to be added
+   * @param capacity The max number of rows
+   * @param targetColumnIds The columns to be filled. The other columns are treated as nulls.
+   */
+  public RowBatch(Schema schema, int capacity, int [] targetColumnIds) {
+    this(schema, capacity);
+    for (int columnId : targetColumnIds) {
+      columns[columnId] = ColumnVector.create(schema.getColumn(columnId).getDataType(), capacity);
+      filled[columnId] = true;
+      owned[columnId] = true;
+    }
+  }
+
+  public static int [] allColumnIds(Schema schema) {
+    int [] ids = new int[schema.size()];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = i;
+    }
+    return ids;
+  }
+
+  public Schema getSchema() {
+    return schema;
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isFull() {
+    return size >= capacity;
+  }
+
+  public ColumnVector getColumn(int columnId) {
+    return columns[columnId];
+  }
+
+  public void setColumn(int columnId, ColumnVector vector) {
+    columns[columnId] = vector;
+    filled[columnId] = true;
+  }
+
+  /**
+   * It sets the number of rows, which are filled directly into the column vectors (e.g., by a scanner).
+   */
+  public void setSize(int size) {
+    this.size = size;
+  }
+
+  public void addRow(Tuple tuple) {
+    for (int i = 0; i < columns.length; i++) {
+      if (owned[i]) {
+        columns[i].setDatum(size, tuple.get(i));
+      }
+    }
+    size++;
+  }
+
+  /**
+   * It fills the given tuple with the values of a row.
+   *
+   * @param row The physical index of a row
+   */
+  public void getRow(int row, Tuple tuple) {
+    for (int i = 0; i < columns.length; i++) {
+      if (filled[i]) {
+        tuple.put(i, columns[i].getDatum(row));
+      } else {
+        tuple.put(i, NullDatum.get());
+      }
+    }
+  }
+
+  /**
+   * @return The number of valid rows
+   */
+  public int getSelectedSize() {
+    return selectedInUse ? selectedSize : size;
+  }
+
+  public int [] getSelected() {
+    return selected;
+  }
+
+  public boolean isSelectedInUse() {
+    return selectedInUse;
+  }
+
+  /**
+   * It returns the physical index of the i-th valid row.
+   */
+  public int getSelectedRow(int i) {
+    return selectedInUse ? selected[i] : i;
+  }
+
+  /**
+   * It narrows valid rows to the first <code>selectedSize</code> indexes of {@link #getSelected()}.
+   */
+  public void setSelected(int selectedSize) {
+    this.selectedSize = selectedSize;
+    this.selectedInUse = true;
+  }
+
+  /**
+   * It makes this batch share the rows and the selection of the given batch.
+   * It is used for the results of projections, whose columns are computed from the given batch
+   * and set by {@link #setColumn(int, ColumnVector)}.
+   */
+  public void shareRows(RowBatch other) {
+    this.size = other.size;
+    this.selectedInUse = other.selectedInUse;
+    this.selectedSize = other.selectedSize;
+    if (selectedInUse) {
+      System.arraycopy(other.selected, 0, selected, 0, selectedSize);
+    }
+  }
+
+  public void reset() {
+    size = 0;
+    selectedSize = 0;
+    selectedInUse = false;
+    for (int i = 0; i < columns.length; i++) {
+      if (owned[i]) {
+        columns[i].reset();
+      }
+    }
+  }
+}
@@ -0,0 +1,44 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage.vector;
+
+import java.io.IOException;
+
+/**
+ * A scanner which can read rows into {@link RowBatch}es directly, without materializing a tuple per row.
+ */
+public interface VectorizedScanner {
+  /**
+   * It returns if {@link #nextBatch(RowBatch)} is supported for the projected columns of this scanner.
+   * A scanner should be read by either {@link #nextBatch(RowBatch)} or next(), not by both.
+   *
+   * @return true if this scanner can fill row batches
+   */
+  boolean isVectorized();
+
+  /**
+   * It fills the given row batch with the next rows, and sets the number of rows of the batch.
+   * The columns of a batch are indexed by the schema of this scanner, and only the projected columns
+   * which have vectors in the batch are filled. The batch should be reset before it is given.
+   *
+   * @param batch The row batch to be filled
+   * @return false if there are no more rows
+   */
+  boolean nextBatch(RowBatch batch) throws IOException;
+}
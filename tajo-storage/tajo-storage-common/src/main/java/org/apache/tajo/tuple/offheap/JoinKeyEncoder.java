@@ -0,0 +1,209 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.tuple.offheap;
+
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.IntervalDatum;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.util.Deallocatable;
+import org.apache.tajo.util.SizeOf;
+import org.apache.tajo.util.UnsafeUtil;
+import sun.misc.Unsafe;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * It encodes the join key of a tuple into a reusable off-heap buffer as follows:
+ *
+ * <pre>
+ *   | length (4 bytes) | encoded key field 1 | ... | encoded key field N |
+ * </pre>
+ *
+ * The encoded key can be directly compared by {@link UnSafeTupleBytesComparator}.
+ *
+ * Numeric keys are encoded in a normalized form (integers as INT8 and floating points as FLOAT8), and other values
+ * are encoded in their byte representation. Since two equivalent values of different types are encoded in the same
+ * bytes where possible, and two different values never have the same encoding, any hash table or partitioning based
+ * on this encoding never misses a matched row. A caller should still evaluate its join condition for matched rows.
+ */
+public class JoinKeyEncoder implements Deallocatable {
+  private static final Unsafe UNSAFE = UnsafeUtil.unsafe;
+
+  // key encoding tags
+  private static final byte NULL_KEY = 0;
+  private static final byte INTEGER_KEY = 1;
+  private static final byte FLOAT_KEY = 2;
+  private static final byte INTERVAL_KEY = 3;
+  private static final byte BYTES_KEY = 4;
+
+  private ByteBuffer buffer;
+  private long address;
+  private int position;
+  private int hash;
+
+  public JoinKeyEncoder() {
+    buffer = ByteBuffer.allocateDirect(256).order(ByteOrder.nativeOrder());
+    address = UnsafeUtil.getAddress(buffer);
+  }
+
+  /**
+   * Encodes the join key of a tuple.
+   *
+   * @param tuple A tuple
+   * @param keyIds The column ids of join keys in the tuple
+   * @return The hash value of the encoded key
+   */
+  public int encode(Tuple tuple, int [] keyIds) {
+    position = SizeOf.SIZE_OF_INT;
+
+    for (int id : keyIds) {
+      Datum datum = tuple.get(id);
+
+      switch (datum.type()) {
+      case NULL_TYPE:
+        writeByte(NULL_KEY);
+        break;
+      case BOOLEAN:
+      case BIT:
+      case INT1:
+      case INT2:
+      case INT4:
+      case INT8:
+      case DATE:
+      case TIME:
+      case TIMESTAMP:
+      case INET4:
+        writeByte(INTEGER_KEY);
+        writeLong(datum.asInt8());
+        break;
+      case FLOAT4:
+      case FLOAT8:
+        double val = datum.asFloat8();
+        writeByte(FLOAT_KEY);
+        writeLong(Double.doubleToLongBits(val == 0.0d ? 0.0d : val)); // normalize -0.0
+        break;
+      case INTERVAL:
+        IntervalDatum interval = (IntervalDatum) datum;
+        writeByte(INTERVAL_KEY);
+        writeLong(interval.getMonths());
+        writeLong(interval.getMilliSeconds());
+        break;
+      default:
+        byte [] bytes = datum.asByteArray();
+        writeByte(BYTES_KEY);
+        writeBytes(bytes);
+      }
+    }
+
+    int keyLen = position - SizeOf.SIZE_OF_INT;
+    UNSAFE.putInt(address, keyLen);
+    hash = hash(address + SizeOf.SIZE_OF_INT, keyLen);
+    return hash;
+  }
+
+  /**
+   * @return The hash value of the last encoded key
+   */
+  public int hash() {
+    return hash;
+  }
+
+  /**
+   * @return The address of the last encoded key, which begins with its length
+   */
+  public long address() {
+    return address;
+  }
+
+  /**
+   * @return The total bytes of the last encoded key including its length
+   */
+  public int length() {
+    return position;
+  }
+
+  public int capacity() {
+    return buffer.capacity();
+  }
+
+  @Override
+  public void release() {
+    UnsafeUtil.free(buffer);
+    buffer = null;
+    address = 0;
+  }
+
+  private void ensureSize(int size) {
+    if (buffer.capacity() - position < size) {
+      int newSize = UnsafeUtil.alignedSize(Math.max(buffer.capacity() * 2, position + size));
+      ByteBuffer newBuf = ByteBuffer.allocateDirect(newSize).order(ByteOrder.nativeOrder());
+      long newAddr = UnsafeUtil.getAddress(newBuf);
+      UNSAFE.copyMemory(address, newAddr, position);
+
+      UnsafeUtil.free(buffer);
+      buffer = newBuf;
+      address = newAddr;
+    }
+  }
+
+  private void writeByte(byte val) {
+    ensureSize(SizeOf.SIZE_OF_BYTE);
+    UNSAFE.putByte(address + position, val);
+    position += SizeOf.SIZE_OF_BYTE;
+  }
+
+  private void writeLong(long val) {
+    ensureSize(SizeOf.SIZE_OF_LONG);
+    UNSAFE.putLong(address + position, val);
+    position += SizeOf.SIZE_OF_LONG;
+  }
+
+  private void writeBytes(byte [] bytes) {
+    ensureSize(SizeOf.SIZE_OF_INT + bytes.length);
+    UNSAFE.putInt(address + position, bytes.length);
+    position += SizeOf.SIZE_OF_INT;
+    UNSAFE.copyMemory(bytes, UnsafeUtil.ARRAY_BYTE_BASE_OFFSET, null, address + position, bytes.length);
+    position += bytes.length;
+  }
+
+  private static int hash(long addr, int len) {
+    long h = len;
+    int i = 0;
+    for (; i + SizeOf.SIZE_OF_LONG <= len; i += SizeOf.SIZE_OF_LONG) {
+      h = h * 31 + UNSAFE.getLong(addr + i);
+    }
+    for (; i < len; i++) {
+      h = h * 31 + UNSAFE.getByte(addr + i);
+    }
+    return mix((int) (h ^ (h >>> 32)));
+  }
+
+  /**
+   * The finalization mix of MurmurHash3
+   */
+  public static int mix(int k) {
+    k ^= k >>> 16;
+    k *= 0x85ebca6b;
+    k ^= k >>> 13;
+    k *= 0xc2b2ae35;
+    k ^= k >>> 16;
+    return k;
+  }
+}
@@ -0,0 +1,455 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.tuple.offheap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.storage.RowStoreUtil;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.unit.StorageUnit;
+import org.apache.tajo.util.Deallocatable;
+import org.apache.tajo.util.FileUtil;
+import org.apache.tajo.util.SizeOf;
+import org.apache.tajo.util.UnsafeUtil;
+import sun.misc.Unsafe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A multi-map from join keys to the rows of a build relation, which keeps all rows and keys in off-heap memory.
+ *
+ * Rows are stored in a sequence of {@link OffHeapRowBlock}s. Join keys are encoded by {@link JoinKeyEncoder},
+ * and each encoded key is stored once per distinct key and is compared by {@link UnSafeTupleBytesComparator}.
+ * Distinct keys are indexed by a primitive open-addressing hash table with linear probing, and rows sharing the same
+ * key are chained in their insertion order. The only heap objects are a few primitive arrays.
+ *
+ * A caller should still evaluate its join condition for each returned row.
+ */
+public class OffHeapJoinHashTable implements Deallocatable {
+  private static final Log LOG = LogFactory.getLog(OffHeapJoinHashTable.class);
+  private static final Unsafe UNSAFE = UnsafeUtil.unsafe;
+
+  private static final int EMPTY = -1;
+  private static final float LOAD_FACTOR = 0.75f;
+  private static final int INITIAL_CAPACITY = 1024;
+
+  public static final int DEFAULT_ROW_BLOCK_SIZE = 4 * StorageUnit.MB;
+  private static final int MAX_ROW_BLOCK_SIZE = 512 * StorageUnit.MB;
+  /** A new row block is started if the current one exceeds this size */
+  private static final int ROW_BLOCK_SWITCH_SIZE = MAX_ROW_BLOCK_SIZE / 2;
+
+  private final Schema schema;
+  private final int [] keyIds;
+  private final int initialBlockSize;
+
+  // rows
+  private final List<OffHeapRowBlock> rowBlocks = new ArrayList<OffHeapRowBlock>();
+  private OffHeapRowBlock currentBlock;
+  /** (block index << 32) | offset in the block */
+  private long [] rowPointers;
+  private int [] nextRows;
+  private int rowNum;
+
+  // distinct keys
+  private final ResizableLimitSpec keyAreaLimit;
+  private OffHeapMemory keyArea;
+  private int keyAreaPos;
+  private int [] keyOffsets;
+  private int [] keyHashes;
+  private int [] firstRows;
+  private int [] lastRows;
+  private int keyNum;
+
+  // open-addressing buckets, each of which has a key id
+  private int [] buckets;
+  private int mask;
+  private int threshold;
+
+  // a reusable encoder for join keys
+  private final JoinKeyEncoder encoder = new JoinKeyEncoder();
+
+  private final RowIterator iterator = new RowIterator();
+
+  /**
+   * @param schema The schema of rows to be stored
+   * @param keyIds The column ids of join keys in the schema
+   */
+  public OffHeapJoinHashTable(Schema schema, int [] keyIds) {
+    this(schema, keyIds, DEFAULT_ROW_BLOCK_SIZE);
+  }
+
+  /**
+   * @param schema The schema of rows to be stored
+   * @param keyIds The column ids of join keys in the schema
+   * @param initialBlockSize The initial bytes of off-heap memory for rows. A quarter of it is used for keys.
+   */
+  public OffHeapJoinHashTable(Schema schema, int [] keyIds, int initialBlockSize) {
+    this.schema = schema;
+    this.keyIds = keyIds;
+    this.initialBlockSize = initialBlockSize;
+    this.keyAreaLimit = new ResizableLimitSpec(Math.max(initialBlockSize / 4, StorageUnit.KB));
+
+    init();
+  }
+
+  private void init() {
+    currentBlock = new OffHeapRowBlock(schema, new ResizableLimitSpec(initialBlockSize, MAX_ROW_BLOCK_SIZE));
+    rowBlocks.add(currentBlock);
+    rowPointers = new long[INITIAL_CAPACITY];
+    nextRows = new int[INITIAL_CAPACITY];
+    rowNum = 0;
+
+    keyArea = new OffHeapMemory(keyAreaLimit);
+    keyAreaPos = 0;
+    keyOffsets = new int[INITIAL_CAPACITY];
+    keyHashes = new int[INITIAL_CAPACITY];
+    firstRows = new int[INITIAL_CAPACITY];
+    lastRows = new int[INITIAL_CAPACITY];
+    keyNum = 0;
+
+    buckets = new int[INITIAL_CAPACITY * 2];
+    Arrays.fill(buckets, EMPTY);
+    mask = buckets.length - 1;
+    threshold = (int) (buckets.length * LOAD_FACTOR);
+  }
+
+  /**
+   * Adds a row. The join key is taken from the row according to the key ids given to the constructor.
+   */
+  public void put(Tuple tuple) {
+    encoder.encode(tuple, keyIds);
+    put(tuple, encoder);
+  }
+
+  /**
+   * Adds a row with its join key which is already encoded.
+   */
+  public void put(Tuple tuple, JoinKeyEncoder encodedKey) {
+    int slot = findSlot(encodedKey);
+
+    int keyId = buckets[slot];
+    if (keyId == EMPTY) {
+      keyId = addKey(encodedKey);
+      buckets[slot] = keyId;
+      if (keyNum > threshold) {
+        rehash();
+      }
+    }
+
+    int rowId = addRow(tuple);
+    if (firstRows[keyId] == EMPTY) {
+      firstRows[keyId] = rowId;
+    } else {
+      nextRows[lastRows[keyId]] = rowId;
+    }
+    lastRows[keyId] = rowId;
+  }
+
+  /**
+   * Finds the rows whose join key is equivalent to the key of a probe tuple.
+   *
+   * The returned iterator and tuples are reused by this table. So, they are only valid until the next invocation.
+   *
+   * @param probeTuple A probe tuple
+   * @param probeKeyIds The column ids of join keys in the probe tuple
+   * @return An iterator of matched rows, or null if there is no matched row
+   */
+  public Iterator<Tuple> get(Tuple probeTuple, int [] probeKeyIds) {
+    encoder.encode(probeTuple, probeKeyIds);
+    return get(encoder);
+  }
+
+  /**
+   * Finds the rows whose join key is equivalent to an encoded key.
+   *
+   * @see #get(Tuple, int[])
+   */
+  public Iterator<Tuple> get(JoinKeyEncoder encodedKey) {
+    int keyId = buckets[findSlot(encodedKey)];
+
+    if (keyId == EMPTY) {
+      return null;
+    } else {
+      iterator.reset(firstRows[keyId]);
+      return iterator;
+    }
+  }
+
+  /**
+   * Returns a new probe which looks up this table with its own key encoder and iterator. Once all rows are added,
+   * multiple probes can look up this table at the same time. So, a table can be shared by concurrent tasks.
+   */
+  public Probe newProbe() {
+    return new Probe();
+  }
+
+  /**
+   * Returns all rows in their insertion order. The returned iterator and tuples are reused like
+   * {@link #get(Tuple, int[])}.
+   */
+  public Iterator<Tuple> rows() {
+    iterator.resetToScan();
+    return iterator;
+  }
+
+  /**
+   * @return The number of stored rows
+   */
+  public int size() {
+    return rowNum;
+  }
+
+  /**
+   * @return The number of distinct keys
+   */
+  public int keyNum() {
+    return keyNum;
+  }
+
+  /**
+   * @return The bytes of both off-heap and heap memory held by this table
+   */
+  public long usedMemory() {
+    long offHeap = keyArea.size() + encoder.capacity();
+    for (OffHeapRowBlock block : rowBlocks) {
+      offHeap += block.size();
+    }
+
+    long heap = (long) rowPointers.length * SizeOf.SIZE_OF_LONG
+        + (long) nextRows.length * SizeOf.SIZE_OF_INT
+        + (long) keyOffsets.length * SizeOf.SIZE_OF_INT * 4
+        + (long) buckets.length * SizeOf.SIZE_OF_INT;
+
+    return offHeap + heap;
+  }
+
+  /**
+   * Removes all rows and keys.
+   */
+  public void clear() {
+    releaseMemory();
+    init();
+  }
+
+  @Override
+  public void release() {
+    releaseMemory();
+    encoder.release();
+  }
+
+  private void releaseMemory() {
+    for (OffHeapRowBlock block : rowBlocks) {
+      block.release();
+    }
+    rowBlocks.clear();
+    currentBlock = null;
+
+    if (keyArea != null) {
+      keyArea.release();
+      keyArea = null;
+    }
+  }
+
+  private int findSlot(JoinKeyEncoder encodedKey) {
+    int hash = encodedKey.hash();
+    long keyAddr = encodedKey.address();
+    long keyAreaAddr = keyArea.address();
+
+    int slot = hash & mask;
+    while (true) {
+      int keyId = buckets[slot];
+      if (keyId == EMPTY) {
+        return slot;
+      }
+      if (keyHashes[keyId] == hash &&
+          UnSafeTupleBytesComparator.compare(keyAreaAddr + keyOffsets[keyId], keyAddr) == 0) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  private void rehash() {
+    buckets = new int[buckets.length * 2];
+    Arrays.fill(buckets, EMPTY);
+    mask = buckets.length - 1;
+    threshold = (int) (buckets.length * LOAD_FACTOR);
+
+    for (int keyId = 0; keyId < keyNum; keyId++) {
+      int slot = keyHashes[keyId] & mask;
+      while (buckets[slot] != EMPTY) {
+        slot = (slot + 1) & mask;
+      }
+      buckets[slot] = keyId;
+    }
+
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Increase the hash buckets to " + buckets.length + " (" + toString() + ")");
+    }
+  }
+
+  private int addKey(JoinKeyEncoder encodedKey) {
+    if (keyNum == keyOffsets.length) {
+      int newLength = keyOffsets.length * 2;
+      keyOffsets = Arrays.copyOf(keyOffsets, newLength);
+      keyHashes = Arrays.copyOf(keyHashes, newLength);
+      firstRows = Arrays.copyOf(firstRows, newLength);
+      lastRows = Arrays.copyOf(lastRows, newLength);
+    }
+
+    // copy the encoded key into the key area
+    int keyLen = encodedKey.length();
+    if (keyArea.size() - keyAreaPos < keyLen) {
+      long needed = (long) keyAreaPos + keyLen;
+      int newSize = (int) keyArea.size();
+      while (newSize < needed) {
+        if (!keyAreaLimit.canIncrease(newSize)) {
+          throw new RuntimeException("Cannot increase the key area anymore.");
+        }
+        newSize = keyAreaLimit.increasedSize(newSize);
+      }
+      keyArea.resize(newSize);
+    }
+    UNSAFE.copyMemory(encodedKey.address(), keyArea.address() + keyAreaPos, keyLen);
+
+    int keyId = keyNum++;
+    keyOffsets[keyId] = keyAreaPos;
+    keyHashes[keyId] = encodedKey.hash();
+    firstRows[keyId] = EMPTY;
+    lastRows[keyId] = EMPTY;
+    keyAreaPos += keyLen;
+
+    return keyId;
+  }
+
+  private int addRow(Tuple tuple) {
+    if (rowNum == rowPointers.length) {
+      int newLength = rowPointers.length * 2;
+      rowPointers = Arrays.copyOf(rowPointers, newLength);
+      nextRows = Arrays.copyOf(nextRows, newLength);
+    }
+
+    if (currentBlock.usedMem() > ROW_BLOCK_SWITCH_SIZE) {
+      currentBlock = new OffHeapRowBlock(schema, new ResizableLimitSpec(initialBlockSize, MAX_ROW_BLOCK_SIZE));
+      rowBlocks.add(currentBlock);
+    }
+
+    long pointer = ((long) (rowBlocks.size() - 1) << 32) | currentBlock.position();
+    RowStoreUtil.convert(tuple, currentBlock.getWriter());
+
+    int rowId = rowNum++;
+    rowPointers[rowId] = pointer;
+    nextRows[rowId] = EMPTY;
+    return rowId;
+  }
+
+  @Override
+  public String toString() {
+    return "rows=" + rowNum + ",keys=" + keyNum + ",blocks=" + rowBlocks.size() + ",memory="
+        + FileUtil.humanReadableByteCount(usedMemory(), false);
+  }
+
+  /**
+   * A read-only view of this table. A probe is not thread-safe, so each thread should use its own probe.
+   */
+  public class Probe implements Deallocatable {
+    private final JoinKeyEncoder probeEncoder = new JoinKeyEncoder();
+    private final RowIterator probeIterator = new RowIterator();
+
+    /**
+     * @see OffHeapJoinHashTable#get(Tuple, int[])
+     */
+    public Iterator<Tuple> get(Tuple probeTuple, int [] probeKeyIds) {
+      probeEncoder.encode(probeTuple, probeKeyIds);
+      int keyId = buckets[findSlot(probeEncoder)];
+
+      if (keyId == EMPTY) {
+        return null;
+      } else {
+        probeIterator.reset(firstRows[keyId]);
+        return probeIterator;
+      }
+    }
+
+    /**
+     * @see OffHeapJoinHashTable#rows()
+     */
+    public Iterator<Tuple> rows() {
+      probeIterator.resetToScan();
+      return probeIterator;
+    }
+
+    @Override
+    public void release() {
+      probeEncoder.release();
+    }
+  }
+
+  private class RowIterator implements Iterator<Tuple> {
+    private final ZeroCopyTuple tuple = new ZeroCopyTuple();
+    /** if true, it follows the chain of rows sharing the same key. Otherwise, it scans all rows. */
+    private boolean chained;
+    private int nextRowId;
+
+    void reset(int firstRowId) {
+      chained = true;
+      nextRowId = firstRowId;
+    }
+
+    void resetToScan() {
+      chained = false;
+      nextRowId = rowNum > 0 ? 0 : EMPTY;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return nextRowId != EMPTY;
+    }
+
+    @Override
+    public Tuple next() {
+      if (nextRowId == EMPTY) {
+        throw new NoSuchElementException();
+      }
+
+      long pointer = rowPointers[nextRowId];
+      OffHeapRowBlock block = rowBlocks.get((int) (pointer >>> 32));
+      int offset = (int) pointer;
+      int length = UNSAFE.getInt(block.address() + offset);
+      tuple.set(block.buffer, offset, length, block.dataTypes);
+
+      if (chained) {
+        nextRowId = nextRows[nextRowId];
+      } else {
+        nextRowId = nextRowId + 1 < rowNum ? nextRowId + 1 : EMPTY;
+      }
+      return tuple;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("remove");
+    }
+  }
+}
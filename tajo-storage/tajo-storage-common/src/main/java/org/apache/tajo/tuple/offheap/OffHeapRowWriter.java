@@ -126,6 +126,14 @@ public abstract class OffHeapRowWriter implements RowWriter {
     curOffset += SizeOf.SIZE_OF_BOOL;
   }
 
+  public void putByte(byte val) {
+    ensureSize(SizeOf.SIZE_OF_BYTE);
+    forwardField();
+
+    OffHeapMemory.UNSAFE.putByte(recordStartAddr() + curOffset, val);
+    curOffset += SizeOf.SIZE_OF_BYTE;
+  }
+
   public void putInt2(short val) {
     ensureSize(SizeOf.SIZE_OF_SHORT);
     forwardField();
@@ -43,6 +43,8 @@ public interface RowWriter {
 
   public void putBool(boolean val);
 
+  public void putByte(byte val);
+
   public void putInt2(short val);
 
   public void putInt4(int val);
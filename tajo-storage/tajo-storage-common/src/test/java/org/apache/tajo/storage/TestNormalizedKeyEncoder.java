@@ -0,0 +1,131 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage;
+
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.SortSpec;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TestNormalizedKeyEncoder {
+  private static final Schema schema = new Schema();
+  static {
+    schema.addColumn("col1", Type.INT2);
+    schema.addColumn("col2", Type.INT4);
+    schema.addColumn("col3", Type.INT8);
+    schema.addColumn("col4", Type.FLOAT4);
+    schema.addColumn("col5", Type.FLOAT8);
+    schema.addColumn("col6", Type.TEXT);
+    schema.addColumn("col7", Type.BOOLEAN);
+  }
+
+  private static List<Tuple> createTuples(int num, long seed) {
+    Random random = new Random(seed);
+    List<Tuple> tuples = new ArrayList<Tuple>();
+    for (int i = 0; i < num; i++) {
+      Tuple tuple = new VTuple(schema.size());
+      // small domains make many ties
+      tuple.put(0, random.nextInt(10) == 0 ? NullDatum.get() : DatumFactory.createInt2((short) (random.nextInt(7) - 3)));
+      tuple.put(1, random.nextInt(10) == 0 ? NullDatum.get() : DatumFactory.createInt4(random.nextInt(11) - 5));
+      tuple.put(2, random.nextInt(10) == 0 ? NullDatum.get() : DatumFactory.createInt8(random.nextLong() >> 60));
+      tuple.put(3, random.nextInt(10) == 0 ? NullDatum.get() : DatumFactory.createFloat4(random.nextInt(9) - 4.5f));
+      tuple.put(4, random.nextInt(10) == 0 ? NullDatum.get() : DatumFactory.createFloat8(random.nextGaussian()));
+      tuple.put(5, random.nextInt(10) == 0 ? NullDatum.get() :
+          DatumFactory.createText("abcdefgh".substring(0, random.nextInt(9)) + random.nextInt(3)));
+      tuple.put(6, DatumFactory.createBool(random.nextBoolean()));
+      tuples.add(tuple);
+    }
+    return tuples;
+  }
+
+  private static void assertConsistent(SortSpec [] sortSpecs) {
+    BaseTupleComparator comparator = new BaseTupleComparator(schema, sortSpecs);
+    NormalizedKeyEncoder encoder = new NormalizedKeyEncoder(schema, sortSpecs);
+    assertTrue(encoder.isEnabled());
+
+    List<Tuple> tuples = createTuples(300, sortSpecs.length);
+    for (Tuple t1 : tuples) {
+      for (Tuple t2 : tuples) {
+        int prefixCmp = NormalizedKeyEncoder.compare(encoder.encode(t1), encoder.encode(t2));
+        if (prefixCmp != 0) {
+          assertEquals(t1 + " vs " + t2, prefixCmp, Integer.signum(comparator.compare(t1, t2)));
+        }
+      }
+    }
+
+    List<Tuple> expected = new ArrayList<Tuple>(tuples);
+    Collections.sort(expected, comparator);
+    encoder.sort(tuples, comparator);
+    for (int i = 0; i < tuples.size(); i++) {
+      assertEquals(0, comparator.compare(expected.get(i), tuples.get(i)));
+    }
+  }
+
+  @Test
+  public void testFixedWidthKeys() {
+    for (boolean asc : new boolean[] {true, false}) {
+      for (boolean nullFirst : new boolean[] {true, false}) {
+        assertConsistent(new SortSpec[] {
+            new SortSpec(schema.getColumn("col1"), asc, nullFirst),
+            new SortSpec(schema.getColumn("col2"), !asc, nullFirst),
+            new SortSpec(schema.getColumn("col4"), asc, !nullFirst)});
+        assertConsistent(new SortSpec[] {
+            new SortSpec(schema.getColumn("col3"), asc, nullFirst),
+            new SortSpec(schema.getColumn("col1"), asc, nullFirst)});
+        assertConsistent(new SortSpec[] {new SortSpec(schema.getColumn("col5"), asc, nullFirst)});
+      }
+    }
+  }
+
+  @Test
+  public void testVariableLengthKeys() {
+    for (boolean asc : new boolean[] {true, false}) {
+      for (boolean nullFirst : new boolean[] {true, false}) {
+        assertConsistent(new SortSpec[] {
+            new SortSpec(schema.getColumn("col6"), asc, nullFirst),
+            new SortSpec(schema.getColumn("col2"), asc, nullFirst)});
+        assertConsistent(new SortSpec[] {
+            new SortSpec(schema.getColumn("col1"), asc, nullFirst),
+            new SortSpec(schema.getColumn("col6"), !asc, nullFirst)});
+      }
+    }
+  }
+
+  @Test
+  public void testUnsupportedKeys() {
+    // BOOLEAN keys are not encoded, so only the keys before it are used.
+    assertConsistent(new SortSpec[] {
+        new SortSpec(schema.getColumn("col2"), true, false),
+        new SortSpec(schema.getColumn("col7"), true, false),
+        new SortSpec(schema.getColumn("col1"), true, false)});
+
+    NormalizedKeyEncoder encoder = new NormalizedKeyEncoder(schema,
+        new SortSpec[] {new SortSpec(schema.getColumn("col7"), true, false)});
+    assertFalse(encoder.isEnabled());
+  }
+}
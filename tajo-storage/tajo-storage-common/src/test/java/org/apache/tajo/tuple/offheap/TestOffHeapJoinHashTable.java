@@ -0,0 +1,123 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.tuple.offheap;
+
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
+import org.junit.Test;
+
+import java.util.Iterator;
+
+import static org.apache.tajo.common.TajoDataTypes.Type;
+import static org.junit.Assert.*;
+
+public class TestOffHeapJoinHashTable {
+  private static Schema schema;
+
+  static {
+    schema = new Schema();
+    schema.addColumn("id", Type.INT4);
+    schema.addColumn("name", Type.TEXT);
+    schema.addColumn("score", Type.INT8);
+  }
+
+  private static Tuple createTuple(int id, String name, long score) {
+    Tuple tuple = new VTuple(3);
+    tuple.put(0, DatumFactory.createInt4(id));
+    tuple.put(1, name == null ? NullDatum.get() : DatumFactory.createText(name));
+    tuple.put(2, DatumFactory.createInt8(score));
+    return tuple;
+  }
+
+  @Test
+  public void testPutAndGet() {
+    int rowNum = 100000;
+    int keyNum = 1000;
+
+    OffHeapJoinHashTable table = new OffHeapJoinHashTable(schema, new int[]{0, 1});
+    for (int i = 0; i < rowNum; i++) {
+      table.put(createTuple(i % keyNum, "name_" + (i % keyNum), i));
+    }
+    assertEquals(rowNum, table.size());
+    assertEquals(keyNum, table.keyNum());
+    assertTrue(table.usedMemory() > 0);
+
+    Tuple probe = new VTuple(2);
+    for (int i = 0; i < keyNum; i++) {
+      probe.put(0, DatumFactory.createInt8(i)); // a different integer type should be matched
+      probe.put(1, DatumFactory.createText("name_" + i));
+
+      Iterator<Tuple> it = table.get(probe, new int[]{0, 1});
+      assertNotNull(it);
+
+      long expected = i;
+      int found = 0;
+      while (it.hasNext()) {
+        Tuple tuple = it.next();
+        assertEquals(i, tuple.getInt4(0));
+        assertEquals("name_" + i, tuple.getText(1));
+        // rows should be returned in their insertion order
+        assertEquals(expected, tuple.getInt8(2));
+        expected += keyNum;
+        found++;
+      }
+      assertEquals(rowNum / keyNum, found);
+    }
+
+    probe.put(0, DatumFactory.createInt4(keyNum));
+    probe.put(1, DatumFactory.createText("name_" + keyNum));
+    assertNull(table.get(probe, new int[]{0, 1}));
+
+    Iterator<Tuple> rows = table.rows();
+    int scanned = 0;
+    while (rows.hasNext()) {
+      assertEquals(scanned, rows.next().getInt8(2));
+      scanned++;
+    }
+    assertEquals(rowNum, scanned);
+
+    table.release();
+  }
+
+  @Test
+  public void testNullKeys() {
+    OffHeapJoinHashTable table = new OffHeapJoinHashTable(schema, new int[]{1});
+    table.put(createTuple(1, null, 1));
+    table.put(createTuple(2, "a", 2));
+    table.put(createTuple(3, null, 3));
+    assertEquals(2, table.keyNum());
+
+    Tuple probe = new VTuple(1);
+    probe.put(0, NullDatum.get());
+    Iterator<Tuple> it = table.get(probe, new int[]{0});
+    assertNotNull(it);
+    assertTrue(it.next().isNull(1));
+    assertEquals(3, it.next().getInt4(0));
+    assertFalse(it.hasNext());
+
+    table.clear();
+    assertEquals(0, table.size());
+    assertNull(table.get(probe, new int[]{0}));
+
+    table.release();
+  }
+}
@@ -34,14 +34,21 @@ import org.apache.tajo.datum.DatumFactory;
 import org.apache.tajo.datum.NullDatum;
 import org.apache.tajo.datum.ProtobufDatumFactory;
 import org.apache.tajo.storage.fragment.Fragment;
+import org.apache.tajo.tuple.offheap.OffHeapRowWriter;
+import org.apache.tajo.tuple.offheap.UnSafeTuple;
+import org.apache.tajo.tuple.offheap.ZeroCopyTuple;
 import org.apache.tajo.unit.StorageUnit;
 import org.apache.tajo.util.BitArray;
+import org.apache.tajo.util.SizeOf;
+import org.apache.tajo.util.UnsafeUtil;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 
 public class RawFile {
@@ -49,14 +56,36 @@ public class RawFile {
   public static final String READ_BUFFER_SIZE = "tajo.storage.raw.io.read-buffer.bytes";
   public static final String WRITE_BUFFER_SIZE = "tajo.storage.raw.io.write-buffer.bytes";
   public static final int DEFAULT_BUFFER_SIZE = 128 * StorageUnit.KB;
+  /** If it is enabled, a fragment smaller than 2GB is memory-mapped instead of being read into a buffer. */
+  public static final String MMAP_ENABLED = "tajo.storage.raw.io.mmap.enabled";
+  public static final boolean DEFAULT_MMAP_ENABLED = true;
+
+  /**
+   * @return true if the rows are stored in the layout of {@link UnSafeTuple}
+   */
+  public static boolean isUnSafeRowFormat(TableMeta meta) {
+    return StorageConstants.RAWFILE_ROW_FORMAT_UNSAFE.equals(
+        meta.getOption(StorageConstants.RAWFILE_ROW_FORMAT, StorageConstants.DEFAULT_RAWFILE_ROW_FORMAT));
+  }
 
+  /**
+   * A scanner of raw files. If the rows are stored in the unsafe row format, it returns a {@link ZeroCopyTuple}
+   * pointing to the row in the read buffer or in the memory-mapped region, which is valid only until the next call
+   * of {@link #next()}. A caller which keeps the row must copy it.
+   */
   public static class RawFileScanner extends FileScanner implements SeekableScanner {
     private FileChannel channel;
     private DataType[] columnTypes;
 
     private ByteBuffer buffer;
     private ByteBuf buf;
+    /** the memory-mapped region of the fragment. If it is not null, buf is not used. */
+    private MappedByteBuffer mapped;
+    /** true if the whole fragment is in the buffer, which is memory-mapped or kept in {@link MemoryFileStore} */
+    private boolean inMemory;
     private Tuple tuple;
+    private boolean unSafeRow;
+    private ZeroCopyTuple zeroCopyTuple;
 
     private int headerSize = 0; // Header size of a tuple
     private BitArray nullFlags;
@@ -75,6 +104,39 @@ public class RawFile {
     }
 
     public void init() throws IOException {
+      filePosition = startOffset = fragment.getStartKey();
+      endOffset = fragment.getStartKey() + fragment.getLength();
+      unSafeRow = isUnSafeRowFormat(meta);
+
+      ByteBuf memoryFile = MemoryFileStore.get(fragment.getPath());
+      if (memoryFile != null) {
+        // the file is kept in memory (e.g., a small fetched partition), so it is read like a memory-mapped file.
+        int length = (int) Math.max(0, Math.min(fragment.getLength(), memoryFile.readableBytes() - startOffset));
+        buffer = order(memoryFile.nioBuffer(memoryFile.readerIndex() + (int) startOffset, length));
+        filePosition = startOffset + length;
+        forceFillBuffer = false;
+        inMemory = true;
+      } else {
+        openFile();
+      }
+
+      columnTypes = new DataType[schema.size()];
+      for (int i = 0; i < schema.size(); i++) {
+        columnTypes[i] = schema.getColumn(i).getDataType();
+      }
+
+      if (unSafeRow) {
+        zeroCopyTuple = new ZeroCopyTuple();
+      } else {
+        tuple = new VTuple(columnTypes.length);
+      }
+      nullFlags = new BitArray(schema.size());
+      headerSize = RECORD_SIZE + 2 + nullFlags.bytesLength(); // The middle 2 bytes is for NullFlagSize
+
+      super.init();
+    }
+
+    private void openFile() throws IOException {
       File file;
       try {
         if (fragment.getPath().toUri().getScheme() != null) {
@@ -87,33 +149,38 @@ public class RawFile {
       }
       fis = new FileInputStream(file);
       channel = fis.getChannel();
-      filePosition = startOffset = fragment.getStartKey();
-      endOffset = fragment.getStartKey() + fragment.getLength();
 
       if (LOG.isDebugEnabled()) {
         LOG.debug("RawFileScanner open:" + fragment + "," + channel.position() + ", file size :" + channel.size()
             + ", fragment length :" + fragment.getLength());
       }
 
-      buf = BufferPool.directBuffer(conf.getInt(READ_BUFFER_SIZE, DEFAULT_BUFFER_SIZE));
-      buffer = buf.nioBuffer(0, buf.capacity());
-
-      columnTypes = new DataType[schema.size()];
-      for (int i = 0; i < schema.size(); i++) {
-        columnTypes[i] = schema.getColumn(i).getDataType();
-      }
-
-      tuple = new VTuple(columnTypes.length);
-      nullFlags = new BitArray(schema.size());
-      headerSize = RECORD_SIZE + 2 + nullFlags.bytesLength(); // The middle 2 bytes is for NullFlagSize
+      if (conf.getBoolean(MMAP_ENABLED, DEFAULT_MMAP_ENABLED)
+          && fragment.getLength() > 0 && fragment.getLength() <= Integer.MAX_VALUE) {
+        long length = Math.max(0, Math.min(fragment.getLength(), channel.size() - startOffset));
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, startOffset, length);
+        buffer = order(mapped);
+        // the whole fragment is already in the buffer
+        filePosition = startOffset + length;
+        forceFillBuffer = false;
+        inMemory = true;
+      } else {
+        buf = BufferPool.directBuffer(conf.getInt(READ_BUFFER_SIZE, DEFAULT_BUFFER_SIZE));
+        buffer = order(buf.nioBuffer(0, buf.capacity()));
 
-      // initial set position
-      if (fragment.getStartKey() > 0) {
-        channel.position(fragment.getStartKey());
+        // initial set position
+        if (fragment.getStartKey() > 0) {
+          channel.position(fragment.getStartKey());
+        }
+        forceFillBuffer = true;
       }
+    }
 
-      forceFillBuffer = true;
-      super.init();
+    /**
+     * Unsafe rows are read in the native byte order.
+     */
+    private ByteBuffer order(ByteBuffer byteBuffer) {
+      return unSafeRow ? byteBuffer.order(ByteOrder.nativeOrder()) : byteBuffer;
     }
 
     @Override
@@ -124,6 +191,16 @@ public class RawFile {
     @Override
     public void seek(long offset) throws IOException {
       eos = false;
+
+      if (inMemory) {
+        if (offset < startOffset || offset > filePosition) {
+          throw new IndexOutOfBoundsException(String.format("range(%d, %d), offset: %d",
+              startOffset, filePosition, offset));
+        }
+        buffer.position((int) (offset - startOffset));
+        return;
+      }
+
       filePosition = channel.position();
 
       // do not fill the buffer if the offset is already included in the buffer.
@@ -143,6 +220,12 @@ public class RawFile {
     }
 
     private boolean fillBuffer() throws IOException {
+      if (inMemory) {
+        // the whole fragment is in the buffer, so there is no more data.
+        eos = true;
+        return false;
+      }
+
       if(!forceFillBuffer) buffer.compact();
 
       int bytesRead = channel.read(buffer);
@@ -244,6 +327,10 @@ public class RawFile {
     public Tuple next() throws IOException {
       if(eos) return null;
 
+      if (unSafeRow) {
+        return nextUnSafeRow();
+      }
+
       if (forceFillBuffer || buffer.remaining() < headerSize) {
         if (!fillBuffer()) {
           return null;
@@ -374,6 +461,9 @@ public class RawFile {
       }
 
       recordCount++;
+      if (inMemory) {
+        totalReadBytes += recordSize;
+      }
 
       if(filePosition - buffer.remaining() >= endOffset){
         eos = true;
@@ -381,13 +471,56 @@ public class RawFile {
       return new VTuple(tuple);
     }
 
+    /**
+     * It returns a view of the next row without decoding it.
+     */
+    private Tuple nextUnSafeRow() throws IOException {
+      if (forceFillBuffer || buffer.remaining() < SizeOf.SIZE_OF_INT) {
+        if (!fillBuffer()) {
+          return null;
+        }
+      }
+
+      int rowLength = buffer.getInt(buffer.position());
+      if (rowLength < SizeOf.SIZE_OF_INT) {
+        throw new IOException("Invalid row length " + rowLength + " at " + getNextOffset() + " of " + fragment);
+      }
+      if (buffer.remaining() < rowLength) {
+
+        //if the buffer reaches the writable size, the buffer increase the record size
+        reSizeBuffer(rowLength);
+
+        if (!fillBuffer()) {
+          return null;
+        }
+      }
+
+      int rowStart = buffer.position();
+      zeroCopyTuple.set(buffer, rowStart, rowLength, columnTypes);
+      buffer.position(rowStart + rowLength);
+
+      recordCount++;
+      if (inMemory) {
+        totalReadBytes += rowLength;
+      }
+
+      if(filePosition - buffer.remaining() >= endOffset){
+        eos = true;
+      }
+      return zeroCopyTuple;
+    }
+
     private void reSizeBuffer(int writableBytes){
+      if (inMemory) {
+        return;
+      }
+
       if (buffer.capacity() - buffer.remaining()  <  writableBytes) {
         buf.setIndex(buffer.position(), buffer.limit());
         buf.markReaderIndex();
         buf.discardReadBytes();
         buf.ensureWritable(writableBytes);
-        buffer = buf.nioBuffer(0, buf.capacity());
+        buffer = order(buf.nioBuffer(0, buf.capacity()));
         buffer.limit(buf.writerIndex());
       }
     }
@@ -396,10 +529,12 @@ public class RawFile {
     public void reset() throws IOException {
       // reset the buffer
       buffer.clear();
-      forceFillBuffer = true;
-      filePosition = fragment.getStartKey();
-      channel.position(filePosition);
       eos = false;
+      if (!inMemory) {
+        forceFillBuffer = true;
+        filePosition = fragment.getStartKey();
+        channel.position(filePosition);
+      }
     }
 
     @Override
@@ -412,6 +547,13 @@ public class RawFile {
         buf = null;
       }
 
+      if (mapped != null) {
+        buffer = null;
+        // unmap it explicitly rather than waiting for GC, because intermediate files are deleted soon.
+        UnsafeUtil.free(mapped);
+        mapped = null;
+      }
+
       IOUtils.cleanup(LOG, channel, fis);
     }
 
@@ -446,6 +588,10 @@ public class RawFile {
         return 1.0f;
       }
 
+      if (inMemory) {
+        return Math.min(1.0f, (float) buffer.position() / fragment.getLength());
+      }
+
       if (filePosition - startOffset == 0) {
         return 0.0f;
       } else {
@@ -465,6 +611,8 @@ public class RawFile {
     private int headerSize = 0;
     private static final int RECORD_SIZE = 4;
     private long pos;
+    private boolean unSafeRow;
+    private BufferRowWriter rowWriter;
 
     private TableStatistics stats;
 
@@ -494,8 +642,13 @@ public class RawFile {
         columnTypes[i] = schema.getColumn(i).getDataType();
       }
 
+      unSafeRow = isUnSafeRowFormat(meta);
+      if (unSafeRow) {
+        rowWriter = new BufferRowWriter(columnTypes);
+      }
+
       buf = BufferPool.directBuffer(conf.getInt(WRITE_BUFFER_SIZE, DEFAULT_BUFFER_SIZE));
-      buffer = buf.nioBuffer(0, buf.capacity());
+      buffer = order(buf.nioBuffer(0, buf.capacity()));
 
       // comput the number of bytes, representing the null flags
 
@@ -509,6 +662,13 @@ public class RawFile {
       super.init();
     }
 
+    /**
+     * Unsafe rows are written in the native byte order.
+     */
+    private ByteBuffer order(ByteBuffer byteBuffer) {
+      return unSafeRow ? byteBuffer.order(ByteOrder.nativeOrder()) : byteBuffer;
+    }
+
     @Override
     public long getOffset() throws IOException {
       return pos;
@@ -622,6 +782,10 @@ public class RawFile {
 
     @Override
     public void addTuple(Tuple t) throws IOException {
+      if (unSafeRow) {
+        addUnSafeRow(t);
+        return;
+      }
 
       if (buffer.remaining() < headerSize) {
         flushBuffer();
@@ -742,6 +906,104 @@ public class RawFile {
       }
     }
 
+    private void addUnSafeRow(Tuple t) throws IOException {
+      if (enabledStats) {
+        for (int i = 0; i < schema.size(); i++) {
+          stats.analyzeField(i, t.get(i));
+        }
+      }
+
+      int rowLength;
+      if (t instanceof UnSafeTuple && t.size() == columnTypes.length) {
+        // a row read from another raw file in the same format is copied without encoding
+        ByteBuffer row = ((UnSafeTuple) t).nioBuffer();
+        rowLength = row.remaining();
+        makeRoom(0, rowLength);
+        buffer.put(row);
+      } else {
+        RowStoreUtil.convert(t, rowWriter);
+        rowLength = rowWriter.offset();
+      }
+      pos += rowLength;
+
+      if (enabledStats) {
+        stats.incrementRow();
+      }
+    }
+
+    /**
+     * It makes the buffer have at least the given bytes after the start of a current row. If the buffer is not
+     * enough, the previous rows are written out and the written part of the current row is moved to the front.
+     *
+     * @param written the number of bytes of the current row, which are already written after the buffer position
+     * @param required the number of bytes of the current row, including the written bytes
+     */
+    private void makeRoom(int written, int required) throws IOException {
+      if (buffer.remaining() >= required) {
+        return;
+      }
+
+      int rowStart = buffer.position();
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      if (written > 0) {
+        long address = UnsafeUtil.getAddress(buffer);
+        UnsafeUtil.unsafe.copyMemory(address + rowStart, address, written);
+      }
+      buffer.clear();
+
+      //increase the write-buffer
+      if (buffer.capacity() < required) {
+        buf.setIndex(0, written);
+        buf.ensureWritable(required - written);
+        buffer = order(buf.nioBuffer(0, buf.capacity()));
+      }
+    }
+
+    /**
+     * It writes a row in the layout of {@link UnSafeTuple} into the write buffer.
+     */
+    private class BufferRowWriter extends OffHeapRowWriter {
+
+      BufferRowWriter(DataType [] dataTypes) {
+        super(dataTypes);
+      }
+
+      @Override
+      public long address() {
+        return UnsafeUtil.getAddress(buffer);
+      }
+
+      @Override
+      public int position() {
+        return buffer.position();
+      }
+
+      @Override
+      public void forward(int length) {
+        buffer.position(buffer.position() + length);
+      }
+
+      @Override
+      public boolean startRow() {
+        super.startRow();
+        // the row header is written at the end of the row without checking the size.
+        ensureSize(0);
+        return true;
+      }
+
+      @Override
+      public void ensureSize(int size) {
+        try {
+          makeRoom(offset(), offset() + size);
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    }
+
     @Override
     public void flush() throws IOException {
       if(buffer != null){
@@ -0,0 +1,74 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage;
+
+import org.apache.tajo.util.Pair;
+import org.apache.tajo.util.SizeOf;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * The layout of the output of a sort-based hash shuffle writer. All partitions of a task are written into
+ * a single data file in the order of partition ids, and an index file keeps the start offsets of partitions.
+ *
+ * The index file consists of (the number of partitions + 1) longs. The i-th long is the start offset of
+ * the i-th partition, and the last one is the length of the data file.
+ */
+public class SortShuffleIndex {
+  public static final String DATA_FILE_NAME = "shuffle.data";
+  public static final String INDEX_FILE_NAME = "shuffle.index";
+
+  public static void write(File indexFile, long [] offsets) throws IOException {
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)));
+    try {
+      for (long offset : offsets) {
+        out.writeLong(offset);
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * It reads only the two offsets of the given partition from the index file.
+   *
+   * @return the start offset and the length of the partition in the data file,
+   * or null if the index does not contain the partition
+   */
+  public static Pair<Long, Long> getPartitionRange(File indexFile, int partId) throws IOException {
+    RandomAccessFile index = new RandomAccessFile(indexFile, "r");
+    try {
+      long pos = (long) partId * SizeOf.SIZE_OF_LONG;
+      if (partId < 0 || pos + 2 * SizeOf.SIZE_OF_LONG > index.length()) {
+        return null;
+      }
+      index.seek(pos);
+      long start = index.readLong();
+      long end = index.readLong();
+      return new Pair<Long, Long>(start, end - start);
+    } finally {
+      index.close();
+    }
+  }
+}
@@ -0,0 +1,578 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage.cfile;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IOUtils;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.tajo.TaskAttemptId;
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.TableMeta;
+import org.apache.tajo.catalog.statistics.TableStats;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.plan.expr.EvalNode;
+import org.apache.tajo.storage.*;
+import org.apache.tajo.storage.BlockStatsFilter.ColumnRange;
+import org.apache.tajo.storage.exception.AlreadyExistsStorageException;
+import org.apache.tajo.storage.fragment.Fragment;
+import org.apache.tajo.storage.vector.RowBatch;
+import org.apache.tajo.storage.vector.VectorizedScanner;
+import org.apache.tajo.util.TUtil;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Tajo-native columnar file format.
+ *
+ * Rows are divided into stripes, and each stripe stores the values of each column in a column chunk.
+ * Each chunk is encoded by the smallest one of lightweight encodings (see {@link ChunkEncoding}).
+ * The footer keeps the locations, the encodings and the min/max/null-count statistics of all chunks,
+ * so that a scanner reads only the chunks of projected columns, and skips the stripes which cannot
+ * satisfy the search condition.
+ *
+ * <pre>
+ *   MAGIC
+ *   stripe 1: column chunk 1, column chunk 2, ..., column chunk n
+ *   ...
+ *   stripe m
+ *   footer: column types, stripes (offset, the number of rows, chunk meta data)
+ *   footer length (4 bytes)
+ *   MAGIC
+ * </pre>
+ *
+ * A stripe belongs to the fragment which contains the start offset of the stripe.
+ */
+public class CFile {
+  private static final Log LOG = LogFactory.getLog(CFile.class);
+
+  private static final byte [] MAGIC = new byte[] {'T', 'C', 'F', 1};
+  private static final int TAIL_SIZE = 4 + MAGIC.length;
+
+  /**
+   * The in-memory representations of the values of data types.
+   */
+  enum ValueType {
+    LONG,
+    DOUBLE,
+    BYTES,
+    NULL
+  }
+
+  static boolean isSupported(Type type) {
+    return getValueType(type) != null;
+  }
+
+  /**
+   * @return the value type of the given data type, or null if the data type is not supported
+   */
+  static ValueType getValueType(Type type) {
+    switch (type) {
+    case BOOLEAN:
+    case BIT:
+    case INT2:
+    case INT4:
+    case INT8:
+    case DATE:
+    case TIME:
+    case TIMESTAMP:
+      return ValueType.LONG;
+    case FLOAT4:
+    case FLOAT8:
+      return ValueType.DOUBLE;
+    case CHAR:
+    case TEXT:
+    case BLOB:
+    case INET4:
+    case PROTOBUF:
+      return ValueType.BYTES;
+    case NULL_TYPE:
+      return ValueType.NULL;
+    default:
+      return null;
+    }
+  }
+
+  /**
+   * The meta data of a stripe.
+   */
+  static class StripeInfo {
+    final long offset;
+    final int numRows;
+    final ColumnChunkMeta [] chunks;
+
+    StripeInfo(long offset, int numRows, ColumnChunkMeta [] chunks) {
+      this.offset = offset;
+      this.numRows = numRows;
+      this.chunks = chunks;
+    }
+
+    long getLength() {
+      long length = 0;
+      for (ColumnChunkMeta chunk : chunks) {
+        length += chunk.getLength();
+      }
+      return length;
+    }
+  }
+
+  private static void writeFooter(Schema schema, List<StripeInfo> stripes, DataOutput out) throws IOException {
+    WritableUtils.writeVInt(out, schema.size());
+    for (Column column : schema.getColumns()) {
+      WritableUtils.writeVInt(out, column.getDataType().getType().getNumber());
+    }
+    WritableUtils.writeVInt(out, stripes.size());
+    for (StripeInfo stripe : stripes) {
+      WritableUtils.writeVLong(out, stripe.offset);
+      WritableUtils.writeVInt(out, stripe.numRows);
+      for (int i = 0; i < schema.size(); i++) {
+        stripe.chunks[i].write(getValueType(schema.getColumn(i).getDataType().getType()), out);
+      }
+    }
+  }
+
+  private static List<StripeInfo> readFooter(Schema schema, Path path, FSDataInputStream in, long fileLength)
+      throws IOException {
+    if (fileLength < MAGIC.length + TAIL_SIZE) {
+      throw new IOException(path + " is not a CFile (too short)");
+    }
+    in.seek(fileLength - TAIL_SIZE);
+    int footerLength = in.readInt();
+    byte [] magic = new byte[MAGIC.length];
+    in.readFully(magic);
+    if (!Arrays.equals(MAGIC, magic) || footerLength < 0 || footerLength > fileLength - TAIL_SIZE) {
+      throw new IOException(path + " is not a CFile");
+    }
+
+    byte [] footer = new byte[footerLength];
+    in.seek(fileLength - TAIL_SIZE - footerLength);
+    in.readFully(footer);
+    DataInputStream footerIn = new DataInputStream(new ByteArrayInputStream(footer));
+
+    int numColumns = WritableUtils.readVInt(footerIn);
+    if (numColumns != schema.size()) {
+      throw new IOException(path + " has " + numColumns + " columns, but the schema has " + schema.size());
+    }
+    for (int i = 0; i < numColumns; i++) {
+      int type = WritableUtils.readVInt(footerIn);
+      if (type != schema.getColumn(i).getDataType().getType().getNumber()) {
+        throw new IOException("The type of " + schema.getColumn(i) + " is different from " + path + ": "
+            + Type.valueOf(type));
+      }
+    }
+
+    int numStripes = WritableUtils.readVInt(footerIn);
+    List<StripeInfo> stripes = TUtil.newList();
+    for (int i = 0; i < numStripes; i++) {
+      long offset = WritableUtils.readVLong(footerIn);
+      int numRows = WritableUtils.readVInt(footerIn);
+      ColumnChunkMeta [] chunks = new ColumnChunkMeta[numColumns];
+      for (int j = 0; j < numColumns; j++) {
+        chunks[j] = ColumnChunkMeta.read(getValueType(schema.getColumn(j).getDataType().getType()), footerIn);
+      }
+      stripes.add(new StripeInfo(offset, numRows, chunks));
+    }
+    return stripes;
+  }
+
+  public static class CFileScanner extends FileScanner implements VectorizedScanner {
+    private FSDataInputStream in;
+    private EvalNode searchCondition;
+
+    /** the stripes of this fragment, which are not skipped */
+    private List<StripeInfo> stripes;
+    private int [] targetIds;
+    private ColumnChunkReader [] readers;
+    private byte [] buffer = new byte[0];
+
+    private int stripeIdx;
+    private int stripeRows;
+    private int rowInStripe;
+
+    // statistics
+    private long totalRows;
+    private long readRows;
+    private long readBytes;
+    private int numSkippedStripes;
+    private long skippedBytes;
+
+    public CFileScanner(Configuration conf, final Schema schema, final TableMeta meta, final Fragment fragment)
+        throws IOException {
+      super(conf, schema, meta, fragment);
+    }
+
+    @Override
+    public void init() throws IOException {
+      if (targets == null) {
+        targets = schema.toArray();
+      }
+
+      List<Integer> ids = TUtil.newList();
+      for (Column target : targets) {
+        int id = schema.getColumnId(target.getQualifiedName());
+        if (id >= 0) {
+          ids.add(id);
+        }
+      }
+      targetIds = new int[ids.size()];
+      readers = new ColumnChunkReader[ids.size()];
+      for (int i = 0; i < targetIds.length; i++) {
+        targetIds[i] = ids.get(i);
+        readers[i] = new ColumnChunkReader(schema.getColumn(targetIds[i]).getDataType());
+      }
+
+      FileSystem fs = fragment.getPath().getFileSystem(conf);
+      long fileLength = fs.getFileStatus(fragment.getPath()).getLen();
+      in = fs.open(fragment.getPath());
+      List<StripeInfo> allStripes = readFooter(schema, fragment.getPath(), in, fileLength);
+
+      BlockStatsFilter filter = searchCondition == null ? null : new BlockStatsFilter(searchCondition);
+      if (filter != null && filter.isEmpty()) {
+        filter = null;
+      }
+
+      long start = fragment.getStartKey();
+      long end = start + fragment.getLength();
+      stripes = TUtil.newList();
+      totalRows = 0;
+      for (StripeInfo stripe : allStripes) {
+        if (stripe.offset < start || stripe.offset >= end) {
+          continue;
+        }
+        if (filter != null && filter.canDrop(new StripeStats(stripe))) {
+          numSkippedStripes++;
+          skippedBytes += stripe.getLength();
+          continue;
+        }
+        stripes.add(stripe);
+        totalRows += stripe.numRows;
+      }
+
+      if (numSkippedStripes > 0 && LOG.isDebugEnabled()) {
+        LOG.debug(numSkippedStripes + " stripes (" + skippedBytes + " bytes) of " + fragment.getPath()
+            + " are skipped by " + searchCondition);
+      }
+
+      stripeIdx = 0;
+      stripeRows = 0;
+      rowInStripe = 0;
+      readRows = 0;
+      super.init();
+    }
+
+    /**
+     * The statistics of a stripe to be evaluated by {@link BlockStatsFilter}.
+     */
+    private class StripeStats implements BlockStatsFilter.BlockStats {
+      private final StripeInfo stripe;
+
+      StripeStats(StripeInfo stripe) {
+        this.stripe = stripe;
+      }
+
+      @Override
+      public long getNumRows() {
+        return stripe.numRows;
+      }
+
+      @Override
+      public ColumnRange getColumnRange(Column column) {
+        int id = schema.getColumnIdByName(column.getSimpleName());
+        if (id < 0) {
+          // e.g., partition columns
+          return null;
+        }
+        return stripe.chunks[id].toColumnRange(schema.getColumn(id).getDataType().getType(), stripe.numRows);
+      }
+    }
+
+    /**
+     * It reads the projected column chunks of the next stripe.
+     *
+     * @return false if there is no more stripe
+     */
+    private boolean nextStripe() throws IOException {
+      if (stripeIdx >= stripes.size()) {
+        return false;
+      }
+
+      StripeInfo stripe = stripes.get(stripeIdx++);
+      for (int i = 0; i < targetIds.length; i++) {
+        ColumnChunkMeta chunk = stripe.chunks[targetIds[i]];
+        if (buffer.length < chunk.getLength()) {
+          buffer = new byte[chunk.getLength()];
+        }
+        in.readFully(chunk.getOffset(), buffer, 0, chunk.getLength());
+        readers[i].load(buffer, 0, chunk, stripe.numRows);
+        readBytes += chunk.getLength();
+      }
+      stripeRows = stripe.numRows;
+      rowInStripe = 0;
+      return true;
+    }
+
+    @Override
+    public Tuple next() throws IOException {
+      while (rowInStripe >= stripeRows) {
+        if (!nextStripe()) {
+          return null;
+        }
+      }
+
+      // the columns which are not projected are left as nulls
+      Tuple tuple = new VTuple(columnNum);
+      for (int i = 0; i < targetIds.length; i++) {
+        tuple.put(targetIds[i], readers[i].get(rowInStripe));
+      }
+      rowInStripe++;
+      readRows++;
+      return tuple;
+    }
+
+    /**
+     * All supported types can be read into row batches.
+     */
+    @Override
+    public boolean isVectorized() {
+      return true;
+    }
+
+    @Override
+    public boolean nextBatch(RowBatch batch) throws IOException {
+      while (rowInStripe >= stripeRows) {
+        if (!nextStripe()) {
+          return false;
+        }
+      }
+
+      int length = Math.min(batch.capacity(), stripeRows - rowInStripe);
+      for (int i = 0; i < targetIds.length; i++) {
+        if (batch.getColumn(targetIds[i]) != null) {
+          readers[i].fill(batch.getColumn(targetIds[i]), rowInStripe, length);
+        }
+      }
+      batch.setSize(length);
+      rowInStripe += length;
+      readRows += length;
+      return true;
+    }
+
+    @Override
+    public void reset() throws IOException {
+      stripeIdx = 0;
+      stripeRows = 0;
+      rowInStripe = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (in != null) {
+        IOUtils.cleanup(LOG, in);
+        in = null;
+      }
+    }
+
+    @Override
+    public boolean isProjectable() {
+      return true;
+    }
+
+    /**
+     * Stripes which cannot satisfy a search condition are skipped, but the returned tuples still should be
+     * filtered by the search condition.
+     */
+    @Override
+    public boolean isSelectable() {
+      return true;
+    }
+
+    @Override
+    public void setSearchCondition(Object expr) {
+      super.setSearchCondition(expr);
+      if (expr instanceof EvalNode) {
+        this.searchCondition = (EvalNode) expr;
+      }
+    }
+
+    @Override
+    public boolean isSplittable() {
+      return true;
+    }
+
+    @Override
+    public float getProgress() {
+      if (!inited) {
+        return 0.0f;
+      }
+      return totalRows == 0 ? 1.0f : Math.min(1.0f, (float) readRows / totalRows);
+    }
+
+    @Override
+    public TableStats getInputStats() {
+      if (tableStats != null) {
+        tableStats.setNumRows(readRows);
+        tableStats.setReadBytes(readBytes);
+        tableStats.setNumSkippedBlocks(numSkippedStripes);
+        tableStats.setSkippedBytes(skippedBytes);
+      }
+      return tableStats;
+    }
+  }
+
+  public static class CFileAppender extends FileAppender {
+    private FSDataOutputStream out;
+    private ColumnChunkWriter [] writers;
+    private final EncodingUtil.Output chunkBuffer = new EncodingUtil.Output(64 * 1024);
+    private final List<StripeInfo> stripes = TUtil.newList();
+
+    private long stripeSize;
+    private int stripeRows;
+    private long bufferedBytes;
+
+    // statistics
+    private TableStatistics stats;
+
+    public CFileAppender(Configuration conf, final TaskAttemptId taskAttemptId,
+                         final Schema schema, final TableMeta meta, final Path workDir) throws IOException {
+      super(conf, taskAttemptId, schema, meta, workDir);
+    }
+
+    @Override
+    public void init() throws IOException {
+      FileSystem fs = path.getFileSystem(conf);
+      if (!fs.exists(path.getParent())) {
+        throw new FileNotFoundException(path.toString());
+      }
+      if (fs.exists(path)) {
+        throw new AlreadyExistsStorageException(path);
+      }
+
+      writers = new ColumnChunkWriter[schema.size()];
+      for (int i = 0; i < schema.size(); i++) {
+        Column column = schema.getColumn(i);
+        if (!isSupported(column.getDataType().getType())) {
+          throw new IOException("Cannot support data type: " + column.getDataType().getType());
+        }
+        writers[i] = ColumnChunkWriter.create(column);
+      }
+      stripeSize = Long.parseLong(meta.getOption(StorageConstants.CFILE_STRIPE_SIZE,
+          StorageConstants.CFILE_DEFAULT_STRIPE_SIZE));
+
+      out = fs.create(path);
+      out.write(MAGIC);
+
+      if (enabledStats) {
+        stats = new TableStatistics(schema);
+      }
+      super.init();
+    }
+
+    @Override
+    public void addTuple(Tuple t) throws IOException {
+      for (int i = 0; i < writers.length; i++) {
+        bufferedBytes += writers[i].add(t, i);
+        if (enabledStats) {
+          stats.analyzeField(i, t.get(i));
+        }
+      }
+      stripeRows++;
+      if (enabledStats) {
+        stats.incrementRow();
+      }
+
+      if (bufferedBytes >= stripeSize) {
+        writeStripe();
+      }
+    }
+
+    private void writeStripe() throws IOException {
+      if (stripeRows == 0) {
+        return;
+      }
+
+      long stripeOffset = out.getPos();
+      ColumnChunkMeta [] chunks = new ColumnChunkMeta[writers.length];
+      for (int i = 0; i < writers.length; i++) {
+        chunks[i] = writers[i].write(out.getPos(), chunkBuffer);
+        chunkBuffer.writeTo(out);
+        writers[i].reset();
+      }
+      stripes.add(new StripeInfo(stripeOffset, stripeRows, chunks));
+
+      stripeRows = 0;
+      bufferedBytes = 0;
+    }
+
+    @Override
+    public long getOffset() throws IOException {
+      return out.getPos();
+    }
+
+    @Override
+    public long getEstimatedOutputSize() throws IOException {
+      return out.getPos() + bufferedBytes;
+    }
+
+    @Override
+    public void flush() throws IOException {
+      // the current stripe is written when it is full or the appender is closed.
+      out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (out != null) {
+        try {
+          writeStripe();
+
+          long footerStart = out.getPos();
+          writeFooter(schema, stripes, out);
+          out.writeInt((int) (out.getPos() - footerStart));
+          out.write(MAGIC);
+
+          if (enabledStats) {
+            stats.setNumBytes(out.getPos());
+          }
+          out.flush();
+        } finally {
+          IOUtils.cleanup(LOG, out);
+          out = null;
+        }
+      }
+    }
+
+    @Override
+    public TableStats getStats() {
+      if (enabledStats) {
+        return stats.getTableStat();
+      } else {
+        return null;
+      }
+    }
+  }
+}
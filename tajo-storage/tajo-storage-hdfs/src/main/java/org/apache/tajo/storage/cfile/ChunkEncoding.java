@@ -0,0 +1,54 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage.cfile;
+
+/**
+ * Encodings of the values of a column chunk. An encoding is chosen for each chunk by the encoded sizes.
+ */
+public enum ChunkEncoding {
+  /** integers: zigzag varints, floating points: fixed-length little-endian, bytes: length-prefixed values */
+  PLAIN(0),
+  /** integers: (run length, value) pairs */
+  RLE(1),
+  /** integers: the differences from the minimum value, packed with the minimum number of bits */
+  BIT_PACKED(2),
+  /** integers: the first value and the bit-packed differences between adjacent values */
+  DELTA(3),
+  /** bytes: distinct values and the integer-encoded ids of values */
+  DICTIONARY(4);
+
+  private final int id;
+
+  ChunkEncoding(int id) {
+    this.id = id;
+  }
+
+  public int getId() {
+    return id;
+  }
+
+  public static ChunkEncoding valueOf(int id) {
+    for (ChunkEncoding encoding : values()) {
+      if (encoding.id == id) {
+        return encoding;
+      }
+    }
+    throw new IllegalArgumentException("Unknown encoding: " + id);
+  }
+}
@@ -0,0 +1,154 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage.cfile;
+
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.storage.BlockStatsFilter.ColumnRange;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The location, the encoding and the statistics of a column chunk, which are kept in the file footer.
+ *
+ * Min/max values are Longs for integer columns, Doubles for floating point columns and byte arrays for
+ * byte columns. They are null if the chunk has no non-null value, or if they are too long or NaN.
+ */
+public class ColumnChunkMeta {
+  /** the max length of a byte value to be kept as min/max */
+  static final int MAX_STATS_BYTES = 256;
+
+  private final long offset;
+  private final int length;
+  private final ChunkEncoding encoding;
+  private final int numNulls;
+  private final Object min;
+  private final Object max;
+
+  public ColumnChunkMeta(long offset, int length, ChunkEncoding encoding, int numNulls, Object min, Object max) {
+    this.offset = offset;
+    this.length = length;
+    this.encoding = encoding;
+    this.numNulls = numNulls;
+    this.min = max == null ? null : min;
+    this.max = min == null ? null : max;
+  }
+
+  public long getOffset() {
+    return offset;
+  }
+
+  public int getLength() {
+    return length;
+  }
+
+  public ChunkEncoding getEncoding() {
+    return encoding;
+  }
+
+  public int getNumNulls() {
+    return numNulls;
+  }
+
+  public Object getMin() {
+    return min;
+  }
+
+  public Object getMax() {
+    return max;
+  }
+
+  /**
+   * @return the statistics to be compared with constants, or null if the type of the column is not supported.
+   */
+  public ColumnRange toColumnRange(Type type, long numRows) {
+    switch (type) {
+    case INT2:
+    case INT4:
+    case INT8:
+    case FLOAT4:
+    case FLOAT8:
+    case TEXT:
+      return new ColumnRange(true, numNulls, numRows, min, max);
+    default:
+      return new ColumnRange(true, numNulls, numRows, null, null);
+    }
+  }
+
+  public void write(CFile.ValueType valueType, DataOutput out) throws IOException {
+    WritableUtils.writeVLong(out, offset);
+    WritableUtils.writeVInt(out, length);
+    out.writeByte(encoding.getId());
+    WritableUtils.writeVInt(out, numNulls);
+    out.writeBoolean(min != null);
+    if (min != null) {
+      switch (valueType) {
+      case LONG:
+        WritableUtils.writeVLong(out, (Long) min);
+        WritableUtils.writeVLong(out, (Long) max);
+        break;
+      case DOUBLE:
+        out.writeDouble((Double) min);
+        out.writeDouble((Double) max);
+        break;
+      case BYTES:
+        WritableUtils.writeVInt(out, ((byte []) min).length);
+        out.write((byte []) min);
+        WritableUtils.writeVInt(out, ((byte []) max).length);
+        out.write((byte []) max);
+        break;
+      default:
+        throw new IOException("Unexpected statistics of " + valueType);
+      }
+    }
+  }
+
+  public static ColumnChunkMeta read(CFile.ValueType valueType, DataInput in) throws IOException {
+    long offset = WritableUtils.readVLong(in);
+    int length = WritableUtils.readVInt(in);
+    ChunkEncoding encoding = ChunkEncoding.valueOf(in.readByte());
+    int numNulls = WritableUtils.readVInt(in);
+
+    Object min = null;
+    Object max = null;
+    if (in.readBoolean()) {
+      switch (valueType) {
+      case LONG:
+        min = WritableUtils.readVLong(in);
+        max = WritableUtils.readVLong(in);
+        break;
+      case DOUBLE:
+        min = in.readDouble();
+        max = in.readDouble();
+        break;
+      case BYTES:
+        min = new byte[WritableUtils.readVInt(in)];
+        in.readFully((byte []) min);
+        max = new byte[WritableUtils.readVInt(in)];
+        in.readFully((byte []) max);
+        break;
+      default:
+        throw new IOException("Unexpected statistics of " + valueType);
+      }
+    }
+    return new ColumnChunkMeta(offset, length, encoding, numNulls, min, max);
+  }
+}
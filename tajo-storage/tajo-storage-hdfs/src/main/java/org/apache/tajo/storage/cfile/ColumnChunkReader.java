@@ -0,0 +1,243 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage.cfile;
+
+import org.apache.tajo.common.TajoDataTypes.DataType;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.storage.cfile.EncodingUtil.Input;
+import org.apache.tajo.storage.vector.ColumnVector;
+import org.apache.tajo.storage.vector.DoubleColumnVector;
+import org.apache.tajo.storage.vector.LongColumnVector;
+
+import java.io.IOException;
+
+/**
+ * It decodes a column chunk written by {@link ColumnChunkWriter}. The decoded values are kept in a primitive
+ * array indexed by row, so that they are copied into column vectors without any conversion.
+ * The arrays are reused for the chunks of the same column in the following stripes.
+ */
+public class ColumnChunkReader {
+  private final DataType dataType;
+  private final Type type;
+  private final CFile.ValueType valueType;
+  private final Input in = new Input();
+
+  private int numRows;
+  private boolean allNulls;
+  private boolean hasNulls;
+  private boolean [] nulls = new boolean[0];
+
+  private long [] longs = new long[0];
+  private double [] doubles = new double[0];
+  private byte [][] bytes = new byte[0][];
+  private long [] ids = new long[0];
+
+  public ColumnChunkReader(DataType dataType) {
+    this.dataType = dataType;
+    this.type = dataType.getType();
+    this.valueType = CFile.getValueType(type);
+  }
+
+  /**
+   * It decodes a column chunk.
+   *
+   * @param buf the buffer which contains the chunk
+   * @param offset the offset of the chunk in the buffer
+   * @param meta the meta data of the chunk
+   * @param numRows the number of rows of the stripe
+   */
+  public void load(byte [] buf, int offset, ColumnChunkMeta meta, int numRows) throws IOException {
+    this.numRows = numRows;
+    int numNulls = meta.getNumNulls();
+    allNulls = numNulls >= numRows || valueType == CFile.ValueType.NULL;
+    hasNulls = numNulls > 0;
+    if (allNulls) {
+      return;
+    }
+
+    in.reset(buf, offset, meta.getLength());
+    if (hasNulls) {
+      if (nulls.length < numRows) {
+        nulls = new boolean[numRows];
+      }
+      for (int i = 0; i < numRows; i += 8) {
+        int b = in.readByte();
+        for (int j = 0; j < 8 && i + j < numRows; j++) {
+          nulls[i + j] = (b & (1 << j)) != 0;
+        }
+      }
+    }
+
+    int numValues = numRows - numNulls;
+    switch (valueType) {
+    case LONG:
+      if (longs.length < numRows) {
+        longs = new long[numRows];
+      }
+      EncodingUtil.decodeLongs(meta.getEncoding(), in, longs, numValues);
+      if (hasNulls) {
+        for (int r = numRows - 1, v = numValues - 1; r >= 0 && v < r; r--) {
+          if (!nulls[r]) {
+            longs[r] = longs[v--];
+          }
+        }
+      }
+      break;
+
+    case DOUBLE:
+      if (doubles.length < numRows) {
+        doubles = new double[numRows];
+      }
+      if (type == Type.FLOAT4) {
+        for (int i = 0; i < numValues; i++) {
+          doubles[i] = Float.intBitsToFloat(in.readIntLE());
+        }
+      } else {
+        for (int i = 0; i < numValues; i++) {
+          doubles[i] = Double.longBitsToDouble(in.readLongLE());
+        }
+      }
+      if (hasNulls) {
+        for (int r = numRows - 1, v = numValues - 1; r >= 0 && v < r; r--) {
+          if (!nulls[r]) {
+            doubles[r] = doubles[v--];
+          }
+        }
+      }
+      break;
+
+    case BYTES:
+      if (bytes.length < numRows) {
+        bytes = new byte[numRows][];
+      }
+      if (meta.getEncoding() == ChunkEncoding.DICTIONARY) {
+        byte [][] dictionary = new byte[(int) in.readVarLong()][];
+        for (int i = 0; i < dictionary.length; i++) {
+          dictionary[i] = in.readBytes((int) in.readVarLong());
+        }
+        if (ids.length < numValues) {
+          ids = new long[numValues];
+        }
+        EncodingUtil.decodeLongs(ChunkEncoding.valueOf(in.readByte()), in, ids, numValues);
+        for (int i = 0; i < numValues; i++) {
+          if (ids[i] < 0 || ids[i] >= dictionary.length) {
+            throw new IOException("Invalid dictionary id: " + ids[i]);
+          }
+          bytes[i] = dictionary[(int) ids[i]];
+        }
+      } else {
+        for (int i = 0; i < numValues; i++) {
+          bytes[i] = in.readBytes((int) in.readVarLong());
+        }
+      }
+      if (hasNulls) {
+        for (int r = numRows - 1, v = numValues - 1; r >= 0; r--) {
+          bytes[r] = nulls[r] ? null : bytes[v--];
+        }
+      }
+      break;
+
+    default:
+      throw new IOException("Unsupported data type: " + type);
+    }
+  }
+
+  public int getNumRows() {
+    return numRows;
+  }
+
+  public boolean isNull(int row) {
+    return allNulls || (hasNulls && nulls[row]);
+  }
+
+  public Datum get(int row) {
+    if (isNull(row)) {
+      return NullDatum.get();
+    }
+
+    switch (type) {
+    case BOOLEAN:
+      return DatumFactory.createBool(longs[row] != 0);
+    case BIT:
+      return DatumFactory.createBit((byte) longs[row]);
+    case INT2:
+      return DatumFactory.createInt2((short) longs[row]);
+    case INT4:
+      return DatumFactory.createInt4((int) longs[row]);
+    case INT8:
+      return DatumFactory.createInt8(longs[row]);
+    case DATE:
+      return DatumFactory.createFromInt4(dataType, (int) longs[row]);
+    case TIME:
+    case TIMESTAMP:
+      return DatumFactory.createFromInt8(dataType, longs[row]);
+    case FLOAT4:
+      return DatumFactory.createFloat4((float) doubles[row]);
+    case FLOAT8:
+      return DatumFactory.createFloat8(doubles[row]);
+    case CHAR:
+      return DatumFactory.createChar(bytes[row]);
+    case TEXT:
+      return DatumFactory.createText(bytes[row]);
+    case BLOB:
+      return DatumFactory.createBlob(bytes[row]);
+    case INET4:
+      return DatumFactory.createInet4(bytes[row]);
+    default:
+      return DatumFactory.createFromBytes(dataType, bytes[row]);
+    }
+  }
+
+  /**
+   * It copies the values of rows [row, row + length) into [0, length) of the given vector.
+   */
+  public void fill(ColumnVector vector, int row, int length) {
+    if (valueType == CFile.ValueType.LONG && vector instanceof LongColumnVector) {
+      if (!allNulls) {
+        System.arraycopy(longs, row, ((LongColumnVector) vector).vector, 0, length);
+      }
+    } else if (valueType == CFile.ValueType.DOUBLE && vector instanceof DoubleColumnVector) {
+      if (!allNulls) {
+        System.arraycopy(doubles, row, ((DoubleColumnVector) vector).vector, 0, length);
+      }
+    } else {
+      for (int i = 0; i < length; i++) {
+        vector.setDatum(i, get(row + i));
+      }
+      return;
+    }
+
+    if (allNulls) {
+      for (int i = 0; i < length; i++) {
+        vector.setNull(i);
+      }
+    } else if (hasNulls) {
+      for (int i = 0; i < length; i++) {
+        if (nulls[row + i]) {
+          vector.setNull(i);
+        } else if (!vector.noNulls) {
+          vector.isNull[i] = false;
+        }
+      }
+    }
+  }
+}
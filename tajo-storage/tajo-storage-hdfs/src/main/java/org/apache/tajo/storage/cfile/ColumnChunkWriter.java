@@ -0,0 +1,391 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage.cfile;
+
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.storage.BlockStatsFilter;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.cfile.EncodingUtil.Output;
+import org.apache.tajo.util.TUtil;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * It buffers the values of a column in a stripe, and encodes them into a column chunk.
+ *
+ * A column chunk consists of a null bitmap, which exists only if some (but not all) values are null,
+ * followed by the encoded non-null values.
+ */
+public abstract class ColumnChunkWriter {
+  protected final Type type;
+
+  protected int numRows = 0;
+  protected int numNulls = 0;
+  private boolean [] nulls = new boolean[1024];
+
+  protected ColumnChunkWriter(Type type) {
+    this.type = type;
+  }
+
+  public static ColumnChunkWriter create(Column column) {
+    Type type = column.getDataType().getType();
+    switch (CFile.getValueType(type)) {
+    case LONG:
+      return new LongChunkWriter(type);
+    case DOUBLE:
+      return new DoubleChunkWriter(type);
+    case BYTES:
+      return new BytesChunkWriter(type);
+    default:
+      return new NullChunkWriter(type);
+    }
+  }
+
+  /**
+   * It adds a value of the given tuple.
+   *
+   * @return the estimated number of bytes buffered for the value
+   */
+  public int add(Tuple tuple, int fieldId) {
+    if (numRows == nulls.length) {
+      nulls = Arrays.copyOf(nulls, nulls.length * 2);
+    }
+    if (type == Type.NULL_TYPE || tuple.isNull(fieldId)) {
+      nulls[numRows++] = true;
+      numNulls++;
+      return 1;
+    }
+    nulls[numRows++] = false;
+    return addValue(tuple, fieldId);
+  }
+
+  protected abstract int addValue(Tuple tuple, int fieldId);
+
+  /**
+   * It encodes the non-null values.
+   *
+   * @return the chosen encoding
+   */
+  protected abstract ChunkEncoding encodeValues(Output out);
+
+  protected abstract Object getMin();
+
+  protected abstract Object getMax();
+
+  /**
+   * It encodes the buffered values into the given buffer.
+   *
+   * @param offset the offset of this chunk in the file
+   * @return the meta data of the encoded chunk
+   */
+  public ColumnChunkMeta write(long offset, Output out) {
+    out.reset();
+    ChunkEncoding encoding = ChunkEncoding.PLAIN;
+    if (numNulls < numRows) {
+      if (numNulls > 0) {
+        writeNullBitmap(out);
+      }
+      encoding = encodeValues(out);
+    }
+    return new ColumnChunkMeta(offset, out.size(), encoding, numNulls, getMin(), getMax());
+  }
+
+  private void writeNullBitmap(Output out) {
+    for (int i = 0; i < numRows; i += 8) {
+      int b = 0;
+      for (int j = 0; j < 8 && i + j < numRows; j++) {
+        if (nulls[i + j]) {
+          b |= 1 << j;
+        }
+      }
+      out.write(b);
+    }
+  }
+
+  public void reset() {
+    numRows = 0;
+    numNulls = 0;
+  }
+
+  private static class NullChunkWriter extends ColumnChunkWriter {
+    NullChunkWriter(Type type) {
+      super(type);
+    }
+
+    @Override
+    protected int addValue(Tuple tuple, int fieldId) {
+      throw new UnsupportedOperationException(type.name());
+    }
+
+    @Override
+    protected ChunkEncoding encodeValues(Output out) {
+      return ChunkEncoding.PLAIN;
+    }
+
+    @Override
+    protected Object getMin() {
+      return null;
+    }
+
+    @Override
+    protected Object getMax() {
+      return null;
+    }
+  }
+
+  private static class LongChunkWriter extends ColumnChunkWriter {
+    private long [] values = new long[1024];
+    private int numValues = 0;
+    private long min;
+    private long max;
+
+    LongChunkWriter(Type type) {
+      super(type);
+    }
+
+    @Override
+    protected int addValue(Tuple tuple, int fieldId) {
+      long v;
+      switch (type) {
+      case BOOLEAN:
+        v = tuple.getBool(fieldId) ? 1 : 0;
+        break;
+      case BIT:
+        v = tuple.getByte(fieldId);
+        break;
+      case INT2:
+        v = tuple.getInt2(fieldId);
+        break;
+      case INT4:
+      case DATE:
+        v = tuple.getInt4(fieldId);
+        break;
+      default:
+        v = tuple.getInt8(fieldId);
+      }
+
+      if (numValues == values.length) {
+        values = Arrays.copyOf(values, values.length * 2);
+      }
+      if (numValues == 0) {
+        min = max = v;
+      } else if (v < min) {
+        min = v;
+      } else if (v > max) {
+        max = v;
+      }
+      values[numValues++] = v;
+      return 8;
+    }
+
+    @Override
+    protected ChunkEncoding encodeValues(Output out) {
+      ChunkEncoding encoding = EncodingUtil.chooseLongEncoding(values, numValues);
+      EncodingUtil.encodeLongs(encoding, values, numValues, out);
+      return encoding;
+    }
+
+    @Override
+    protected Object getMin() {
+      return numValues > 0 ? min : null;
+    }
+
+    @Override
+    protected Object getMax() {
+      return numValues > 0 ? max : null;
+    }
+
+    @Override
+    public void reset() {
+      super.reset();
+      numValues = 0;
+    }
+  }
+
+  private static class DoubleChunkWriter extends ColumnChunkWriter {
+    private double [] values = new double[1024];
+    private int numValues = 0;
+    private double min;
+    private double max;
+    private boolean hasNaN;
+
+    DoubleChunkWriter(Type type) {
+      super(type);
+    }
+
+    @Override
+    protected int addValue(Tuple tuple, int fieldId) {
+      double v = type == Type.FLOAT4 ? tuple.getFloat4(fieldId) : tuple.getFloat8(fieldId);
+
+      if (numValues == values.length) {
+        values = Arrays.copyOf(values, values.length * 2);
+      }
+      if (Double.isNaN(v)) {
+        hasNaN = true;
+      } else if (numValues == 0) {
+        min = max = v;
+      } else if (v < min) {
+        min = v;
+      } else if (v > max) {
+        max = v;
+      }
+      values[numValues++] = v;
+      return 8;
+    }
+
+    @Override
+    protected ChunkEncoding encodeValues(Output out) {
+      if (type == Type.FLOAT4) {
+        for (int i = 0; i < numValues; i++) {
+          out.writeIntLE(Float.floatToRawIntBits((float) values[i]));
+        }
+      } else {
+        for (int i = 0; i < numValues; i++) {
+          out.writeLongLE(Double.doubleToRawLongBits(values[i]));
+        }
+      }
+      return ChunkEncoding.PLAIN;
+    }
+
+    @Override
+    protected Object getMin() {
+      return numValues > 0 && !hasNaN ? min : null;
+    }
+
+    @Override
+    protected Object getMax() {
+      return numValues > 0 && !hasNaN ? max : null;
+    }
+
+    @Override
+    public void reset() {
+      super.reset();
+      numValues = 0;
+      hasNaN = false;
+    }
+  }
+
+  private static class BytesChunkWriter extends ColumnChunkWriter {
+    private static final int MAX_DICTIONARY_ENTRIES = 64 * 1024;
+    private static final int MAX_DICTIONARY_BYTES = 1024 * 1024;
+
+    private final List<byte []> values = TUtil.newList();
+    private long plainSize = 0;
+    private byte [] min;
+    private byte [] max;
+
+    /** null if there are too many distinct values in this chunk */
+    private Map<ByteBuffer, Integer> dictionary = TUtil.newHashMap();
+    private final List<byte []> dictionaryValues = TUtil.newList();
+    private long dictionarySize = 0;
+    private long [] ids = new long[1024];
+
+    BytesChunkWriter(Type type) {
+      super(type);
+    }
+
+    @Override
+    protected int addValue(Tuple tuple, int fieldId) {
+      byte [] v = tuple.getBytes(fieldId);
+
+      if (values.isEmpty()) {
+        min = max = v;
+      } else if (BlockStatsFilter.compareUnsigned(v, min) < 0) {
+        min = v;
+      } else if (BlockStatsFilter.compareUnsigned(v, max) > 0) {
+        max = v;
+      }
+      plainSize += EncodingUtil.varLongSize(v.length) + v.length;
+
+      if (dictionary != null) {
+        Integer id = dictionary.get(ByteBuffer.wrap(v));
+        if (id == null) {
+          id = dictionaryValues.size();
+          dictionary.put(ByteBuffer.wrap(v), id);
+          dictionaryValues.add(v);
+          dictionarySize += EncodingUtil.varLongSize(v.length) + v.length;
+          if (dictionaryValues.size() > MAX_DICTIONARY_ENTRIES || dictionarySize > MAX_DICTIONARY_BYTES) {
+            dictionary = null;
+            dictionaryValues.clear();
+          }
+        }
+        if (dictionary != null) {
+          if (values.size() == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+          }
+          ids[values.size()] = id;
+        }
+      }
+
+      values.add(v);
+      return v.length + 16;
+    }
+
+    @Override
+    protected ChunkEncoding encodeValues(Output out) {
+      int start = out.size();
+      if (dictionary != null && dictionarySize < plainSize) {
+        out.writeVarLong(dictionaryValues.size());
+        for (byte [] v : dictionaryValues) {
+          out.writeVarLong(v.length);
+          out.write(v, 0, v.length);
+        }
+        ChunkEncoding idEncoding = EncodingUtil.chooseLongEncoding(ids, values.size());
+        out.write(idEncoding.getId());
+        EncodingUtil.encodeLongs(idEncoding, ids, values.size(), out);
+
+        if (out.size() - start < plainSize) {
+          return ChunkEncoding.DICTIONARY;
+        }
+        out.truncate(start);
+      }
+
+      for (byte [] v : values) {
+        out.writeVarLong(v.length);
+        out.write(v, 0, v.length);
+      }
+      return ChunkEncoding.PLAIN;
+    }
+
+    @Override
+    protected Object getMin() {
+      return min != null && min.length <= ColumnChunkMeta.MAX_STATS_BYTES ? min : null;
+    }
+
+    @Override
+    protected Object getMax() {
+      return max != null && max.length <= ColumnChunkMeta.MAX_STATS_BYTES ? max : null;
+    }
+
+    @Override
+    public void reset() {
+      super.reset();
+      values.clear();
+      plainSize = 0;
+      min = max = null;
+      dictionary = TUtil.newHashMap();
+      dictionaryValues.clear();
+      dictionarySize = 0;
+    }
+  }
+}
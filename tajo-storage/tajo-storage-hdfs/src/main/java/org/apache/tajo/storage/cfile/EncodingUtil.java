@@ -0,0 +1,454 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage.cfile;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Lightweight encodings of the values of column chunks.
+ *
+ * Integers are encoded by one of {@link ChunkEncoding#PLAIN}, {@link ChunkEncoding#RLE},
+ * {@link ChunkEncoding#BIT_PACKED} and {@link ChunkEncoding#DELTA}, whichever is the smallest.
+ * The encoded sizes of all of them are computed in a single pass over the values.
+ */
+public final class EncodingUtil {
+
+  private EncodingUtil() {
+  }
+
+  /**
+   * A growable byte buffer into which a column chunk is encoded.
+   */
+  public static final class Output {
+    private byte [] buf;
+    private int size;
+
+    public Output(int initialCapacity) {
+      buf = new byte[Math.max(16, initialCapacity)];
+    }
+
+    private void ensure(int more) {
+      if (size + more > buf.length) {
+        buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + more));
+      }
+    }
+
+    public void write(int b) {
+      ensure(1);
+      buf[size++] = (byte) b;
+    }
+
+    public void write(byte [] bytes, int offset, int length) {
+      ensure(length);
+      System.arraycopy(bytes, offset, buf, size, length);
+      size += length;
+    }
+
+    public void writeVarLong(long v) {
+      ensure(10);
+      while ((v & ~0x7FL) != 0) {
+        buf[size++] = (byte) ((v & 0x7F) | 0x80);
+        v >>>= 7;
+      }
+      buf[size++] = (byte) v;
+    }
+
+    public void writeZigZag(long v) {
+      writeVarLong((v << 1) ^ (v >> 63));
+    }
+
+    public void writeIntLE(int v) {
+      ensure(4);
+      for (int i = 0; i < 4; i++) {
+        buf[size++] = (byte) (v >>> (i * 8));
+      }
+    }
+
+    public void writeLongLE(long v) {
+      ensure(8);
+      for (int i = 0; i < 8; i++) {
+        buf[size++] = (byte) (v >>> (i * 8));
+      }
+    }
+
+    public int size() {
+      return size;
+    }
+
+    public void reset() {
+      size = 0;
+    }
+
+    /**
+     * It discards the bytes written after the given size.
+     */
+    public void truncate(int newSize) {
+      size = newSize;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+      out.write(buf, 0, size);
+    }
+  }
+
+  /**
+   * A cursor over an encoded column chunk.
+   */
+  public static final class Input {
+    private byte [] buf;
+    private int pos;
+    private int end;
+
+    public void reset(byte [] buf, int offset, int length) {
+      this.buf = buf;
+      this.pos = offset;
+      this.end = offset + length;
+    }
+
+    public int readByte() throws IOException {
+      if (pos >= end) {
+        throw new IOException("Unexpected end of a column chunk");
+      }
+      return buf[pos++] & 0xFF;
+    }
+
+    public long readVarLong() throws IOException {
+      long result = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        int b = readByte();
+        result |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return result;
+        }
+      }
+      throw new IOException("Malformed varint in a column chunk");
+    }
+
+    public long readZigZag() throws IOException {
+      long v = readVarLong();
+      return (v >>> 1) ^ -(v & 1);
+    }
+
+    public int readIntLE() throws IOException {
+      checkRemaining(4);
+      int v = 0;
+      for (int i = 0; i < 4; i++) {
+        v |= (buf[pos++] & 0xFF) << (i * 8);
+      }
+      return v;
+    }
+
+    public long readLongLE() throws IOException {
+      checkRemaining(8);
+      long v = getLongLE(buf, pos, end);
+      pos += 8;
+      return v;
+    }
+
+    public byte [] readBytes(int length) throws IOException {
+      checkRemaining(length);
+      byte [] bytes = Arrays.copyOfRange(buf, pos, pos + length);
+      pos += length;
+      return bytes;
+    }
+
+    private void checkRemaining(int length) throws IOException {
+      if (end - pos < length) {
+        throw new IOException("Unexpected end of a column chunk");
+      }
+    }
+  }
+
+  static int varLongSize(long v) {
+    int size = 1;
+    while ((v & ~0x7FL) != 0) {
+      v >>>= 7;
+      size++;
+    }
+    return size;
+  }
+
+  static int zigZagSize(long v) {
+    return varLongSize((v << 1) ^ (v >> 63));
+  }
+
+  /**
+   * @return the number of bits to represent the given value as an unsigned integer
+   */
+  static int bitWidth(long unsigned) {
+    return 64 - Long.numberOfLeadingZeros(unsigned);
+  }
+
+  private static long packedBytes(long num, int width) {
+    return (num * width + 7) / 8;
+  }
+
+  /**
+   * It chooses the smallest integer encoding for the given values.
+   */
+  public static ChunkEncoding chooseLongEncoding(long [] values, int num) {
+    if (num == 0) {
+      return ChunkEncoding.PLAIN;
+    }
+
+    long min = values[0];
+    long max = values[0];
+    long minDelta = 0;
+    long maxDelta = 0;
+    long plainSize = 0;
+    long rleSize = 0;
+    int runLength = 0;
+
+    for (int i = 0; i < num; i++) {
+      long v = values[i];
+      plainSize += zigZagSize(v);
+      if (v < min) {
+        min = v;
+      } else if (v > max) {
+        max = v;
+      }
+
+      if (i > 0) {
+        long delta = v - values[i - 1];
+        if (i == 1) {
+          minDelta = maxDelta = delta;
+        } else if (delta < minDelta) {
+          minDelta = delta;
+        } else if (delta > maxDelta) {
+          maxDelta = delta;
+        }
+
+        if (v == values[i - 1]) {
+          runLength++;
+        } else {
+          rleSize += varLongSize(runLength) + zigZagSize(values[i - 1]);
+          runLength = 1;
+        }
+      } else {
+        runLength = 1;
+      }
+    }
+    rleSize += varLongSize(runLength) + zigZagSize(values[num - 1]);
+
+    long bitPackedSize = zigZagSize(min) + 1 + packedBytes(num, bitWidth(max - min));
+    long deltaSize = zigZagSize(values[0]) + zigZagSize(minDelta) + 1 +
+        packedBytes(num - 1, bitWidth(maxDelta - minDelta));
+
+    // Bit-packed values are the fastest to decode, so they are preferred among the same sizes.
+    ChunkEncoding best = ChunkEncoding.BIT_PACKED;
+    long bestSize = bitPackedSize;
+    if (deltaSize < bestSize) {
+      best = ChunkEncoding.DELTA;
+      bestSize = deltaSize;
+    }
+    if (rleSize < bestSize) {
+      best = ChunkEncoding.RLE;
+      bestSize = rleSize;
+    }
+    if (plainSize < bestSize) {
+      best = ChunkEncoding.PLAIN;
+    }
+    return best;
+  }
+
+  public static void encodeLongs(ChunkEncoding encoding, long [] values, int num, Output out) {
+    if (num == 0) {
+      return;
+    }
+
+    switch (encoding) {
+    case PLAIN:
+      for (int i = 0; i < num; i++) {
+        out.writeZigZag(values[i]);
+      }
+      break;
+
+    case RLE: {
+      int runStart = 0;
+      for (int i = 1; i <= num; i++) {
+        if (i == num || values[i] != values[runStart]) {
+          out.writeVarLong(i - runStart);
+          out.writeZigZag(values[runStart]);
+          runStart = i;
+        }
+      }
+      break;
+    }
+
+    case BIT_PACKED: {
+      long min = values[0];
+      long max = values[0];
+      for (int i = 1; i < num; i++) {
+        min = Math.min(min, values[i]);
+        max = Math.max(max, values[i]);
+      }
+      int width = bitWidth(max - min);
+      out.writeZigZag(min);
+      out.write(width);
+      pack(values, 0, num, min, width, out);
+      break;
+    }
+
+    case DELTA: {
+      long [] deltas = new long[num - 1];
+      long minDelta = 0;
+      long maxDelta = 0;
+      for (int i = 1; i < num; i++) {
+        long delta = values[i] - values[i - 1];
+        deltas[i - 1] = delta;
+        if (i == 1) {
+          minDelta = maxDelta = delta;
+        } else {
+          minDelta = Math.min(minDelta, delta);
+          maxDelta = Math.max(maxDelta, delta);
+        }
+      }
+      int width = bitWidth(maxDelta - minDelta);
+      out.writeZigZag(values[0]);
+      out.writeZigZag(minDelta);
+      out.write(width);
+      pack(deltas, 0, num - 1, minDelta, width, out);
+      break;
+    }
+
+    default:
+      throw new IllegalArgumentException("Unsupported integer encoding: " + encoding);
+    }
+  }
+
+  public static void decodeLongs(ChunkEncoding encoding, Input in, long [] values, int num) throws IOException {
+    if (num == 0) {
+      return;
+    }
+
+    switch (encoding) {
+    case PLAIN:
+      for (int i = 0; i < num; i++) {
+        values[i] = in.readZigZag();
+      }
+      break;
+
+    case RLE: {
+      int i = 0;
+      while (i < num) {
+        int runLength = (int) in.readVarLong();
+        long value = in.readZigZag();
+        if (runLength <= 0 || i + runLength > num) {
+          throw new IOException("Malformed run length in a column chunk: " + runLength);
+        }
+        Arrays.fill(values, i, i + runLength, value);
+        i += runLength;
+      }
+      break;
+    }
+
+    case BIT_PACKED: {
+      long min = in.readZigZag();
+      int width = in.readByte();
+      unpack(in, values, 0, num, min, width);
+      break;
+    }
+
+    case DELTA: {
+      values[0] = in.readZigZag();
+      long minDelta = in.readZigZag();
+      int width = in.readByte();
+      unpack(in, values, 1, num - 1, minDelta, width);
+      for (int i = 1; i < num; i++) {
+        values[i] += values[i - 1];
+      }
+      break;
+    }
+
+    default:
+      throw new IOException("Unsupported integer encoding: " + encoding);
+    }
+  }
+
+  /**
+   * It packs (value - base) of each value with the given number of bits, in the little-endian bit order.
+   */
+  static void pack(long [] values, int offset, int num, long base, int width, Output out) {
+    if (width == 0) {
+      return;
+    }
+
+    long acc = 0;
+    int accBits = 0;
+    for (int i = offset; i < offset + num; i++) {
+      long v = values[i] - base;
+      acc |= v << accBits;
+      if (accBits + width >= 64) {
+        out.writeLongLE(acc);
+        int written = 64 - accBits;
+        acc = written == 64 ? 0 : v >>> written;
+        accBits = accBits + width - 64;
+      } else {
+        accBits += width;
+      }
+    }
+    for (int i = 0; i < accBits; i += 8) {
+      out.write((int) (acc >>> i));
+    }
+  }
+
+  static void unpack(Input in, long [] values, int offset, int num, long base, int width) throws IOException {
+    if (width == 0) {
+      Arrays.fill(values, offset, offset + num, base);
+      return;
+    }
+    if (width > 64) {
+      throw new IOException("Invalid bit width in a column chunk: " + width);
+    }
+
+    int length = (int) packedBytes(num, width);
+    in.checkRemaining(length);
+    byte [] buf = in.buf;
+    int start = in.pos;
+    int end = start + length;
+    long mask = width == 64 ? -1L : (1L << width) - 1;
+
+    long bitPos = 0;
+    for (int i = offset; i < offset + num; i++) {
+      int idx = start + (int) (bitPos >>> 3);
+      int shift = (int) (bitPos & 7);
+      long v = getLongLE(buf, idx, end) >>> shift;
+      if (shift + width > 64) {
+        v |= (buf[idx + 8] & 0xFFL) << (64 - shift);
+      }
+      values[i] = base + (v & mask);
+      bitPos += width;
+    }
+    in.pos = end;
+  }
+
+  /**
+   * It reads 8 bytes in the little-endian order. The bytes after the end are regarded as zeros.
+   */
+  private static long getLongLE(byte [] buf, int idx, int end) {
+    long v = 0;
+    int len = Math.min(8, end - idx);
+    for (int i = 0; i < len; i++) {
+      v |= (buf[idx + i] & 0xFFL) << (i * 8);
+    }
+    return v;
+  }
+}
@@ -548,6 +548,8 @@ public class BSTIndex implements IndexMethod {
 
     private boolean correctable = true;
 
+    private volatile boolean closed = false;
+
     private int oneLevBS(Tuple key) throws IOException {
       correctable = true;
       int pos = binarySearch(this.dataSubIndex, key, 0, this.dataSubIndex.length);
@@ -611,8 +613,22 @@ public class BSTIndex implements IndexMethod {
 
     @Override
     public void close() throws IOException {
-      this.indexIn.close();
-      this.subIn.close();
+      synchronized (mutex) {
+        if (closed) {
+          return;
+        }
+        closed = true;
+        if (this.indexIn != null) {
+          this.indexIn.close();
+        }
+        if (this.subIn != null) {
+          this.subIn.close();
+        }
+      }
+    }
+
+    public boolean isClosed() {
+      return closed;
     }
 
     @Override
@@ -0,0 +1,383 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage.parquet;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.common.TajoDataTypes;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.storage.vector.*;
+import org.apache.tajo.util.TUtil;
+import parquet.column.ColumnDescriptor;
+import parquet.column.ColumnReader;
+import parquet.column.impl.ColumnReadStoreImpl;
+import parquet.column.page.PageReadStore;
+import parquet.hadoop.ParquetFileReader;
+import parquet.hadoop.metadata.BlockMetaData;
+import parquet.hadoop.metadata.ColumnChunkMetaData;
+import parquet.hadoop.metadata.ParquetMetadata;
+import parquet.io.api.Converter;
+import parquet.io.api.GroupConverter;
+import parquet.io.api.PrimitiveConverter;
+import parquet.schema.MessageType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A Parquet reader which decodes the column chunks of projected columns into the column vectors of
+ * {@link RowBatch}es.
+ *
+ * Unlike {@link TajoParquetReader}, it does not assemble records through converters. Each column chunk is read
+ * column by column with a {@link ColumnReader}, which decodes plain, dictionary and RLE encoded pages, and
+ * integral and floating point values are stored into primitive arrays without creating any datum.
+ * Only flat schemas are supported, so the number of values of a column chunk equals the number of rows.
+ */
+public class ParquetColumnarReader implements Closeable {
+  private final Configuration conf;
+  private final Path file;
+  private final Column [] targets;
+  /** the column ids of targets in the table schema */
+  private final int [] targetIds;
+  /** the column descriptors of targets. It is null for NULL_TYPE columns which are not stored. */
+  private final ColumnDescriptor [] descriptors;
+  private final MessageType requestedSchema;
+  private final ParquetRowGroupFilter rowGroupFilter;
+
+  private boolean opened = false;
+  private ParquetFileReader reader;
+  private ColumnReader [] columnReaders;
+  private long rowsLeftInRowGroup = 0;
+
+  private int numSkippedRowGroups = 0;
+  private long skippedBytes = 0;
+
+  /**
+   * Creates a new ParquetColumnarReader.
+   *
+   * @param conf The configuration
+   * @param file The file to read from.
+   * @param schema Tajo schema of the table.
+   * @param targets The projected columns.
+   * @param rowGroupFilter Row group filter. It can be null.
+   */
+  public ParquetColumnarReader(Configuration conf, Path file, Schema schema, Column [] targets,
+                               ParquetRowGroupFilter rowGroupFilter) {
+    this.conf = conf;
+    this.file = file;
+    this.targets = targets;
+    this.rowGroupFilter = rowGroupFilter;
+
+    Schema targetSchema = new Schema(targets);
+    this.requestedSchema = new TajoSchemaConverter().convert(targetSchema);
+
+    this.targetIds = new int[targets.length];
+    this.descriptors = new ColumnDescriptor[targets.length];
+    for (int i = 0; i < targets.length; i++) {
+      targetIds[i] = schema.getColumnId(targets[i].getQualifiedName());
+      if (targets[i].getDataType().getType() != TajoDataTypes.Type.NULL_TYPE) {
+        descriptors[i] = requestedSchema.getColumnDescription(new String[] {targets[i].getSimpleName()});
+      }
+    }
+  }
+
+  /**
+   * @return true if all of the given columns can be read into column vectors.
+   */
+  public static boolean isSupported(Column [] columns) {
+    for (Column column : columns) {
+      switch (column.getDataType().getType()) {
+      case BOOLEAN:
+      case BIT:
+      case CHAR:
+      case INT2:
+      case INT4:
+      case INT8:
+      case FLOAT4:
+      case FLOAT8:
+      case TEXT:
+      case BLOB:
+      case INET4:
+      case NULL_TYPE:
+        break;
+      default:
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void open() throws IOException {
+    opened = true;
+
+    ParquetMetadata footer = ParquetFileReader.readFooter(conf, file);
+    List<BlockMetaData> blocks = TUtil.newList();
+    for (BlockMetaData block : footer.getBlocks()) {
+      if (rowGroupFilter != null && rowGroupFilter.canDrop(block)) {
+        numSkippedRowGroups++;
+        for (ColumnChunkMetaData column : block.getColumns()) {
+          skippedBytes += column.getTotalSize();
+        }
+      } else {
+        blocks.add(block);
+      }
+    }
+
+    if (!blocks.isEmpty()) {
+      reader = new ParquetFileReader(conf, file, blocks, requestedSchema.getColumns());
+    }
+  }
+
+  private boolean nextRowGroup() throws IOException {
+    if (reader == null) {
+      return false;
+    }
+
+    PageReadStore pages;
+    do {
+      pages = reader.readNextRowGroup();
+      if (pages == null) {
+        return false;
+      }
+    } while (pages.getRowCount() == 0);
+
+    ColumnReadStoreImpl columnReadStore = new ColumnReadStoreImpl(pages, new NoOpGroupConverter(), requestedSchema);
+    columnReaders = new ColumnReader[targets.length];
+    for (int i = 0; i < targets.length; i++) {
+      if (descriptors[i] != null) {
+        columnReaders[i] = columnReadStore.getColumnReader(descriptors[i]);
+      }
+    }
+    rowsLeftInRowGroup = pages.getRowCount();
+    return true;
+  }
+
+  /**
+   * It fills the vectors of the projected columns of the given batch with the next rows.
+   * The rows of a batch always belong to a single row group.
+   *
+   * @return false if there are no more rows
+   */
+  public boolean nextBatch(RowBatch batch) throws IOException {
+    if (!opened) {
+      open();
+    }
+    if (rowsLeftInRowGroup == 0 && !nextRowGroup()) {
+      return false;
+    }
+
+    int num = (int) Math.min(batch.capacity(), rowsLeftInRowGroup);
+    for (int i = 0; i < targets.length; i++) {
+      ColumnVector vector = batch.getColumn(targetIds[i]);
+      if (columnReaders[i] == null) {
+        if (vector != null) {
+          for (int row = 0; row < num; row++) {
+            vector.setNull(row);
+          }
+        }
+      } else if (vector == null) {
+        skipValues(columnReaders[i], num);
+      } else {
+        readValues(columnReaders[i], targets[i], vector, num);
+      }
+    }
+
+    rowsLeftInRowGroup -= num;
+    batch.setSize(num);
+    return true;
+  }
+
+  private static void skipValues(ColumnReader columnReader, int num) {
+    int maxDefinitionLevel = columnReader.getDescriptor().getMaxDefinitionLevel();
+    for (int row = 0; row < num; row++) {
+      if (columnReader.getCurrentDefinitionLevel() == maxDefinitionLevel) {
+        // the value is decoded into the no-op converter
+        columnReader.writeCurrentValueToConverter();
+      }
+      columnReader.consume();
+    }
+  }
+
+  private static void readValues(ColumnReader columnReader, Column column, ColumnVector vector, int num) {
+    ColumnDescriptor descriptor = columnReader.getDescriptor();
+    int maxDefinitionLevel = descriptor.getMaxDefinitionLevel();
+
+    if (vector instanceof LongColumnVector) {
+      long [] values = ((LongColumnVector) vector).vector;
+      switch (descriptor.getType()) {
+      case BOOLEAN:
+        for (int row = 0; row < num; row++) {
+          if (isNull(columnReader, maxDefinitionLevel, vector, row)) {
+            continue;
+          }
+          values[row] = columnReader.getBoolean() ? 1 : 0;
+          columnReader.consume();
+        }
+        break;
+      case INT64:
+        for (int row = 0; row < num; row++) {
+          if (isNull(columnReader, maxDefinitionLevel, vector, row)) {
+            continue;
+          }
+          values[row] = columnReader.getLong();
+          columnReader.consume();
+        }
+        break;
+      default:
+        for (int row = 0; row < num; row++) {
+          if (isNull(columnReader, maxDefinitionLevel, vector, row)) {
+            continue;
+          }
+          values[row] = columnReader.getInteger();
+          columnReader.consume();
+        }
+      }
+
+    } else if (vector instanceof DoubleColumnVector) {
+      double [] values = ((DoubleColumnVector) vector).vector;
+      switch (descriptor.getType()) {
+      case FLOAT:
+        for (int row = 0; row < num; row++) {
+          if (isNull(columnReader, maxDefinitionLevel, vector, row)) {
+            continue;
+          }
+          values[row] = columnReader.getFloat();
+          columnReader.consume();
+        }
+        break;
+      case INT32:
+        for (int row = 0; row < num; row++) {
+          if (isNull(columnReader, maxDefinitionLevel, vector, row)) {
+            continue;
+          }
+          values[row] = columnReader.getInteger();
+          columnReader.consume();
+        }
+        break;
+      case INT64:
+        for (int row = 0; row < num; row++) {
+          if (isNull(columnReader, maxDefinitionLevel, vector, row)) {
+            continue;
+          }
+          values[row] = columnReader.getLong();
+          columnReader.consume();
+        }
+        break;
+      default:
+        for (int row = 0; row < num; row++) {
+          if (isNull(columnReader, maxDefinitionLevel, vector, row)) {
+            continue;
+          }
+          values[row] = columnReader.getDouble();
+          columnReader.consume();
+        }
+      }
+
+    } else {
+      DatumColumnVector datumVector = (DatumColumnVector) vector;
+      for (int row = 0; row < num; row++) {
+        if (isNull(columnReader, maxDefinitionLevel, vector, row)) {
+          continue;
+        }
+        datumVector.vector[row] = readDatum(columnReader, column);
+        columnReader.consume();
+      }
+    }
+  }
+
+  /**
+   * It checks if the current value is null. A null value is consumed, and marked in the vector.
+   */
+  private static boolean isNull(ColumnReader columnReader, int maxDefinitionLevel, ColumnVector vector, int row) {
+    if (columnReader.getCurrentDefinitionLevel() < maxDefinitionLevel) {
+      vector.setNull(row);
+      columnReader.consume();
+      return true;
+    }
+    if (!vector.noNulls) {
+      vector.isNull[row] = false;
+    }
+    return false;
+  }
+
+  private static Datum readDatum(ColumnReader columnReader, Column column) {
+    switch (column.getDataType().getType()) {
+    case BIT:
+      return DatumFactory.createBit((byte) (columnReader.getInteger() & 0xff));
+    case CHAR:
+      return DatumFactory.createChar(columnReader.getBinary().getBytes());
+    case TEXT:
+      return DatumFactory.createText(columnReader.getBinary().getBytes());
+    case BLOB:
+      return DatumFactory.createBlob(columnReader.getBinary().getBytes());
+    case INET4:
+      return DatumFactory.createInet4(columnReader.getBinary().getBytes());
+    default:
+      throw new UnsupportedOperationException("Unsupported data type: " + column.getDataType().getType());
+    }
+  }
+
+  /**
+   * @return The number of row groups skipped by the row group filter so far.
+   */
+  public int getNumSkippedRowGroups() {
+    return numSkippedRowGroups;
+  }
+
+  /**
+   * @return The on-disk bytes of row groups skipped by the row group filter so far.
+   */
+  public long getSkippedBytes() {
+    return skippedBytes;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (reader != null) {
+      reader.close();
+      reader = null;
+    }
+    columnReaders = null;
+  }
+
+  /**
+   * Column readers need converters only to write values to them, which is used only to skip values.
+   */
+  private static class NoOpGroupConverter extends GroupConverter {
+    private final PrimitiveConverter converter = new PrimitiveConverter() {
+    };
+
+    @Override
+    public Converter getConverter(int fieldIndex) {
+      return converter;
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void end() {
+    }
+  }
+}
@@ -0,0 +1,134 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage.parquet;
+
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.plan.expr.EvalNode;
+import org.apache.tajo.storage.BlockStatsFilter;
+import org.apache.tajo.storage.BlockStatsFilter.ColumnRange;
+import org.apache.tajo.util.TUtil;
+import parquet.column.statistics.*;
+import parquet.hadoop.metadata.BlockMetaData;
+import parquet.hadoop.metadata.ColumnChunkMetaData;
+import parquet.io.api.Binary;
+
+import java.util.Map;
+
+/**
+ * It decides whether a Parquet row group can be skipped for a search condition, using the min/max statistics
+ * of column chunks. See {@link BlockStatsFilter} for the supported predicates.
+ *
+ * Binary statistics are used only if both min and max are ASCII strings, because old Parquet writers compare
+ * binary values with signed bytes.
+ */
+public class ParquetRowGroupFilter {
+  private final BlockStatsFilter filter;
+
+  public ParquetRowGroupFilter(EvalNode searchCondition) {
+    this.filter = new BlockStatsFilter(searchCondition);
+  }
+
+  /**
+   * @return true if there is no predicate which can be evaluated against statistics.
+   */
+  public boolean isEmpty() {
+    return filter.isEmpty();
+  }
+
+  /**
+   * @return true if no row of the given row group can satisfy the search condition.
+   */
+  public boolean canDrop(BlockMetaData block) {
+    if (filter.isEmpty()) {
+      return false;
+    }
+    return filter.canDrop(new RowGroupStats(block));
+  }
+
+  private static class RowGroupStats implements BlockStatsFilter.BlockStats {
+    private final long rowCount;
+    private final Map<String, ColumnChunkMetaData> columns = TUtil.newHashMap();
+
+    RowGroupStats(BlockMetaData block) {
+      this.rowCount = block.getRowCount();
+      for (ColumnChunkMetaData column : block.getColumns()) {
+        columns.put(column.getPath().toDotString(), column);
+      }
+    }
+
+    @Override
+    public long getNumRows() {
+      return rowCount;
+    }
+
+    @Override
+    public ColumnRange getColumnRange(Column column) {
+      ColumnChunkMetaData columnChunk = columns.get(column.getSimpleName());
+      if (columnChunk == null || columnChunk.getStatistics() == null) {
+        // e.g., partition columns
+        return null;
+      }
+      return toColumnRange(columnChunk.getStatistics(), rowCount);
+    }
+  }
+
+  private static ColumnRange toColumnRange(Statistics statistics, long rowCount) {
+    // Empty statistics may mean that statistics are not written, so the null count is not trusted.
+    boolean hasNullCount = !statistics.isEmpty() || statistics.getNumNulls() > 0;
+
+    Object min = null;
+    Object max = null;
+    if (!statistics.isEmpty()) {
+      if (statistics instanceof IntStatistics) {
+        min = (long) ((IntStatistics) statistics).getMin();
+        max = (long) ((IntStatistics) statistics).getMax();
+      } else if (statistics instanceof LongStatistics) {
+        min = ((LongStatistics) statistics).getMin();
+        max = ((LongStatistics) statistics).getMax();
+      } else if (statistics instanceof FloatStatistics) {
+        min = (double) ((FloatStatistics) statistics).getMin();
+        max = (double) ((FloatStatistics) statistics).getMax();
+      } else if (statistics instanceof DoubleStatistics) {
+        min = ((DoubleStatistics) statistics).getMin();
+        max = ((DoubleStatistics) statistics).getMax();
+      } else if (statistics instanceof BinaryStatistics) {
+        Binary minBinary = ((BinaryStatistics) statistics).getMin();
+        Binary maxBinary = ((BinaryStatistics) statistics).getMax();
+        if (minBinary != null && maxBinary != null) {
+          byte [] minBytes = minBinary.getBytes();
+          byte [] maxBytes = maxBinary.getBytes();
+          if (isAscii(minBytes) && isAscii(maxBytes)) {
+            min = minBytes;
+            max = maxBytes;
+          }
+        }
+      }
+    }
+    return new ColumnRange(hasNullCount, statistics.getNumNulls(), rowCount, min, max);
+  }
+
+  private static boolean isAscii(byte [] bytes) {
+    for (byte b : bytes) {
+      if (b < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
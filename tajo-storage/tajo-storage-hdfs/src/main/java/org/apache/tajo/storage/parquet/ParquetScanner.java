@@ -21,17 +21,28 @@ package org.apache.tajo.storage.parquet;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.tajo.catalog.Schema;
 import org.apache.tajo.catalog.TableMeta;
+import org.apache.tajo.catalog.statistics.TableStats;
+import org.apache.tajo.plan.expr.EvalNode;
 import org.apache.tajo.storage.FileScanner;
 import org.apache.tajo.storage.Tuple;
 import org.apache.tajo.storage.fragment.Fragment;
+import org.apache.tajo.storage.vector.RowBatch;
+import org.apache.tajo.storage.vector.VectorizedScanner;
 
 import java.io.IOException;
 
 /**
  * FileScanner for reading Parquet files
  */
-public class ParquetScanner extends FileScanner {
+public class ParquetScanner extends FileScanner implements VectorizedScanner {
   private TajoParquetReader reader;
+  private ParquetColumnarReader columnarReader;
+  private EvalNode searchCondition;
+  private ParquetRowGroupFilter rowGroupFilter;
+
+  // the statistics of closed readers
+  private int numSkippedRowGroups = 0;
+  private long skippedBytes = 0;
 
   /**
    * Creates a new ParquetScanner.
@@ -47,15 +58,17 @@ public class ParquetScanner extends FileScanner {
   }
 
   /**
-   * Initializes the ParquetScanner. This method initializes the
-   * TajoParquetReader.
+   * Initializes the ParquetScanner. The TajoParquetReader or the
+   * ParquetColumnarReader is created by the first next() or nextBatch().
    */
   @Override
   public void init() throws IOException {
     if (targets == null) {
       targets = schema.toArray();
     }
-    reader = new TajoParquetReader(fragment.getPath(), schema, new Schema(targets));
+    if (searchCondition != null) {
+      rowGroupFilter = new ParquetRowGroupFilter(searchCondition);
+    }
     super.init();
   }
 
@@ -67,14 +80,51 @@ public class ParquetScanner extends FileScanner {
    */
   @Override
   public Tuple next() throws IOException {
+    if (reader == null) {
+      if (columnarReader != null) {
+        throw new IllegalStateException("The scanner is already read by nextBatch()");
+      }
+      reader = new TajoParquetReader(fragment.getPath(), schema, new Schema(targets), rowGroupFilter);
+    }
     return reader.read();
   }
 
   /**
-   * Resets the scanner
+   * Returns whether the projected columns can be read into row batches.
+   *
+   * @return true if all projected columns are supported by ParquetColumnarReader
+   */
+  @Override
+  public boolean isVectorized() {
+    return ParquetColumnarReader.isSupported(targets == null ? schema.toArray() : targets);
+  }
+
+  /**
+   * Reads the next rows from the Parquet file into the given row batch.
+   *
+   * @param batch The row batch to be filled
+   * @return false if the end of file is reached.
+   */
+  @Override
+  public boolean nextBatch(RowBatch batch) throws IOException {
+    if (columnarReader == null) {
+      if (reader != null) {
+        throw new IllegalStateException("The scanner is already read by next()");
+      }
+      columnarReader = new ParquetColumnarReader(conf, fragment.getPath(), schema, targets, rowGroupFilter);
+    }
+    return columnarReader.nextBatch(batch);
+  }
+
+  /**
+   * Resets the scanner. The file is read again from the beginning, and the
+   * statistics of skipped row groups are counted again.
    */
   @Override
   public void reset() throws IOException {
+    close();
+    numSkippedRowGroups = 0;
+    skippedBytes = 0;
   }
 
   /**
@@ -83,7 +133,16 @@ public class ParquetScanner extends FileScanner {
   @Override
   public void close() throws IOException {
     if (reader != null) {
+      numSkippedRowGroups += reader.getNumSkippedRowGroups();
+      skippedBytes += reader.getSkippedBytes();
       reader.close();
+      reader = null;
+    }
+    if (columnarReader != null) {
+      numSkippedRowGroups += columnarReader.getNumSkippedRowGroups();
+      skippedBytes += columnarReader.getSkippedBytes();
+      columnarReader.close();
+      columnarReader = null;
     }
   }
 
@@ -98,13 +157,46 @@ public class ParquetScanner extends FileScanner {
   }
 
   /**
-   * Returns whether this scanner is selectable.
+   * Returns whether this scanner is selectable. Row groups which cannot satisfy
+   * a search condition are skipped, but the returned tuples still should be
+   * filtered by the search condition.
    *
-   * @return false
+   * @return true
    */
   @Override
   public boolean isSelectable() {
-    return false;
+    return true;
+  }
+
+  /**
+   * Sets a search condition, which is used to skip row groups by their
+   * column statistics.
+   *
+   * @param expr The search condition
+   */
+  @Override
+  public void setSearchCondition(Object expr) {
+    super.setSearchCondition(expr);
+    if (expr instanceof EvalNode) {
+      this.searchCondition = (EvalNode) expr;
+    }
+  }
+
+  @Override
+  public TableStats getInputStats() {
+    int numSkipped = numSkippedRowGroups;
+    long skipped = skippedBytes;
+    if (reader != null) {
+      numSkipped += reader.getNumSkippedRowGroups();
+      skipped += reader.getSkippedBytes();
+    }
+    if (columnarReader != null) {
+      numSkipped += columnarReader.getNumSkippedRowGroups();
+      skipped += columnarReader.getSkippedBytes();
+    }
+    tableStats.setNumSkippedBlocks(numSkipped);
+    tableStats.setSkippedBytes(skipped);
+    return tableStats;
   }
 
   /**
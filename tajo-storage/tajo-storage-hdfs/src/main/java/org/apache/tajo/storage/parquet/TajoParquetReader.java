@@ -22,9 +22,13 @@ import org.apache.hadoop.fs.Path;
 import org.apache.tajo.catalog.Schema;
 import org.apache.tajo.storage.Tuple;
 import org.apache.tajo.storage.thirdparty.parquet.ParquetReader;
+import org.apache.tajo.util.TUtil;
 import parquet.filter.UnboundRecordFilter;
+import parquet.hadoop.metadata.BlockMetaData;
+import parquet.hadoop.metadata.ColumnChunkMetaData;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Tajo implementation of {@link ParquetReader} to read Tajo records from a
@@ -32,6 +36,10 @@ import java.io.IOException;
  * directly.
  */
 public class TajoParquetReader extends ParquetReader<Tuple> {
+  private ParquetRowGroupFilter rowGroupFilter;
+  private int numSkippedRowGroups = 0;
+  private long skippedBytes = 0;
+
   /**
    * Creates a new TajoParquetReader.
    *
@@ -82,4 +90,54 @@ public class TajoParquetReader extends ParquetReader<Tuple> {
     super(file, new TajoReadSupport(readSchema, requestedSchema),
           recordFilter);
   }
+
+  /**
+   * Creates a new TajoParquetReader which skips row groups by the given filter.
+   *
+   * @param file The file to read from.
+   * @param readSchema Tajo schema of the table.
+   * @param requestedSchema Tajo schema of the projection.
+   * @param rowGroupFilter Row group filter.
+   */
+  public TajoParquetReader(Path file, Schema readSchema,
+                           Schema requestedSchema,
+                           ParquetRowGroupFilter rowGroupFilter)
+      throws IOException {
+    super(file, new TajoReadSupport(readSchema, requestedSchema));
+    this.rowGroupFilter = rowGroupFilter;
+  }
+
+  @Override
+  protected List<BlockMetaData> filterBlocks(List<BlockMetaData> blocks) {
+    if (rowGroupFilter == null || rowGroupFilter.isEmpty()) {
+      return blocks;
+    }
+
+    List<BlockMetaData> filtered = TUtil.newList();
+    for (BlockMetaData block : blocks) {
+      if (rowGroupFilter.canDrop(block)) {
+        numSkippedRowGroups++;
+        for (ColumnChunkMetaData column : block.getColumns()) {
+          skippedBytes += column.getTotalSize();
+        }
+      } else {
+        filtered.add(block);
+      }
+    }
+    return filtered;
+  }
+
+  /**
+   * @return The number of row groups skipped by the row group filter so far.
+   */
+  public int getNumSkippedRowGroups() {
+    return numSkippedRowGroups;
+  }
+
+  /**
+   * @return The on-disk bytes of row groups skipped by the row group filter so far.
+   */
+  public long getSkippedBytes() {
+    return skippedBytes;
+  }
 }
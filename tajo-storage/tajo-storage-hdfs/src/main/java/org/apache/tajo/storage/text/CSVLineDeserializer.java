@@ -31,6 +31,9 @@ public class CSVLineDeserializer extends TextLineDeserializer {
   private FieldSplitProcessor processor;
   private FieldSerializerDeserializer fieldSerDer;
   private ByteBuf nullChars;
+  /** the offsets and the lengths of the fields of a current line */
+  private int[] fieldStarts;
+  private int[] fieldLengths;
 
   public CSVLineDeserializer(Schema schema, TableMeta meta, int[] targetColumnIndexes) {
     super(schema, meta, targetColumnIndexes);
@@ -46,22 +49,37 @@ public class CSVLineDeserializer extends TextLineDeserializer {
     nullChars = TextLineSerDe.getNullChars(meta);
 
     fieldSerDer = new TextFieldSerializerDeserializer(meta);
+    fieldStarts = new int[schema.size()];
+    fieldLengths = new int[schema.size()];
   }
 
   public void deserialize(final ByteBuf lineBuf, Tuple output) throws IOException, TextLineParsingError {
+    deserialize(lineBuf, output, null);
+  }
+
+  /**
+   * It splits a line only up to the last column which is projected or filtered. The predicates of the filter are
+   * evaluated against the raw fields as soon as the fields are found, and the target fields are materialized
+   * only if the line is not rejected.
+   */
+  @Override
+  public boolean deserialize(final ByteBuf lineBuf, Tuple output, TextFieldFilter filter)
+      throws IOException, TextLineParsingError {
     int[] projection = targetColumnIndexes;
     if (lineBuf == null || targetColumnIndexes == null || targetColumnIndexes.length == 0) {
-      return;
+      return true;
+    }
+
+    int lastColumn = projection[projection.length - 1];
+    if (filter != null) {
+      lastColumn = Math.max(lastColumn, filter.getMaxColumnId());
     }
 
     final int rowLength = lineBuf.readableBytes();
     int start = 0, fieldLength = 0, end = 0;
-
-    //Projection
-    int currentTarget = 0;
     int currentIndex = 0;
 
-    while (end != -1) {
+    while (end != -1 && currentIndex <= lastColumn) {
       end = lineBuf.forEachByte(start, rowLength - start, processor);
 
       if (end < 0) {
@@ -70,20 +88,34 @@ public class CSVLineDeserializer extends TextLineDeserializer {
         fieldLength = end - start;
       }
 
-      if (projection.length > currentTarget && currentIndex == projection[currentTarget]) {
-        lineBuf.setIndex(start, start + fieldLength);
-        Datum datum = fieldSerDer.deserialize(lineBuf, schema.getColumn(currentIndex), currentIndex, nullChars);
-        output.put(currentIndex, datum);
-        currentTarget++;
-      }
+      fieldStarts[currentIndex] = start;
+      fieldLengths[currentIndex] = fieldLength;
 
-      if (projection.length == currentTarget) {
-        break;
+      if (filter != null && filter.hasPredicate(currentIndex)) {
+        lineBuf.setIndex(start, start + fieldLength);
+        if (!filter.accept(currentIndex, lineBuf, nullChars)) {
+          return false;
+        }
       }
 
       start = end + 1;
       currentIndex++;
     }
+
+    //Projection
+    int numFields = currentIndex;
+    for (int columnId : projection) {
+      if (columnId < 0) {
+        continue;
+      }
+      if (columnId >= numFields) {
+        break;
+      }
+      lineBuf.setIndex(fieldStarts[columnId], fieldStarts[columnId] + fieldLengths[columnId]);
+      Datum datum = fieldSerDer.deserialize(lineBuf, schema.getColumn(columnId), columnId, nullChars);
+      output.put(columnId, datum);
+    }
+    return true;
   }
 
   @Override
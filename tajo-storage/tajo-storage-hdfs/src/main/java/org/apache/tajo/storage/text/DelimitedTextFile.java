@@ -34,6 +34,7 @@ import org.apache.tajo.TaskAttemptId;
 import org.apache.tajo.catalog.Schema;
 import org.apache.tajo.catalog.TableMeta;
 import org.apache.tajo.catalog.statistics.TableStats;
+import org.apache.tajo.plan.expr.EvalNode;
 import org.apache.tajo.storage.*;
 import org.apache.tajo.storage.compress.CodecPool;
 import org.apache.tajo.storage.exception.AlreadyExistsStorageException;
@@ -277,8 +278,14 @@ public class DelimitedTextFile {
     private int recordCount = 0;
     private int[] targetColumnIndexes;
 
+    /** The number of records rejected by the filter. They are also counted in recordCount. */
+    private long filteredCount = 0;
+    private VTuple tuple;
+
     private DelimitedLineReader reader;
     private TextLineDeserializer deserializer;
+    private EvalNode searchCondition;
+    private TextFieldFilter filter;
 
     private int errorPrintOutMaxNum = 5;
     /** Maximum number of permissible errors */
@@ -334,6 +341,9 @@ public class DelimitedTextFile {
 
       deserializer = getLineSerde().createDeserializer(schema, meta, targetColumnIndexes);
       deserializer.init();
+      filter = TextFieldFilter.create(schema, searchCondition);
+      filteredCount = 0;
+      tuple = null;
     }
 
     public TextLineSerDe getLineSerde() {
@@ -362,8 +372,6 @@ public class DelimitedTextFile {
 
     @Override
     public Tuple next() throws IOException {
-      VTuple tuple;
-
       if (!reader.isReadable()) {
         return null;
       }
@@ -371,7 +379,7 @@ public class DelimitedTextFile {
       try {
 
         // this loop will continue until one tuple is build or EOS (end of stream).
-        do {
+        while (true) {
 
           ByteBuf buf = reader.readLine();
 
@@ -387,12 +395,19 @@ public class DelimitedTextFile {
             return EmptyTuple.get();
           }
 
-          tuple = new VTuple(schema.size());
+          // a tuple of a rejected line is not filled, so it is reused for the next line.
+          if (tuple == null) {
+            tuple = new VTuple(schema.size());
+          }
 
           try {
-            deserializer.deserialize(buf, tuple);
-            // if a line is read normaly, it exists this loop.
-            break;
+            if (deserializer.deserialize(buf, tuple, filter)) {
+              // if a line is read normaly, it exists this loop.
+              break;
+            }
+            // a rejected line is still a read record.
+            recordCount++;
+            filteredCount++;
 
           } catch (TextLineParsingError tae) {
 
@@ -409,15 +424,21 @@ public class DelimitedTextFile {
             if (errorTorrenceMaxNum >= 0 && errorNum > errorTorrenceMaxNum) {
               throw tae;
             }
-            continue;
+            tuple = null;
           }
 
-        } while (reader.isReadable()); // continue until EOS
+          // continue until EOS
+          if (!reader.isReadable()) {
+            return null;
+          }
+        }
 
         // recordCount means the number of actual read records. We increment the count here.
         recordCount++;
 
-        return tuple;
+        Tuple result = tuple;
+        tuple = null;
+        return result;
 
       } catch (Throwable t) {
         LOG.error(t);
@@ -442,7 +463,7 @@ public class DelimitedTextFile {
           tableStats.setNumRows(recordCount);
         }
         if (LOG.isDebugEnabled()) {
-          LOG.debug("DelimitedTextFileScanner processed record:" + recordCount);
+          LOG.debug("DelimitedTextFileScanner processed record:" + recordCount + ", filtered record:" + filteredCount);
         }
       } finally {
         IOUtils.cleanup(LOG, reader);
@@ -455,13 +476,20 @@ public class DelimitedTextFile {
       return true;
     }
 
+    /**
+     * Lines which cannot satisfy simple predicates of a search condition are rejected before their fields are
+     * materialized, but the returned tuples still should be filtered by the search condition.
+     */
     @Override
     public boolean isSelectable() {
-      return false;
+      return true;
     }
 
     @Override
     public void setSearchCondition(Object expr) {
+      if (expr instanceof EvalNode) {
+        this.searchCondition = (EvalNode) expr;
+      }
     }
 
     @Override
@@ -469,6 +497,13 @@ public class DelimitedTextFile {
       return splittable;
     }
 
+    /**
+     * @return The number of records rejected by simple predicates of the search condition
+     */
+    public long getNumFilteredRows() {
+      return filteredCount;
+    }
+
     @Override
     public TableStats getInputStats() {
       if (tableStats != null && reader != null) {
@@ -0,0 +1,368 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.tajo.storage.text;
+
+import io.netty.buffer.ByteBuf;
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.plan.expr.*;
+import org.apache.tajo.util.NumberUtil;
+
+import java.util.Arrays;
+
+/**
+ * It evaluates simple predicates of a search condition against the raw bytes of text fields, so that
+ * a line can be rejected before any {@link Datum} is created for it.
+ *
+ * A search condition is split into conjunctive predicates, and only predicates which compare an integer,
+ * FLOAT8 or TEXT column with a constant (i.e., =, <>, <, <=, >, >= and IS [NOT] NULL) are kept. A line is
+ * rejected if any of them is false or unknown. A field which cannot be parsed is not decided here, so that
+ * the error is handled when the field is materialized. The search condition still must be evaluated
+ * against the returned tuples.
+ */
+public class TextFieldFilter {
+  /** column id -> the predicates of the column */
+  private final FieldPredicate [][] predicates;
+  private final int maxColumnId;
+
+  private TextFieldFilter(FieldPredicate [][] predicates, int maxColumnId) {
+    this.predicates = predicates;
+    this.maxColumnId = maxColumnId;
+  }
+
+  /**
+   * @return a filter of the given search condition, or null if no predicate can be evaluated against raw fields.
+   */
+  public static TextFieldFilter create(Schema schema, EvalNode searchCondition) {
+    if (searchCondition == null) {
+      return null;
+    }
+
+    FieldPredicate [][] predicates = new FieldPredicate[schema.size()][];
+    int maxColumnId = -1;
+    for (EvalNode eval : AlgebraicUtil.toConjunctiveNormalFormArray(searchCondition)) {
+      int columnId = getColumnId(schema, eval);
+      if (columnId < 0) {
+        continue;
+      }
+      FieldPredicate predicate = createPredicate(schema.getColumn(columnId).getDataType().getType(), eval);
+      if (predicate == null) {
+        continue;
+      }
+
+      if (predicates[columnId] == null) {
+        predicates[columnId] = new FieldPredicate[] {predicate};
+      } else {
+        FieldPredicate [] columnPredicates = Arrays.copyOf(predicates[columnId], predicates[columnId].length + 1);
+        columnPredicates[columnPredicates.length - 1] = predicate;
+        predicates[columnId] = columnPredicates;
+      }
+      maxColumnId = Math.max(maxColumnId, columnId);
+    }
+
+    return maxColumnId < 0 ? null : new TextFieldFilter(predicates, maxColumnId);
+  }
+
+  /**
+   * @return the largest id of the columns which have predicates
+   */
+  public int getMaxColumnId() {
+    return maxColumnId;
+  }
+
+  public boolean hasPredicate(int columnId) {
+    return columnId < predicates.length && predicates[columnId] != null;
+  }
+
+  /**
+   * @param field the raw bytes of a field between the reader index and the writer index
+   * @return false if the line of the given field cannot satisfy the search condition
+   */
+  public boolean accept(int columnId, ByteBuf field, ByteBuf nullChars) {
+    for (FieldPredicate predicate : predicates[columnId]) {
+      if (!predicate.accept(field, nullChars)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int getColumnId(Schema schema, EvalNode eval) {
+    EvalNode column;
+    switch (eval.getType()) {
+    case EQUAL:
+    case NOT_EQUAL:
+    case LTH:
+    case LEQ:
+    case GTH:
+    case GEQ: {
+      BinaryEval binaryEval = (BinaryEval) eval;
+      if (binaryEval.getLeftExpr().getType() == EvalType.FIELD && isConstant(binaryEval.getRightExpr())) {
+        column = binaryEval.getLeftExpr();
+      } else if (isConstant(binaryEval.getLeftExpr()) && binaryEval.getRightExpr().getType() == EvalType.FIELD) {
+        column = binaryEval.getRightExpr();
+      } else {
+        return -1;
+      }
+      break;
+    }
+    case IS_NULL:
+      column = ((IsNullEval) eval).getChild();
+      if (column.getType() != EvalType.FIELD) {
+        return -1;
+      }
+      break;
+    default:
+      return -1;
+    }
+
+    // e.g., partition columns are not in the schema
+    Column columnRef = ((FieldEval) column).getColumnRef();
+    return schema.getColumnIdByName(columnRef.getSimpleName());
+  }
+
+  private static boolean isConstant(EvalNode eval) {
+    return eval.getType() == EvalType.CONST && !((ConstEval) eval).getValue().isNull();
+  }
+
+  private static FieldPredicate createPredicate(Type columnType, EvalNode eval) {
+    if (!isSupportedType(columnType)) {
+      return null;
+    }
+
+    if (eval.getType() == EvalType.IS_NULL) {
+      return new IsNullPredicate(columnType, ((IsNullEval) eval).isNot());
+    }
+
+    BinaryEval binaryEval = (BinaryEval) eval;
+    EvalType op;
+    Datum value;
+    if (binaryEval.getLeftExpr().getType() == EvalType.FIELD) {
+      op = eval.getType();
+      value = ((ConstEval) binaryEval.getRightExpr()).getValue();
+    } else {
+      op = flip(eval.getType());
+      value = ((ConstEval) binaryEval.getLeftExpr()).getValue();
+    }
+
+    Type valueType = value.type();
+    switch (columnType) {
+    case INT1:
+    case INT2:
+    case INT4:
+    case INT8:
+      if (valueType == Type.INT2 || valueType == Type.INT4 || valueType == Type.INT8) {
+        return new LongPredicate(columnType, op, value.asInt8());
+      }
+      return null;
+    case FLOAT8:
+      if (valueType == Type.INT2 || valueType == Type.INT4 || valueType == Type.INT8 ||
+          valueType == Type.FLOAT4 || valueType == Type.FLOAT8) {
+        return new DoublePredicate(op, value.asFloat8());
+      }
+      return null;
+    case TEXT:
+      if (valueType == Type.TEXT) {
+        return new TextPredicate(op, value.asByteArray());
+      }
+      return null;
+    default:
+      return null;
+    }
+  }
+
+  private static boolean isSupportedType(Type type) {
+    switch (type) {
+    case INT1:
+    case INT2:
+    case INT4:
+    case INT8:
+    case FLOAT8:
+    case TEXT:
+      return true;
+    default:
+      return false;
+    }
+  }
+
+  private static EvalType flip(EvalType type) {
+    switch (type) {
+    case LTH:
+      return EvalType.GTH;
+    case LEQ:
+      return EvalType.GEQ;
+    case GTH:
+      return EvalType.LTH;
+    case GEQ:
+      return EvalType.LEQ;
+    default:
+      return type;
+    }
+  }
+
+  private static boolean isNull(Type type, ByteBuf field, ByteBuf nullChars) {
+    if (type == Type.TEXT) {
+      return TextFieldSerializerDeserializer.isNullText(field, nullChars);
+    } else {
+      return TextFieldSerializerDeserializer.isNull(field, nullChars);
+    }
+  }
+
+  private static boolean compare(EvalType op, int cmp) {
+    switch (op) {
+    case EQUAL:
+      return cmp == 0;
+    case NOT_EQUAL:
+      return cmp != 0;
+    case LTH:
+      return cmp < 0;
+    case LEQ:
+      return cmp <= 0;
+    case GTH:
+      return cmp > 0;
+    case GEQ:
+      return cmp >= 0;
+    default:
+      return true;
+    }
+  }
+
+  private static abstract class FieldPredicate {
+    abstract boolean accept(ByteBuf field, ByteBuf nullChars);
+  }
+
+  private static class IsNullPredicate extends FieldPredicate {
+    private final Type type;
+    private final boolean not;
+
+    IsNullPredicate(Type type, boolean not) {
+      this.type = type;
+      this.not = not;
+    }
+
+    @Override
+    boolean accept(ByteBuf field, ByteBuf nullChars) {
+      return isNull(type, field, nullChars) != not;
+    }
+  }
+
+  private static class LongPredicate extends FieldPredicate {
+    private final Type type;
+    private final EvalType op;
+    private final long value;
+
+    LongPredicate(Type type, EvalType op, long value) {
+      this.type = type;
+      this.op = op;
+      this.value = value;
+    }
+
+    @Override
+    boolean accept(ByteBuf field, ByteBuf nullChars) {
+      if (isNull(type, field, nullChars)) {
+        return false;
+      }
+
+      long parsed;
+      try {
+        // the same parsers with TextFieldSerializerDeserializer
+        switch (type) {
+        case INT8:
+          parsed = NumberUtil.parseLong(field);
+          break;
+        case INT4:
+          parsed = NumberUtil.parseInt(field);
+          break;
+        default:
+          parsed = (short) NumberUtil.parseInt(field);
+          break;
+        }
+      } catch (NumberFormatException e) {
+        return true;
+      }
+      return compare(op, parsed < value ? -1 : (parsed == value ? 0 : 1));
+    }
+  }
+
+  private static class DoublePredicate extends FieldPredicate {
+    private final EvalType op;
+    private final double value;
+
+    DoublePredicate(EvalType op, double value) {
+      this.op = op;
+      this.value = value;
+    }
+
+    @Override
+    boolean accept(ByteBuf field, ByteBuf nullChars) {
+      if (isNull(Type.FLOAT8, field, nullChars)) {
+        return false;
+      }
+
+      double parsed;
+      try {
+        parsed = NumberUtil.parseDouble(field);
+      } catch (NumberFormatException e) {
+        return true;
+      }
+      if (Double.isNaN(parsed) || Double.isNaN(value)) {
+        return true;
+      }
+      return compare(op, parsed < value ? -1 : (parsed == value ? 0 : 1));
+    }
+  }
+
+  private static class TextPredicate extends FieldPredicate {
+    private final EvalType op;
+    private final byte [] value;
+
+    TextPredicate(EvalType op, byte [] value) {
+      this.op = op;
+      this.value = value;
+    }
+
+    @Override
+    boolean accept(ByteBuf field, ByteBuf nullChars) {
+      if (isNull(Type.TEXT, field, nullChars)) {
+        return false;
+      }
+      return compare(op, compareUnsigned(field, value));
+    }
+
+    /**
+     * It compares bytes in the same order with {@link org.apache.tajo.datum.TextDatum#COMPARATOR}.
+     */
+    private static int compareUnsigned(ByteBuf field, byte [] value) {
+      int start = field.readerIndex();
+      int length = field.readableBytes();
+      int minLength = Math.min(length, value.length);
+      for (int i = 0; i < minLength; i++) {
+        int a = field.getByte(start + i) & 0xFF;
+        int b = value[i] & 0xFF;
+        if (a != b) {
+          return a - b;
+        }
+      }
+      return length - value.length;
+    }
+  }
+}
@@ -52,11 +52,11 @@ public class TextFieldSerializerDeserializer implements FieldSerializerDeseriali
     timezone = TimeZone.getTimeZone(meta.getOption(StorageConstants.TIMEZONE, TajoConstants.DEFAULT_SYSTEM_TIMEZONE));
   }
 
-  private static boolean isNull(ByteBuf val, ByteBuf nullBytes) {
+  static boolean isNull(ByteBuf val, ByteBuf nullBytes) {
     return !val.isReadable() || nullBytes.equals(val);
   }
 
-  private static boolean isNullText(ByteBuf val, ByteBuf nullBytes) {
+  static boolean isNullText(ByteBuf val, ByteBuf nullBytes) {
     return val.readableBytes() > 0 && nullBytes.equals(val);
   }
 
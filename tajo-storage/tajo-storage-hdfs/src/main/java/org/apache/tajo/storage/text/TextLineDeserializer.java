@@ -53,6 +53,22 @@ public abstract class TextLineDeserializer {
    */
   public abstract void deserialize(final ByteBuf buf, Tuple output) throws IOException, TextLineParsingError;
 
+  /**
+   * It fills a tuple with a read fields in a given line only if the line may satisfy a given filter.
+   * A deserializer which cannot evaluate the filter against raw fields fills all target fields.
+   *
+   * @param buf Read line
+   * @param output Tuple to be filled with read fields
+   * @param filter The filter of raw fields. It can be null.
+   * @return false if the line is rejected by the filter. Then, the tuple is not filled.
+   * @throws java.io.IOException
+   */
+  public boolean deserialize(final ByteBuf buf, Tuple output, TextFieldFilter filter)
+      throws IOException, TextLineParsingError {
+    deserialize(buf, output);
+    return true;
+  }
+
   /**
    * Release external resources
    */
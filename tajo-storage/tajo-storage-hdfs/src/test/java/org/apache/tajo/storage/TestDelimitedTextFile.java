@@ -31,7 +31,11 @@ import org.apache.tajo.common.TajoDataTypes.Type;
 import org.apache.tajo.conf.TajoConf;
 import org.apache.tajo.datum.Datum;
 import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.plan.expr.*;
 import org.apache.tajo.storage.fragment.FileFragment;
+import org.apache.tajo.storage.text.DelimitedTextFile;
+import org.apache.tajo.util.CommonTestingUtil;
 import org.apache.tajo.util.FileUtil;
 import org.junit.Test;
 
@@ -177,4 +181,73 @@ public class TestDelimitedTextFile {
       scanner.close();
     }
   }
+
+  @Test
+  public void testSearchCondition() throws IOException {
+    TajoConf conf = new TajoConf();
+    Schema schema = new Schema();
+    schema.addColumn("id", Type.INT4);
+    schema.addColumn("score", Type.FLOAT8);
+    schema.addColumn("name", Type.TEXT);
+    schema.addColumn("comment", Type.TEXT);
+
+    TableMeta meta = CatalogUtil.newTableMeta(CatalogProtos.StoreType.TEXTFILE);
+    Path testDir = CommonTestingUtil.getTestDir("target/test-data/TestDelimitedTextFile");
+    Path tablePath = new Path(testDir, "table.txt");
+    FileStorageManager sm = (FileStorageManager) StorageManager.getFileStorageManager(conf);
+    Appender appender = sm.getAppender(meta, schema, tablePath);
+    appender.init();
+    int tupleNum = 1000;
+    for (int i = 0; i < tupleNum; i++) {
+      Tuple tuple = new VTuple(schema.size());
+      tuple.put(0, DatumFactory.createInt4(i));
+      tuple.put(1, DatumFactory.createFloat8(i / 10.0d));
+      tuple.put(2, i % 10 == 0 ? NullDatum.get() : DatumFactory.createText("name_" + (i % 7)));
+      tuple.put(3, DatumFactory.createText("comment_" + i));
+      appender.addTuple(tuple);
+    }
+    appender.close();
+
+    // id >= 100 and score < 50.0 and name = 'name_3'
+    EvalNode qual = new BinaryEval(EvalType.AND,
+        new BinaryEval(EvalType.AND,
+            new BinaryEval(EvalType.GEQ, new FieldEval(schema.getColumn("id")),
+                new ConstEval(DatumFactory.createInt4(100))),
+            new BinaryEval(EvalType.LTH, new ConstEval(DatumFactory.createFloat8(50.0d)),
+                new FieldEval(schema.getColumn("score")))),
+        new BinaryEval(EvalType.EQUAL, new FieldEval(schema.getColumn("name")),
+            new ConstEval(DatumFactory.createText("name_3"))));
+
+    FileStatus status = tablePath.getFileSystem(conf).getFileStatus(tablePath);
+    FileFragment fragment = new FileFragment("table", tablePath, 0, status.getLen());
+    Scanner scanner = sm.getScanner(meta, schema, fragment);
+    assertTrue(scanner.isSelectable());
+    scanner.setSearchCondition(qual);
+    scanner.init();
+
+    int expected = 0;
+    for (int i = 0; i < tupleNum; i++) {
+      if (i >= 100 && 50.0d < i / 10.0d && i % 10 != 0 && i % 7 == 3) {
+        expected++;
+      }
+    }
+
+    Tuple tuple;
+    int count = 0;
+    while ((tuple = scanner.next()) != null) {
+      int id = tuple.get(0).asInt4();
+      assertTrue(id > 500);
+      assertEquals("name_3", tuple.get(2).asChars());
+      assertEquals("comment_" + id, tuple.get(3).asChars());
+      count++;
+    }
+    scanner.close();
+    assertEquals(expected, count);
+
+    // numRows still counts all read lines, and rejected lines are counted separately.
+    assertEquals(tupleNum, scanner.getInputStats().getNumRows().longValue());
+    long filtered = ((DelimitedTextFile.DelimitedTextFileScanner) scanner).getNumFilteredRows();
+    assertTrue(filtered > 0);
+    assertTrue(filtered <= tupleNum - count);
+  }
 }
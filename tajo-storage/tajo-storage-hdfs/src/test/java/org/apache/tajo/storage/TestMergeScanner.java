@@ -83,6 +83,7 @@ public class TestMergeScanner {
         {StoreType.PARQUET},
         {StoreType.SEQUENCEFILE},
         {StoreType.AVRO},
+        {StoreType.CFILE},
         // RowFile requires Byte-buffer read support, so we omitted RowFile.
         //{StoreType.ROWFILE},
     });
@@ -194,6 +195,7 @@ public class TestMergeScanner {
       case SEQUENCEFILE:
       case CSV:
       case AVRO:
+      case CFILE:
         return true;
       default:
         return false;
@@ -0,0 +1,59 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.tajo.storage;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.tajo.util.CommonTestingUtil;
+import org.apache.tajo.util.Pair;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TestSortShuffleIndex {
+  private static String TEST_PATH = "target/test-data/TestSortShuffleIndex";
+
+  @Test
+  public void testGetPartitionRange() throws IOException {
+    Path testDir = CommonTestingUtil.getTestDir(TEST_PATH);
+    File indexFile = new File(new Path(testDir, SortShuffleIndex.INDEX_FILE_NAME).toUri());
+
+    // partition 1 is empty
+    SortShuffleIndex.write(indexFile, new long[]{0, 100, 100, 250});
+
+    Pair<Long, Long> range = SortShuffleIndex.getPartitionRange(indexFile, 0);
+    assertEquals(0L, range.getFirst().longValue());
+    assertEquals(100L, range.getSecond().longValue());
+
+    range = SortShuffleIndex.getPartitionRange(indexFile, 1);
+    assertEquals(100L, range.getFirst().longValue());
+    assertEquals(0L, range.getSecond().longValue());
+
+    range = SortShuffleIndex.getPartitionRange(indexFile, 2);
+    assertEquals(100L, range.getFirst().longValue());
+    assertEquals(150L, range.getSecond().longValue());
+
+    assertNull(SortShuffleIndex.getPartitionRange(indexFile, 3));
+    assertNull(SortShuffleIndex.getPartitionRange(indexFile, -1));
+  }
+}
@@ -19,6 +19,8 @@
 package org.apache.tajo.storage;
 
 import com.google.common.collect.Lists;
+import io.netty.buffer.ByteBuf;
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
@@ -41,6 +43,7 @@ import org.apache.tajo.datum.ProtobufDatumFactory;
 import org.apache.tajo.storage.fragment.FileFragment;
 import org.apache.tajo.storage.rcfile.RCFile;
 import org.apache.tajo.storage.sequencefile.SequenceFileScanner;
+import org.apache.tajo.tuple.offheap.ZeroCopyTuple;
 import org.apache.tajo.util.CommonTestingUtil;
 import org.apache.tajo.util.FileUtil;
 import org.apache.tajo.util.KeyValueSet;
@@ -54,6 +57,7 @@ import java.util.Collection;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 @RunWith(Parameterized.class)
@@ -143,6 +147,7 @@ public class TestStorages {
         {StoreType.AVRO, false, false, false},
         {StoreType.TEXTFILE, true, true, false},
         {StoreType.JSON, true, true, false},
+        {StoreType.CFILE, true, true, false},
     });
   }
 
@@ -301,7 +306,8 @@ public class TestStorages {
           || storeType == StoreType.CSV
           || storeType == StoreType.PARQUET
           || storeType == StoreType.SEQUENCEFILE
-          || storeType == StoreType.AVRO) {
+          || storeType == StoreType.AVRO
+          || storeType == StoreType.CFILE) {
         assertTrue(tuple.get(0) == null);
       }
       assertTrue(tupleCnt + 2 == tuple.get(1).asInt8());
@@ -773,7 +779,7 @@ public class TestStorages {
 
   @Test
   public void testTime() throws IOException {
-    if (storeType == StoreType.CSV || storeType == StoreType.RAW) {
+    if (storeType == StoreType.CSV || storeType == StoreType.RAW || storeType == StoreType.CFILE) {
       Schema schema = new Schema();
       schema.addColumn("col1", Type.DATE);
       schema.addColumn("col2", Type.TIME);
@@ -890,6 +896,155 @@ public class TestStorages {
     }
   }
 
+  @Test
+  public void testRawFileInMemory() throws IOException {
+    if (storeType != StoreType.RAW) {
+      return;
+    }
+
+    Schema schema = new Schema();
+    schema.addColumn("id", Type.INT4);
+    schema.addColumn("comment", Type.TEXT);
+    TableMeta meta = CatalogUtil.newTableMeta(storeType);
+
+    Path tablePath = new Path(testDir, "InMemory.data");
+    RawFile.RawFileAppender appender = new RawFile.RawFileAppender(conf, null, schema, meta, tablePath);
+    appender.init();
+    int tupleNum = 1000;
+    for (int i = 0; i < tupleNum; i++) {
+      VTuple tuple = new VTuple(2);
+      tuple.put(0, DatumFactory.createInt4(i));
+      tuple.put(1, DatumFactory.createText("comment" + i));
+      appender.addTuple(tuple);
+    }
+    appender.close();
+
+    // the contents of the file are registered with a path which does not exist
+    byte [] contents = new byte[(int) fs.getFileStatus(tablePath).getLen()];
+    FSDataInputStream in = fs.open(tablePath);
+    in.readFully(contents);
+    in.close();
+    ByteBuf buf = BufferPool.directBuffer(contents.length);
+    buf.writeBytes(contents);
+    Path memoryPath = new Path(testDir, "InMemory.mem");
+    MemoryFileStore.put(memoryPath, buf);
+
+    try {
+      FileFragment fragment = new FileFragment("table", memoryPath, 0, contents.length);
+      RawFile.RawFileScanner scanner = new RawFile.RawFileScanner(conf, schema, meta, fragment);
+      scanner.init();
+      int tupleCnt = 0;
+      Tuple retrieved;
+      while ((retrieved = scanner.next()) != null) {
+        assertEquals(tupleCnt, retrieved.getInt4(0));
+        assertEquals("comment" + tupleCnt, retrieved.getText(1));
+        tupleCnt++;
+      }
+      assertEquals(tupleNum, tupleCnt);
+      assertEquals(contents.length, scanner.getNextOffset());
+
+      scanner.reset();
+      assertEquals(0, scanner.next().getInt4(0));
+      scanner.close();
+    } finally {
+      assertTrue(MemoryFileStore.remove(memoryPath));
+    }
+  }
+
+  @Test
+  public void testRawFileUnSafeRowFormat() throws IOException {
+    if (storeType != StoreType.RAW) {
+      return;
+    }
+
+    Schema schema = new Schema();
+    schema.addColumn("id", Type.INT4);
+    schema.addColumn("age", Type.INT8);
+    schema.addColumn("score", Type.FLOAT8);
+    schema.addColumn("comment", Type.TEXT);
+
+    TableMeta meta = CatalogUtil.newTableMeta(storeType);
+    meta.putOption(StorageConstants.RAWFILE_ROW_FORMAT, StorageConstants.RAWFILE_ROW_FORMAT_UNSAFE);
+
+    // a small write buffer makes rows span across buffer flushes
+    TajoConf writeConf = new TajoConf(conf);
+    writeConf.setInt(RawFile.WRITE_BUFFER_SIZE, 64);
+
+    Path tablePath = new Path(testDir, "UnSafeRow.data");
+    RawFile.RawFileAppender appender = new RawFile.RawFileAppender(writeConf, null, schema, meta, tablePath);
+    appender.enableStats();
+    appender.init();
+
+    int tupleNum = 10000;
+    List<Long> offsets = Lists.newArrayList();
+    offsets.add(0L);
+    for (int i = 0; i < tupleNum; i++) {
+      VTuple tuple = new VTuple(4);
+      tuple.put(0, DatumFactory.createInt4(i));
+      tuple.put(1, i % 10 == 0 ? NullDatum.get() : DatumFactory.createInt8(i * 100L));
+      tuple.put(2, DatumFactory.createFloat8(i / 3.0d));
+      tuple.put(3, DatumFactory.createText("comment" + i));
+      appender.addTuple(tuple);
+
+      if (i % (tupleNum / 3) == 0) {
+        offsets.add(appender.getOffset());
+      }
+    }
+    if (!offsets.contains(appender.getOffset())) {
+      offsets.add(appender.getOffset());
+    }
+    appender.close();
+
+    FileStatus status = fs.getFileStatus(tablePath);
+    assertEquals(status.getLen(), appender.getOffset());
+    assertEquals(tupleNum, appender.getStats().getNumRows().longValue());
+
+    for (boolean mmap : new boolean[] {true, false}) {
+      TajoConf readConf = new TajoConf(conf);
+      readConf.setBoolean(RawFile.MMAP_ENABLED, mmap);
+
+      int tupleCnt = 0;
+      long prevOffset = 0;
+      for (long offset : offsets) {
+        FileFragment fragment = new FileFragment("table", tablePath, prevOffset, offset - prevOffset);
+        RawFile.RawFileScanner scanner = new RawFile.RawFileScanner(readConf, schema, meta, fragment);
+        scanner.init();
+
+        Tuple retrieved;
+        while ((retrieved = scanner.next()) != null) {
+          assertTrue(retrieved instanceof ZeroCopyTuple);
+          assertEquals(tupleCnt, retrieved.getInt4(0));
+          if (tupleCnt % 10 == 0) {
+            assertTrue(retrieved.isNull(1));
+          } else {
+            assertEquals(tupleCnt * 100L, retrieved.getInt8(1));
+          }
+          assertEquals(tupleCnt / 3.0d, retrieved.getFloat8(2), 0.0d);
+          assertEquals("comment" + tupleCnt, retrieved.getText(3));
+          tupleCnt++;
+        }
+        scanner.close();
+        prevOffset = offset;
+      }
+      assertEquals(tupleNum, tupleCnt);
+
+      // seek to the last row
+      FileFragment fragment = new FileFragment("table", tablePath, 0, status.getLen());
+      RawFile.RawFileScanner scanner = new RawFile.RawFileScanner(readConf, schema, meta, fragment);
+      scanner.init();
+      scanner.seek(offsets.get(offsets.size() - 2));
+      Tuple retrieved = null;
+      Tuple last = null;
+      while ((retrieved = scanner.next()) != null) {
+        last = new VTuple(retrieved);
+      }
+      assertEquals(tupleNum - 1, last.getInt4(0));
+      assertEquals(status.getLen(), scanner.getNextOffset());
+      assertNull(scanner.next());
+      scanner.close();
+    }
+  }
+
   @Test
   public void testMaxValue() throws IOException {
 
@@ -0,0 +1,247 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.tajo.storage.cfile;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.tajo.catalog.CatalogUtil;
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.TableMeta;
+import org.apache.tajo.catalog.proto.CatalogProtos.StoreType;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.plan.expr.*;
+import org.apache.tajo.storage.*;
+import org.apache.tajo.storage.cfile.EncodingUtil.Input;
+import org.apache.tajo.storage.cfile.EncodingUtil.Output;
+import org.apache.tajo.storage.fragment.FileFragment;
+import org.apache.tajo.storage.vector.RowBatch;
+import org.apache.tajo.util.CommonTestingUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TestCFile {
+  private static final String TEST_PATH = "target/test-data/TestCFile";
+  private static final int ROW_NUM = 10000;
+
+  private TajoConf conf;
+  private Path testDir;
+  private FileSystem fs;
+
+  @Before
+  public void setUp() throws IOException {
+    conf = new TajoConf();
+    testDir = CommonTestingUtil.getTestDir(TEST_PATH);
+    fs = testDir.getFileSystem(conf);
+  }
+
+  private static byte [] toBytes(Output out) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    out.writeTo(bytes);
+    return bytes.toByteArray();
+  }
+
+  private static long [] roundTrip(long [] values, ChunkEncoding expected) throws IOException {
+    ChunkEncoding encoding = EncodingUtil.chooseLongEncoding(values, values.length);
+    assertEquals(expected, encoding);
+
+    Output out = new Output(16);
+    EncodingUtil.encodeLongs(encoding, values, values.length, out);
+    byte [] bytes = toBytes(out);
+
+    Input in = new Input();
+    in.reset(bytes, 0, bytes.length);
+    long [] decoded = new long[values.length];
+    EncodingUtil.decodeLongs(encoding, in, decoded, values.length);
+    assertArrayEquals(values, decoded);
+    return decoded;
+  }
+
+  @Test
+  public void testLongEncodings() throws IOException {
+    long [] sorted = new long[1000];
+    for (int i = 0; i < sorted.length; i++) {
+      sorted[i] = 1000000000L + i * 3;
+    }
+    roundTrip(sorted, ChunkEncoding.DELTA);
+
+    long [] repeated = new long[1000];
+    for (int i = 0; i < repeated.length; i++) {
+      repeated[i] = i / 100;
+    }
+    roundTrip(repeated, ChunkEncoding.RLE);
+
+    Random rnd = new Random(0);
+    long [] smallRange = new long[1000];
+    for (int i = 0; i < smallRange.length; i++) {
+      smallRange[i] = -100 + rnd.nextInt(200);
+    }
+    roundTrip(smallRange, ChunkEncoding.BIT_PACKED);
+
+    long [] extremes = new long[] {Long.MIN_VALUE, Long.MAX_VALUE, 0, -1, 1, Long.MAX_VALUE, Long.MIN_VALUE};
+    ChunkEncoding encoding = EncodingUtil.chooseLongEncoding(extremes, extremes.length);
+    Output out = new Output(16);
+    EncodingUtil.encodeLongs(encoding, extremes, extremes.length, out);
+    Input in = new Input();
+    byte [] bytes = toBytes(out);
+    in.reset(bytes, 0, bytes.length);
+    long [] decoded = new long[extremes.length];
+    EncodingUtil.decodeLongs(encoding, in, decoded, extremes.length);
+    assertArrayEquals(extremes, decoded);
+  }
+
+  @Test
+  public void testDictionaryChunk() throws IOException {
+    Column column = new Column("name", Type.TEXT);
+    ColumnChunkWriter writer = ColumnChunkWriter.create(column);
+
+    int rows = 1000;
+    Tuple tuple = new VTuple(1);
+    for (int i = 0; i < rows; i++) {
+      tuple.put(0, i % 7 == 0 ? NullDatum.get() : DatumFactory.createText("value_" + (i % 10)));
+      writer.add(tuple, 0);
+    }
+
+    Output out = new Output(1024);
+    ColumnChunkMeta meta = writer.write(0, out);
+    assertEquals(ChunkEncoding.DICTIONARY, meta.getEncoding());
+    assertEquals((rows + 6) / 7, meta.getNumNulls());
+
+    ColumnChunkReader reader = new ColumnChunkReader(column.getDataType());
+    reader.load(toBytes(out), 0, meta, rows);
+    assertEquals(rows, reader.getNumRows());
+    for (int i = 0; i < rows; i++) {
+      if (i % 7 == 0) {
+        assertTrue(reader.isNull(i));
+      } else {
+        assertFalse(reader.isNull(i));
+        assertEquals("value_" + (i % 10), reader.get(i).asChars());
+      }
+    }
+  }
+
+  private Path writeTable(Schema schema, TableMeta meta) throws IOException {
+    Path tablePath = new Path(testDir, "table.cfile");
+    FileStorageManager sm = (FileStorageManager) StorageManager.getFileStorageManager(conf);
+    Appender appender = sm.getAppender(meta, schema, tablePath);
+    appender.enableStats();
+    appender.init();
+    for (int i = 0; i < ROW_NUM; i++) {
+      Tuple tuple = new VTuple(schema.size());
+      tuple.put(0, DatumFactory.createInt4(i));
+      tuple.put(1, DatumFactory.createFloat8(i / 10.0d));
+      tuple.put(2, i % 3 == 0 ? NullDatum.get() : DatumFactory.createText("name_" + (i % 100)));
+      appender.addTuple(tuple);
+    }
+    appender.close();
+    assertEquals(ROW_NUM, appender.getStats().getNumRows().longValue());
+    return tablePath;
+  }
+
+  private static Schema newSchema() {
+    Schema schema = new Schema();
+    schema.addColumn(new Column("id", Type.INT4));
+    schema.addColumn(new Column("score", Type.FLOAT8));
+    schema.addColumn(new Column("name", Type.TEXT));
+    return schema;
+  }
+
+  @Test
+  public void testSkipStripes() throws IOException {
+    Schema schema = newSchema();
+    TableMeta meta = CatalogUtil.newTableMeta(StoreType.CFILE);
+    // small stripes sorted by id
+    meta.putOption(StorageConstants.CFILE_STRIPE_SIZE, "1024");
+    Path tablePath = writeTable(schema, meta);
+
+    long fileLen = fs.getFileStatus(tablePath).getLen();
+    FileFragment fragment = new FileFragment("table", tablePath, 0, fileLen);
+    FileStorageManager sm = (FileStorageManager) StorageManager.getFileStorageManager(conf);
+
+    Scanner scanner = sm.getScanner(meta, schema, fragment, schema);
+    assertTrue(scanner.isSelectable());
+    scanner.setSearchCondition(new BinaryEval(EvalType.LTH, new FieldEval(schema.getColumn("id")),
+        new ConstEval(DatumFactory.createInt4(100))));
+    scanner.init();
+
+    int matched = 0;
+    int returned = 0;
+    Tuple tuple;
+    while ((tuple = scanner.next()) != null) {
+      returned++;
+      if (tuple.get(0).asInt4() < 100) {
+        matched++;
+      }
+    }
+    scanner.close();
+
+    assertEquals(100, matched);
+    assertTrue(returned < ROW_NUM);
+    assertTrue(scanner.getInputStats().getNumSkippedBlocks() > 0);
+    assertTrue(scanner.getInputStats().getSkippedBytes() > 0);
+  }
+
+  @Test
+  public void testNextBatch() throws IOException {
+    Schema schema = newSchema();
+    TableMeta meta = CatalogUtil.newTableMeta(StoreType.CFILE);
+    meta.putOption(StorageConstants.CFILE_STRIPE_SIZE, "4096");
+    Path tablePath = writeTable(schema, meta);
+
+    long fileLen = fs.getFileStatus(tablePath).getLen();
+    FileFragment fragment = new FileFragment("table", tablePath, 0, fileLen);
+    FileStorageManager sm = (FileStorageManager) StorageManager.getFileStorageManager(conf);
+
+    Scanner batchScanner = sm.getScanner(meta, schema, fragment, schema);
+    assertTrue(batchScanner instanceof CFile.CFileScanner);
+    batchScanner.init();
+    Scanner tupleScanner = sm.getScanner(meta, schema, fragment, schema);
+    tupleScanner.init();
+
+    RowBatch batch = new RowBatch(schema, RowBatch.DEFAULT_SIZE, RowBatch.allColumnIds(schema));
+    Tuple row = new VTuple(schema.size());
+    int count = 0;
+    while (((CFile.CFileScanner) batchScanner).nextBatch(batch)) {
+      for (int i = 0; i < batch.size(); i++) {
+        batch.getRow(i, row);
+        Tuple expected = tupleScanner.next();
+        assertNotNull(expected);
+        for (int col = 0; col < schema.size(); col++) {
+          assertEquals(expected.get(col), row.get(col));
+        }
+        count++;
+      }
+    }
+    assertNull(tupleScanner.next());
+    batchScanner.close();
+    tupleScanner.close();
+
+    assertEquals(ROW_NUM, count);
+  }
+}
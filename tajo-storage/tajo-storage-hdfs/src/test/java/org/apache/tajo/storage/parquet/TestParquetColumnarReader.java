@@ -0,0 +1,171 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage.parquet;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.LocalFileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.plan.expr.BinaryEval;
+import org.apache.tajo.plan.expr.ConstEval;
+import org.apache.tajo.plan.expr.EvalType;
+import org.apache.tajo.plan.expr.FieldEval;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
+import org.apache.tajo.storage.vector.DoubleColumnVector;
+import org.apache.tajo.storage.vector.LongColumnVector;
+import org.apache.tajo.storage.vector.RowBatch;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import parquet.hadoop.metadata.CompressionCodecName;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class TestParquetColumnarReader {
+  private static final int ROW_NUM = 5000;
+  private static Schema schema;
+  private static Path file;
+
+  @BeforeClass
+  public static void setUp() throws IOException {
+    schema = new Schema();
+    schema.addColumn(new Column("id", Type.INT4));
+    schema.addColumn(new Column("flag", Type.BOOLEAN));
+    schema.addColumn(new Column("count", Type.INT8));
+    schema.addColumn(new Column("ratio", Type.FLOAT4));
+    schema.addColumn(new Column("price", Type.FLOAT8));
+    schema.addColumn(new Column("status", Type.TEXT));
+    schema.addColumn(new Column("comment", Type.TEXT));
+
+    File tmp = File.createTempFile(TestParquetColumnarReader.class.getSimpleName(), ".tmp");
+    tmp.deleteOnExit();
+    tmp.delete();
+    LocalFileSystem localFS = LocalFileSystem.getLocal(new Configuration());
+    file = localFS.makeQualified(new Path(tmp.getPath()));
+
+    // small blocks make many row groups, and low cardinality columns are dictionary encoded
+    TajoParquetWriter writer = new TajoParquetWriter(file, schema, CompressionCodecName.UNCOMPRESSED, 16 * 1024, 1024);
+    for (int i = 0; i < ROW_NUM; i++) {
+      writer.write(createTuple(i));
+    }
+    writer.close();
+  }
+
+  private static Tuple createTuple(int i) {
+    Tuple tuple = new VTuple(schema.size());
+    tuple.put(0, DatumFactory.createInt4(i));
+    tuple.put(1, DatumFactory.createBool(i % 2 == 0));
+    tuple.put(2, i % 7 == 0 ? NullDatum.get() : DatumFactory.createInt8(i * 1000L));
+    tuple.put(3, DatumFactory.createFloat4(i / 4.0f));
+    tuple.put(4, i % 5 == 0 ? NullDatum.get() : DatumFactory.createFloat8(i * 1.5d));
+    tuple.put(5, DatumFactory.createText("status_" + (i % 3)));
+    tuple.put(6, i % 11 == 0 ? NullDatum.get() : DatumFactory.createText("comment " + i));
+    return tuple;
+  }
+
+  @Test
+  public void testReadAllColumns() throws IOException {
+    ParquetColumnarReader reader = new ParquetColumnarReader(new Configuration(), file, schema, schema.toArray(), null);
+    RowBatch batch = new RowBatch(schema, RowBatch.DEFAULT_SIZE, RowBatch.allColumnIds(schema));
+
+    int rowId = 0;
+    Tuple tuple = new VTuple(schema.size());
+    while (true) {
+      batch.reset();
+      if (!reader.nextBatch(batch)) {
+        break;
+      }
+      assertTrue(batch.size() > 0);
+      for (int row = 0; row < batch.size(); row++, rowId++) {
+        batch.getRow(row, tuple);
+        assertEquals(createTuple(rowId), tuple);
+      }
+    }
+    reader.close();
+    assertEquals(ROW_NUM, rowId);
+  }
+
+  @Test
+  public void testReadProjectedColumns() throws IOException {
+    Column [] targets = new Column[] {schema.getColumn("id"), schema.getColumn("price")};
+    ParquetColumnarReader reader = new ParquetColumnarReader(new Configuration(), file, schema, targets, null);
+    RowBatch batch = new RowBatch(schema, RowBatch.DEFAULT_SIZE, new int[] {0, 4});
+
+    int rowId = 0;
+    while (true) {
+      batch.reset();
+      if (!reader.nextBatch(batch)) {
+        break;
+      }
+      LongColumnVector ids = (LongColumnVector) batch.getColumn(0);
+      DoubleColumnVector prices = (DoubleColumnVector) batch.getColumn(4);
+      for (int row = 0; row < batch.size(); row++, rowId++) {
+        assertEquals(rowId, ids.vector[row]);
+        if (rowId % 5 == 0) {
+          assertTrue(prices.isNullAt(row));
+        } else {
+          assertFalse(prices.isNullAt(row));
+          assertEquals(rowId * 1.5d, prices.vector[row], 0.0d);
+        }
+      }
+      // not projected columns are not filled
+      assertNull(batch.getColumn(5));
+    }
+    reader.close();
+    assertEquals(ROW_NUM, rowId);
+  }
+
+  @Test
+  public void testRowGroupFilter() throws IOException {
+    ParquetRowGroupFilter filter = new ParquetRowGroupFilter(new BinaryEval(EvalType.GEQ,
+        new FieldEval(schema.getColumn("id")), new ConstEval(DatumFactory.createInt4(ROW_NUM - 10))));
+    ParquetColumnarReader reader = new ParquetColumnarReader(new Configuration(), file, schema, schema.toArray(),
+        filter);
+    RowBatch batch = new RowBatch(schema, RowBatch.DEFAULT_SIZE, RowBatch.allColumnIds(schema));
+
+    int rowNum = 0;
+    int lastId = -1;
+    while (true) {
+      batch.reset();
+      if (!reader.nextBatch(batch)) {
+        break;
+      }
+      rowNum += batch.size();
+      lastId = (int) ((LongColumnVector) batch.getColumn(0)).vector[batch.size() - 1];
+    }
+    reader.close();
+
+    assertTrue(reader.getNumSkippedRowGroups() > 0);
+    assertTrue(rowNum < ROW_NUM);
+    assertEquals(ROW_NUM - 1, lastId);
+  }
+
+  @Test
+  public void testSupportedTypes() {
+    assertTrue(ParquetColumnarReader.isSupported(schema.toArray()));
+    assertFalse(ParquetColumnarReader.isSupported(new Column[] {new Column("ip", Type.INET6)}));
+  }
+}
@@ -0,0 +1,166 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage.parquet;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.LocalFileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.plan.expr.*;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import parquet.hadoop.metadata.CompressionCodecName;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class TestParquetRowGroupFilter {
+  private static final int ROW_NUM = 10000;
+  private static Schema schema;
+  private static Path file;
+
+  @BeforeClass
+  public static void setUp() throws IOException {
+    schema = new Schema();
+    schema.addColumn(new Column("id", Type.INT4));
+    schema.addColumn(new Column("score", Type.FLOAT8));
+    schema.addColumn(new Column("name", Type.TEXT));
+
+    File tmp = File.createTempFile(TestParquetRowGroupFilter.class.getSimpleName(), ".tmp");
+    tmp.deleteOnExit();
+    tmp.delete();
+    LocalFileSystem localFS = LocalFileSystem.getLocal(new Configuration());
+    file = localFS.makeQualified(new Path(tmp.getPath()));
+
+    // small blocks make many row groups sorted by id
+    TajoParquetWriter writer = new TajoParquetWriter(file, schema, CompressionCodecName.UNCOMPRESSED, 1024, 1024);
+    for (int i = 0; i < ROW_NUM; i++) {
+      Tuple tuple = new VTuple(schema.size());
+      tuple.put(0, DatumFactory.createInt4(i));
+      tuple.put(1, DatumFactory.createFloat8(i / 10.0d));
+      tuple.put(2, i < ROW_NUM / 2 ? DatumFactory.createText(String.format("name_%05d", i)) : NullDatum.get());
+      writer.write(tuple);
+    }
+    writer.close();
+  }
+
+  private static FieldEval field(String name) {
+    return new FieldEval(schema.getColumn(name));
+  }
+
+  private static ConstEval constant(Datum datum) {
+    return new ConstEval(datum);
+  }
+
+  private static int countRows(TajoParquetReader reader, EvalNode qual) throws IOException {
+    int count = 0;
+    Tuple tuple;
+    while ((tuple = reader.read()) != null) {
+      if (qual.eval(schema, tuple).isTrue()) {
+        count++;
+      }
+    }
+    reader.close();
+    return count;
+  }
+
+  private static TajoParquetReader scan(EvalNode qual) throws IOException {
+    return new TajoParquetReader(file, schema, schema, new ParquetRowGroupFilter(qual));
+  }
+
+  @Test
+  public void testComparison() throws IOException {
+    EvalNode qual = new BinaryEval(EvalType.LTH, field("id"), constant(DatumFactory.createInt4(150)));
+    TajoParquetReader reader = scan(qual);
+    assertEquals(150, countRows(reader, qual));
+    assertTrue(reader.getNumSkippedRowGroups() > 0);
+    assertTrue(reader.getSkippedBytes() > 0);
+
+    // the constant is on the left side
+    qual = new BinaryEval(EvalType.LEQ, constant(DatumFactory.createInt8(9900)), field("id"));
+    reader = scan(qual);
+    assertEquals(100, countRows(reader, qual));
+    assertTrue(reader.getNumSkippedRowGroups() > 0);
+
+    qual = new BinaryEval(EvalType.EQUAL, field("score"), constant(DatumFactory.createFloat8(500.0d)));
+    reader = scan(qual);
+    assertEquals(1, countRows(reader, qual));
+    assertTrue(reader.getNumSkippedRowGroups() > 0);
+  }
+
+  @Test
+  public void testBetweenAndIn() throws IOException {
+    EvalNode qual = new BetweenPredicateEval(false, false, field("id"),
+        constant(DatumFactory.createInt4(3000)), constant(DatumFactory.createInt4(3099)));
+    TajoParquetReader reader = scan(qual);
+    assertEquals(100, countRows(reader, qual));
+    assertTrue(reader.getNumSkippedRowGroups() > 0);
+
+    qual = new InEval(field("name"), new RowConstantEval(new Datum[] {
+        DatumFactory.createText("name_00010"), DatumFactory.createText("name_04000")}), false);
+    reader = scan(qual);
+    assertEquals(2, countRows(reader, qual));
+    assertTrue(reader.getNumSkippedRowGroups() > 0);
+  }
+
+  @Test
+  public void testNulls() throws IOException {
+    // the latter half of names are null
+    EvalNode qual = new IsNullEval(false, field("name"));
+    TajoParquetReader reader = scan(qual);
+    assertEquals(ROW_NUM / 2, countRows(reader, qual));
+    assertTrue(reader.getNumSkippedRowGroups() > 0);
+
+    qual = new BinaryEval(EvalType.GTH, field("name"), constant(DatumFactory.createText("name_04990")));
+    reader = scan(qual);
+    assertEquals(9, countRows(reader, qual));
+    assertTrue(reader.getNumSkippedRowGroups() > 0);
+  }
+
+  @Test
+  public void testUnsupportedPredicates() throws IOException {
+    // OR with an unsupported predicate cannot skip any row group
+    EvalNode qual = new BinaryEval(EvalType.OR,
+        new BinaryEval(EvalType.LTH, field("id"), constant(DatumFactory.createInt4(10))),
+        new BinaryEval(EvalType.NOT_EQUAL, field("id"), constant(DatumFactory.createInt4(5000))));
+    assertTrue(new ParquetRowGroupFilter(qual).isEmpty());
+
+    TajoParquetReader reader = scan(qual);
+    assertEquals(ROW_NUM, countRows(reader, qual));
+    assertEquals(0, reader.getNumSkippedRowGroups());
+
+    // only the supported conjunct is used
+    qual = new BinaryEval(EvalType.AND,
+        new BinaryEval(EvalType.GEQ, field("id"), constant(DatumFactory.createInt4(9990))),
+        new BinaryEval(EvalType.NOT_EQUAL, field("id"), constant(DatumFactory.createInt4(9995))));
+    assertFalse(new ParquetRowGroupFilter(qual).isEmpty());
+    reader = scan(qual);
+    assertEquals(9, countRows(reader, qual));
+    assertTrue(reader.getNumSkippedRowGroups() > 0);
+  }
+}